@@ -3,6 +3,7 @@ package org.corfudb.annotations;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
@@ -16,11 +17,14 @@ import com.squareup.javapoet.TypeVariableName;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -68,6 +72,9 @@ public class ObjectAnnotationProcessor extends AbstractProcessor {
     // $ needs to be escaped, so we use _ for fields.
     private static final String CORFUSMR_FIELD = "_CORFUSMR";
 
+    /** The id of an SMR method whose annotation doesn't give one. */
+    private static final int NO_METHOD_ID = -1;
+
     /** Always support the latest source version.
      *
      * @return  The source version supported.
@@ -577,6 +584,7 @@ public class ObjectAnnotationProcessor extends AbstractProcessor {
         addUndoRecordMap(typeSpecBuilder, originalName, interfacesToAdd, methodSet);
         addUndoMap(typeSpecBuilder, originalName, interfacesToAdd, methodSet);
         addResetSet(typeSpecBuilder, originalName, interfacesToAdd, methodSet);
+        addMethodNames(typeSpecBuilder, methodSet);
 
         typeSpecBuilder
                 .addSuperinterfaces(interfacesToAdd);
@@ -622,6 +630,18 @@ public class ObjectAnnotationProcessor extends AbstractProcessor {
         return name;
     }
 
+    int getAnnotationIdField(ExecutableElement method) {
+        int id = NO_METHOD_ID;
+
+        if (method.getAnnotation(Mutator.class) != null) {
+            id = method.getAnnotation(Mutator.class).id();
+        } else if (method.getAnnotation(MutatorAccessor.class) != null) {
+            id = method.getAnnotation(MutatorAccessor.class).id();
+        }
+
+        return id;
+    }
+
     /*
      * Verify that the no upcall methods reference valid upcall methods
      */
@@ -704,6 +724,61 @@ public class ObjectAnnotationProcessor extends AbstractProcessor {
 
     }
 
+    /** Add the SMR method names and the getter for the names. The id of an SMR method is
+     * given by its annotation and is its index in the names, so that ids don't change
+     * when methods are added or removed. Ids which are not used have no name.
+     *
+     * @param typeSpecBuilder   The typespec builder to add the method names to
+     * @param methodSet         The set of methods to add for instrumentation.
+     */
+    private void addMethodNames(TypeSpec.Builder typeSpecBuilder, Set<SmrMethodInfo> methodSet) {
+        Map<Integer, String> namesById = new TreeMap<>();
+        Map<String, Integer> idsByName = new HashMap<>();
+        for (SmrMethodInfo smrMethodInfo : methodSet) {
+            int id = getAnnotationIdField(smrMethodInfo.method);
+            if (id == NO_METHOD_ID) {
+                continue;
+            }
+
+            String name = getSmrFunctionName(smrMethodInfo.method);
+            if (id < 0 || id >= Short.MAX_VALUE) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Method "
+                        + smrMethodInfo.method.getSimpleName()
+                        + " has an invalid id " + id, smrMethodInfo.method);
+                continue;
+            }
+
+            Integer otherId = idsByName.putIfAbsent(name, id);
+            String otherName = namesById.putIfAbsent(id, name);
+            if ((otherId != null && otherId != id)
+                    || (otherName != null && !otherName.equals(name))) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Method "
+                        + smrMethodInfo.method.getSimpleName() + " with id " + id
+                        + " conflicts with SMR method "
+                        + (otherName != null ? otherName : name + " with id " + otherId),
+                        smrMethodInfo.method);
+            }
+        }
+
+        int numIds = namesById.isEmpty() ? 0 : Collections.max(namesById.keySet()) + 1;
+        String namesString = IntStream.range(0, numIds)
+                .mapToObj(id -> namesById.containsKey(id)
+                        ? "\"" + namesById.get(id) + "\"" : "null")
+                .collect(Collectors.joining(", "));
+
+        FieldSpec methodNames = FieldSpec.builder(ArrayTypeName.of(String.class),
+                "methodNames" + CORFUSMR_FIELD, Modifier.PUBLIC, Modifier.FINAL)
+                .initializer("new $T[]{$L}", String.class, namesString)
+                .build();
+
+        typeSpecBuilder.addField(methodNames);
+        typeSpecBuilder.addMethod(MethodSpec.methodBuilder("getCorfuSMRMethodNames")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ArrayTypeName.of(String.class))
+                .addStatement("return $L", "methodNames" + CORFUSMR_FIELD)
+                .build());
+    }
+
     private void addUpcallMap(TypeSpec.Builder typeSpecBuilder, TypeName originalName,
                               Set<TypeName> interfacesToAdd, Set<SmrMethodInfo> methodSet) {
 
@@ -19,6 +19,12 @@ public @interface MutatorAccessor {
      * @return The name of the mutator. */
     String name() default "";
 
+    /** The id of the mutator, which is written to the log instead of its name when
+     * compact SMR entries are enabled. Ids have to be unique within a class and can't
+     * change once written, a mutator without an id is always written with its name.
+     * @return The id of the mutator, or -1 if it has none. */
+    int id() default -1;
+
     /** The name of the function to undo this mutation, which needs to belong
      * to the same object.
      * @return The name of the undo function.
@@ -55,6 +55,14 @@ public interface ICorfuSMR<T>
         throw new IllegalStateException("ObjectAnnotationProcessor Issue.");
     }
 
+    /** Get the names of the SMR methods, the id of an SMR method is its index
+     * in the returned array. Ids which are not used have no name.
+     * @return The SMR method names, ordered by id.
+     */
+    default String[] getCorfuSMRMethodNames() {
+        throw new IllegalStateException("ObjectAnnotationProcessor Issue.");
+    }
+
     /** Return the stream ID that this object belongs to.
      * @return The stream ID this object belongs to. */
     default UUID getCorfuStreamID() {
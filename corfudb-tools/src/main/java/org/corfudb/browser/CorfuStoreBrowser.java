@@ -5,11 +5,14 @@ import com.google.common.reflect.TypeToken;
 import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.CorfuStoreMetadata;
 import org.corfudb.runtime.collections.CorfuTable;
 import org.corfudb.runtime.collections.CorfuDynamicKey;
 import org.corfudb.runtime.collections.CorfuDynamicRecord;
+import org.corfudb.runtime.collections.ScanPage;
+import org.corfudb.runtime.object.transactions.TransactionType;
 import org.corfudb.runtime.view.TableRegistry;
 import org.corfudb.util.serializer.DynamicProtobufSerializer;
 import org.corfudb.util.serializer.ISerializer;
@@ -22,6 +25,8 @@ import org.corfudb.util.serializer.Serializers;
  */
 @Slf4j
 public class CorfuStoreBrowser {
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
     private final CorfuRuntime runtime;
 
     /**
@@ -63,15 +68,51 @@ public class CorfuStoreBrowser {
      */
     public void printTable(
         CorfuTable<CorfuDynamicKey, CorfuDynamicRecord> table) {
+        printTable(table, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Prints the payload and metadata in the given table, one page at a time.
+     * All the pages are read at the same snapshot, and only the entries of
+     * the current page are retained.
+     * @param table
+     * @param pageSize Number of entries of a page
+     * @return Number of entries printed
+     */
+    public int printTable(
+        CorfuTable<CorfuDynamicKey, CorfuDynamicRecord> table, int pageSize) {
+        Token snapshot = runtime.getSequencerView().query().getToken();
         StringBuilder builder;
-        for (Map.Entry<CorfuDynamicKey, CorfuDynamicRecord> entry :
-            table.entrySet()) {
-            builder = new StringBuilder("\nKey:\n" + entry.getKey().getKey())
-                .append("\nPayload:\n" + entry.getValue().getPayload())
-                .append("\nMetadata:\n" + entry.getValue().getMetadata())
-                .append("\n====================\n");
-            log.info(builder.toString());
-        }
+        byte[] nextKey = null;
+        int numEntries = 0;
+        do {
+            ScanPage<Map.Entry<CorfuDynamicKey, CorfuDynamicRecord>> page;
+            runtime.getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(snapshot)
+                .build()
+                .begin();
+            try {
+                page = ScanPage.collect(table.entryStream(),
+                    entry -> entry.getKey().getKey().toByteArray(),
+                    nextKey, pageSize);
+            } finally {
+                runtime.getObjectsView().TXEnd();
+            }
+
+            for (Map.Entry<CorfuDynamicKey, CorfuDynamicRecord> entry :
+                page.getEntries()) {
+                builder = new StringBuilder("\nKey:\n" + entry.getKey().getKey())
+                    .append("\nPayload:\n" + entry.getValue().getPayload())
+                    .append("\nMetadata:\n" + entry.getValue().getMetadata())
+                    .append("\n====================\n");
+                log.info(builder.toString());
+            }
+            numEntries += page.getEntries().size();
+            nextKey = page.getNextKey();
+        } while (nextKey != null);
+        log.info("Printed {} entries", numEntries);
+        return numEntries;
     }
 
     /**
@@ -22,6 +22,7 @@ public class CorfuStoreBrowserMain {
     private static final String USAGE = "Usage: corfu-browser --host=<host> " +
         "--port=<port> --namespace=<namespace> --tablename=<tablename> " +
         "--operation=<operation> "+
+        "[--pageSize=<page_size>] " +
         "[--keystore=<keystore_file>] [--ks_password=<keystore_password>] " +
         "[--truststore=<truststore_file>] [--truststore_password=<truststore_password>] " +
         "[--tlsEnabled=<tls_enabled>]\n"
@@ -31,6 +32,7 @@ public class CorfuStoreBrowserMain {
         + "--operation=<showTables|listTables> Operation\n"
         + "--namespace=<namespace>   Namespace\n"
         + "--tablename=<tablename>   Table Name\n"
+        + "--pageSize=<page_size>   Number of entries read at a time\n"
         + "--keystore=<keystore_file> KeyStore File\n"
         + "--ks_password=<keystore_password> KeyStore Password\n"
         + "--truststore=<truststore_file> TrustStore File\n"
@@ -87,7 +89,10 @@ public class CorfuStoreBrowserMain {
                     CorfuTable<CorfuDynamicKey, CorfuDynamicRecord> table =
                         browser.getTable(opts.get("--namespace").toString(),
                         opts.get("--tablename").toString());
-                    browser.printTable(table);
+                    int pageSize = opts.get("--pageSize") != null ?
+                        Integer.parseInt(opts.get("--pageSize").toString()) :
+                        CorfuStoreBrowser.DEFAULT_PAGE_SIZE;
+                    browser.printTable(table, pageSize);
             }
         } catch (Throwable t) {
             log.error("Error in Browser Execution.", t);
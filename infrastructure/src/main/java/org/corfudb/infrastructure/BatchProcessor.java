@@ -1,8 +1,11 @@
 package org.corfudb.infrastructure;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -22,6 +25,7 @@ import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.PriorityLevel;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
+import org.corfudb.protocols.wireprotocol.StreamReadRequest;
 import org.corfudb.protocols.wireprotocol.TailsRequest;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.protocols.wireprotocol.TrimRequest;
@@ -29,15 +33,56 @@ import org.corfudb.protocols.wireprotocol.WriteRequest;
 import org.corfudb.runtime.exceptions.QuotaExceededException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
+import org.corfudb.util.CorfuComponent;
 
 /**
  * This class manages access for operations that need ordering while executing against
  * the backing storage.
+ *
+ * <p>Operations are processed in batches that are committed with a single sync. Consecutive
+ * writes within a batch are coalesced and appended to the stream log as a group. The batch
+ * size and the time a batch lingers waiting for more operations adapt to the queue depth
+ * and to the observed sync latency.
  */
 @Slf4j
 public class BatchProcessor implements AutoCloseable {
 
-    final private int BATCH_SIZE = 50;
+    private static final int MIN_BATCH_SIZE = 50;
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // Upper bound on the time a batch waits for more operations before it is synced
+    private static final long MAX_LINGER_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    // Fraction (1/n) of the average sync latency a batch lingers for
+    private static final int LINGER_SYNC_RATIO = 4;
+
+    // Weight (1/n) of a new sample in the moving average of the sync latency
+    private static final int SYNC_LATENCY_WEIGHT = 8;
+
+    private static final String METRIC_PREFIX = CorfuComponent.INFRA_STREAM_OPS + "batch-processor.";
+
+    private final Timer queueWaitTimer = ServerContext.getMetrics().timer(METRIC_PREFIX + "queue-wait");
+
+    private final Histogram batchSizeHistogram = ServerContext.getMetrics().histogram(METRIC_PREFIX + "batch-size");
+
+    private final Timer syncTimer = ServerContext.getMetrics().timer(METRIC_PREFIX + "sync");
+
+    /**
+     * Current limit on the number of operations in a batch, only accessed by the processor thread.
+     */
+    private int batchSize = MIN_BATCH_SIZE;
+
+    /**
+     * Current time (in nanoseconds) that a batch waits for more operations once the queue
+     * is empty, only accessed by the processor thread.
+     */
+    private long lingerNanos = 0;
+
+    /**
+     * Moving average of the sync latency in nanoseconds, only accessed by the processor thread.
+     */
+    private long avgSyncNanos = 0;
 
     final private boolean sync;
 
@@ -97,7 +142,9 @@ public class BatchProcessor implements AutoCloseable {
         try {
             BatchWriterOperation lastOp = null;
             int processed = 0;
+            boolean lingered = false;
             List<BatchWriterOperation> res = new LinkedList<>();
+            List<BatchWriterOperation> pendingWrites = new ArrayList<>();
 
             while (true) {
                 BatchWriterOperation currOp;
@@ -107,9 +154,21 @@ public class BatchProcessor implements AutoCloseable {
                 } else {
                     currOp = operationsQueue.poll();
 
-                    if (currOp == null || processed == BATCH_SIZE
+                    if (currOp == null && !lingered && lingerNanos > 0 && processed < batchSize) {
+                        // Give concurrent writers a chance to join this batch before paying for the sync
+                        lingered = true;
+                        currOp = operationsQueue.poll(lingerNanos, TimeUnit.NANOSECONDS);
+                    }
+
+                    if (currOp == null || processed >= batchSize
                             || currOp == BatchWriterOperation.SHUTDOWN) {
+                        appendWrites(pendingWrites);
+
+                        long syncStart = System.nanoTime();
                         streamLog.sync(sync);
+                        long syncNanos = System.nanoTime() - syncStart;
+                        syncTimer.update(syncNanos, TimeUnit.NANOSECONDS);
+                        batchSizeHistogram.update(processed);
                         log.trace("Completed {} operations", processed);
 
                         for (BatchWriterOperation operation : res) {
@@ -120,18 +179,26 @@ public class BatchProcessor implements AutoCloseable {
                                 operation.getFutureResult().complete(operation.getResultValue());
                             }
                         }
+
+                        adaptBatching(processed, syncNanos, currOp != null);
                         res.clear();
                         processed = 0;
+                        lingered = false;
                     }
                 }
 
                 if (currOp == null) {
                     lastOp = null;
+                    continue;
                 } else if (currOp == BatchWriterOperation.SHUTDOWN) {
                     log.warn("Shutting down the write processor");
                     streamLog.sync(true);
                     break;
-                } else if (streamLog.quotaExceeded() && currOp.getMsg().getPriorityLevel() != PriorityLevel.HIGH) {
+                }
+
+                queueWaitTimer.update(System.nanoTime() - currOp.getCreateTime(), TimeUnit.NANOSECONDS);
+
+                if (streamLog.quotaExceeded() && currOp.getMsg().getPriorityLevel() != PriorityLevel.HIGH) {
                     currOp.getFutureResult().completeExceptionally(
                             new QuotaExceededException("Quota of "
                                     + streamLog.quotaLimitInBytes() + " bytes"));
@@ -149,17 +216,21 @@ public class BatchProcessor implements AutoCloseable {
                     res.add(currOp);
                     processed++;
                     lastOp = currOp;
+                } else if (currOp.getType() == Type.WRITE) {
+                    // Consecutive writes are appended as a group once a different
+                    // operation is processed, or when the batch completes
+                    pendingWrites.add(currOp);
+                    res.add(currOp);
+                    processed++;
+                    lastOp = currOp;
                 } else {
+                    appendWrites(pendingWrites);
                     try {
                         switch (currOp.getType()) {
                             case PREFIX_TRIM:
                                 TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
                                 streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
                                 break;
-                            case WRITE:
-                                WriteRequest write = (WriteRequest) currOp.getMsg().getPayload();
-                                streamLog.append(write.getGlobalAddress(), (LogData) write.getData());
-                                break;
                             case RANGE_WRITE:
                                 RangeWriteMsg writeRange = (RangeWriteMsg) currOp.getMsg().getPayload();
                                 streamLog.append(writeRange.getEntries());
@@ -191,6 +262,11 @@ public class BatchProcessor implements AutoCloseable {
                                 // Retrieve the address space for every stream in the log.
                                 currOp.setResultValue(streamLog.getStreamsAddressSpace());
                                 break;
+                            case STREAM_ADDRESS_SPACE_QUERY:
+                                // Retrieve the addresses of a stream in a range, they are paged by the caller.
+                                StreamReadRequest streamRead = (StreamReadRequest) currOp.getMsg().getPayload();
+                                currOp.setResultValue(streamLog.getStreamAddressesInRange(streamRead.getRange()));
+                                break;
                             default:
                                 log.warn("Unknown BatchWriterOperation {}", currOp);
                         }
@@ -210,6 +286,69 @@ public class BatchProcessor implements AutoCloseable {
         }
     }
 
+    /**
+     * Append a run of consecutive write operations to the stream log as a single group.
+     * Operations that fail are completed exceptionally, the rest are completed when
+     * the batch they belong to is synced.
+     *
+     * @param writes pending write operations, cleared once they are appended
+     */
+    private void appendWrites(List<BatchWriterOperation> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        List<LogData> entries = new ArrayList<>(writes.size());
+        for (BatchWriterOperation operation : writes) {
+            WriteRequest write = (WriteRequest) operation.getMsg().getPayload();
+            entries.add((LogData) write.getData());
+        }
+
+        try {
+            List<RuntimeException> failures = streamLog.appendGroup(entries);
+            for (int ind = 0; ind < writes.size(); ind++) {
+                RuntimeException failure = failures.get(ind);
+                if (failure != null) {
+                    log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}].",
+                            operationsQueue.size(), streamLog.getTrimMark(), failure);
+                    writes.get(ind).getFutureResult().completeExceptionally(failure);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}].",
+                    operationsQueue.size(), streamLog.getTrimMark(), e);
+            writes.forEach(operation -> operation.getFutureResult().completeExceptionally(e));
+        }
+
+        writes.clear();
+    }
+
+    /**
+     * Adjust the batch size and linger time after a batch is synced. The batch size grows
+     * while batches are cut short with operations still queued, and shrinks back when the
+     * queue drains well before the limit is reached. Batches linger for a fraction of the
+     * average sync latency, but only when there are concurrent writers to wait for.
+     *
+     * @param processed number of operations in the completed batch
+     * @param syncNanos time the sync of the completed batch took
+     * @param queued    true if operations were still queued when the batch completed
+     */
+    private void adaptBatching(int processed, long syncNanos, boolean queued) {
+        if (queued && processed >= batchSize) {
+            batchSize = Math.min(MAX_BATCH_SIZE, batchSize * 2);
+        } else if (!queued && processed < batchSize / 2) {
+            batchSize = Math.max(MIN_BATCH_SIZE, batchSize / 2);
+        }
+
+        if (!sync) {
+            return;
+        }
+
+        avgSyncNanos = avgSyncNanos == 0 ? syncNanos
+                : avgSyncNanos + (syncNanos - avgSyncNanos) / SYNC_LATENCY_WEIGHT;
+        lingerNanos = processed > 1 ? Math.min(MAX_LINGER_NANOS, avgSyncNanos / LINGER_SYNC_RATIO) : 0;
+    }
+
     @Override
     public void close() {
         operationsQueue.add(BatchWriterOperation.SHUTDOWN);
@@ -22,13 +22,16 @@ public class BatchWriterOperation<T> {
         SEAL,
         RESET,
         TAILS_QUERY,
-        LOG_ADDRESS_SPACE_QUERY
+        LOG_ADDRESS_SPACE_QUERY,
+        STREAM_ADDRESS_SPACE_QUERY
     }
 
     private final Type type;
     private final CorfuPayloadMsg msg;
     private T resultValue;
     private final CompletableFuture<T> futureResult = new CompletableFuture<>();
+    // Time (in nanoseconds) at which this operation was created, i.e. queued
+    private final long createTime = System.nanoTime();
 
     public static BatchWriterOperation<Void> SHUTDOWN = new BatchWriterOperation<>(Type.SHUTDOWN, null);
 }
\ No newline at end of file
@@ -53,7 +53,8 @@ public class CorfuServer {
                     + "[-b] [-g -o <username_file> -j <password_file>] "
                     + "[-k <seqcache>] [-T <threads>] [-B <size>] [-i <channel-implementation>] "
                     + "[-H <seconds>] [-I <cluster-id>] [-x <ciphers>] [-z <tls-protocols>]] "
-                    + "[--metrics] [--metrics-port <metrics_port>]"
+                    + "[--metrics] [--metrics-port <metrics_port>] [--mmap-reads] [--cache-off-heap-size=<bytes>]"
+                    + " [--read-ahead=<entries>] "
                     + "[-P <prefix>] [-R <retention>] [-C <codec>] [--agent] <port>\n"
                     + "\n"
                     + "Options:\n"
@@ -94,6 +95,10 @@ public class CorfuServer {
                     + "              If there is no log, then this will be the size of the log unit"
                     + "\n                                                                        "
                     + "                evicted entries will be auto-trimmed. [default: 0.5].\n"
+                    + " --cache-off-heap-size=<bytes>                                            "
+                    + "              Keep the log unit cache serialized in direct memory, up to\n"
+                    + "                                                                          "
+                    + "              the given number of bytes, instead of on the heap.\n"
                     + " -H <seconds>, --HandshakeTimeout=<seconds>                               "
                     + "              Handshake timeout in seconds [default: 10].\n               "
                     + " -t <token>, --initial-token=<token>                                      "
@@ -109,7 +114,7 @@ public class CorfuServer {
                     + "              Maximum number of system reconfigurations (i.e. layouts)    "
                     + "retained for debugging purposes [default: 1000].\n"
                     + " -C <codec>, --compression-codec=<codec>           "
-                    + "            The type (i.e. LZ4, ZSTD or None) of compression theLogUnit will use to"
+                    + "            The type (i.e. LZ4, ZSTD, ZSTD_DICT or None) of compression theLogUnit will use to"
                     + "            compress the log entries. [default: ZSTD].\n"
                     + " -p <seconds>, --compact=<seconds>                                        "
                     + "              The rate the log unit should compact entries (find the,\n"
@@ -123,6 +128,14 @@ public class CorfuServer {
                     + "              Disable checksum computation and verification.\n"
                     + " -N, --no-sync                                                            "
                     + "              Disable syncing writes to secondary storage.\n"
+                    + " --mmap-reads                                                             "
+                    + "              Serve reads of sealed (non-tail) log segments from memory\n"
+                    + "                                                                          "
+                    + "              mapped segment files.\n"
+                    + " --read-ahead=<entries>                                                   "
+                    + "              When a batch of consecutive addresses is read, load up to the\n"
+                    + "                                                                          "
+                    + "              given number of addresses that follow it into the cache.\n"
                     + " -e, --enable-tls                                                         "
                     + "              Enable TLS.\n"
                     + " -u <keystore>, --keystore=<keystore>                                     "
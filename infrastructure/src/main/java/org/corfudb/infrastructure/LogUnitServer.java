@@ -1,6 +1,8 @@
 package org.corfudb.infrastructure;
 
 import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import lombok.Builder;
 import lombok.Getter;
@@ -9,6 +11,8 @@ import org.corfudb.infrastructure.log.InMemoryStreamLog;
 import org.corfudb.infrastructure.log.StreamLog;
 import org.corfudb.infrastructure.log.StreamLogCompaction;
 import org.corfudb.infrastructure.log.StreamLogFiles;
+import org.corfudb.protocols.logprotocol.LogEntry.LogEntryType;
+import org.corfudb.protocols.logprotocol.MultiObjectSMREntry;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
@@ -21,6 +25,8 @@ import org.corfudb.protocols.wireprotocol.PriorityLevel;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
 import org.corfudb.protocols.wireprotocol.ReadRequest;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
+import org.corfudb.protocols.wireprotocol.StreamReadRequest;
+import org.corfudb.protocols.wireprotocol.StreamReadResponse;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsRequest;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
@@ -33,11 +39,17 @@ import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.exceptions.ValueAdoptedException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
+import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.util.Utils;
+import org.corfudb.util.serializer.CorfuSerializer;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,12 +58,16 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.LOG_ADDRESS_SPACE_QUERY;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.PREFIX_TRIM;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.RANGE_WRITE;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.RESET;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.SEAL;
+import static org.corfudb.infrastructure.BatchWriterOperation.Type.STREAM_ADDRESS_SPACE_QUERY;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.TAILS_QUERY;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.WRITE;
 
@@ -74,6 +90,16 @@ import static org.corfudb.infrastructure.BatchWriterOperation.Type.WRITE;
 @Slf4j
 public class LogUnitServer extends AbstractServer {
 
+    /**
+     * The maximum number of entries of a stream read response.
+     */
+    public static final int MAX_STREAM_READ_ENTRIES = 1_000;
+
+    /**
+     * The size of payload after which a stream read response doesn't take more entries.
+     */
+    public static final long MAX_STREAM_READ_BYTES = 32L * 1024 * 1024;
+
     /**
      * The options map.
      */
@@ -100,8 +126,14 @@ public class LogUnitServer extends AbstractServer {
     private final StreamLogCompaction logCleaner;
     private final BatchProcessor batchWriter;
 
+    // The last address that was requested by a read-ahead
+    private final AtomicLong readAheadTail = new AtomicLong(Address.NON_ADDRESS);
+
     private ExecutorService executor;
 
+    // Loads the read-ahead addresses into the cache, off the request handler threads
+    private final ExecutorService readAheadExecutor;
+
     @Override
     public ExecutorService getExecutor(CorfuMsgType corfuMsgType) {
         return executor;
@@ -122,6 +154,8 @@ public class LogUnitServer extends AbstractServer {
         this.config = LogUnitServerConfig.parse(serverContext.getServerConfig());
         executor = Executors.newFixedThreadPool(serverContext.getLogunitThreadCount(),
                 new ServerThreadFactory("LogUnit-", new ServerThreadFactory.ExceptionHandler()));
+        readAheadExecutor = Executors.newSingleThreadExecutor(
+                new ServerThreadFactory("LogUnit-ReadAhead-", new ServerThreadFactory.ExceptionHandler()));
 
         if (config.isMemoryMode()) {
             log.warn("Log unit opened in-memory mode (Maximum size={}). "
@@ -270,6 +304,25 @@ public class LogUnitServer extends AbstractServer {
                 });
     }
 
+    /**
+     * Adds the entry at an address to a read response. Entries that are cached
+     * off-heap are added in their serialized form, without deserializing them.
+     */
+    private void readEntry(ReadResponse rr, long address, boolean cacheable) {
+        ByteBuf serialized = dataCache.getSerialized(address);
+        if (serialized != null) {
+            rr.putSerialized(address, serialized);
+            return;
+        }
+
+        ILogData logData = dataCache.get(address, cacheable);
+        if (logData == null) {
+            rr.put(address, LogData.getEmpty(address));
+        } else {
+            rr.put(address, (LogData) logData);
+        }
+    }
+
     @ServerHandler(type = CorfuMsgType.READ_REQUEST)
     public void read(CorfuPayloadMsg<ReadRequest> msg, ChannelHandlerContext ctx, IServerRouter r) {
         long address = msg.getPayload().getAddress();
@@ -278,12 +331,7 @@ public class LogUnitServer extends AbstractServer {
 
         ReadResponse rr = new ReadResponse();
         try {
-            ILogData logData = dataCache.get(address, cacheable);
-            if (logData == null) {
-                rr.put(address, LogData.getEmpty(address));
-            } else {
-                rr.put(address, (LogData) logData);
-            }
+            readEntry(rr, address, cacheable);
             r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
         } catch (DataCorruptionException e) {
             log.error("Data corruption exception while reading address {}", address, e);
@@ -296,20 +344,157 @@ public class LogUnitServer extends AbstractServer {
         boolean cacheable = msg.getPayload().isCacheReadResult();
         log.trace("multiRead: {}, cacheable: {}", msg.getPayload().getAddresses(), cacheable);
 
+        List<Long> addresses = msg.getPayload().getAddresses();
         ReadResponse rr = new ReadResponse();
         try {
-            for (Long address : msg.getPayload().getAddresses()) {
-                ILogData logData = dataCache.get(address, cacheable);
-                if (logData == null) {
-                    rr.put(address, LogData.getEmpty(address));
+            // Entries that are cached off-heap are added as is, the rest
+            // are retrieved together so that the log can batch the reads
+            List<Long> pending = new ArrayList<>(addresses.size());
+            for (Long address : addresses) {
+                ByteBuf serialized = dataCache.getSerialized(address);
+                if (serialized != null) {
+                    rr.putSerialized(address, serialized);
                 } else {
-                    rr.put(address, (LogData) logData);
+                    pending.add(address);
                 }
             }
-            r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
-        } catch (DataCorruptionException e) {
-            r.sendResponse(ctx, msg, CorfuMsgType.ERROR_DATA_CORRUPTION.msg());
+
+            Map<Long, ILogData> entries = dataCache.getAll(pending, cacheable);
+            for (Long address : pending) {
+                ILogData logData = entries.get(address);
+                rr.put(address, logData == null ? LogData.getEmpty(address) : (LogData) logData);
+            }
+        } catch (RuntimeException e) {
+            // The response is dropped, release the serialized entries it holds
+            rr.release();
+            if (e instanceof DataCorruptionException) {
+                r.sendResponse(ctx, msg, CorfuMsgType.ERROR_DATA_CORRUPTION.msg());
+                return;
+            }
+            throw e;
+        }
+        r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
+
+        if (cacheable) {
+            readAhead(addresses);
+        }
+    }
+
+    /**
+     * If read-ahead is enabled and a batch of addresses is a consecutive range
+     * (i.e. a sequential scan of the log), loads the addresses that follow the
+     * range into the cache in the background. A single read-ahead thread serves all
+     * the scans, so that read-aheads don't take the threads of the read requests.
+     *
+     * @param addresses the addresses of a read request
+     */
+    private void readAhead(List<Long> addresses) {
+        int readAhead = config.getReadAhead();
+        if (readAhead <= 0 || addresses.size() < 2) {
+            return;
+        }
+
+        long first = addresses.get(0);
+        long last = addresses.get(addresses.size() - 1);
+        for (int i = 1; i < addresses.size(); i++) {
+            if (addresses.get(i) != first + i) {
+                return;
+            }
+        }
+
+        // Skip the addresses that a previous read-ahead has already requested
+        long end = Math.min(last + readAhead, streamLog.getLogTail());
+        long start = Math.max(last, readAheadTail.getAndAccumulate(end, Math::max)) + 1;
+        if (start > end) {
+            return;
+        }
+
+        List<Long> nextAddresses = LongStream.rangeClosed(start, end).boxed().collect(Collectors.toList());
+        log.trace("readAhead: [{}, {}]", start, end);
+        readAheadExecutor.submit(() -> {
+            try {
+                dataCache.getAll(nextAddresses, true);
+            } catch (RuntimeException e) {
+                log.warn("readAhead: failed to read [{}, {}]", start, end, e);
+            }
+        });
+    }
+
+    /**
+     * Services a read of a single stream in a range of addresses. The addresses of the
+     * stream are resolved from this log unit's stream address maps, and entries that
+     * span multiple streams are projected onto the stream, so that the response doesn't
+     * carry the updates of the other streams.
+     *
+     * <p>A response carries at most {@link #MAX_STREAM_READ_ENTRIES} entries (or fewer if
+     * the request asks so) and stops once it holds {@link #MAX_STREAM_READ_BYTES} bytes of
+     * payload, from the lowest address of the range. If the range isn't read entirely, the
+     * response carries the last address it holds, from which the client resumes.</p>
+     */
+    @ServerHandler(type = CorfuMsgType.STREAM_READ_REQUEST)
+    public void streamRead(CorfuPayloadMsg<StreamReadRequest> msg, ChannelHandlerContext ctx, IServerRouter r) {
+        StreamReadRequest request = msg.getPayload();
+        UUID streamId = request.getRange().getStreamID();
+        int maxEntries = request.getMaxEntries() > 0
+                ? Math.min(request.getMaxEntries(), MAX_STREAM_READ_ENTRIES) : MAX_STREAM_READ_ENTRIES;
+        log.trace("streamRead: {}, maxEntries: {}, cacheable: {}", request.getRange(), maxEntries,
+                request.isCacheReadResult());
+
+        batchWriter.<Roaring64NavigableMap>addTask(STREAM_ADDRESS_SPACE_QUERY, msg)
+                .thenAcceptAsync(streamAddresses -> {
+                    List<Long> addresses = new ArrayList<>();
+                    LongIterator iterator = streamAddresses.getLongIterator();
+                    while (iterator.hasNext() && addresses.size() < maxEntries) {
+                        addresses.add(iterator.next());
+                    }
+                    boolean truncated = iterator.hasNext();
+
+                    Map<Long, ILogData> entries = dataCache.getAll(addresses, request.isCacheReadResult());
+                    Map<Long, LogData> page = new HashMap<>();
+                    long lastAddress = Address.NON_ADDRESS;
+                    long bytes = 0;
+                    for (Long address : addresses) {
+                        if (bytes >= MAX_STREAM_READ_BYTES) {
+                            truncated = true;
+                            break;
+                        }
+                        ILogData logData = entries.get(address);
+                        LogData entry = logData == null
+                                ? LogData.getEmpty(address) : projectStream((LogData) logData, streamId);
+                        page.put(address, entry);
+                        lastAddress = address;
+                        bytes += entry.getData() == null ? 0 : entry.getData().length;
+                    }
+
+                    long resumeAddress = truncated ? lastAddress : Address.NON_ADDRESS;
+                    r.sendResponse(ctx, msg, CorfuMsgType.STREAM_READ_RESPONSE
+                            .payloadMsg(new StreamReadResponse(page, resumeAddress)));
+                }, executor)
+                .exceptionally(ex -> {
+                    if (ex.getCause() instanceof DataCorruptionException) {
+                        r.sendResponse(ctx, msg, CorfuMsgType.ERROR_DATA_CORRUPTION.msg());
+                    } else {
+                        handleException(ex, ctx, msg, r);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Projects an entry onto a stream. Only transactional (i.e. multi-object)
+     * entries are projected, other entries are returned as is.
+     */
+    private static LogData projectStream(LogData logData, UUID streamId) {
+        byte[] data = logData.getData();
+        if (data == null || data.length < 2 || data[0] != CorfuSerializer.corfuPayloadMagic
+                || data[1] != LogEntryType.MULTIOBJSMR.asByte()) {
+            return logData;
         }
+
+        LogData projection = new LogData(logData.getType(),
+                Unpooled.wrappedBuffer(MultiObjectSMREntry.project(data, streamId)));
+        projection.getMetadataMap().putAll(logData.getMetadataMap());
+        return projection;
     }
 
     /**
@@ -342,6 +527,7 @@ public class LogUnitServer extends AbstractServer {
     private void handleFlushCacheRequest(CorfuMsg msg, ChannelHandlerContext ctx, IServerRouter r) {
         log.debug("handleFlushCacheRequest: received a cache flush request {}", msg);
         dataCache.invalidateAll();
+        readAheadTail.set(Address.NON_ADDRESS);
         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
     }
 
@@ -396,6 +582,7 @@ public class LogUnitServer extends AbstractServer {
             batchWriter.addTask(RESET, msg)
                     .thenRun(() -> {
                         dataCache.invalidateAll();
+                        readAheadTail.set(Address.NON_ADDRESS);
                         log.info("LogUnit Server Reset.");
                         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
                     }).exceptionally(ex -> {
@@ -416,6 +603,7 @@ public class LogUnitServer extends AbstractServer {
     @Override
     public void shutdown() {
         super.shutdown();
+        readAheadExecutor.shutdownNow();
         logCleaner.shutdown();
         batchWriter.close();
     }
@@ -467,9 +655,11 @@ public class LogUnitServer extends AbstractServer {
     public static class LogUnitServerConfig {
         private final double cacheSizeHeapRatio;
         private final long maxCacheSize;
+        private final boolean cacheOffHeap;
         private final boolean memoryMode;
         private final boolean noVerify;
         private final boolean noSync;
+        private final int readAhead;
 
         /**
          * Parse legacy configuration options
@@ -479,13 +669,25 @@ public class LogUnitServer extends AbstractServer {
          */
         public static LogUnitServerConfig parse(Map<String, Object> opts) {
             double cacheSizeHeapRatio = Double.parseDouble((String) opts.get("--cache-heap-ratio"));
+            long maxCacheSize = (long) (Runtime.getRuntime().maxMemory() * cacheSizeHeapRatio);
+
+            // An off-heap cache size takes precedence over the heap ratio
+            String offHeapCacheSize = (String) opts.get("--cache-off-heap-size");
+            boolean cacheOffHeap = offHeapCacheSize != null;
+            if (cacheOffHeap) {
+                maxCacheSize = Long.parseLong(offHeapCacheSize);
+            }
+
+            String readAhead = (String) opts.get("--read-ahead");
 
             return LogUnitServerConfig.builder()
                     .cacheSizeHeapRatio(cacheSizeHeapRatio)
-                    .maxCacheSize((long) (Runtime.getRuntime().maxMemory() * cacheSizeHeapRatio))
+                    .maxCacheSize(maxCacheSize)
+                    .cacheOffHeap(cacheOffHeap)
                     .memoryMode(Boolean.valueOf(opts.get("--memory").toString()))
                     .noVerify((Boolean) opts.get("--no-verify"))
                     .noSync((Boolean) opts.get("--no-sync"))
+                    .readAhead(readAhead == null ? 0 : Integer.parseInt(readAhead))
                     .build();
         }
     }
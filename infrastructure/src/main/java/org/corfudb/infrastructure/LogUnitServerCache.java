@@ -1,36 +1,68 @@
 package org.corfudb.infrastructure;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.infrastructure.LogUnitServer.LogUnitServerConfig;
 import org.corfudb.infrastructure.log.StreamLog;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * LogUnit server cache.
  * <p>
  * All reads and writes go through this cache. But in some cases, messages can
  * specify non-cacheable read/write, then they will not go through this cache.
  * <p>
+ * If an off-heap cache size is configured, entries are kept serialized in pooled
+ * direct memory instead of as {@link LogData} objects on the heap, which keeps large
+ * caches out of the reach of the garbage collector. Cached entries can then be written
+ * to a response as is (see {@link #getSerialized(long)}).
+ * <p>
  * Created by WenbinZhu on 5/30/19.
  */
 @Slf4j
 public class LogUnitServerCache {
 
+    // On-heap cache, null if the cache is off-heap
     private final LoadingCache<Long, ILogData> dataCache;
+
+    // Off-heap cache of serialized entries, null if the cache is on-heap
+    private final Cache<Long, ByteBuf> offHeapCache;
+
     private final StreamLog streamLog;
 
     public LogUnitServerCache(LogUnitServerConfig config, StreamLog streamLog) {
         this.streamLog = streamLog;
-        this.dataCache = Caffeine.newBuilder()
-                .<Long, ILogData>weigher((addr, logData) -> logData.getSizeEstimate())
-                .maximumWeight(config.getMaxCacheSize())
-                .removalListener(this::handleEviction)
-                .build(this::handleRetrieval);
+
+        if (config.isCacheOffHeap()) {
+            this.dataCache = null;
+            // Buffers are released by the removal listener, run it on the evicting
+            // thread so that evicted memory is returned to the pool right away
+            this.offHeapCache = Caffeine.newBuilder()
+                    .<Long, ByteBuf>weigher((addr, buf) -> buf.capacity())
+                    .maximumWeight(config.getMaxCacheSize())
+                    .executor(Runnable::run)
+                    .removalListener(this::handleOffHeapEviction)
+                    .build();
+        } else {
+            this.offHeapCache = null;
+            this.dataCache = Caffeine.newBuilder()
+                    .<Long, ILogData>weigher((addr, logData) -> logData.getSizeEstimate())
+                    .maximumWeight(config.getMaxCacheSize())
+                    .removalListener(this::handleEviction)
+                    .build(this::handleRetrieval);
+        }
     }
 
     /**
@@ -43,7 +75,7 @@ public class LogUnitServerCache {
      * in the streamLog. Any address that cannot be retrieved should be returned
      * as un-written (null).
      */
-    private ILogData handleRetrieval(long address) {
+    private LogData handleRetrieval(long address) {
         LogData entry = streamLog.read(address);
         log.trace("handleRetrieval: Retrieved[{} : {}]", address, entry);
         return entry;
@@ -53,6 +85,72 @@ public class LogUnitServerCache {
         log.trace("handleEviction: Eviction[{}]: {}", address, cause);
     }
 
+    private void handleOffHeapEviction(Long address, ByteBuf entry, RemovalCause cause) {
+        log.trace("handleOffHeapEviction: Eviction[{}]: {}", address, cause);
+        if (entry != null) {
+            entry.release();
+        }
+    }
+
+    /**
+     * Serializes a log entry into pooled direct memory.
+     */
+    private static ByteBuf serialize(ILogData entry) {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(entry.getSizeEstimate());
+        try {
+            ((LogData) entry).doSerialize(buf);
+            return buf;
+        } catch (RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether the entries of this cache are kept off-heap.
+     */
+    public boolean isOffHeap() {
+        return offHeapCache != null;
+    }
+
+    /**
+     * Returns the serialized form of a cached log entry (i.e. the bytes that
+     * {@link LogData#doSerialize(ByteBuf)} writes), if the cache is off-heap
+     * and the entry is cached.
+     * <p>
+     * The returned buffer is retained on behalf of the caller, who has to release it.
+     *
+     * @param address the address of the log entry
+     * @return the serialized log entry, or null if it isn't cached off-heap
+     */
+    public ByteBuf getSerialized(long address) {
+        if (offHeapCache == null) {
+            return null;
+        }
+
+        // Retain the buffer atomically with the lookup, so that it can't
+        // be released by a concurrent eviction before the caller gets it
+        ByteBuf[] result = new ByteBuf[1];
+        offHeapCache.asMap().computeIfPresent(address, (addr, buf) -> {
+            result[0] = buf.retainedDuplicate();
+            return buf;
+        });
+        return result[0];
+    }
+
+    private ILogData getOffHeap(long address, boolean cacheable) {
+        ILogData cached = getIfPresent(address);
+        if (cached != null) {
+            return cached;
+        }
+
+        LogData entry = handleRetrieval(address);
+        if (entry != null && cacheable) {
+            put(address, entry);
+        }
+        return entry;
+    }
+
     /**
      * Returns the log entry form the cache or retrieves it from the underlying storage.
      * <p>
@@ -64,6 +162,10 @@ public class LogUnitServerCache {
      * @return the log entry read from cache or retrieved the underlying storage
      */
     public ILogData get(long address, boolean cacheable) {
+        if (offHeapCache != null) {
+            return getOffHeap(address, cacheable);
+        }
+
         if (!cacheable) {
             ILogData ld = dataCache.getIfPresent(address);
             return ld != null ? ld : handleRetrieval(address);
@@ -72,6 +174,56 @@ public class LogUnitServerCache {
         return dataCache.get(address);
     }
 
+    /**
+     * Returns the log entries of a batch of addresses from the cache. The entries that
+     * are not cached are retrieved from the underlying storage with a single batched read
+     * (see {@link StreamLog#read(List)}), and cached if cacheable.
+     *
+     * @param addresses the addresses of the log entries to retrieve
+     * @param cacheable if the log entries should be cached when retrieved from underlying storage
+     * @return the log entries that exist, keyed by their address
+     */
+    public Map<Long, ILogData> getAll(List<Long> addresses, boolean cacheable) {
+        Map<Long, ILogData> entries = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long address : addresses) {
+            ILogData entry = getIfPresent(address);
+            if (entry != null) {
+                entries.put(address, entry);
+            } else {
+                misses.add(address);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return entries;
+        }
+
+        Map<Long, LogData> retrieved = streamLog.read(misses);
+        log.trace("getAll: Retrieved {} of {} addresses", retrieved.size(), misses.size());
+        if (cacheable) {
+            retrieved.forEach(this::put);
+        }
+        entries.putAll(retrieved);
+        return entries;
+    }
+
+    private ILogData getIfPresent(long address) {
+        if (offHeapCache == null) {
+            return dataCache.getIfPresent(address);
+        }
+
+        ByteBuf serialized = getSerialized(address);
+        if (serialized == null) {
+            return null;
+        }
+        try {
+            return new LogData(serialized);
+        } finally {
+            serialized.release();
+        }
+    }
+
     /**
      * Returns the log entry form the cache or retrieves it from the underlying storage.
      *
@@ -91,6 +243,10 @@ public class LogUnitServerCache {
      */
     public void put(long address, ILogData entry) {
         log.trace("LogUnitServerCache.put: Cache write[{} : {}]", address, entry);
+        if (offHeapCache != null) {
+            offHeapCache.put(address, serialize(entry));
+            return;
+        }
         dataCache.put(address, entry);
     }
 
@@ -99,11 +255,18 @@ public class LogUnitServerCache {
      * {@link LoadingCache#invalidateAll()}
      */
     public void invalidateAll() {
+        if (offHeapCache != null) {
+            offHeapCache.invalidateAll();
+            return;
+        }
         dataCache.invalidateAll();
     }
 
     @VisibleForTesting
     public int getSize() {
+        if (offHeapCache != null) {
+            return offHeapCache.asMap().size();
+        }
         return dataCache.asMap().size();
     }
 }
@@ -1,8 +1,10 @@
 package org.corfudb.infrastructure;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 import io.netty.channel.ChannelHandlerContext;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Builder.Default;
 import lombok.Getter;
@@ -13,8 +15,8 @@ import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
+import org.corfudb.protocols.wireprotocol.StreamTailWaitRequest;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
-import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
@@ -33,14 +35,22 @@ import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.Utils;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This server implements the sequencer functionality of Corfu.
@@ -78,6 +88,16 @@ import java.util.concurrent.Executors;
  * commits, the sequencer updates the tails of all the streams and the cache
  * of conflict parameters.
  *
+ * <p>Allocation requests (TK_MULTI_STREAM and TK_TX) that are queued back to back
+ * are served in one allocation round: the stream address maps are updated with one
+ * range per stream, and the responses are sent together at the end of the round.
+ * Any other request first completes the pending round, so every request observes the
+ * same state as if the allocations were served one at a time.
+ *
+ * <p>Clients can wait for the tail of a stream to move past an address with a
+ * STREAM_TAIL_WAIT_REQUEST, which is answered at the end of the allocation round
+ * that moves the stream tail, or when the request times out.
+ *
  * <p>Created by mwei on 12/8/15.
  */
 @Slf4j
@@ -138,6 +158,56 @@ public class SequencerServer extends AbstractServer {
 
     private final ExecutorService executor;
 
+    /**
+     * The task queue of the sequencer executor, an allocation round is completed
+     * once there are no more queued requests.
+     */
+    private final BlockingQueue<Runnable> executorQueue = new LinkedBlockingQueue<>();
+
+    /**
+     * Maximum number of allocation requests served in one round.
+     */
+    private static final int MAX_ALLOCATION_BATCH_SIZE = 1000;
+
+    /**
+     * Allocation requests of the current round, in the order they were received.
+     */
+    private final List<PendingAllocation> pendingAllocations = new ArrayList<>();
+
+    private final Histogram allocationBatchSize = ServerContext.getMetrics()
+            .histogram(CorfuComponent.INFRA_SEQUENCER + "allocation-batch-size");
+
+    /**
+     * Requests waiting for the tail of a stream to be past an address, per stream.
+     */
+    private final Map<UUID, List<TailWaiter>> tailWaiters = new HashMap<>();
+
+    /**
+     * Schedules the timeouts of the requests waiting for a stream tail.
+     */
+    private final ScheduledExecutorService tailWaitScheduler = Executors.newSingleThreadScheduledExecutor(
+            new ServerThreadFactory("sequencer-tail-wait-", new ServerThreadFactory.ExceptionHandler()));
+
+    /**
+     * A request waiting for the tail of a stream.
+     */
+    @AllArgsConstructor
+    private static class TailWaiter {
+        final CorfuPayloadMsg<StreamTailWaitRequest> msg;
+        final ChannelHandlerContext ctx;
+        final IServerRouter router;
+    }
+
+    /**
+     * An allocation request, and the response to send for it.
+     */
+    @AllArgsConstructor
+    private static class PendingAllocation {
+        final CorfuPayloadMsg<TokenRequest> msg;
+        final ChannelHandlerContext ctx;
+        final IServerRouter router;
+    }
+
 
     /**
      * Returns a new SequencerServer.
@@ -149,7 +219,7 @@ public class SequencerServer extends AbstractServer {
         Config config = Config.parse(serverContext.getServerConfig());
 
         // Sequencer server is single threaded by current design
-        this.executor = Executors.newSingleThreadExecutor(
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, executorQueue,
                 new ServerThreadFactory("sequencer-", new ServerThreadFactory.ExceptionHandler()));
 
 
@@ -176,6 +246,31 @@ public class SequencerServer extends AbstractServer {
         return true;
     }
 
+    @Override
+    public void handleMessage(CorfuMsg msg, ChannelHandlerContext ctx, IServerRouter r) {
+        if (!isAllocationRequest(msg)) {
+            processAllocations();
+        }
+
+        try {
+            super.handleMessage(msg, ctx, r);
+        } finally {
+            // Complete the round once there are no more queued requests, even if the
+            // request failed, so that the allocations of the round are not left pending
+            if (executorQueue.isEmpty()) {
+                processAllocations();
+            }
+        }
+    }
+
+    private static boolean isAllocationRequest(CorfuMsg msg) {
+        if (msg.getMsgType() != CorfuMsgType.TOKEN_REQ) {
+            return false;
+        }
+        byte reqType = ((TokenRequest) ((CorfuPayloadMsg<?>) msg).getPayload()).getReqType();
+        return reqType != TokenRequest.TK_QUERY && reqType != TokenRequest.TK_RAW;
+    }
+
     @Override
     public ExecutorService getExecutor(CorfuMsgType corfuMsgType) {
         return executor;
@@ -260,11 +355,11 @@ public class SequencerServer extends AbstractServer {
             // for each key pair, check for conflict; if not present, check against the wildcard
             for (byte[] conflictParam : conflictParamSet) {
 
-                Long keyAddress = cache.getIfPresent(new ConflictTxStream(conflictStream.getKey(), conflictParam));
+                long keyAddress = cache.get(conflictStream.getKey(), conflictParam);
 
                 log.trace("Commit-ck[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
 
-                if (keyAddress != null && keyAddress > txSnapshotTimestamp.getSequence()) {
+                if (keyAddress != Address.NON_ADDRESS && keyAddress > txSnapshotTimestamp.getSequence()) {
                     log.debug("ABORT[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
                     return new TxResolutionResponse(
                             TokenType.TX_ABORT_CONFLICT,
@@ -451,6 +546,10 @@ public class SequencerServer extends AbstractServer {
         log.info("Sequencer reset with token = {}, size {} streamTailToGlobalTailMap = {}, sequencerEpoch = {}",
                 globalLogTail, streamTailToGlobalTailMap.size(), streamTailToGlobalTailMap, sequencerEpoch);
 
+        // Requests waiting for stream tails are answered, so that clients wait again in the new epoch
+        tailWaiters.values().forEach(waiters -> waiters.forEach(this::respondTailWaiter));
+        tailWaiters.clear();
+
         r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg());
     }
 
@@ -487,12 +586,12 @@ public class SequencerServer extends AbstractServer {
                     handleRawToken(msg, ctx, r);
                     return;
 
-                case TokenRequest.TK_TX:
-                    handleTxToken(msg, ctx, r);
-                    return;
-
                 default:
-                    handleAllocation(msg, ctx, r);
+                    // TK_TX and TK_MULTI_STREAM requests are served in allocation rounds
+                    pendingAllocations.add(new PendingAllocation(msg, ctx, r));
+                    if (pendingAllocations.size() >= MAX_ALLOCATION_BATCH_SIZE) {
+                        processAllocations();
+                    }
                     return;
             }
         }
@@ -529,6 +628,128 @@ public class SequencerServer extends AbstractServer {
                 new TokenResponse(token, Collections.emptyMap())));
     }
 
+    /**
+     * Serves the pending allocation requests in one round. The requests are allocated in
+     * the order they were received, the addresses allocated to each stream are added to
+     * its address map as one range, and then the responses are sent.
+     */
+    private void processAllocations() {
+        if (pendingAllocations.isEmpty()) {
+            return;
+        }
+
+        allocationBatchSize.update(pendingAllocations.size());
+
+        // The addresses allocated to each stream in this round, as [start, end) ranges
+        Map<UUID, List<long[]>> streamRanges = new LinkedHashMap<>();
+        List<TokenResponse> responses = new ArrayList<>(pendingAllocations.size());
+        for (PendingAllocation allocation : pendingAllocations) {
+            TokenRequest req = allocation.msg.getPayload();
+            if (req.getReqType() == TokenRequest.TK_TX) {
+                responses.add(handleTxToken(req, streamRanges));
+            } else {
+                responses.add(handleAllocation(req, streamRanges));
+            }
+        }
+
+        streamRanges.forEach((id, ranges) -> {
+            StreamAddressSpace addressMap = streamsAddressMap.computeIfAbsent(id,
+                    streamId -> new StreamAddressSpace(Address.NON_ADDRESS, new Roaring64NavigableMap()));
+            for (long[] range : ranges) {
+                addressMap.addAddresses(range[0], range[1]);
+            }
+        });
+
+        for (int i = 0; i < pendingAllocations.size(); i++) {
+            PendingAllocation allocation = pendingAllocations.get(i);
+            allocation.router.sendResponse(allocation.ctx, allocation.msg,
+                    CorfuMsgType.TOKEN_RES.payloadMsg(responses.get(i)));
+        }
+        pendingAllocations.clear();
+
+        notifyTailWaiters(streamRanges.keySet());
+    }
+
+    private long getStreamTail(UUID streamId) {
+        return streamTailToGlobalTailMap.getOrDefault(streamId, Address.NON_EXIST);
+    }
+
+    /**
+     * Service a request to wait until the tail of a stream is past an address. The stream
+     * tail is sent right away if it is already past the address, otherwise it is sent once
+     * an allocation moves it past the address, or once the request times out.
+     */
+    @ServerHandler(type = CorfuMsgType.STREAM_TAIL_WAIT_REQUEST)
+    private void handleStreamTailWait(CorfuPayloadMsg<StreamTailWaitRequest> msg,
+                                      ChannelHandlerContext ctx, IServerRouter r) {
+        final StreamTailWaitRequest req = msg.getPayload();
+        final long streamTail = getStreamTail(req.getStreamId());
+        if (streamTail > req.getAddress() || req.getTimeout() <= 0) {
+            r.sendResponse(ctx, msg, CorfuMsgType.STREAM_TAIL_WAIT_RESPONSE.payloadMsg(streamTail));
+            return;
+        }
+
+        TailWaiter waiter = new TailWaiter(msg, ctx, r);
+        tailWaiters.computeIfAbsent(req.getStreamId(), id -> new ArrayList<>()).add(waiter);
+        tailWaitScheduler.schedule(() -> executor.submit(() -> {
+            // Like any other sequencer task, complete the pending allocation round first
+            processAllocations();
+            expireTailWaiter(waiter);
+        }), req.getTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    private void respondTailWaiter(TailWaiter waiter) {
+        final long streamTail = getStreamTail(waiter.msg.getPayload().getStreamId());
+        waiter.router.sendResponse(waiter.ctx, waiter.msg,
+                CorfuMsgType.STREAM_TAIL_WAIT_RESPONSE.payloadMsg(streamTail));
+    }
+
+    /**
+     * Responds to a waiting request when it times out, unless it was already responded to.
+     */
+    private void expireTailWaiter(TailWaiter waiter) {
+        final UUID streamId = waiter.msg.getPayload().getStreamId();
+        List<TailWaiter> waiters = tailWaiters.get(streamId);
+        if (waiters != null && waiters.remove(waiter)) {
+            if (waiters.isEmpty()) {
+                tailWaiters.remove(streamId);
+            }
+            respondTailWaiter(waiter);
+        }
+    }
+
+    /**
+     * Responds to the waiting requests of the given streams whose tails are now past
+     * the addresses they wait for.
+     *
+     * @param streamIds streams whose tails have moved
+     */
+    private void notifyTailWaiters(Collection<UUID> streamIds) {
+        if (tailWaiters.isEmpty()) {
+            return;
+        }
+
+        for (UUID streamId : streamIds) {
+            List<TailWaiter> waiters = tailWaiters.get(streamId);
+            if (waiters == null) {
+                continue;
+            }
+
+            final long streamTail = getStreamTail(streamId);
+            waiters.removeIf(waiter -> {
+                if (streamTail > waiter.msg.getPayload().getAddress()) {
+                    respondTailWaiter(waiter);
+                    return true;
+                }
+                return false;
+            });
+
+            if (waiters.isEmpty()) {
+                tailWaiters.remove(streamId);
+            }
+        }
+    }
+
     /**
      * this method serves token-requests for transaction-commit entries.
      *
@@ -538,13 +759,11 @@ public class SequencerServer extends AbstractServer {
      * - if the transaction may commit,
      * then a normal allocation of log position(s) is pursued.
      *
-     * @param msg corfu message containing transaction token
-     * @param ctx netty ChannelHandlerContext
-     * @param r   server router
+     * @param req          transaction token request
+     * @param streamRanges addresses allocated to each stream in the current round
+     * @return the token response
      */
-    private void handleTxToken(CorfuPayloadMsg<TokenRequest> msg, ChannelHandlerContext ctx, IServerRouter r) {
-        final TokenRequest req = msg.getPayload();
-
+    private TokenResponse handleTxToken(TokenRequest req, Map<UUID, List<long[]>> streamRanges) {
         // in the TK_TX request type, the sequencer is utilized for transaction conflict-resolution.
         // Token allocation is conditioned on commit.
         // First, we check if the transaction can commit.
@@ -552,18 +771,17 @@ public class SequencerServer extends AbstractServer {
         if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
             // If the txn aborts, then DO NOT hand out a token.
             Token newToken = new Token(sequencerEpoch, txResolutionResponse.getAddress());
-            r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(new TokenResponse(
+            return new TokenResponse(
                     txResolutionResponse.getTokenType(),
                     txResolutionResponse.getConflictingKey(),
                     txResolutionResponse.getConflictingStream(),
-                    newToken, Collections.emptyMap(), Collections.emptyMap())));
-            return;
+                    newToken, Collections.emptyMap(), Collections.emptyMap());
         }
 
         // if we get here, this means the transaction can commit.
         // handleAllocation() does the actual allocation of log position(s)
         // and returns the response
-        handleAllocation(msg, ctx, r);
+        return handleAllocation(req, streamRanges);
     }
 
     /**
@@ -571,14 +789,12 @@ public class SequencerServer extends AbstractServer {
      * it also maintains stream-tails, returns a map of stream-tails for backpointers,
      * and maintains a conflict-parameters map.
      *
-     * @param msg corfu message containing allocation
-     * @param ctx netty ChannelHandlerContext
-     * @param r   server router
+     * @param req          token request
+     * @param streamRanges addresses allocated to each stream in the current round, the
+     *                     allocated addresses are added to it
+     * @return the token response
      */
-    private void handleAllocation(CorfuPayloadMsg<TokenRequest> msg,
-                                  ChannelHandlerContext ctx, IServerRouter r) {
-        final TokenRequest req = msg.getPayload();
-
+    private TokenResponse handleAllocation(TokenRequest req, Map<UUID, List<long[]>> streamRanges) {
         // extend the tail of the global log by the requested # of tokens
         // currentTail is the first available position in the global log
         long newTail = globalLogTail + req.getNumTokens();
@@ -586,32 +802,23 @@ public class SequencerServer extends AbstractServer {
         // for each stream:
         //   1. obtain the last back-pointer for this stream, if exists; -1L otherwise.
         //   2. record the new global tail as back-pointer for this stream.
-        //   3. Add the allocated addresses to each stream's address map.
+        //   3. Record the allocated addresses, they are added to the stream's address map
+        //      at the end of the round.
         ImmutableMap.Builder<UUID, Long> backPointerMap = ImmutableMap.builder();
         for (UUID id : req.getStreams()) {
 
             // step 1. and 2. (comment above)
-            streamTailToGlobalTailMap.compute(id, (k, v) -> {
-                if (v == null) {
-                    backPointerMap.put(k, Address.NON_EXIST);
-                    return newTail - 1;
-                } else {
-                    backPointerMap.put(k, v);
-                    return newTail - 1;
-                }
-            });
-
-            // step 3. add allocated addresses to each stream's address map (to keep track of all updates to this stream)
-            streamsAddressMap.compute(id, (streamId, addressMap) -> {
-                if (addressMap == null) {
-                    addressMap = new StreamAddressSpace(Address.NON_ADDRESS, new Roaring64NavigableMap());
-                }
-
-                for (long i = globalLogTail; i < newTail; i++) {
-                    addressMap.addAddress(i);
-                }
-                return addressMap;
-            });
+            Long backPointer = streamTailToGlobalTailMap.put(id, newTail - 1);
+            backPointerMap.put(id, backPointer == null ? Address.NON_EXIST : backPointer);
+
+            // step 3. merge with the previous range of this stream if they are contiguous
+            List<long[]> ranges = streamRanges.computeIfAbsent(id, streamId -> new ArrayList<>());
+            long[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[1] == globalLogTail) {
+                last[1] = newTail;
+            } else {
+                ranges.add(new long[]{globalLogTail, newTail});
+            }
         }
 
         // update the cache of conflict parameters
@@ -622,7 +829,7 @@ public class SequencerServer extends AbstractServer {
                         // insert an entry with the new timestamp using the
                         // hash code based on the param and the stream id.
                         value.forEach(conflictParam ->
-                                cache.put(new ConflictTxStream(key, conflictParam), newTail - 1));
+                                cache.put(key, conflictParam, newTail - 1));
                     });
         }
 
@@ -631,8 +838,7 @@ public class SequencerServer extends AbstractServer {
         // return the token response with the global tail and the streams backpointers
         Token token = new Token(sequencerEpoch, globalLogTail);
         globalLogTail = newTail;
-        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
-                new TokenResponse(token, backPointerMap.build())));
+        return new TokenResponse(token, backPointerMap.build());
     }
 
     /**
@@ -696,6 +902,7 @@ public class SequencerServer extends AbstractServer {
     @Override
     public void shutdown() {
         super.shutdown();
+        tailWaitScheduler.shutdownNow();
     }
 
     /**
@@ -1,40 +1,59 @@
 package org.corfudb.infrastructure;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.CacheWriter;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.RemovalCause;
-import com.google.common.annotations.VisibleForTesting;
-import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.view.Address;
 
-import javax.annotation.Nonnull;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Sequencer server cache.
  * Contains transaction conflict-resolution data structures.
  * <p>
  * The SequencerServer use its own thread/s. To guarantee correct tx conflict-resolution,
- * the {@link SequencerServerCache#conflictCache} must be updated
- * along with {@link SequencerServerCache#maxConflictWildcard} at the same time (atomically) to prevent race condition
- * when the conflict stream is already evicted from the cache but `maxConflictWildcard` is not updated yet,
- * which can cause situation when sequencer let the transaction go but the tx has to be cancelled.
+ * the conflict cache must be updated along with {@link SequencerServerCache#maxConflictWildcard}
+ * at the same time (atomically) to prevent race condition when the conflict stream is already
+ * evicted from the cache but `maxConflictWildcard` is not updated yet, which can cause situation
+ * when sequencer let the transaction go but the tx has to be cancelled.
+ * <p>
+ * SequencerServerCache achieves consistency by being accessed from the sequencer thread only,
+ * it isn't thread-safe.
  * <p>
- * SequencerServerCache achieves consistency by using single threaded cache. It's done by following code:
- * `.executor(Runnable::run)`
+ * Conflict keys (i.e. a stream id and a conflict parameter) are stored as 64-bit fingerprints
+ * in open-addressed primitive arrays, so that lookups don't allocate a key object. The table
+ * is split into shards that are evicted independently with the CLOCK algorithm (an
+ * approximation of LRU). Two conflict keys that share a fingerprint share an entry, since
+ * the sequencer only ever moves an entry to a later address, this can only cause spurious
+ * aborts and never a missed conflict.
  */
 @Slf4j
 public class SequencerServerCache {
+
+    // Shards are only used if each shard can hold at least this many entries
+    private static final int MIN_SHARD_SIZE = 1024;
+
+    private static final int MAX_SHARDS = 16;
+
+    // Upper bound for the entries of a shard, so that its table size fits in an int
+    private static final int MAX_SHARD_SIZE = 1 << 29;
+
+    // Constants of the FNV-1a hash and of Murmur3's finalizer
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MIX_SHIFT = 33;
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+
     /**
      * TX conflict-resolution information:
      * <p>
-     * a cache of recent conflict keys and their latest global-log position.
+     * a table of recent conflict keys and their latest global-log position.
      */
-    private final Cache<ConflictTxStream, Long> conflictCache;
+    private final Shard[] shards;
+
+    private final int shardShift;
 
     /**
      * A "wildcard" representing the maximal update timestamp of
@@ -52,81 +71,77 @@ public class SequencerServerCache {
     @Getter
     private long maxConflictNewSequencer = Address.NOT_FOUND;
 
-    @VisibleForTesting
-    public SequencerServerCache(long cacheSize, CacheWriter<ConflictTxStream, Long> writer) {
-        this.conflictCache = Caffeine.newBuilder()
-                .maximumSize(cacheSize)
-                .writer(writer)
-                //Performing periodic maintenance using current thread (synchronously)
-                .executor(Runnable::run)
-                .recordStats()
-                .build();
-    }
-
     /**
      * The cache limited by size.
-     * For a synchronous cache we are using a same-thread executor (Runnable::run)
-     * https://github.com/ben-manes/caffeine/issues/90
      *
      * @param cacheSize cache size
      */
     public SequencerServerCache(long cacheSize) {
-        this.conflictCache = Caffeine.newBuilder()
-                .maximumSize(cacheSize)
-                //Performing periodic maintenance using current thread (synchronously)
-                .executor(Runnable::run)
-                .writer(getDefaultCacheWriter())
-                .recordStats()
-                .build();
+        checkArgument(cacheSize > 0, "Invalid cache size %s", cacheSize);
+
+        int numShards = 1;
+        while (numShards < MAX_SHARDS && cacheSize / (numShards * 2) >= MIN_SHARD_SIZE) {
+            numShards *= 2;
+        }
+
+        long shardSize = cacheSize / numShards;
+        checkArgument(shardSize <= MAX_SHARD_SIZE, "Cache size %s is too large", cacheSize);
+
+        shards = new Shard[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new Shard((int) shardSize);
+        }
+        shardShift = Long.SIZE - Integer.numberOfTrailingZeros(numShards);
     }
 
-    private CacheWriter<ConflictTxStream, Long> getDefaultCacheWriter() {
-        return new CacheWriter<ConflictTxStream, Long>() {
-            /**
-             * Don't do any additional actions during the write operation. Let caffeine write the record into the cache
-             * @param key a key
-             * @param value a value
-             */
-            @Override
-            public void write(@Nonnull ConflictTxStream key, @Nonnull Long value) {
-                //ignore
-            }
+    /**
+     * Returns a 64-bit fingerprint of a conflict key, zero is reserved
+     * to mark empty slots and is never returned.
+     *
+     * @param streamId      stream id
+     * @param conflictParam conflict parameter
+     * @return the fingerprint of the conflict key
+     */
+    static long fingerprint(UUID streamId, byte[] conflictParam) {
+        long hash = mix(streamId.getMostSignificantBits() * FNV_PRIME ^ streamId.getLeastSignificantBits());
+        for (byte b : conflictParam) {
+            hash = (hash ^ Byte.toUnsignedLong(b)) * FNV_PRIME;
+        }
+        hash = mix(hash ^ conflictParam.length);
+        return hash == 0 ? 1 : hash;
+    }
 
-            /**
-             * Eviction policy https://github.com/ben-manes/caffeine/wiki/Writer
-             * @param key  conflict stream
-             * @param globalAddress global address
-             * @param cause a removal cause
-             */
-            @Override
-            public void delete(@Nonnull ConflictTxStream key, Long globalAddress, @Nonnull RemovalCause cause) {
-                if (cause == RemovalCause.REPLACED) {
-                    String errMsg = String.format("Override error. Conflict key: %s, address: %s", key, globalAddress);
-                    throw new IllegalStateException(errMsg);
-                }
+    /**
+     * Murmur3's 64-bit finalizer.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_MULTIPLIER_1;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_MULTIPLIER_2;
+        hash ^= hash >>> MIX_SHIFT;
+        return hash;
+    }
 
-                log.trace(
-                        "Updating maxConflictWildcard. Old = '{}', new ='{}' conflictParam = '{}'. Cause = '{}'",
-                        maxConflictWildcard, globalAddress, key, cause
-                );
+    private Shard getShard(long fingerprint) {
+        return shards.length == 1 ? shards[0] : shards[(int) (fingerprint >>> shardShift)];
+    }
 
-                if (globalAddress == null) {
-                    globalAddress = Address.NOT_FOUND;
-                }
-                maxConflictWildcard = Math.max(globalAddress, maxConflictWildcard);
-            }
-        };
+    private void updateMaxConflictWildcard(long evictedAddress) {
+        log.trace("Updating maxConflictWildcard. Old = '{}', new ='{}'", maxConflictWildcard, evictedAddress);
+        maxConflictWildcard = Math.max(evictedAddress, maxConflictWildcard);
     }
 
     /**
-     * Returns the value associated with the {@code key} in this cache,
-     * or {@code null} if there is no cached value for the {@code key}.
+     * Returns the address associated with a conflict key in this cache.
      *
-     * @param conflictKey conflict stream
-     * @return global address
+     * @param streamId      stream id
+     * @param conflictParam conflict parameter
+     * @return global address, or {@link Address#NON_ADDRESS} if the conflict key isn't cached
      */
-    public Long getIfPresent(ConflictTxStream conflictKey) {
-        return conflictCache.getIfPresent(conflictKey);
+    public long get(UUID streamId, byte[] conflictParam) {
+        long fingerprint = fingerprint(streamId, conflictParam);
+        return getShard(fingerprint).get(fingerprint);
     }
 
     /**
@@ -137,18 +152,12 @@ public class SequencerServerCache {
     public void invalidateUpTo(long trimMark) {
         log.debug("Invalidate sequencer cache. Trim mark: {}", trimMark);
 
-        AtomicLong entries = new AtomicLong();
-
-        conflictCache.asMap().forEach((key, txVersion) -> {
-            if (txVersion == null || txVersion >= trimMark) {
-                return;
-            }
-
-            conflictCache.invalidate(key);
-            entries.incrementAndGet();
-        });
+        long entries = 0;
+        for (Shard shard : shards) {
+            entries += shard.invalidateUpTo(trimMark, this::updateMaxConflictWildcard);
+        }
 
-        log.info("Invalidated entries: {}", entries.get());
+        log.info("Invalidated entries: {}", entries);
     }
 
     /**
@@ -157,17 +166,26 @@ public class SequencerServerCache {
      * @return cache size
      */
     public long size() {
-        return conflictCache.estimatedSize();
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size;
+        }
+        return size;
     }
 
     /**
      * Put a value in the cache
      *
-     * @param conflictStream conflict stream
-     * @param newTail        global tail
+     * @param streamId      stream id
+     * @param conflictParam conflict parameter
+     * @param newTail       global tail
      */
-    public void put(ConflictTxStream conflictStream, long newTail) {
-        conflictCache.put(conflictStream, newTail);
+    public void put(UUID streamId, byte[] conflictParam, long newTail) {
+        long fingerprint = fingerprint(streamId, conflictParam);
+        long evictedAddress = getShard(fingerprint).put(fingerprint, newTail);
+        if (evictedAddress != Address.NON_ADDRESS) {
+            updateMaxConflictWildcard(evictedAddress);
+        }
     }
 
     /**
@@ -175,7 +193,9 @@ public class SequencerServerCache {
      */
     public void invalidateAll() {
         log.info("Invalidate sequencer server cache");
-        conflictCache.invalidateAll();
+        for (Shard shard : shards) {
+            shard.invalidateUpTo(Address.MAX, this::updateMaxConflictWildcard);
+        }
     }
 
     /**
@@ -190,21 +210,168 @@ public class SequencerServerCache {
     }
 
     /**
-     * Contains the conflict hash code for a stream ID and conflict param.
+     * An open-addressed (linear probing) table of fingerprints and addresses,
+     * with a CLOCK reference bit per slot.
      */
-    @EqualsAndHashCode
-    public static class ConflictTxStream {
-        private final UUID streamId;
-        private final byte[] conflictParam;
+    private static final class Shard {
+
+        private final long[] fingerprints;
+
+        private final long[] addresses;
+
+        private final long[] referenced;
 
-        public ConflictTxStream(UUID streamId, byte[] conflictParam) {
-            this.streamId = streamId;
-            this.conflictParam = conflictParam;
+        private final int mask;
+
+        private final int maxSize;
+
+        private int size = 0;
+
+        private int hand = 0;
+
+        Shard(int maxSize) {
+            this.maxSize = maxSize;
+            // Keep the load factor under 0.5
+            int capacity = Integer.highestOneBit(Math.max(maxSize * 2 - 1, 1)) << 1;
+            this.fingerprints = new long[capacity];
+            this.addresses = new long[capacity];
+            this.referenced = new long[(capacity + Long.SIZE - 1) / Long.SIZE];
+            this.mask = capacity - 1;
+        }
+
+        private int home(long fingerprint) {
+            return (int) (fingerprint ^ (fingerprint >>> Integer.SIZE)) & mask;
+        }
+
+        private int find(long fingerprint) {
+            for (int slot = home(fingerprint); ; slot = (slot + 1) & mask) {
+                long current = fingerprints[slot];
+                if (current == fingerprint) {
+                    return slot;
+                } else if (current == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        private void setReferenced(int slot, boolean value) {
+            if (value) {
+                referenced[slot / Long.SIZE] |= 1L << slot;
+            } else {
+                referenced[slot / Long.SIZE] &= ~(1L << slot);
+            }
+        }
+
+        private boolean isReferenced(int slot) {
+            return (referenced[slot / Long.SIZE] & (1L << slot)) != 0;
+        }
+
+        long get(long fingerprint) {
+            int slot = find(fingerprint);
+            if (slot < 0) {
+                return Address.NON_ADDRESS;
+            }
+            setReferenced(slot, true);
+            return addresses[slot];
+        }
+
+        /**
+         * Adds or updates an entry.
+         *
+         * @return the address of the entry evicted to make room, or
+         * {@link Address#NON_ADDRESS} if no entry was evicted
+         */
+        long put(long fingerprint, long address) {
+            int slot = find(fingerprint);
+            if (slot >= 0) {
+                addresses[slot] = address;
+                setReferenced(slot, true);
+                return Address.NON_ADDRESS;
+            }
+
+            long evictedAddress = Address.NON_ADDRESS;
+            if (size >= maxSize) {
+                evictedAddress = evict();
+            }
+
+            slot = home(fingerprint);
+            while (fingerprints[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            fingerprints[slot] = fingerprint;
+            addresses[slot] = address;
+            setReferenced(slot, false);
+            size++;
+            return evictedAddress;
         }
 
-        @Override
-        public String toString() {
-            return streamId.toString() + conflictParam;
+        /**
+         * Evicts the first entry that the clock hand finds without a reference bit,
+         * clearing the reference bits it passes.
+         *
+         * @return the address of the evicted entry
+         */
+        private long evict() {
+            while (true) {
+                int slot = hand;
+                hand = (hand + 1) & mask;
+                if (fingerprints[slot] == 0) {
+                    continue;
+                }
+                if (isReferenced(slot)) {
+                    setReferenced(slot, false);
+                    continue;
+                }
+
+                long address = addresses[slot];
+                remove(slot);
+                return address;
+            }
+        }
+
+        /**
+         * Removes the entry at a slot, and shifts back the entries of the probe
+         * sequence that follows it so that no tombstones are needed.
+         */
+        private void remove(int slot) {
+            int gap = slot;
+            for (int next = (gap + 1) & mask; fingerprints[next] != 0; next = (next + 1) & mask) {
+                // The entry can fill the gap if the gap is between its home slot and its slot
+                if (((next - home(fingerprints[next])) & mask) >= ((next - gap) & mask)) {
+                    fingerprints[gap] = fingerprints[next];
+                    addresses[gap] = addresses[next];
+                    setReferenced(gap, isReferenced(next));
+                    gap = next;
+                }
+            }
+
+            fingerprints[gap] = 0;
+            addresses[gap] = 0;
+            setReferenced(gap, false);
+            size--;
+        }
+
+        /**
+         * Removes the entries with an address below a trim mark.
+         *
+         * @param trimMark  trim mark
+         * @param onRemoval consumer of the addresses of removed entries
+         * @return the number of removed entries
+         */
+        int invalidateUpTo(long trimMark, LongConsumer onRemoval) {
+            int removed = 0;
+            int slot = 0;
+            while (slot < fingerprints.length) {
+                if (fingerprints[slot] != 0 && addresses[slot] < trimMark) {
+                    onRemoval.accept(addresses[slot]);
+                    // An entry of the probe sequence can be shifted into this slot
+                    remove(slot);
+                    removed++;
+                } else {
+                    slot++;
+                }
+            }
+            return removed;
         }
     }
 }
@@ -131,23 +131,51 @@ public class LogMetadata {
                 // i.e., last observed update to the stream that has already been checkpointed, hence
                 // can be safely trimmed from the log.
                 if (entry.getCheckpointType() == CheckpointEntry.CheckpointEntryType.END) {
-                    streamsAddressSpaceMap.compute(streamId, (id, addressSpace) -> {
-                        if (addressSpace == null) {
-                            // If this entry still does not exist, means no updates have been observed for
-                            // this stream yet. We can initialize the trim mark to the last observed update by the
-                            // checkpoint. If further entries are observed they will be added to the address space.
-                            return new StreamAddressSpace(lastUpdateToStream, new Roaring64NavigableMap());
-                        }
-                        // We will hold the maximum of these observed updates as the stream trim mark (highest
-                        // checkpointed address), as this guarantees data is available in a checkpoint (safe trim mark).
-                        addressSpace.setTrimMark(Long.max(addressSpace.getTrimMark(), lastUpdateToStream));
-                        return addressSpace;
-                    });
+                    updateStreamTrimMark(streamId, lastUpdateToStream);
                 }
             }
         }
     }
 
+    private void updateStreamTrimMark(UUID streamId, long trimMark) {
+        streamsAddressSpaceMap.compute(streamId, (id, addressSpace) -> {
+            if (addressSpace == null) {
+                // If this entry still does not exist, means no updates have been observed for
+                // this stream yet. We can initialize the trim mark to the last observed update by the
+                // checkpoint. If further entries are observed they will be added to the address space.
+                return new StreamAddressSpace(trimMark, new Roaring64NavigableMap());
+            }
+            // We will hold the maximum of these observed updates as the stream trim mark (highest
+            // checkpointed address), as this guarantees data is available in a checkpoint (safe trim mark).
+            addressSpace.setTrimMark(Long.max(addressSpace.getTrimMark(), trimMark));
+            return addressSpace;
+        });
+    }
+
+    /**
+     * Merge the metadata of a stream within a log segment, as computed on initialization
+     * (i.e. by {@link #update(LogData, boolean)} with initialize = true) from the entries
+     * of the segment.
+     *
+     * @param streamId   stream identifier.
+     * @param streamTail tail of the stream in the segment, or NON_ADDRESS if none.
+     * @param trimMark   trim mark of the stream in the segment, or NON_EXIST if none.
+     * @param addresses  addresses of the stream in the segment.
+     */
+    public void update(UUID streamId, long streamTail, long trimMark, Iterable<Long> addresses) {
+        for (long address : addresses) {
+            updateStreamSpace(streamId, address);
+        }
+
+        if (Address.isAddress(streamTail)) {
+            streamTails.merge(streamId, streamTail, Math::max);
+        }
+
+        if (trimMark != Address.NON_EXIST) {
+            updateStreamTrimMark(streamId, trimMark);
+        }
+    }
+
     public void updateGlobalTail(long newTail) {
         globalTail = Math.max(globalTail, newTail);
     }
@@ -0,0 +1,286 @@
+package org.corfudb.infrastructure.log;
+
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A compact index of the records of a single segment. Records are keyed by their offset
+ * from the segment's first address, their location is kept in parallel primitive arrays,
+ * and the presence and trim state of each address is tracked in bitsets. This avoids
+ * boxing keys and allocating a map node per record.
+ *
+ * <p>Updates are serialized through a {@link StampedLock}, lookups are optimistic and
+ * only fall back to the read lock when they race with an update.
+ */
+class SegmentAddressIndex {
+
+    private static final int WORD_BITS = Long.SIZE;
+
+    private final long base;
+
+    private final int capacity;
+
+    private final long[] offsets;
+
+    private final int[] lengths;
+
+    private final int[] checksums;
+
+    private final long[] known;
+
+    private final long[] trimmed;
+
+    private final long[] pendingTrims;
+
+    private final StampedLock lock = new StampedLock();
+
+    private int size = 0;
+
+    /**
+     * Returns an index for the addresses [base, base + capacity).
+     *
+     * @param base     first address of the segment
+     * @param capacity number of addresses in the segment
+     */
+    SegmentAddressIndex(long base, int capacity) {
+        this.base = base;
+        this.capacity = capacity;
+        this.offsets = new long[capacity];
+        this.lengths = new int[capacity];
+        this.checksums = new int[capacity];
+
+        int words = (capacity + WORD_BITS - 1) / WORD_BITS;
+        this.known = new long[words];
+        this.trimmed = new long[words];
+        this.pendingTrims = new long[words];
+    }
+
+    private int toIndex(long address) {
+        long index = address - base;
+        if (index < 0 || index >= capacity) {
+            throw new IllegalArgumentException("Address " + address + " is not in ["
+                    + base + ", " + (base + capacity) + ")");
+        }
+        return (int) index;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index / WORD_BITS] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index / WORD_BITS] |= 1L << index;
+    }
+
+    /**
+     * Returns the location of the record at an address.
+     *
+     * @param address address of the record
+     * @return the record's metadata, or null if the address isn't known
+     */
+    AddressMetaData get(long address) {
+        int index = toIndex(address);
+
+        long stamp = lock.tryOptimisticRead();
+        boolean isKnown = isSet(known, index);
+        long offset = offsets[index];
+        int length = lengths[index];
+        int checksum = checksums[index];
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                isKnown = isSet(known, index);
+                offset = offsets[index];
+                length = lengths[index];
+                checksum = checksums[index];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        return isKnown ? new AddressMetaData(checksum, length, offset) : null;
+    }
+
+    /**
+     * Add or replace the location of the record at an address.
+     *
+     * @param address  address of the record
+     * @param metaData location of the record
+     */
+    void put(long address, AddressMetaData metaData) {
+        int index = toIndex(address);
+
+        long stamp = lock.writeLock();
+        try {
+            offsets[index] = metaData.offset;
+            lengths[index] = metaData.length;
+            checksums[index] = metaData.checksum;
+            if (!isSet(known, index)) {
+                set(known, index);
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean test(long[] bits, long address) {
+        int index = toIndex(address);
+
+        long stamp = lock.tryOptimisticRead();
+        boolean isSet = isSet(bits, index);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                isSet = isSet(bits, index);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return isSet;
+    }
+
+    private void mark(long[] bits, long address) {
+        int index = toIndex(address);
+
+        long stamp = lock.writeLock();
+        try {
+            set(bits, index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    boolean contains(long address) {
+        return test(known, address);
+    }
+
+    boolean isTrimmed(long address) {
+        return test(trimmed, address);
+    }
+
+    void markTrimmed(long address) {
+        mark(trimmed, address);
+    }
+
+    boolean isPendingTrim(long address) {
+        return test(pendingTrims, address);
+    }
+
+    void markPendingTrim(long address) {
+        mark(pendingTrims, address);
+    }
+
+    /**
+     * Returns the number of known addresses.
+     */
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the first and last address of the range covered by this index that
+     * intersects [rangeStart, rangeEnd], as {from, to} offsets, or null if the
+     * ranges don't intersect.
+     */
+    private int[] clamp(long rangeStart, long rangeEnd) {
+        long from = Math.max(rangeStart, base) - base;
+        long to = Math.min(rangeEnd, base + capacity - 1) - base;
+        return from > to ? null : new int[]{(int) from, (int) to};
+    }
+
+    /**
+     * Returns a mask of the bits of a word that lie within [from, to].
+     */
+    private static long wordMask(int word, int from, int to) {
+        int wordStart = word * WORD_BITS;
+        long mask = -1L;
+        if (from > wordStart) {
+            mask &= -1L << (from - wordStart);
+        }
+        if (to < wordStart + WORD_BITS - 1) {
+            mask &= -1L >>> (WORD_BITS - 1 - (to - wordStart));
+        }
+        return mask;
+    }
+
+    /**
+     * Checks if any address in [rangeStart, rangeEnd] is known.
+     *
+     * @param rangeStart start address of the range (inclusive)
+     * @param rangeEnd   end address of the range (inclusive)
+     * @return true if at least one address in the range is known
+     */
+    boolean containsAny(long rangeStart, long rangeEnd) {
+        int[] range = clamp(rangeStart, rangeEnd);
+        if (range == null) {
+            return false;
+        }
+
+        long stamp = lock.readLock();
+        try {
+            for (int word = range[0] / WORD_BITS; word <= range[1] / WORD_BITS; word++) {
+                if ((known[word] & wordMask(word, range[0], range[1])) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds the known addresses in [rangeStart, rangeEnd] to a set.
+     *
+     * @param rangeStart start address of the range (inclusive)
+     * @param rangeEnd   end address of the range (inclusive)
+     * @param result     the set to add the addresses to
+     */
+    void addKnownAddresses(long rangeStart, long rangeEnd, Set<Long> result) {
+        int[] range = clamp(rangeStart, rangeEnd);
+        if (range == null) {
+            return;
+        }
+
+        long stamp = lock.readLock();
+        try {
+            for (int word = range[0] / WORD_BITS; word <= range[1] / WORD_BITS; word++) {
+                long bits = known[word] & wordMask(word, range[0], range[1]);
+                while (bits != 0) {
+                    result.add(base + (long) word * WORD_BITS + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a snapshot of all the known addresses, in ascending order.
+     */
+    long[] getKnownAddresses() {
+        long stamp = lock.readLock();
+        try {
+            long[] addresses = new long[size];
+            int count = 0;
+            for (int word = 0; word < known.length; word++) {
+                long bits = known[word];
+                while (bits != 0) {
+                    addresses[count++] = base + (long) word * WORD_BITS + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                }
+            }
+            return addresses;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
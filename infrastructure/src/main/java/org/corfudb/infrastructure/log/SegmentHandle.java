@@ -1,18 +1,24 @@
 package org.corfudb.infrastructure.log;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
+import org.corfudb.infrastructure.log.compression.Codec;
 
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+
+import static org.corfudb.infrastructure.log.StreamLogFiles.RECORDS_PER_LOG_FILE;
 
 /**
  * The global log is partition into segments, each segment contains a range of consecutive
@@ -34,12 +40,46 @@ class SegmentHandle {
     @NonNull
     String fileName;
 
-    private final Map<Long, AddressMetaData> knownAddresses = new ConcurrentHashMap<>();
-    private final Set<Long> trimmedAddresses = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    private final Set<Long> pendingTrims = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final SegmentAddressIndex addressIndex;
+
+    /**
+     * Log metadata of the records in this segment, persisted in the segment's index.
+     * It is updated under the segment's write lock.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final LogMetadata logMetadata = new LogMetadata();
+
     private volatile int refCount = 0;
 
+    /**
+     * Codec bound to the compression dictionary stored in the segment's header,
+     * null if the segment wasn't created with a dictionary.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile Codec dictionaryCodec = null;
+
+    /**
+     * Read-only mapping of the segment file, lazily created when memory-mapped
+     * reads are enabled and the segment is no longer the tail segment.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile MappedByteBuffer mappedBuffer = null;
 
+    SegmentHandle(long segment, @NonNull FileChannel writeChannel,
+                  @NonNull FileChannel readChannel, @NonNull String fileName) {
+        this.segment = segment;
+        this.writeChannel = writeChannel;
+        this.readChannel = readChannel;
+        this.fileName = fileName;
+        this.addressIndex = new SegmentAddressIndex(segment * RECORDS_PER_LOG_FILE, RECORDS_PER_LOG_FILE);
+    }
     public synchronized void retain() {
         refCount++;
     }
@@ -51,7 +91,43 @@ class SegmentHandle {
         refCount--;
     }
 
+    /**
+     * Returns a read-only mapping of this segment that covers at least the first
+     * {@code limit} bytes of the file. If the file has grown past the current mapping
+     * (i.e. a hole fill or a ranked write landed in this segment), it is remapped.
+     *
+     * @param limit minimum number of bytes the mapping has to cover
+     * @return the mapped buffer, or null if the segment can't be mapped
+     * @throws IOException IO exception
+     */
+    MappedByteBuffer mapForRead(long limit) throws IOException {
+        MappedByteBuffer current = mappedBuffer;
+        if (current != null && current.capacity() >= limit) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = mappedBuffer;
+            if (current != null && current.capacity() >= limit) {
+                return current;
+            }
+
+            long size = readChannel.size();
+            if (size < limit || size > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            current = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mappedBuffer = current;
+            return current;
+        }
+    }
+
     public void close() {
+        // The mapping is released once it becomes unreachable, buffers
+        // that are still referenced by readers remain valid.
+        mappedBuffer = null;
+
         Set<FileChannel> channels = new HashSet<>(
                 Arrays.asList(writeChannel, readChannel)
         );
@@ -1,14 +1,20 @@
 package org.corfudb.infrastructure.log;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.runtime.exceptions.OverwriteCause;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 /**
  * An interface definition that specifies an api to interact with a StreamLog.
@@ -34,6 +40,30 @@ public interface StreamLog {
      */
     void append(List<LogData> entries);
 
+    /**
+     * Append a group of independent entries, each one at its own global address.
+     * Unlike {@link #append(List)} the addresses don't need to be consecutive, and
+     * every entry succeeds or fails on its own with the same semantics as
+     * {@link #append(long, LogData)}. Implementations can use this to coalesce
+     * the writes into fewer I/O operations.
+     *
+     * @param entries entries to append
+     * @return the failure of each entry (in the order of entries), or null for
+     *         the entries that were appended successfully
+     */
+    default List<RuntimeException> appendGroup(List<LogData> entries) {
+        List<RuntimeException> failures = new ArrayList<>(entries.size());
+        for (LogData entry : entries) {
+            try {
+                append(entry.getGlobalAddress(), entry);
+                failures.add(null);
+            } catch (RuntimeException e) {
+                failures.add(e);
+            }
+        }
+        return failures;
+    }
+
     /**
      * Given an address, read the corresponding stream entry.
      * @param address  address to read from the log
@@ -41,6 +71,24 @@ public interface StreamLog {
      */
     LogData read(long address);
 
+    /**
+     * Read the entries of a batch of addresses. Implementations can use this to
+     * order and coalesce the reads into fewer I/O operations.
+     *
+     * @param addresses addresses to read from the log
+     * @return the entries that exist, keyed by their address
+     */
+    default Map<Long, LogData> read(List<Long> addresses) {
+        Map<Long, LogData> entries = new HashMap<>();
+        for (long address : addresses) {
+            LogData entry = read(address);
+            if (entry != null) {
+                entries.put(address, entry);
+            }
+        }
+        return entries;
+    }
+
     /**
      * Prefix trim the global log.
      * @param address address to trim the log up to
@@ -72,6 +120,20 @@ public interface StreamLog {
      */
     StreamsAddressResponse getStreamsAddressSpace();
 
+    /**
+     * Get the addresses of a stream in a range.
+     *
+     * @param range the stream and its range of addresses, i.e. (end, start]
+     * @return the addresses of the stream in the range
+     */
+    default Roaring64NavigableMap getStreamAddressesInRange(StreamAddressRange range) {
+        StreamAddressSpace addressSpace = getStreamsAddressSpace().getAddressMap().get(range.getStreamID());
+        if (addressSpace == null) {
+            return new Roaring64NavigableMap();
+        }
+        return addressSpace.getAddressesInRange(range);
+    }
+
     /**
      * Get the first untrimmed address in the address space.
      */
@@ -1,11 +1,12 @@
 package org.corfudb.infrastructure.log;
 
+import com.github.luben.zstd.ZstdDictTrainer;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Sets;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.buffer.Unpooled;
 import lombok.extern.slf4j.Slf4j;
@@ -15,8 +16,11 @@ import org.corfudb.format.Types;
 import org.corfudb.format.Types.LogEntry;
 import org.corfudb.format.Types.LogHeader;
 import org.corfudb.format.Types.Metadata;
+import org.corfudb.format.Types.SegmentIndex;
+import org.corfudb.format.Types.SegmentStreamMetadata;
 import org.corfudb.infrastructure.ResourceQuota;
 import org.corfudb.infrastructure.ServerContext;
+import org.corfudb.infrastructure.ServerThreadFactory;
 import org.corfudb.infrastructure.log.compression.Codec;
 import org.corfudb.protocols.logprotocol.CheckpointEntry;
 import org.corfudb.protocols.wireprotocol.ILogData;
@@ -29,6 +33,10 @@ import org.corfudb.runtime.exceptions.LogUnitException;
 import org.corfudb.runtime.exceptions.OverwriteCause;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
+import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.roaringbitmap.longlong.LongIterator;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -36,6 +44,7 @@ import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileStore;
@@ -45,20 +54,36 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -83,7 +108,34 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             .getSerializedSize();
     public static final int VERSION = 2;
     public static final int RECORDS_PER_LOG_FILE = 10000;
+    public static final String SEGMENT_INDEX_EXTENSION = ".idx";
+    // Size of the compression dictionary trained for each segment (when using ZSTD_DICT)
+    public static final int DICTIONARY_SIZE = 16 * 1024;
+    // Total size of the payload samples a dictionary is trained on
+    private static final int DICTIONARY_SAMPLES_SIZE = 1024 * 1024;
+    // Larger payloads compress well on their own and are not sampled
+    private static final int MAX_DICTIONARY_SAMPLE_SIZE = 4 * 1024;
+    // Minimum number of samples required to train a dictionary
+    private static final int MIN_DICTIONARY_SAMPLES = 100;
+
+    // Records of a batched read are coalesced into one read if they are at most
+    // this many bytes apart, and as long as the read doesn't exceed the max size
+    private static final int MAX_COALESCED_READ_GAP = 4 * 1024;
+    private static final int MAX_COALESCED_READ_SIZE = 1024 * 1024;
+
+    // Batched reads that span several segments read the segments concurrently.
+    // Idle threads are reclaimed, and when all threads are busy the segment
+    // is read on the caller's thread.
+    private static final ExecutorService segmentReadExecutor = new ThreadPoolExecutor(0,
+            Runtime.getRuntime().availableProcessors(), 1, TimeUnit.MINUTES, new SynchronousQueue<>(),
+            new ServerThreadFactory("LogUnit-read-", new ServerThreadFactory.ExceptionHandler()),
+            new ThreadPoolExecutor.CallerRunsPolicy());
     private final Path logDir;
+    // Directory of the segment index files, kept apart from the segment files
+    private final Path indexDir;
+    // Indexes of sealed segments are written in the background, so that the write
+    // that rolls over the tail segment doesn't wait for the sealed segment to be forced
+    private final ThreadPoolExecutor segmentIndexExecutor;
     private final boolean verify;
 
     private final StreamLogDataStore dataStore;
@@ -106,8 +158,30 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     // Resource quota to track the log size
     private ResourceQuota logSizeQuota;
 
+    // Payloads are compressed per record rather than in multi-record blocks: every
+    // address is appended (and made durable) on its own, holes are filled in sealed
+    // segments, and the address and segment indexes locate each record by offset. The
+    // per-segment dictionary of ZSTD_DICT recovers the density that small records lose
+    // when compressed alone, and decompressed entries are cached by the log unit's cache.
     private final Codec.Type codecType;
 
+    // Collects payload samples written to the log, the dictionary of the next
+    // segments is trained on them (only used with ZSTD_DICT)
+    private final Object dictionaryTrainerLock = new Object();
+    private ZstdDictTrainer dictionaryTrainer = new ZstdDictTrainer(DICTIONARY_SAMPLES_SIZE, DICTIONARY_SIZE);
+    private int dictionarySamples = 0;
+
+    // Dictionaries are trained in the background, new segments are created with the
+    // last trained dictionary and fall back to plain ZSTD until one is trained
+    private final ThreadPoolExecutor dictionaryTrainingExecutor;
+    private final AtomicBoolean dictionaryTraining = new AtomicBoolean(false);
+    @Nullable
+    private volatile byte[] dictionary = null;
+
+    // If enabled, reads from segments that are behind the tail segment are
+    // served from a read-only memory mapping of the segment file.
+    private final boolean mmapReads;
+
     /**
      * Returns a file-based stream log object.
      *
@@ -117,6 +191,13 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      */
     public StreamLogFiles(ServerContext serverContext, boolean noVerify) {
         logDir = Paths.get(serverContext.getServerConfig().get("--log-path").toString(), "log");
+        indexDir = Paths.get(serverContext.getServerConfig().get("--log-path").toString(), "index");
+        segmentIndexExecutor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                new ServerThreadFactory("LogUnit-index-", new ServerThreadFactory.ExceptionHandler()));
+        segmentIndexExecutor.allowCoreThreadTimeOut(true);
+        dictionaryTrainingExecutor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                new ServerThreadFactory("LogUnit-dictionary-", new ServerThreadFactory.ExceptionHandler()));
+        dictionaryTrainingExecutor.allowCoreThreadTimeOut(true);
         writeChannels = new ConcurrentHashMap<>();
         channelsToSync = new HashSet<>();
         this.verify = !noVerify;
@@ -133,6 +214,9 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         String codec = (String) serverContext.getServerConfig().get("--compression-codec");
         codecType = Codec.Type.valueOf(codec);
 
+        Boolean mmapReadsParam = serverContext.getServerConfig(Boolean.class, "--mmap-reads");
+        mmapReads = mmapReadsParam != null && mmapReadsParam;
+
         long fileSystemCapacity = initStreamLogDirectory();
         logSizeLimit = (long) (fileSystemCapacity * logSizeLimitPercentage / 100.0);
 
@@ -170,6 +254,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 Files.createDirectories(logDir);
             }
 
+            if (!indexDir.toFile().exists()) {
+                Files.createDirectories(indexDir);
+            }
+
             String corfuDir = logDir.getParent().toString();
             FileStore corfuDirBackend = Files.getFileStore(Paths.get(corfuDir));
 
@@ -201,11 +289,15 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * on this LU and create a map of stream offsets and the global
      * addresses seen.
      *
+     * <p>The metadata of segments that have a valid index is merged from the index,
+     * only the other segments (i.e. the tail segment) are read.
+     *
      * consecutive segments from [startSegment, endSegment]
      */
     private void initializeLogMetadata() {
         long startingSegment = getStartingSegment();
         long tailSegment = dataStore.getTailSegment();
+        int indexedSegments = 0;
 
         long start = System.currentTimeMillis();
         // Scan the log in reverse, this will ease stream trim mark resolution (as we require the
@@ -213,9 +305,20 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // Note: if a checkpoint END record is not found (i.e., incomplete) this data is not considered
         // for stream trim mark computation.
         for (long currentSegment = tailSegment; currentSegment >= startingSegment; currentSegment--) {
+            // A partially trimmed segment is read, since its index covers trimmed entries
+            if (currentSegment * RECORDS_PER_LOG_FILE >= dataStore.getStartingAddress()) {
+                long segmentSize = new File(getSegmentFilePath(currentSegment)).length();
+                SegmentIndex index = readSegmentIndex(currentSegment, segmentSize);
+                if (index != null) {
+                    updateLogMetadata(logMetadata, index);
+                    indexedSegments++;
+                    continue;
+                }
+            }
+
             SegmentHandle segment = getSegmentHandleForAddress(currentSegment * RECORDS_PER_LOG_FILE + 1);
             try {
-                for (Long address : segment.getKnownAddresses().keySet()) {
+                for (long address : segment.getAddressIndex().getKnownAddresses()) {
                     // skip trimmed entries
                     if (address < dataStore.getStartingAddress()) {
                         continue;
@@ -224,6 +327,8 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                     logMetadata.update(logEntry, true);
                 }
             } finally {
+                // A stale index is regenerated when the segment is opened
+                awaitSegmentIndexes();
                 segment.close();
             }
         }
@@ -231,7 +336,8 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // Open segment will add entries to the writeChannels map, therefore we need to clear it
         writeChannels.clear();
         long end = System.currentTimeMillis();
-        log.info("initializeStreamTails: took {} ms to load {}, log start {}", end - start, logMetadata, getTrimMark());
+        log.info("initializeStreamTails: took {} ms to load {} ({} segments from their index), log start {}",
+                end - start, logMetadata, indexedSegments, getTrimMark());
     }
 
     /**
@@ -243,11 +349,30 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * @throws IOException I/O exception
      */
     public void writeHeader(FileChannel fileChannel, int version, boolean verify) throws IOException {
+        writeHeader(fileChannel, version, verify, null);
+    }
 
-        LogHeader header = LogHeader.newBuilder()
+    /**
+     * Write the header for a Corfu log file.
+     *
+     * @param fileChannel The file channel to use.
+     * @param version     The version number to append to the header.
+     * @param verify      Checksum verify flag
+     * @param dictionary  The compression dictionary of the segment, or null if it has none
+     * @throws IOException I/O exception
+     */
+    private void writeHeader(FileChannel fileChannel, int version, boolean verify,
+                             @Nullable byte[] dictionary) throws IOException {
+
+        LogHeader.Builder headerBuilder = LogHeader.newBuilder()
                 .setVersion(version)
-                .setVerifyChecksum(verify)
-                .build();
+                .setVerifyChecksum(verify);
+
+        if (dictionary != null) {
+            headerBuilder.setCompressionDictionary(ByteString.copyFrom(dictionary));
+        }
+
+        LogHeader header = headerBuilder.build();
 
         ByteBuffer buf = getByteBufferWithMetaData(header);
         writeByteBuffer(fileChannel, buf);
@@ -317,8 +442,17 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // that case we will need to scan more than one segment
         logMetadata.updateGlobalTail(address);
         long segment = address / RECORDS_PER_LOG_FILE;
+        long previousTailSegment = dataStore.getTailSegment();
 
         dataStore.updateTailSegment(segment);
+
+        if (segment > previousTailSegment) {
+            // The previous tail segment rolled over, persist its index
+            SegmentHandle sealedSegment = writeChannels.get(getSegmentFilePath(previousTailSegment));
+            if (sealedSegment != null) {
+                scheduleSegmentIndex(sealedSegment);
+            }
+        }
     }
 
     @Override
@@ -415,6 +549,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
 
         // Close segments before deleting their corresponding log files
+        awaitSegmentIndexes();
         closeSegmentHandlers(endSegment);
 
         deleteFilesMatchingFilter(file -> {
@@ -426,22 +561,49 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 return false;
             }
         });
+        deleteSegmentIndexes(endSegment);
 
         log.info("trimPrefix: completed, end segment {}", endSegment);
     }
 
-    private LogData getLogData(LogEntry entry) {
-        ByteBuffer entryData = ByteBuffer.wrap(entry.getData().toByteArray());
+    private LogData getLogData(SegmentHandle segment, LogEntry entry) {
+        // Read-only view over the entry's payload, this avoids copying the
+        // payload out of the parsed entry before decompressing it
+        ByteBuffer entryData = entry.getData().asReadOnlyByteBuffer();
 
         if (entry.hasCodecType() && entryData.hasRemaining()) {
-            Codec codec = Codec.getById(entry.getCodecType());
+            Codec codec;
+            if (entry.getCodecType() == Codec.Type.ZSTD_DICT.getId()) {
+                codec = segment.getDictionaryCodec();
+                if (codec == null) {
+                    throw new DataCorruptionException("Missing compression dictionary in "
+                            + segment.getFileName() + " for address " + entry.getGlobalAddress());
+                }
+            } else {
+                codec = Codec.getById(entry.getCodecType());
+            }
             entryData = codec.decompress(entryData);
         }
 
         LogData logData = new LogData(org.corfudb.protocols.wireprotocol
                 .DataType.typeMap.get((byte) entry.getDataType().getNumber()),
-                Unpooled.wrappedBuffer(entryData.array()));
+                Unpooled.wrappedBuffer(entryData));
+        setLogDataMetadata(logData, entry);
+        return logData;
+    }
+
+    /**
+     * Get the metadata of a log entry without decompressing its payload, i.e. to
+     * update the log metadata.
+     */
+    private LogData getLogDataMetadata(LogEntry entry) {
+        LogData logData = new LogData(org.corfudb.protocols.wireprotocol
+                .DataType.typeMap.get((byte) entry.getDataType().getNumber()));
+        setLogDataMetadata(logData, entry);
+        return logData;
+    }
 
+    private void setLogDataMetadata(LogData logData, LogEntry entry) {
         logData.setBackpointerMap(getUUIDLongMap(entry.getBackpointersMap()));
         logData.setGlobalAddress(entry.getGlobalAddress());
         logData.setRank(createDataRank(entry));
@@ -479,8 +641,6 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             logData.setCheckpointedStreamStartLogAddress(
                     entry.getCheckpointedStreamStartLogAddress());
         }
-
-        return logData;
     }
 
     //================Parsing Helper Methods================//
@@ -661,7 +821,28 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         LogHeader header = parseHeader(fileChannel, segment.getFileName());
         if (header == null) {
             log.warn("Couldn't find log header for {}, creating new header.", segment.getFileName());
-            writeHeader(fileChannel, VERSION, verify);
+            byte[] segmentDictionary = null;
+            if (codecType.requiresDictionary()) {
+                // The samples of the previous segments are used for the next segments
+                segmentDictionary = dictionary;
+                scheduleDictionaryTraining();
+            }
+            writeHeader(fileChannel, VERSION, verify, segmentDictionary);
+            if (segmentDictionary != null) {
+                segment.setDictionaryCodec(codecType.getInstance(segmentDictionary));
+            }
+            return;
+        }
+
+        if (!header.getCompressionDictionary().isEmpty()) {
+            segment.setDictionaryCodec(Codec.Type.ZSTD_DICT.getInstance(
+                    header.getCompressionDictionary().toByteArray()));
+        }
+
+        if (loadSegmentIndex(segment)) {
+            // Position the channel at the end of the segment, so that
+            // subsequent writes are appended
+            fileChannel.position(fileChannel.size());
             return;
         }
 
@@ -691,10 +872,198 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                     channelOffset + METADATA_SIZE
             );
 
-            segment.getKnownAddresses().put(entry.getGlobalAddress(), addressMetadata);
+            segment.getAddressIndex().put(entry.getGlobalAddress(), addressMetadata);
+            segment.getLogMetadata().update(getLogDataMetadata(entry), true);
+        }
+
+        if (segment.getSegment() < dataStore.getTailSegment()) {
+            // The index of a sealed segment is missing or stale, regenerate it
+            scheduleSegmentIndex(segment);
         }
     }
 
+    private Path getSegmentIndexPath(long segment) {
+        return indexDir.resolve(segment + SEGMENT_INDEX_EXTENSION);
+    }
+
+    /**
+     * Persist the index of a sealed segment in the background, so that writes
+     * don't wait for the segment to be forced to secondary storage.
+     *
+     * @param segment the sealed segment to index
+     */
+    private void scheduleSegmentIndex(SegmentHandle segment) {
+        segment.retain();
+        segmentIndexExecutor.execute(() -> {
+            try {
+                writeSegmentIndex(segment);
+            } finally {
+                segment.release();
+            }
+        });
+    }
+
+    /**
+     * Wait for the segment indexes that are being persisted, i.e. before
+     * the segments are closed or their index files deleted.
+     */
+    private void awaitSegmentIndexes() {
+        try {
+            segmentIndexExecutor.submit(() -> { }).get();
+        } catch (InterruptedException ie) {
+            throw new UnrecoverableCorfuInterruptedError(ie);
+        } catch (ExecutionException ee) {
+            log.warn("awaitSegmentIndexes: failed to wait for segment indexes", ee);
+        }
+    }
+
+    /**
+     * Persist the index of a sealed segment, i.e. the location of every record in the
+     * segment and the log metadata of the records. The segment is forced to secondary
+     * storage before the index is written, and the index is written to a temporary file
+     * that is atomically moved in place. Failing to write the index is not fatal, the
+     * segment will be scanned when opened.
+     *
+     * @param segment the sealed segment to index
+     */
+    private void writeSegmentIndex(SegmentHandle segment) {
+        Path indexPath = getSegmentIndexPath(segment.getSegment());
+        Path tmpPath = Paths.get(indexPath + ".tmp");
+
+        try {
+            SegmentIndex index;
+            // Records written to the segment after the index is built are past its
+            // recorded size, which makes the index stale
+            try (MultiReadWriteLock.AutoCloseableLock ignored =
+                         segmentLocks.acquireReadLock(segment.getSegment())) {
+                index = buildSegmentIndex(segment);
+            }
+
+            segment.getWriteChannel().force(true);
+
+            ByteBuffer buf = getByteBufferWithMetaData(index);
+            Files.write(tmpPath, buf.array(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+            Files.move(tmpPath, indexPath, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(indexDir.toString());
+            log.debug("writeSegmentIndex: wrote index of {} with {} addresses",
+                    segment.getFileName(), index.getAddressesCount());
+        } catch (IOException e) {
+            log.warn("writeSegmentIndex: failed to write index for {}", segment.getFileName(), e);
+        }
+    }
+
+    private SegmentIndex buildSegmentIndex(SegmentHandle segment) throws IOException {
+        SegmentIndex.Builder index = SegmentIndex.newBuilder()
+                .setSegmentSize(segment.getWriteChannel().size());
+        for (long address : segment.getAddressIndex().getKnownAddresses()) {
+            AddressMetaData addressMetaData = segment.getAddressIndex().get(address);
+            index.addAddresses(address);
+            index.addOffsets(addressMetaData.offset);
+            index.addLengths(addressMetaData.length);
+            index.addChecksums(addressMetaData.checksum);
+        }
+
+        LogMetadata segmentMetadata = segment.getLogMetadata();
+        for (Map.Entry<UUID, Long> streamTail : segmentMetadata.getStreamTails().entrySet()) {
+            UUID streamId = streamTail.getKey();
+            StreamAddressSpace addressSpace = segmentMetadata.getStreamsAddressSpaceMap().get(streamId);
+            SegmentStreamMetadata.Builder stream = SegmentStreamMetadata.newBuilder()
+                    .setStreamIdMostSignificant(streamId.getMostSignificantBits())
+                    .setStreamIdLeastSignificant(streamId.getLeastSignificantBits())
+                    .setTail(streamTail.getValue())
+                    .setTrimMark(addressSpace == null ? Address.NON_EXIST : addressSpace.getTrimMark());
+            if (addressSpace != null) {
+                LongIterator addresses = addressSpace.getAddressMap().getLongIterator();
+                while (addresses.hasNext()) {
+                    stream.addAddresses(addresses.next());
+                }
+            }
+            index.addStreams(stream);
+        }
+
+        return index.build();
+    }
+
+    /**
+     * Merge the log metadata recorded in the index of a segment.
+     *
+     * @param metadata the log metadata to update
+     * @param index    the index of the segment
+     */
+    private static void updateLogMetadata(LogMetadata metadata, SegmentIndex index) {
+        for (long address : index.getAddressesList()) {
+            metadata.updateGlobalTail(address);
+        }
+
+        for (SegmentStreamMetadata stream : index.getStreamsList()) {
+            UUID streamId = new UUID(stream.getStreamIdMostSignificant(),
+                    stream.getStreamIdLeastSignificant());
+            metadata.update(streamId, stream.getTail(), stream.getTrimMark(), stream.getAddressesList());
+        }
+    }
+
+    /**
+     * Read the persisted index of a segment. The index is only returned if its checksum
+     * is valid and it matches the size of the segment file, otherwise the segment has
+     * to be scanned.
+     *
+     * @param segment     the segment to read the index of
+     * @param segmentSize the current size of the segment file
+     * @return the index, or null if the segment has no valid index
+     */
+    @Nullable
+    private SegmentIndex readSegmentIndex(long segment, long segmentSize) {
+        Path indexPath = getSegmentIndexPath(segment);
+        if (!indexPath.toFile().exists()) {
+            return null;
+        }
+
+        try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            Metadata metadata = parseMetadata(indexChannel, indexPath.toString());
+            ByteBuffer buf = metadata == null ? null : getPayloadForMetadata(indexChannel, metadata);
+            if (buf == null || Checksum.getChecksum(buf.array()) != metadata.getPayloadChecksum()) {
+                log.warn("readSegmentIndex: ignoring corrupted index {}", indexPath);
+                return null;
+            }
+
+            SegmentIndex index = SegmentIndex.parseFrom(buf.array());
+            int numAddresses = index.getAddressesCount();
+            if (index.getSegmentSize() != segmentSize
+                    || index.getOffsetsCount() != numAddresses
+                    || index.getLengthsCount() != numAddresses
+                    || index.getChecksumsCount() != numAddresses) {
+                log.info("readSegmentIndex: ignoring stale index {}", indexPath);
+                return null;
+            }
+            return index;
+        } catch (IOException | DataCorruptionException e) {
+            log.warn("readSegmentIndex: ignoring unreadable index {}", indexPath, e);
+            return null;
+        }
+    }
+
+    /**
+     * Load the known addresses and the log metadata of a segment from its persisted index.
+     *
+     * @param segment the segment to load the index for
+     * @return true if the index was loaded, false if the segment has no valid index
+     */
+    private boolean loadSegmentIndex(SegmentHandle segment) throws IOException {
+        SegmentIndex index = readSegmentIndex(segment.getSegment(), segment.getWriteChannel().size());
+        if (index == null) {
+            return false;
+        }
+
+        for (int ind = 0; ind < index.getAddressesCount(); ind++) {
+            segment.getAddressIndex().put(index.getAddresses(ind), new AddressMetaData(
+                    index.getChecksums(ind), index.getLengths(ind), index.getOffsets(ind)));
+        }
+        updateLogMetadata(segment.getLogMetadata(), index);
+        return true;
+    }
+
     /**
      * Read a log entry in a file.
      *
@@ -705,15 +1074,22 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     private LogData readRecord(SegmentHandle segment, long address) throws IOException {
         FileChannel fileChannel = segment.getReadChannel();
 
-        AddressMetaData metaData = segment.getKnownAddresses().get(address);
+        AddressMetaData metaData = segment.getAddressIndex().get(address);
         if (metaData == null) {
             return null;
         }
 
         try {
+            if (mmapReads && segment.getSegment() < dataStore.getTailSegment()) {
+                MappedByteBuffer mappedBuffer = segment.mapForRead(metaData.offset + metaData.length);
+                if (mappedBuffer != null) {
+                    return getLogData(segment, parseMappedEntry(mappedBuffer, metaData));
+                }
+            }
+
             ByteBuffer entryBuf = ByteBuffer.allocate(metaData.length);
             fileChannel.read(entryBuf, metaData.offset);
-            return getLogData(LogEntry.parseFrom(entryBuf.array()));
+            return getLogData(segment, LogEntry.parseFrom(entryBuf.array()));
         } catch (InvalidProtocolBufferException e) {
             String errorMessage = getDataCorruptionErrorMessage("Invalid entry",
                     fileChannel, segment.getFileName()
@@ -722,6 +1098,26 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    /**
+     * Parse a log entry directly from a memory mapped segment. The entry's payload
+     * is aliased to the mapped region instead of being copied.
+     *
+     * @param mappedBuffer read-only mapping of the segment file
+     * @param metaData     location of the entry in the segment
+     * @return the parsed log entry
+     * @throws IOException IO exception
+     */
+    private LogEntry parseMappedEntry(MappedByteBuffer mappedBuffer, AddressMetaData metaData)
+            throws IOException {
+        ByteBuffer entryBuf = mappedBuffer.duplicate();
+        entryBuf.limit((int) metaData.offset + metaData.length);
+        entryBuf.position((int) metaData.offset);
+
+        CodedInputStream input = CodedInputStream.newInstance(entryBuf.slice());
+        input.enableAliasing(true);
+        return LogEntry.parseFrom(input);
+    }
+
     @Nullable
     private FileChannel getChannel(String filePath, boolean readOnly) throws IOException {
         if (readOnly) {
@@ -755,6 +1151,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    private String getSegmentFilePath(long segment) {
+        return logDir + File.separator + segment + ".log";
+    }
+
     /**
      * Gets the file channel for a particular address, creating it
      * if is not present in the map.
@@ -764,10 +1164,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      */
     SegmentHandle getSegmentHandleForAddress(long address) {
         long segment = address / RECORDS_PER_LOG_FILE;
-
-        String filePath = logDir + File.separator;
-        filePath += segment;
-        filePath += ".log";
+        String filePath = getSegmentFilePath(segment);
 
         SegmentHandle handle = writeChannels.computeIfAbsent(filePath, a -> {
             FileChannel writeCh = null;
@@ -829,16 +1226,122 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
 
 
-    private LogEntry getLogEntry(long address, LogData entry) {
+    /**
+     * Adds a payload to the samples that the dictionary of the next segments is trained on.
+     */
+    private void sampleForDictionary(byte[] payload) {
+        if (payload.length > MAX_DICTIONARY_SAMPLE_SIZE) {
+            return;
+        }
+
+        boolean sampled;
+        synchronized (dictionaryTrainerLock) {
+            sampled = dictionaryTrainer.addSample(payload);
+            if (sampled) {
+                dictionarySamples++;
+            }
+        }
+
+        if (!sampled) {
+            // The samples are full, train a dictionary on them
+            scheduleDictionaryTraining();
+        }
+    }
+
+    /**
+     * Trains a compression dictionary on the sampled payloads in the background, and
+     * starts a new set of samples. Nothing is trained if a dictionary is already being
+     * trained, or if there aren't enough samples to train one.
+     */
+    private void scheduleDictionaryTraining() {
+        if (!dictionaryTraining.compareAndSet(false, true)) {
+            return;
+        }
+
+        ZstdDictTrainer trainer;
+        synchronized (dictionaryTrainerLock) {
+            if (dictionarySamples < MIN_DICTIONARY_SAMPLES) {
+                dictionaryTraining.set(false);
+                return;
+            }
+
+            trainer = dictionaryTrainer;
+            dictionaryTrainer = new ZstdDictTrainer(DICTIONARY_SAMPLES_SIZE, DICTIONARY_SIZE);
+            dictionarySamples = 0;
+        }
+
+        dictionaryTrainingExecutor.execute(() -> {
+            try {
+                byte[] trainedDictionary = trainer.trainSamples();
+                if (trainedDictionary.length > 0) {
+                    dictionary = trainedDictionary;
+                }
+            } catch (RuntimeException e) {
+                log.warn("scheduleDictionaryTraining: failed to train a compression dictionary", e);
+            } finally {
+                dictionaryTraining.set(false);
+            }
+        });
+    }
+
+    /**
+     * Waits for the dictionary being trained (if any), and discards the samples and the
+     * trained dictionary so that the next segments are compressed without one.
+     */
+    private void resetDictionary() {
+        try {
+            dictionaryTrainingExecutor.submit(() -> { }).get();
+        } catch (InterruptedException ie) {
+            throw new UnrecoverableCorfuInterruptedError(ie);
+        } catch (ExecutionException ee) {
+            log.warn("resetDictionary: failed to wait for dictionary training", ee);
+        }
+
+        synchronized (dictionaryTrainerLock) {
+            dictionaryTrainer = new ZstdDictTrainer(DICTIONARY_SAMPLES_SIZE, DICTIONARY_SIZE);
+            dictionarySamples = 0;
+        }
+        dictionary = null;
+    }
+
+    /**
+     * Shuts down a background executor of the log, waiting for its pending tasks.
+     */
+    private void shutdownExecutor(ExecutorService executor, String name) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(ServerContext.SHUTDOWN_TIMER.toMillis(),
+                    TimeUnit.MILLISECONDS)) {
+                log.warn("shutdownExecutor: {} tasks didn't complete in {}", name,
+                        ServerContext.SHUTDOWN_TIMER);
+            }
+        } catch (InterruptedException ie) {
+            throw new UnrecoverableCorfuInterruptedError(ie);
+        }
+    }
+
+    private LogEntry getLogEntry(SegmentHandle segment, long address, LogData entry) {
         ByteBuffer data = ByteBuffer.wrap(entry.getData() == null ? new byte[0] : entry.getData());
 
+        // Segments without a dictionary (i.e. created before one was trained) fall back to plain ZSTD
+        Codec.Type entryCodecType = codecType;
+        if (codecType == Codec.Type.ZSTD_DICT && segment.getDictionaryCodec() == null) {
+            entryCodecType = Codec.Type.ZSTD;
+        }
+
         if (data.hasRemaining()) {
-            data = codecType.getInstance().compress(ByteBuffer.wrap(entry.getData()));
+            if (codecType == Codec.Type.ZSTD_DICT) {
+                sampleForDictionary(entry.getData());
+            }
+
+            Codec codec = entryCodecType == Codec.Type.ZSTD_DICT
+                    ? segment.getDictionaryCodec() : entryCodecType.getInstance();
+            data = codec.compress(ByteBuffer.wrap(entry.getData()));
         }
 
         LogEntry.Builder logEntryBuilder = LogEntry.newBuilder()
                 .setDataType(Types.DataType.forNumber(entry.getType().ordinal()))
-                .setCodecType(codecType.getId())
+                .setCodecType(entryCodecType.getId())
                 .setData(ByteString.copyFrom(data))
                 .setGlobalAddress(address)
                 .addAllStreams(getStrUUID(entry.getStreams()))
@@ -900,14 +1403,15 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     /**
      * Write a list of LogData entries to the log file.
      *
-     * @param segment segment handle to the logfile
-     * @param entries list of LogData entries to write.
-     * @return A map of AddressMetaData for the written records
+     * @param segment            segment handle to the logfile
+     * @param entries            list of LogData entries to write.
+     * @param initializeMetadata true if the entries are part of a range write (i.e. state
+     *                           transfer) and checkpoint metadata has to be inspected
      * @throws IOException IO exception
      */
-    private Map<Long, AddressMetaData> writeRecords(SegmentHandle segment,
-                                                    List<LogData> entries) throws IOException {
-        Map<Long, AddressMetaData> recordsMap = new HashMap<>();
+    private void writeRecords(SegmentHandle segment, List<LogData> entries,
+                              boolean initializeMetadata) throws IOException {
+        List<AddressMetaData> recordsMetaData = new ArrayList<>(entries.size());
 
         List<ByteBuffer> entryBuffs = new ArrayList<>();
         int totalBytes = 0;
@@ -915,7 +1419,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         List<Metadata> metadataList = new ArrayList<>();
 
         for (LogData curr : entries) {
-            LogEntry logEntry = getLogEntry(curr.getGlobalAddress(), curr);
+            LogEntry logEntry = getLogEntry(segment, curr.getGlobalAddress(), curr);
             Metadata metadata = getMetadata(logEntry);
             metadataList.add(metadata);
             ByteBuffer record = getByteBuffer(metadata, logEntry);
@@ -924,6 +1428,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
 
         ByteBuffer allRecordsBuf = ByteBuffer.allocate(totalBytes);
+        long maxAddress = entries.stream()
+                .mapToLong(LogData::getGlobalAddress)
+                .max()
+                .getAsLong();
 
         try (MultiReadWriteLock.AutoCloseableLock ignored =
                      segmentLocks.acquireWriteLock(segment.getSegment())) {
@@ -932,9 +1440,8 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                         + allRecordsBuf.position() + METADATA_SIZE;
                 allRecordsBuf.put(entryBuffs.get(ind));
                 Metadata metadata = metadataList.get(ind);
-                recordsMap.put(entries.get(ind).getGlobalAddress(),
-                        new AddressMetaData(metadata.getPayloadChecksum(),
-                                metadata.getLength(), channelOffset));
+                recordsMetaData.add(new AddressMetaData(metadata.getPayloadChecksum(),
+                        metadata.getLength(), channelOffset));
             }
 
             allRecordsBuf.flip();
@@ -942,11 +1449,20 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             channelsToSync.add(segment.getWriteChannel());
             // Sync the global and stream tail(s)
             // TODO(Maithem): on ioexceptions the StreamLogFiles needs to be reinitialized
-            syncTailSegment(entries.get(entries.size() - 1).getGlobalAddress());
-            logMetadata.update(entries);
-        }
+            syncTailSegment(maxAddress);
+            if (initializeMetadata) {
+                logMetadata.update(entries);
+            } else {
+                entries.forEach(entry -> logMetadata.update(entry, false));
+            }
 
-        return recordsMap;
+            // The segment's index is built under the segment lock, so it can't see
+            // the records without their addresses
+            for (int ind = 0; ind < entries.size(); ind++) {
+                segment.getAddressIndex().put(entries.get(ind).getGlobalAddress(), recordsMetaData.get(ind));
+                segment.getLogMetadata().update(entries.get(ind), true);
+            }
+        }
     }
 
     /**
@@ -968,16 +1484,15 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     }
 
     /**
-     * Write a log entry record to a file.
+     * Write a log entry record to a file, and add it to the segment's address index.
      *
      * @param segment The file handle to use.
      * @param address The address of the entry.
      * @param entry   The LogData to append.
-     * @return Returns metadata for the written record
      */
-    private AddressMetaData writeRecord(SegmentHandle segment, long address,
-                                        LogData entry) throws IOException {
-        LogEntry logEntry = getLogEntry(address, entry);
+    private void writeRecord(SegmentHandle segment, long address,
+                             LogData entry) throws IOException {
+        LogEntry logEntry = getLogEntry(segment, address, entry);
         Metadata metadata = getMetadata(logEntry);
 
         ByteBuffer record = getByteBuffer(metadata, logEntry);
@@ -990,9 +1505,11 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             channelsToSync.add(segment.getWriteChannel());
             syncTailSegment(address);
             logMetadata.update(entry, false);
-        }
 
-        return new AddressMetaData(metadata.getPayloadChecksum(), metadata.getLength(), channelOffset);
+            segment.getAddressIndex().put(address, new AddressMetaData(
+                    metadata.getPayloadChecksum(), metadata.getLength(), channelOffset));
+            segment.getLogMetadata().update(entry, true);
+        }
     }
 
     private long getSegment(LogData entry) {
@@ -1071,9 +1588,13 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     public Set<Long> getKnownAddressesInRange(long rangeStart, long rangeEnd) {
 
         Set<Long> result = new HashSet<>();
-        for (long address = rangeStart; address <= rangeEnd; address++) {
-            if (getSegmentHandleForAddress(address).getKnownAddresses().containsKey(address)) {
-                result.add(address);
+        for (long segment = rangeStart / RECORDS_PER_LOG_FILE;
+             segment <= rangeEnd / RECORDS_PER_LOG_FILE; segment++) {
+            SegmentHandle handle = getSegmentHandleForAddress(segment * RECORDS_PER_LOG_FILE);
+            try {
+                handle.getAddressIndex().addKnownAddresses(rangeStart, rangeEnd, result);
+            } finally {
+                handle.release();
             }
         }
         return result;
@@ -1100,17 +1621,19 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         SegmentHandle firstSh = getSegmentHandleForAddress(first.getGlobalAddress());
         SegmentHandle lastSh = getSegmentHandleForAddress(last.getGlobalAddress());
 
-        // Extract all addresses associated with the provided write range.
-        Set<Long> pendingWrites = range.stream()
-                .map(ILogData::getGlobalAddress).collect(Collectors.toSet());
+        // Extract the address range associated with the provided write range.
+        long rangeStart = range.stream().mapToLong(ILogData::getGlobalAddress).min().getAsLong();
+        long rangeEnd = range.stream().mapToLong(ILogData::getGlobalAddress).max().getAsLong();
 
         // See if the provided range overlaps with any of the previously written entries.
-        Set<Long> segOneOverlap = Sets.intersection(pendingWrites,
-                firstSh.getKnownAddresses().keySet());
-        Set<Long> segTwoOverlap = Sets.intersection(pendingWrites,
-                lastSh.getKnownAddresses().keySet());
-        if (!segOneOverlap.isEmpty() || !segTwoOverlap.isEmpty()) {
-            log.error("Overlapping addresses detected: {}, {}", segOneOverlap, segTwoOverlap);
+        if (firstSh.getAddressIndex().containsAny(rangeStart, rangeEnd)
+                || lastSh.getAddressIndex().containsAny(rangeStart, rangeEnd)) {
+            Set<Long> overlap = new HashSet<>();
+            firstSh.getAddressIndex().addKnownAddresses(rangeStart, rangeEnd, overlap);
+            lastSh.getAddressIndex().addKnownAddresses(rangeStart, rangeEnd, overlap);
+            firstSh.release();
+            lastSh.release();
+            log.error("Overlapping addresses detected: {}", overlap);
             throw new OverwriteException(OverwriteCause.SAME_DATA);
         }
 
@@ -1119,23 +1642,21 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         for (LogData curr : entries) {
             if (getSegment(curr) == firstSh.getSegment() &&
-                    !firstSh.getKnownAddresses().containsKey(curr.getGlobalAddress())) {
+                    !firstSh.getAddressIndex().contains(curr.getGlobalAddress())) {
                 segOneEntries.add(curr);
             } else if (getSegment(curr) == lastSh.getSegment() &&
-                    !lastSh.getKnownAddresses().containsKey(curr.getGlobalAddress())) {
+                    !lastSh.getAddressIndex().contains(curr.getGlobalAddress())) {
                 segTwoEntries.add(curr);
             }
         }
 
         try {
             if (!segOneEntries.isEmpty()) {
-                Map<Long, AddressMetaData> firstSegAddresses = writeRecords(firstSh, segOneEntries);
-                firstSh.getKnownAddresses().putAll(firstSegAddresses);
+                writeRecords(firstSh, segOneEntries, true);
             }
 
             if (!segTwoEntries.isEmpty()) {
-                Map<Long, AddressMetaData> lastSegAddresses = writeRecords(lastSh, segTwoEntries);
-                lastSh.getKnownAddresses().putAll(lastSegAddresses);
+                writeRecords(lastSh, segTwoEntries, true);
             }
         } catch (IOException e) {
             log.error("Disk_write[{}-{}]: Exception", first.getGlobalAddress(),
@@ -1158,8 +1679,8 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         try {
             // make sure the entry doesn't currently exist...
             // (probably need a faster way to do this - high watermark?)
-            if (segment.getKnownAddresses().containsKey(address)
-                    || segment.getTrimmedAddresses().contains(address)) {
+            if (segment.getAddressIndex().contains(address)
+                    || segment.getAddressIndex().isTrimmed(address)) {
                 if (entry.getRank() == null) {
                     OverwriteCause overwriteCause = getOverwriteCauseForAddress(address, entry);
                     log.trace("Disk_write[{}]: overwritten exception, cause: {}", address, overwriteCause);
@@ -1167,12 +1688,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 } else {
                     // the method below might throw DataOutrankedException or ValueAdoptedException
                     assertAppendPermittedUnsafe(address, entry);
-                    AddressMetaData addressMetaData = writeRecord(segment, address, entry);
-                    segment.getKnownAddresses().put(address, addressMetaData);
+                    writeRecord(segment, address, entry);
                 }
             } else {
-                AddressMetaData addressMetaData = writeRecord(segment, address, entry);
-                segment.getKnownAddresses().put(address, addressMetaData);
+                writeRecord(segment, address, entry);
             }
             log.trace("Disk_write[{}]: Written to disk.", address);
         } catch (IOException e) {
@@ -1183,6 +1702,83 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Entries that don't conflict with already written addresses are grouped by
+     * segment and written with a single write per segment. Ranked entries and
+     * entries that target the same address more than once in a group are
+     * appended individually, after the group, in their original order.
+     */
+    @Override
+    public List<RuntimeException> appendGroup(List<LogData> entries) {
+        List<RuntimeException> failures = new ArrayList<>(Collections.nCopies(entries.size(), null));
+        Map<Long, List<Integer>> segmentEntries = new LinkedHashMap<>();
+        List<Integer> deferred = new ArrayList<>();
+        Set<Long> deferredAddresses = new HashSet<>();
+        Set<Long> groupAddresses = new HashSet<>();
+
+        for (int ind = 0; ind < entries.size(); ind++) {
+            LogData entry = entries.get(ind);
+            long address = entry.getGlobalAddress();
+
+            if (isTrimmed(address)) {
+                failures.set(ind, new OverwriteException(OverwriteCause.TRIM));
+            } else if (entry.getRank() != null || deferredAddresses.contains(address)
+                    || !groupAddresses.add(address)) {
+                deferred.add(ind);
+                deferredAddresses.add(address);
+            } else {
+                segmentEntries.computeIfAbsent(getSegment(entry), seg -> new ArrayList<>()).add(ind);
+            }
+        }
+
+        for (List<Integer> indexes : segmentEntries.values()) {
+            SegmentHandle segment = getSegmentHandleForAddress(entries.get(indexes.get(0)).getGlobalAddress());
+            List<Integer> toWrite = new ArrayList<>();
+
+            try {
+                for (int ind : indexes) {
+                    LogData entry = entries.get(ind);
+                    long address = entry.getGlobalAddress();
+                    if (segment.getAddressIndex().contains(address)
+                            || segment.getAddressIndex().isTrimmed(address)) {
+                        OverwriteCause overwriteCause = getOverwriteCauseForAddress(address, entry);
+                        log.trace("Disk_write[{}]: overwritten exception, cause: {}", address, overwriteCause);
+                        failures.set(ind, new OverwriteException(overwriteCause));
+                    } else {
+                        toWrite.add(ind);
+                    }
+                }
+
+                if (!toWrite.isEmpty()) {
+                    List<LogData> records = toWrite.stream()
+                            .map(entries::get)
+                            .collect(Collectors.toList());
+                    writeRecords(segment, records, false);
+                    log.trace("Disk_write[{}]: Written {} records to disk.", segment.getSegment(), records.size());
+                }
+            } catch (IOException e) {
+                log.error("Disk_write[{}]: Exception", segment.getSegment(), e);
+                RuntimeException failure = new RuntimeException(e);
+                toWrite.forEach(ind -> failures.set(ind, failure));
+            } finally {
+                segment.release();
+            }
+        }
+
+        for (int ind : deferred) {
+            LogData entry = entries.get(ind);
+            try {
+                append(entry.getGlobalAddress(), entry);
+            } catch (RuntimeException e) {
+                failures.set(ind, e);
+            }
+        }
+
+        return failures;
+    }
+
     @Override
     public LogData read(long address) {
         if (isTrimmed(address)) {
@@ -1191,7 +1787,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         SegmentHandle segment = getSegmentHandleForAddress(address);
 
         try {
-            if (segment.getPendingTrims().contains(address)) {
+            if (segment.getAddressIndex().isPendingTrim(address)) {
                 return LogData.getTrimmed(address);
             }
             return readRecord(segment, address);
@@ -1202,8 +1798,161 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The addresses are grouped by segment, and the records of a segment are read in
+     * file order, with records that are close to each other coalesced into a single read.
+     * Segments are read concurrently.
+     */
+    @Override
+    public Map<Long, LogData> read(List<Long> addresses) {
+        Map<Long, LogData> entries = new ConcurrentHashMap<>();
+        Map<Long, Set<Long>> segments = new TreeMap<>();
+        for (long address : addresses) {
+            if (isTrimmed(address)) {
+                entries.put(address, LogData.getTrimmed(address));
+            } else {
+                segments.computeIfAbsent(address / RECORDS_PER_LOG_FILE, s -> new TreeSet<>()).add(address);
+            }
+        }
+
+        List<Set<Long>> segmentAddresses = new ArrayList<>(segments.values());
+        if (segmentAddresses.isEmpty()) {
+            return entries;
+        }
+
+        // The first segment is read on this thread while the others are read in the background
+        List<CompletableFuture<Void>> segmentReads = segmentAddresses.subList(1, segmentAddresses.size())
+                .stream()
+                .map(addrs -> CompletableFuture.runAsync(() -> readSegment(addrs, entries), segmentReadExecutor))
+                .collect(Collectors.toList());
+        readSegment(segmentAddresses.get(0), entries);
+
+        try {
+            CompletableFuture.allOf(segmentReads.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return entries;
+    }
+
+    /**
+     * Read the records of a set of addresses that belong to the same segment.
+     *
+     * @param addresses addresses of a segment
+     * @param entries   map to add the read entries to
+     */
+    private void readSegment(Set<Long> addresses, Map<Long, LogData> entries) {
+        SegmentHandle segment = getSegmentHandleForAddress(addresses.iterator().next());
+
+        try {
+            List<Map.Entry<Long, AddressMetaData>> records = new ArrayList<>(addresses.size());
+            for (long address : addresses) {
+                if (segment.getAddressIndex().isPendingTrim(address)) {
+                    entries.put(address, LogData.getTrimmed(address));
+                    continue;
+                }
+
+                AddressMetaData metaData = segment.getAddressIndex().get(address);
+                if (metaData != null) {
+                    records.add(new SimpleImmutableEntry<>(address, metaData));
+                }
+            }
+
+            // Mapped reads don't issue any I/O, there's nothing to coalesce
+            if (mmapReads && segment.getSegment() < dataStore.getTailSegment()) {
+                for (Map.Entry<Long, AddressMetaData> record : records) {
+                    LogData entry = readRecord(segment, record.getKey());
+                    if (entry != null) {
+                        entries.put(record.getKey(), entry);
+                    }
+                }
+                return;
+            }
+
+            // Hole fills and ranked writes can place records out of address order
+            records.sort(Comparator.comparingLong(record -> record.getValue().offset));
+
+            int start = 0;
+            while (start < records.size()) {
+                long readOffset = records.get(start).getValue().offset;
+                AddressMetaData previous = records.get(start).getValue();
+                int end = start + 1;
+                while (end < records.size()) {
+                    AddressMetaData next = records.get(end).getValue();
+                    long gap = next.offset - (previous.offset + previous.length);
+                    if (gap > MAX_COALESCED_READ_GAP
+                            || next.offset + next.length - readOffset > MAX_COALESCED_READ_SIZE) {
+                        break;
+                    }
+                    previous = next;
+                    end++;
+                }
+
+                readRecords(segment, records.subList(start, end), entries);
+                start = end;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            segment.release();
+        }
+    }
+
+    /**
+     * Read a run of records, ordered by their offset, with a single read
+     * that spans from the first to the last record.
+     *
+     * @param segment The file handle to use.
+     * @param records addresses and locations of the records
+     * @param entries map to add the read entries to
+     */
+    private void readRecords(SegmentHandle segment, List<Map.Entry<Long, AddressMetaData>> records,
+                             Map<Long, LogData> entries) throws IOException {
+        FileChannel fileChannel = segment.getReadChannel();
+        AddressMetaData first = records.get(0).getValue();
+        AddressMetaData last = records.get(records.size() - 1).getValue();
+
+        ByteBuffer readBuf = ByteBuffer.allocate((int) (last.offset + last.length - first.offset));
+        while (readBuf.hasRemaining()) {
+            if (fileChannel.read(readBuf, first.offset + readBuf.position()) < 0) {
+                // The index places records past the end of the segment
+                String errorMessage = getDataCorruptionErrorMessage("Truncated entries at offset "
+                                + (first.offset + readBuf.position()) + ", expected " + readBuf.capacity()
+                                + " bytes from offset " + first.offset,
+                        fileChannel, segment.getFileName()
+                );
+                throw new DataCorruptionException(errorMessage);
+            }
+        }
+
+        for (Map.Entry<Long, AddressMetaData> record : records) {
+            AddressMetaData metaData = record.getValue();
+            ByteBuffer entryBuf = readBuf.duplicate();
+            entryBuf.limit((int) (metaData.offset - first.offset) + metaData.length);
+            entryBuf.position((int) (metaData.offset - first.offset));
+
+            try {
+                LogEntry logEntry = LogEntry.parseFrom(CodedInputStream.newInstance(entryBuf.slice()));
+                entries.put(record.getKey(), getLogData(segment, logEntry));
+            } catch (InvalidProtocolBufferException e) {
+                String errorMessage = getDataCorruptionErrorMessage("Invalid entry",
+                        fileChannel, segment.getFileName()
+                );
+                throw new DataCorruptionException(errorMessage, e);
+            }
+        }
+    }
+
     @Override
     public void close() {
+        // The pending segment indexes are written before the segments are closed
+        shutdownExecutor(segmentIndexExecutor, "segment index");
+        shutdownExecutor(dictionaryTrainingExecutor, "dictionary training");
         for (SegmentHandle fh : writeChannels.values()) {
             fh.close();
         }
@@ -1261,6 +2010,33 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         log.info("deleteFilesMatchingFilter: completed, deleted {} files, freed {} bytes", numFiles, freedBytes);
     }
 
+    /**
+     * Deletes the index files of all segments up to and including the endSegment.
+     *
+     * @param endSegment The segment index of the last segment whose index should be deleted.
+     */
+    private void deleteSegmentIndexes(long endSegment) {
+        File[] files = indexDir.toFile().listFiles(file -> {
+            try {
+                String segmentStr = file.getName().split("\\.")[0];
+                return Long.parseLong(segmentStr) <= endSegment;
+            } catch (Exception e) {
+                log.warn("deleteSegmentIndexes: ignoring file {}", file.getName());
+                return false;
+            }
+        });
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (!file.delete()) {
+                log.error("deleteSegmentIndexes: Couldn't delete file {}", file.getName());
+            }
+        }
+    }
+
     /**
      * TODO(Maithem) remove this method. Obtaining a new instance should happen
      * through instantiation not by clearing this class' state
@@ -1276,6 +2052,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         log.warn("Global Tail:{}, endSegment={}", logMetadata.getGlobalTail(), endSegment);
 
         // Close segments before deleting their corresponding log files
+        awaitSegmentIndexes();
         closeSegmentHandlers(endSegment);
 
         deleteFilesMatchingFilter(file -> {
@@ -1287,6 +2064,9 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 return false;
             }
         });
+        deleteSegmentIndexes(endSegment);
+        // The dictionary was trained on the deleted segments
+        resetDictionary();
 
         dataStore.resetStartingAddress();
         dataStore.resetTailSegment();
@@ -24,7 +24,12 @@ public interface Codec {
 
         None(0, NoCompression::getInstance),
         LZ4(1, LZ4Compression::getInstance),
-        ZSTD(2, ZSTDCompression::getInstance);
+        ZSTD(2, ZSTDCompression::getInstance),
+        /**
+         * ZSTD with a dictionary that is trained per log segment, instances of this
+         * codec are bound to a dictionary (see {@link ZSTDDictionaryCompression}).
+         */
+        ZSTD_DICT(3, ZSTDDictionaryCompression::new);
 
         /**
          * The unique id of the code that will be used
@@ -32,17 +37,48 @@ public interface Codec {
          */
         final int id;
 
-        private Supplier<Codec> func;
+        private final Supplier<Codec> func;
+
+        private final Function<byte[], Codec> dictionaryFunc;
 
         Type(int id, Supplier<Codec> func) {
             this.id = id;
             this.func = func;
+            this.dictionaryFunc = null;
+        }
+
+        Type(int id, Function<byte[], Codec> dictionaryFunc) {
+            this.id = id;
+            this.func = null;
+            this.dictionaryFunc = dictionaryFunc;
+        }
+
+        /**
+         * Whether instances of this codec are bound to a compression dictionary.
+         */
+        public boolean requiresDictionary() {
+            return dictionaryFunc != null;
         }
 
         public Codec getInstance() {
+            if (requiresDictionary()) {
+                throw new IllegalStateException(name() + " requires a compression dictionary");
+            }
             return func.get();
         }
 
+        /**
+         * Returns an instance of a codec that is bound to a compression dictionary.
+         *
+         * @param dictionary the compression dictionary
+         */
+        public Codec getInstance(byte[] dictionary) {
+            if (!requiresDictionary()) {
+                throw new IllegalStateException(name() + " doesn't use a compression dictionary");
+            }
+            return dictionaryFunc.apply(dictionary);
+        }
+
         public int getId() {
             return id;
         }
@@ -51,9 +87,20 @@ public interface Codec {
                 .collect(Collectors.toMap(Codec.Type::getId, Function.identity()));
     }
 
+    /**
+     * Returns an instance of the codec with the given id. Codecs that are bound to a
+     * compression dictionary can't be built from their id alone, their instances are
+     * built from the dictionary with {@link Type#getInstance(byte[])}.
+     *
+     * @throws IllegalArgumentException if the codec requires a compression dictionary
+     */
     static Codec getById(int id) {
         Codec.Type type = Type.typeMap.get(id);
         Objects.requireNonNull(type, "Unknown codec id " + id);
+        if (type.requiresDictionary()) {
+            throw new IllegalArgumentException("Codec " + type.name() + " (id " + id
+                    + ") requires a compression dictionary");
+        }
         return type.getInstance();
     }
 
@@ -68,7 +115,9 @@ public interface Codec {
 
     /**
      * Strips the first 4-bytes and decompresses the remaining of the
-     * buffer into a ByteBuffer
+     * buffer into a ByteBuffer. The compressed buffer doesn't have to be
+     * backed by an accessible array (i.e. it can be a read-only view or
+     * a slice of a memory mapped file).
      *
      */
     ByteBuffer decompress(ByteBuffer compressed);
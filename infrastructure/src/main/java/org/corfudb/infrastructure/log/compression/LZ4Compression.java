@@ -66,7 +66,7 @@ public class LZ4Compression implements Codec {
 
         ByteBuffer restored = ByteBuffer.allocate(decompressedSize);
 
-        decompressor.decompress(compressed, Integer.BYTES, restored, 0, decompressedSize);
+        decompressor.decompress(compressed, compressed.position(), restored, 0, decompressedSize);
 
         return restored;
     }
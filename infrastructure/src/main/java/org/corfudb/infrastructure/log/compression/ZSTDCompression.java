@@ -55,8 +55,20 @@ public class ZSTDCompression implements Codec {
         byte[] restored = new byte[decompressedSize];
         ByteBuffer wrappedBuf = ByteBuffer.wrap(restored);
 
+        final byte[] src;
+        final int srcOffset;
+        if (compressed.hasArray()) {
+            src = compressed.array();
+            srcOffset = compressed.arrayOffset() + compressed.position();
+        } else {
+            // Read-only or direct buffers don't expose their backing array
+            src = new byte[compressed.remaining()];
+            compressed.duplicate().get(src);
+            srcOffset = 0;
+        }
+
         long restoredBytes = Zstd.decompressByteArray(restored, 0, restored.length,
-                compressed.array(), Integer.BYTES, compressed.remaining());
+                src, srcOffset, compressed.remaining());
 
         if (Zstd.isError(restoredBytes)) {
             throw new IllegalStateException("Decompression failed with error code " + restoredBytes);
@@ -0,0 +1,81 @@
+package org.corfudb.infrastructure.log.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A ZSTD codec that compresses with a trained dictionary. Small records share most
+ * of their structure (i.e. protobuf field tags, stream ids, class names), which a
+ * dictionary captures once instead of per record. Unlike the other codecs, instances
+ * of this codec are bound to the dictionary of a log segment.
+ */
+public class ZSTDDictionaryCompression implements Codec {
+
+    private static final int DEFAULT_COMPRESSION_LEVEL = 3;
+
+    @Getter
+    private final byte[] dictionary;
+
+    private final ZstdDictCompress compressDictionary;
+
+    private final ZstdDictDecompress decompressDictionary;
+
+    public ZSTDDictionaryCompression(byte[] dictionary) {
+        Objects.requireNonNull(dictionary);
+        checkArgument(dictionary.length > 0);
+        this.dictionary = dictionary;
+        this.compressDictionary = new ZstdDictCompress(dictionary, DEFAULT_COMPRESSION_LEVEL);
+        this.decompressDictionary = new ZstdDictDecompress(dictionary);
+    }
+
+    private static byte[] toByteArray(ByteBuffer buf) {
+        if (buf.hasArray() && buf.arrayOffset() == 0 && buf.position() == 0
+                && buf.remaining() == buf.array().length) {
+            return buf.array();
+        }
+
+        byte[] bytes = new byte[buf.remaining()];
+        buf.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     */
+    @Override
+    public ByteBuffer compress(ByteBuffer uncompressed) {
+        Objects.requireNonNull(uncompressed);
+        checkArgument(uncompressed.hasRemaining());
+
+        final int decompressedLength = uncompressed.remaining();
+        byte[] compressed = Zstd.compress(toByteArray(uncompressed), compressDictionary);
+
+        ByteBuffer wrappedBuf = ByteBuffer.allocate(compressed.length + Integer.BYTES);
+        wrappedBuf.putInt(decompressedLength);
+        wrappedBuf.put(compressed);
+        wrappedBuf.flip();
+        return wrappedBuf;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     */
+    @Override
+    public ByteBuffer decompress(ByteBuffer compressed) {
+        Objects.requireNonNull(compressed);
+        checkArgument(compressed.remaining() > Integer.BYTES);
+
+        int decompressedSize = compressed.getInt();
+        byte[] restored = Zstd.decompress(toByteArray(compressed), decompressDictionary, decompressedSize);
+        return ByteBuffer.wrap(restored);
+    }
+}
@@ -50,7 +50,13 @@ public class CheckpointEntry extends LogEntry {
         START_LOG_ADDRESS(2),
         ENTRY_COUNT(3),
         BYTE_COUNT(4),
-        SNAPSHOT_ADDRESS(5);
+        SNAPSHOT_ADDRESS(5),
+        // Delta checkpoints only: the checkpoint this checkpoint is applied on top of
+        BASE_CHECKPOINT_ID(6),
+        // Delta checkpoints only: the number of delta checkpoints in the chain, including this one
+        DELTA_COUNT(7),
+        // END records only: the address of the START record of the full checkpoint of the chain
+        CHAIN_START_ADDRESS(8);
 
         public final int type;
 
@@ -101,6 +107,16 @@ public class CheckpointEntry extends LogEntry {
     @Setter
     MultiSMREntry smrEntries;
 
+    /**
+     * A delta checkpoint only contains the updates to the keys modified since its base
+     * checkpoint, the state of the object is the state of the base plus these updates.
+     *
+     * @return true if this is a record of a delta checkpoint
+     */
+    public boolean isDelta() {
+        return dict != null && dict.containsKey(CheckpointDictKey.BASE_CHECKPOINT_ID);
+    }
+
     /** Byte count of smrEntries in serialized form, zero
      *  if smrEntries.size() is zero or if value is unknown.
      */
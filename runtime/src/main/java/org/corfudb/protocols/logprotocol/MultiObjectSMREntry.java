@@ -6,6 +6,7 @@ import io.netty.buffer.Unpooled;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.util.serializer.CorfuSerializer;
 import org.corfudb.util.serializer.Serializers;
 
 import java.util.Collections;
@@ -104,6 +105,48 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
         }
     }
 
+    /**
+     * Projects a serialized MultiObjectSMREntry onto a single stream, i.e. builds the
+     * serialized form of a MultiObjectSMREntry that only contains the updates of that
+     * stream. The updates are copied as is, without being deserialized.
+     *
+     * @param serialized a serialized MultiObjectSMREntry
+     * @param streamId   the stream to project onto
+     * @return the serialized projection, which has no streams if the entry has
+     * no updates for the stream
+     */
+    public static byte[] project(byte[] serialized, UUID streamId) {
+        ByteBuf b = Unpooled.wrappedBuffer(serialized);
+        checkState(b.readByte() == CorfuSerializer.corfuPayloadMagic, "Not a ICorfuSerializable object");
+        checkState(b.readByte() == LogEntryType.MULTIOBJSMR.asByte(), "Not a MULTIOBJSMR!");
+
+        int numStreams = b.readInt();
+        for (int i = 0; i < numStreams; i++) {
+            UUID id = new UUID(b.readLong(), b.readLong());
+            int start = b.readerIndex();
+            MultiSMREntry.seekToEnd(b);
+            if (!id.equals(streamId)) {
+                continue;
+            }
+
+            int multiSMRLen = b.readerIndex() - start;
+            ByteBuf projection = Unpooled.buffer(Byte.BYTES * 2 + Integer.BYTES + Long.BYTES * 2 + multiSMRLen);
+            projection.writeByte(CorfuSerializer.corfuPayloadMagic);
+            projection.writeByte(LogEntryType.MULTIOBJSMR.asByte());
+            projection.writeInt(1);
+            projection.writeLong(id.getMostSignificantBits());
+            projection.writeLong(id.getLeastSignificantBits());
+            projection.writeBytes(serialized, start, multiSMRLen);
+            return projection.array();
+        }
+
+        ByteBuf projection = Unpooled.buffer(Byte.BYTES * 2 + Integer.BYTES);
+        projection.writeByte(CorfuSerializer.corfuPayloadMagic);
+        projection.writeByte(LogEntryType.MULTIOBJSMR.asByte());
+        projection.writeInt(0);
+        return projection.array();
+    }
+
     @Override
     public void serialize(ByteBuf b) {
         super.serialize(b);
@@ -142,7 +185,7 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
             return multiSMREntry;
         });
 
-        return resMultiSmrEntry == null ? Collections.emptyList() : resMultiSmrEntry.getUpdates();
+        return resMultiSmrEntry == null ? Collections.emptyList() : resMultiSmrEntry.getSMRUpdates(id);
     }
 
     /**
@@ -166,6 +209,8 @@ public class MultiObjectSMREntry extends LogEntry implements ISMRConsumable {
             getSMRUpdates(id);
         }
 
+        // Updates deserialized before their object was opened have no method names yet
+        streamUpdates.forEach((id, multiSMREntry) -> multiSMREntry.getSMRUpdates(id));
         return this.streamUpdates;
     }
 
@@ -100,6 +100,7 @@ public class MultiSMREntry extends LogEntry implements ISMRConsumable {
 
     @Override
     public List<SMREntry> getSMRUpdates(UUID id) {
+        SMRMethodNames.resolve(id, updates);
         return updates;
     }
 }
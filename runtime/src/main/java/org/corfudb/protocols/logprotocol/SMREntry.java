@@ -17,6 +17,7 @@ import org.corfudb.util.serializer.CorfuSerializer;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 /**
@@ -35,6 +36,22 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
     @Getter
     private String SMRMethod;
 
+    /**
+     * The id of the SMR method, i.e. its index in the SMR method names of the object's
+     * wrapper class, or {@link SMREntry#UNKNOWN_METHOD_ID}. An entry with an id is
+     * serialized with the id instead of the name, and its name is only known once
+     * resolved against the method names of the object.
+     */
+    @SuppressWarnings("checkstyle:MemberName")
+    @Getter
+    private transient int SMRMethodId = UNKNOWN_METHOD_ID;
+
+    public static final int UNKNOWN_METHOD_ID = -1;
+
+    // The method name length is a positive short in the string format, a negative
+    // length encodes the method id instead: -(id + 1)
+    private static final int MAX_METHOD_ID = Short.MAX_VALUE;
+
     /**
      * The arguments to the SMR method, which could be 0.
      */
@@ -95,6 +112,31 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
         this.serializerType = serializer;
     }
 
+    /**
+     * SMREntry constructor for an entry serialized with the id of its SMR method.
+     *
+     * @param smrMethod   the name of the SMR method
+     * @param smrMethodId the id of the SMR method, as given by the object's wrapper class
+     */
+    public SMREntry(String smrMethod, int smrMethodId, @NonNull Object[] smrArguments,
+                    ISerializer serializer) {
+        this(smrMethod, smrArguments, serializer);
+        checkArgument(smrMethodId >= 0 && smrMethodId < MAX_METHOD_ID,
+                "Invalid method id %s", smrMethodId);
+        this.SMRMethodId = smrMethodId;
+    }
+
+    /**
+     * Resolve the name of the SMR method of an entry that was serialized with its id.
+     *
+     * @param methodNames the SMR method names of the object, indexed by id
+     */
+    public void resolveSMRMethod(String[] methodNames) {
+        if (SMRMethod == null && SMRMethodId >= 0 && SMRMethodId < methodNames.length) {
+            SMRMethod = methodNames[SMRMethodId];
+        }
+    }
+
     /**
      * This function provides the remaining buffer. Child entries
      * should initialize their contents based on the buffer.
@@ -105,9 +147,13 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
     void deserializeBuffer(ByteBuf b, CorfuRuntime rt) {
         super.deserializeBuffer(b, rt);
         short methodLength = b.readShort();
-        byte[] methodBytes = new byte[methodLength];
-        b.readBytes(methodBytes, 0, methodLength);
-        SMRMethod = new String(methodBytes);
+        if (methodLength < 0) {
+            SMRMethodId = -methodLength - 1;
+        } else {
+            byte[] methodBytes = new byte[methodLength];
+            b.readBytes(methodBytes, 0, methodLength);
+            SMRMethod = new String(methodBytes);
+        }
         serializerType = Serializers.getSerializer(b.readByte());
         byte numArguments = b.readByte();
         Object[] arguments = new Object[numArguments];
@@ -131,9 +177,11 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
         // container type
         byte type = b.readByte();
         checkState(type == LogEntryType.SMR.asByte(), "Not a SMREntry!");
-        // Method name
+        // Method name, or method id
         short methodLength = b.readShort();
-        b.skipBytes(methodLength);
+        if (methodLength > 0) {
+            b.skipBytes(methodLength);
+        }
         // Serializer type
         b.readByte();
         // num args
@@ -147,8 +195,12 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
     @Override
     public void serialize(ByteBuf b) {
         super.serialize(b);
-        b.writeShort(SMRMethod.length());
-        b.writeBytes(SMRMethod.getBytes());
+        if (SMRMethodId != UNKNOWN_METHOD_ID) {
+            b.writeShort(-(SMRMethodId + 1));
+        } else {
+            b.writeShort(SMRMethod.length());
+            b.writeBytes(SMRMethod.getBytes());
+        }
         b.writeByte(serializerType.getType());
         b.writeByte(SMRArguments.length);
         Arrays.stream(SMRArguments)
@@ -167,6 +219,8 @@ public class SMREntry extends LogEntry implements ISMRConsumable {
     public List<SMREntry> getSMRUpdates(UUID id) {
         // TODO: we should check that the id matches the id of this entry,
         // but replex erases this information.
-        return Collections.singletonList(this);
+        List<SMREntry> updates = Collections.singletonList(this);
+        SMRMethodNames.resolve(id, updates);
+        return updates;
     }
 }
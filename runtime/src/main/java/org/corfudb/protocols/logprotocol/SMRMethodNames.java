@@ -0,0 +1,58 @@
+package org.corfudb.protocols.logprotocol;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SMR method names of the objects opened in this process, by stream.
+ *
+ * <p>An SMR entry serialized with the id of its SMR method only has a name once it is
+ * resolved against the method names of its object. Entries are resolved when they are
+ * consumed by stream, so that readers of the log that don't go through the object
+ * (i.e. checkpoint writers and stream listeners) still see the method names.</p>
+ */
+public final class SMRMethodNames {
+
+    private static final Map<UUID, String[]> methodNames = new ConcurrentHashMap<>();
+
+    private SMRMethodNames() {
+        // prevent instantiation of this class
+    }
+
+    /**
+     * Register the SMR method names of the object of a stream.
+     *
+     * @param streamId    the stream of the object
+     * @param names       the SMR method names of the object, indexed by method id
+     */
+    public static void register(UUID streamId, String[] names) {
+        methodNames.put(streamId, names);
+    }
+
+    /**
+     * Resolve the method names of the SMR entries of a stream, if its object is known.
+     *
+     * @param streamId the stream of the entries
+     * @param entries  SMR entries of the stream
+     */
+    static void resolve(UUID streamId, List<SMREntry> entries) {
+        String[] names = null;
+        synchronized (entries) {
+            for (SMREntry entry : entries) {
+                if (entry.getSMRMethod() != null) {
+                    continue;
+                }
+
+                if (names == null) {
+                    names = methodNames.get(streamId);
+                    if (names == null) {
+                        return;
+                    }
+                }
+                entry.resolveSMRMethod(names);
+            }
+        }
+    }
+}
@@ -53,12 +53,16 @@ public enum CorfuMsgType {
     SEQUENCER_METRICS_RESPONSE(25, new TypeToken<CorfuPayloadMsg<SequencerMetrics>>(){}, true),
     STREAMS_ADDRESS_REQUEST(26, new TypeToken<CorfuPayloadMsg<StreamsAddressRequest>>(){}),
     STREAMS_ADDRESS_RESPONSE(27, new TypeToken<CorfuPayloadMsg<StreamsAddressResponse>>(){}),
+    STREAM_TAIL_WAIT_REQUEST(28, new TypeToken<CorfuPayloadMsg<StreamTailWaitRequest>>(){}),
+    STREAM_TAIL_WAIT_RESPONSE(29, new TypeToken<CorfuPayloadMsg<Long>>(){}),
 
     // Logging Unit Messages
     WRITE(30, new TypeToken<CorfuPayloadMsg<WriteRequest>>() {}),
     READ_REQUEST(31, new TypeToken<CorfuPayloadMsg<ReadRequest>>() {}),
     READ_RESPONSE(32, new TypeToken<CorfuPayloadMsg<ReadResponse>>() {}),
     MULTIPLE_READ_REQUEST(35, new TypeToken<CorfuPayloadMsg<MultipleReadRequest>>() {}),
+    STREAM_READ_REQUEST(36, new TypeToken<CorfuPayloadMsg<StreamReadRequest>>() {}),
+    STREAM_READ_RESPONSE(37, new TypeToken<CorfuPayloadMsg<StreamReadResponse>>() {}),
     PREFIX_TRIM(38, new TypeToken<CorfuPayloadMsg<TrimRequest>>() {}),
     TAIL_REQUEST(41, new TypeToken<CorfuPayloadMsg<TailsRequest>>(){}),
     TAIL_RESPONSE(42, new TypeToken<CorfuPayloadMsg<TailsResponse>>(){}),
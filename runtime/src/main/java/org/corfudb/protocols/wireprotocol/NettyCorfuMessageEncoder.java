@@ -2,6 +2,7 @@ package org.corfudb.protocols.wireprotocol;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.MessageToByteEncoder;
 
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +18,35 @@ public class NettyCorfuMessageEncoder extends MessageToByteEncoder<CorfuMsg> {
 
     final LongAccumulator maxValue = new LongAccumulator(Math::max, Long.MIN_VALUE);
 
+    /**
+     * Read responses that carry serialized entries are encoded into a composite buffer,
+     * the entries become components of the buffer and aren't copied.
+     */
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, CorfuMsg corfuMsg,
+                                     boolean preferDirect) throws Exception {
+        if (corfuMsg instanceof CorfuPayloadMsg
+                && ((CorfuPayloadMsg<?>) corfuMsg).getPayload() instanceof ReadResponse
+                && ((ReadResponse) ((CorfuPayloadMsg<?>) corfuMsg).getPayload()).hasSerializedEntries()) {
+            return ctx.alloc().compositeDirectBuffer(Integer.MAX_VALUE);
+        }
+        return super.allocateBuffer(ctx, corfuMsg, preferDirect);
+    }
+
+    /**
+     * A read response is released once its message has been encoded (or has failed to be),
+     * the composite buffer it was encoded into holds its own references to the entries.
+     */
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+            throws Exception {
+        try {
+            super.write(ctx, msg, promise);
+        } finally {
+            ReadResponse.releaseMessage(msg);
+        }
+    }
+
     @Override
     protected void encode(ChannelHandlerContext channelHandlerContext,
                           CorfuMsg corfuMsg,
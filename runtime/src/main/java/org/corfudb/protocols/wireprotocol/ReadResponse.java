@@ -1,24 +1,53 @@
 package org.corfudb.protocols.wireprotocol;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.AbstractReferenceCounted;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.ToString;
 
 /**
  * Created by mwei on 8/15/16.
+ *
+ * <p>A response holds the buffers of the entries added with {@link #putSerialized(Long, ByteBuf)}
+ * until it's released. The {@link NettyCorfuMessageEncoder} releases the response once its
+ * message has been written, a response that is dropped before being sent must be released
+ * explicitly (see {@link #releaseMessage(Object)}).</p>
  */
 @Data
-@AllArgsConstructor
-public class ReadResponse implements ICorfuPayload<ReadResponse> {
+public class ReadResponse extends AbstractReferenceCounted implements ICorfuPayload<ReadResponse> {
 
+    /**
+     * The deserialized entries of the response. The entries that were added in their
+     * serialized form are not part of this map on the sending side, see
+     * {@link #getSerializedAddresses()}.
+     */
     @Getter
     Map<Long, LogData> addresses;
 
+    /**
+     * Entries that are already serialized (i.e. served from an off-heap cache on the
+     * log unit), they are written to the response as is and appear in {@link #addresses}
+     * once the response is deserialized. When serialized into a {@link CompositeByteBuf},
+     * the buffers are added as components of the response instead of being copied.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final Map<Long, ByteBuf> serializedAddresses = new HashMap<>();
+
+    public ReadResponse(Map<Long, LogData> addresses) {
+        this.addresses = addresses;
+    }
+
     public ReadResponse(ByteBuf buf) {
         addresses = ICorfuPayload.mapFromBuffer(buf, Long.class, LogData.class);
     }
@@ -31,8 +60,112 @@ public class ReadResponse implements ICorfuPayload<ReadResponse> {
         addresses.put(address, data);
     }
 
+    /**
+     * Adds an entry in its serialized form (as written by {@link LogData#doSerialize(ByteBuf)}),
+     * the response takes ownership of the buffer. The buffer is released right away if the
+     * response has already been released.
+     */
+    public synchronized void putSerialized(Long address, ByteBuf serializedData) {
+        if (refCnt() == 0) {
+            serializedData.release();
+            return;
+        }
+        ByteBuf previous = serializedAddresses.put(address, serializedData);
+        if (previous != null) {
+            previous.release();
+        }
+    }
+
+    /**
+     * Returns true if this response carries serialized entries.
+     */
+    public synchronized boolean hasSerializedEntries() {
+        return !serializedAddresses.isEmpty();
+    }
+
+    /**
+     * The addresses of the entries that were added in their serialized form.
+     */
+    public synchronized Set<Long> getSerializedAddresses() {
+        return Collections.unmodifiableSet(new HashSet<>(serializedAddresses.keySet()));
+    }
+
+    /**
+     * Appends the serialized entries to a composite buffer without copying them. The keys
+     * are written into one pre-sized buffer and added as slices of it, the entries are
+     * added unchanged.
+     */
+    private void addComponents(CompositeByteBuf composite) {
+        // Drop the unwritten capacity so that the components start at the writer index
+        composite.capacity(composite.writerIndex());
+
+        ByteBuf keys = composite.alloc().directBuffer(serializedAddresses.size() * Long.BYTES);
+        try {
+            serializedAddresses.forEach((address, data) -> {
+                int offset = keys.writerIndex();
+                keys.writeLong(address);
+                composite.addComponent(true, keys.retainedSlice(offset, Long.BYTES));
+                composite.addComponent(true, data.retainedDuplicate());
+            });
+        } finally {
+            keys.release();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The serialized entries are still held by the response once it's been serialized,
+     * so that it can be serialized again. A composite buffer holds its own reference
+     * to each entry.</p>
+     */
+    @Override
+    public synchronized void doSerialize(ByteBuf buf) {
+        if (serializedAddresses.isEmpty()) {
+            ICorfuPayload.serialize(buf, addresses);
+            return;
+        }
+
+        // Same layout as a serialized map of LogData
+        buf.writeInt(addresses.size() + serializedAddresses.size());
+        addresses.forEach((address, data) -> {
+            ICorfuPayload.serialize(buf, address);
+            ICorfuPayload.serialize(buf, data);
+        });
+        if (buf instanceof CompositeByteBuf) {
+            addComponents((CompositeByteBuf) buf);
+            return;
+        }
+        serializedAddresses.forEach((address, data) -> {
+            ICorfuPayload.serialize(buf, address);
+            buf.writeBytes(data, data.readerIndex(), data.readableBytes());
+        });
+    }
+
+    /**
+     * Releases the serialized entries.
+     */
     @Override
-    public void doSerialize(ByteBuf buf) {
-        ICorfuPayload.serialize(buf, addresses);
+    protected synchronized void deallocate() {
+        serializedAddresses.values().forEach(ByteBuf::release);
+        serializedAddresses.clear();
+    }
+
+    @Override
+    public ReadResponse touch(Object hint) {
+        return this;
+    }
+
+    /**
+     * Releases the read response carried by a message, if any. Other messages are not
+     * reference counted.
+     *
+     * @param message a message that has been written or dropped
+     */
+    public static void releaseMessage(Object message) {
+        if (message instanceof CorfuPayloadMsg
+                && ((CorfuPayloadMsg<?>) message).getPayload() instanceof ReadResponse) {
+            ((ReadResponse) ((CorfuPayloadMsg<?>) message).getPayload()).release();
+        }
     }
 }
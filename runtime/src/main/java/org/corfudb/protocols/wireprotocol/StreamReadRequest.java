@@ -0,0 +1,43 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A request to read the updates of a single stream in a range of addresses.
+ * The log unit resolves the addresses of the stream from its own address maps,
+ * and only returns the stream's updates from entries that span multiple streams.
+ * The updates are returned a page at a time, see {@link StreamReadResponse}.
+ */
+@Getter
+@AllArgsConstructor
+public class StreamReadRequest implements ICorfuPayload<StreamReadRequest> {
+
+    // The stream to read and its range of addresses, i.e. (end, start]
+    private final StreamAddressRange range;
+
+    // The maximum number of entries to return, the log unit applies its own limit as well
+    private final int maxEntries;
+
+    // Whether the read results should be cached on server.
+    private final boolean cacheReadResult;
+
+    /**
+     * Deserialization Constructor from ByteBuf to StreamReadRequest.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public StreamReadRequest(ByteBuf buf) {
+        range = ICorfuPayload.fromBuffer(buf, StreamAddressRange.class);
+        maxEntries = buf.readInt();
+        cacheReadResult = buf.readBoolean();
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, range);
+        buf.writeInt(maxEntries);
+        buf.writeBoolean(cacheReadResult);
+    }
+}
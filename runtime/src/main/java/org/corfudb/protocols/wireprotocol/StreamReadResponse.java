@@ -0,0 +1,52 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import lombok.Value;
+import org.corfudb.runtime.view.Address;
+
+import java.util.Map;
+
+/**
+ * A page of the updates of a stream, as returned for a {@link StreamReadRequest}.
+ *
+ * <p>A log unit bounds the number of entries and bytes of a response. If the range
+ * of the request hasn't been read entirely, the response carries the address to
+ * resume from, i.e. the exclusive end of the range of the next request.</p>
+ */
+@Value
+public class StreamReadResponse implements ICorfuPayload<StreamReadResponse> {
+
+    // The entries of the stream in this page, in the (end, resumeAddress] part of the range
+    private final Map<Long, LogData> addresses;
+
+    // The address to resume reading from, or Address.NON_ADDRESS if the range has been read
+    private final long resumeAddress;
+
+    public StreamReadResponse(Map<Long, LogData> addresses, long resumeAddress) {
+        this.addresses = addresses;
+        this.resumeAddress = resumeAddress;
+    }
+
+    /**
+     * Deserialization Constructor from ByteBuf to StreamReadResponse.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public StreamReadResponse(ByteBuf buf) {
+        this.addresses = ICorfuPayload.mapFromBuffer(buf, Long.class, LogData.class);
+        this.resumeAddress = buf.readLong();
+    }
+
+    /**
+     * Returns true if the range of the request has been read entirely.
+     */
+    public boolean isComplete() {
+        return resumeAddress == Address.NON_ADDRESS;
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, addresses);
+        buf.writeLong(resumeAddress);
+    }
+}
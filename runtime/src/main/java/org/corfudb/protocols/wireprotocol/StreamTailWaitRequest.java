@@ -0,0 +1,51 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * Request to wait until the tail of a stream is past an address. The sequencer
+ * responds with the stream tail once it is past the address, or once the timeout
+ * elapses, whichever comes first.
+ */
+@Data
+@AllArgsConstructor
+public class StreamTailWaitRequest implements ICorfuPayload<StreamTailWaitRequest> {
+
+    /**
+     * The stream to wait on.
+     */
+    private final UUID streamId;
+
+    /**
+     * The address the stream tail has to be past of.
+     */
+    private final Long address;
+
+    /**
+     * The maximum time to wait in milliseconds.
+     */
+    private final Long timeout;
+
+    /**
+     * Deserialization Constructor from Bytebuf to StreamTailWaitRequest.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public StreamTailWaitRequest(ByteBuf buf) {
+        streamId = ICorfuPayload.fromBuffer(buf, UUID.class);
+        address = ICorfuPayload.fromBuffer(buf, Long.class);
+        timeout = ICorfuPayload.fromBuffer(buf, Long.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, streamId);
+        ICorfuPayload.serialize(buf, address);
+        ICorfuPayload.serialize(buf, timeout);
+    }
+}
@@ -24,6 +24,7 @@ import org.corfudb.runtime.exceptions.FastObjectLoaderException;
 import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
 import org.corfudb.runtime.object.CorfuCompileProxy;
+import org.corfudb.runtime.object.VersionLockedObject;
 import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.SMRObject;
 import org.corfudb.runtime.view.SMRObject.Builder;
@@ -33,9 +34,13 @@ import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,6 +53,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 
 import static org.corfudb.recovery.RecoveryUtils.createObjectIfNotExist;
@@ -85,6 +92,7 @@ public class FastObjectLoader {
     static final int STATUS_UPDATE_PACE = 10000;
     static final int DEFAULT_NUMBER_OF_PENDING_FUTURES = 1_000;
     static final int DEFAULT_NUMBER_OF_WORKERS = 4;
+    static final int DEFAULT_NUMBER_OF_INFLIGHT_READS = 4;
 
     private final CorfuRuntime runtime;
 
@@ -109,6 +117,13 @@ public class FastObjectLoader {
     @Setter
     int numOfWorkers = DEFAULT_NUMBER_OF_WORKERS;
 
+    /**
+     * The number of batches read ahead of the necromancers
+     */
+    @Getter
+    @Setter
+    int numberOfInflightReads = DEFAULT_NUMBER_OF_INFLIGHT_READS;
+
     @Getter
     private long logHead = Address.NON_EXIST;
 
@@ -141,9 +156,6 @@ public class FastObjectLoader {
     @VisibleForTesting
     void setLogTail(long tail) { this.logTail = tail; }
 
-    // A future to track the last submitted read request
-    volatile private Future lastReadRequest;
-
     /**
      * We can add streams to be ignored during the
      * reconstruction of the state (e.g. raw streams)
@@ -204,8 +216,27 @@ public class FastObjectLoader {
 
     private long addressProcessed;
 
-    // In charge of summoning Corfu maps back in this world
-    private ExecutorService necromancer;
+    // In charge of summoning Corfu maps back in this world, each stream is always
+    // resurrected by the same necromancer so that its updates are applied in order
+    private ExecutorService[] necromancers;
+
+    // Futures to track the last submitted apply request of each necromancer
+    private Future[] lastApplyRequests;
+
+    // The updates of the batch being dispatched, grouped per necromancer
+    private List<List<Runnable>> pendingApplies;
+
+    // The first failure of a necromancer, if any
+    private final AtomicReference<Throwable> applyFailure = new AtomicReference<>();
+
+    // Reads the log ahead of the necromancers, and deserializes what was read
+    private ExecutorService readers;
+    private ExecutorService deserializers;
+
+    private final StageStats readStats = new StageStats("read");
+    private final StageStats deserializeStats = new StageStats("deserialize");
+    private final StageStats dispatchStats = new StageStats("dispatch");
+    private final StageStats applyStats = new StageStats("apply");
 
     private final Map<UUID, StreamMetaData> streamsMetaData;
 
@@ -239,54 +270,118 @@ public class FastObjectLoader {
      *
      * Necromancy is a supposed practice of magic involving communication with the deceased
      * – either by summoning their spirit as an apparition or raising them bodily. This suits
-     * what this thread is tasked with, bringing back the SMR Maps from their grave (the Log).
+     * what these threads are tasked with, bringing back the SMR Maps from their grave (the Log).
      *
      */
-    private void summonNecromancer() {
-        // Note that the queue implementation requires the corePoolSize to
-        // be equal to maximumPoolSize, so this should be fine for a single threaded
-        // executor
-        necromancer = new ThreadPoolExecutor(1, 1,
-                0L, TimeUnit.MILLISECONDS,
-                new BoundedQueue<>(numberOfPendingFutures),
-                new ThreadFactoryBuilder()
-                        .setNameFormat("FastObjectLoaderReaderThread-%d").build());
-        lastReadRequest = null;
-    }
-
-    private void invokeNecromancer(Map<Long, ILogData> logDataMap, BiConsumer<Long, ILogData> resurrectionSpell) {
-        lastReadRequest = necromancer.submit(() ->
-        {
-            logDataMap.forEach((address, logData) -> {
-                resurrectionSpell.accept(address, logData);
+    private void summonNecromancers() {
+        necromancers = new ExecutorService[numOfWorkers];
+        lastApplyRequests = new Future[numOfWorkers];
+        pendingApplies = new ArrayList<>(numOfWorkers);
+        for (int i = 0; i < numOfWorkers; i++) {
+            // Note that the queue implementation requires the corePoolSize to
+            // be equal to maximumPoolSize, so this should be fine for a single threaded
+            // executor
+            necromancers[i] = new ThreadPoolExecutor(1, 1,
+                    0L, TimeUnit.MILLISECONDS,
+                    new BoundedQueue<>(numberOfPendingFutures),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("FastObjectLoaderApplyThread-" + i + "-%d").build());
+            pendingApplies.add(new ArrayList<>());
+        }
+
+        readers = Executors.newFixedThreadPool(numberOfInflightReads, new ThreadFactoryBuilder()
+                .setNameFormat("FastObjectLoaderReaderThread-%d").build());
+        deserializers = Executors.newFixedThreadPool(numOfWorkers, new ThreadFactoryBuilder()
+                .setNameFormat("FastObjectLoaderDeserializerThread-%d").build());
+
+        applyFailure.set(null);
+        readStats.reset();
+        deserializeStats.reset();
+        dispatchStats.reset();
+        applyStats.reset();
+    }
+
+    private int getNecromancer(UUID streamId) {
+        return Math.floorMod(streamId.hashCode(), necromancers.length);
+    }
+
+    /**
+     * Queue the updates of a stream to the necromancer of the stream, they are submitted
+     * with the rest of the batch by {@link FastObjectLoader#invokeNecromancers()}.
+     */
+    private void dispatchSmrEntries(UUID streamId, List<SMREntry> entries, long globalAddress) {
+        pendingApplies.get(getNecromancer(streamId)).add(() -> entries.forEach(smrEntry ->
+                applySmrEntryToStream(streamId, smrEntry, globalAddress)));
+    }
+
+    private void invokeNecromancers() {
+        for (int i = 0; i < necromancers.length; i++) {
+            List<Runnable> applies = pendingApplies.get(i);
+            if (applies.isEmpty()) {
+                continue;
+            }
+
+            pendingApplies.set(i, new ArrayList<>());
+            lastApplyRequests[i] = necromancers[i].submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    applies.forEach(Runnable::run);
+                } catch (Throwable t) {
+                    log.error("invokeNecromancers: failed to apply updates", t);
+                    applyFailure.compareAndSet(null, t);
+                }
+                applyStats.record(applies.size(), start);
             });
-        });
+        }
+    }
+
+    /**
+     * Wait for the necromancers to apply all the updates submitted so far.
+     */
+    private void awaitNecromancers() {
+        for (Future request : lastApplyRequests) {
+            if (request != null) {
+                CFUtils.getUninterruptibly(request);
+            }
+        }
+    }
+
+    /**
+     * Stop the pipeline without waiting for the pending requests, when loading failed.
+     */
+    private void banishNecromancers() {
+        readers.shutdownNow();
+        deserializers.shutdownNow();
+        for (ExecutorService necromancer : necromancers) {
+            necromancer.shutdownNow();
+        }
     }
 
-    private void killNecromancer() {
-        necromancer.shutdown();
+    private void killNecromancers() {
+        readers.shutdownNow();
+        deserializers.shutdownNow();
+
+        for (ExecutorService necromancer : necromancers) {
+            necromancer.shutdown();
+        }
+
         try {
-            necromancer.awaitTermination(timeoutInMinutesForLoading, TimeUnit.MINUTES);
+            for (ExecutorService necromancer : necromancers) {
+                necromancer.awaitTermination(timeoutInMinutesForLoading, TimeUnit.MINUTES);
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             String msg = "Necromancer is taking too long to load the maps. Gave up.";
             throw new FastObjectLoaderException(msg);
         }
 
-        if (lastReadRequest == null) {
-            log.info("killNecromancer: no read requests have been processed.");
-            return;
-        }
+        // Each necromancer runs its requests in submission order, so waiting
+        // on the last request of each one waits for all of them
+        awaitNecromancers();
 
-        // Only waiting on the last requests seems like a hack, but it should
-        // be correct, because the fast loader has the following invariants:
-        // 1. Will submit read requests in order for the whole range [trimMark, tail]
-        // 2. Will verify that all entries are processed in strictly ascending order
-        // 3. Kill killNecromancer will only be invoked after all the requests have
-        //    been submitted
-        // Because of #1, #2 and #3 , if awaitTermination doesn't fail, then lastReadRequest
-        // will be the last request submitted
-        CFUtils.getUninterruptibly(lastReadRequest);
+        if (applyFailure.get() != null) {
+            throw new FastObjectLoaderException("Failed to apply updates: " + applyFailure.get());
+        }
     }
 
     /**
@@ -415,7 +510,19 @@ public class FastObjectLoader {
                 createObjectIfNotExist(runtime, streamId, serializer, objectType);
             }
             CorfuCompileProxy cp = getCorfuCompileProxy(runtime, streamId, objectType);
-            cp.getUnderlyingObject().applyUpdateToStreamUnsafe(entry, globalAddress);
+            VersionLockedObject vlo = cp.getUnderlyingObject();
+
+            // An object resumed from a persisted state already reflects the entries up to its
+            // version. If a checkpoint is more recent, the persisted state is discarded since
+            // the entries between them may have been trimmed.
+            if (Address.isAddress(vlo.getResumedVersion())) {
+                if (globalAddress <= vlo.getResumedVersion()) {
+                    return;
+                } else if (isCheckPointEntry) {
+                    vlo.resetUnsafe();
+                }
+            }
+            vlo.applyUpdateToStreamUnsafe(entry, globalAddress);
         }
     }
 
@@ -460,18 +567,30 @@ public class FastObjectLoader {
     }
 
     /**
-     * Extract log entries from logData and update the Corfu Objects
+     * Deserialize a logData, the log entry is cached in the logData.
      *
      * @param logData LogData received from Corfu server.
+     * @return the log entry, or null if it can't be deserialized
      */
-    private void updateCorfuObject(ILogData logData) {
-        LogEntry logEntry;
+    private LogEntry getLogEntry(ILogData logData) {
         try {
-            logEntry = deserializeLogData(runtime, logData);
+            return deserializeLogData(runtime, logData);
         } catch (InterruptedException ie) {
             throw new UnrecoverableCorfuInterruptedError(ie);
         } catch (Exception e) {
             log.error("Cannot deserialize log entry" + logData.getGlobalAddress(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Extract log entries from logData and update the Corfu Objects
+     *
+     * @param logData LogData received from Corfu server.
+     */
+    private void updateCorfuObject(ILogData logData) {
+        LogEntry logEntry = getLogEntry(logData);
+        if (logEntry == null) {
             return;
         }
 
@@ -493,6 +612,50 @@ public class FastObjectLoader {
         }
     }
 
+    /**
+     * Extract log entries from logData and dispatch their updates to the
+     * necromancers of their streams.
+     *
+     * @param logData LogData received from Corfu server.
+     */
+    private void dispatchCorfuObjectUpdates(ILogData logData) {
+        LogEntry logEntry = getLogEntry(logData);
+        if (logEntry == null) {
+            return;
+        }
+
+        long globalAddress = logData.getGlobalAddress();
+
+        switch (logEntry.getType()) {
+            case SMR:
+                UUID streamId = logData.getStreams().iterator().next();
+                dispatchSmrEntries(streamId, Collections.singletonList((SMREntry) logEntry), globalAddress);
+                break;
+            case MULTIOBJSMR:
+                ((MultiObjectSMREntry) logEntry).getEntryMap().forEach((id, multiSmrEntry) ->
+                        dispatchSmrEntries(id, multiSmrEntry.getSMRUpdates(id), globalAddress));
+                break;
+            default:
+                log.warn("dispatchCorfuObjectUpdates[address = {}]: Unexpected data type {}",
+                        globalAddress, logEntry.getType());
+        }
+    }
+
+    /**
+     * Deserialize the entries of a batch that will be processed, so that the
+     * dispatcher finds them deserialized.
+     */
+    private Map<Long, ILogData> deserializeBatch(Map<Long, ILogData> batch) {
+        long start = System.nanoTime();
+        for (ILogData logData : batch.values()) {
+            if (logData.getType() == DataType.DATA && !isCheckPointEntry(logData)
+                    && shouldLogDataBeProcessed(logData)) {
+                getLogEntry(logData);
+            }
+        }
+        deserializeStats.record(batch.size(), start);
+        return batch;
+    }
 
     /**
      * Initialize log head and log tails
@@ -554,7 +717,7 @@ public class FastObjectLoader {
             case DATA:
                 // Checkpoint should have been processed first
                 if (!isCheckPointEntry(logData) && shouldLogDataBeProcessed(logData)) {
-                    updateCorfuObject(logData);
+                    dispatchCorfuObjectUpdates(logData);
                 }
                 break;
             case HOLE:
@@ -586,11 +749,16 @@ public class FastObjectLoader {
             long snapshotAddress = getSnapShotAddressOfCheckPoint(logEntry);
             long startAddress = getStartAddressOfCheckPoint(logData);
 
-            streamMeta.addCheckPoint(new CheckPoint(checkPointId)
+            CheckPoint checkPoint = new CheckPoint(checkPointId)
                     .addAddress(address)
                     .setSnapshotAddress(snapshotAddress)
                     .setStartAddress(startAddress)
-                    .setStarted(true));
+                    .setStarted(true);
+            if (logEntry.isDelta()) {
+                checkPoint.setBaseCheckPointId(UUID.fromString(logEntry.getDict()
+                        .get(CheckpointEntry.CheckpointDictKey.BASE_CHECKPOINT_ID)));
+            }
+            streamMeta.addCheckPoint(checkPoint);
 
         } catch (InterruptedException ie) {
             throw new UnrecoverableCorfuInterruptedError(ie);
@@ -670,9 +838,12 @@ public class FastObjectLoader {
                             return;
                         }
 
-                        // For now one by one read and apply
-                        for (long address : checkPoint.getAddresses()) {
-                            updateCorfuObject(getLogData(runtime, loadInCache, address));
+                        // For now one by one read and apply, a delta checkpoint is
+                        // applied after the checkpoints it is chained to
+                        for (CheckPoint link : entry.getValue().getCheckPointChain(checkPoint)) {
+                            for (long address : link.getAddresses()) {
+                                updateCorfuObject(getLogData(runtime, loadInCache, address));
+                            }
                         }
                     } catch (Throwable t) {
                         log.error("resurrectCheckpoints[{}]: error on addresses {}", checkPoint.getCheckPointId(),
@@ -713,13 +884,13 @@ public class FastObjectLoader {
         // we can just do the last step. Risky, but the flag is
         // explicit enough.
         if (logHasNoCheckPoint) {
-            applyForEachAddress(this::processLogData);
+            applyForEachAddress(this::processLogData, true);
         } else {
-            applyForEachAddress(this::findCheckPointsInLogAddress);
+            applyForEachAddress(this::findCheckPointsInLogAddress, false);
             resurrectCheckpoints();
 
             resetAddressProcessed();
-            applyForEachAddress(this::processLogData);
+            applyForEachAddress(this::processLogData, true);
         }
 
     }
@@ -740,54 +911,103 @@ public class FastObjectLoader {
     }
 
 
+    /**
+     * Read a batch of addresses, and deserialize it if needed.
+     */
+    private CompletableFuture<Map<Long, ILogData>> submitRead(long lower, long upper, boolean deserialize) {
+        CompletableFuture<Map<Long, ILogData>> read = CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            // Don't cache the read results on server for fast loader
+            ContiguousSet<Long> addresses = ContiguousSet.create(
+                    Range.closed(lower, upper), DiscreteDomain.longs());
+            Map<Long, ILogData> batch = new TreeMap<>(
+                    runtime.getAddressSpaceView().read(addresses,
+                            RecoveryUtils.fastLoaderReadOptions));
+            readStats.record(batch.size(), start);
+            return batch;
+        }, readers);
+
+        return deserialize ? read.thenApplyAsync(this::deserializeBatch, deserializers) : read;
+    }
+
     /**
      * This method will apply for each address the consumer given in parameter.
-     * The Necromancer thread is used to do the heavy lifting.
+     *
+     * The log is processed by a pipeline: up to numberOfInflightReads batches are read
+     * ahead (and deserialized if needed) in parallel, the consumer is then invoked in
+     * address order on this thread. When loading the maps, the consumer dispatches the
+     * updates of each stream to the necromancer of that stream, so that the necromancers
+     * do the heavy lifting of applying them in parallel.
+     *
+     * @param logDataProcessor consumer of each address
+     * @param deserialize      whether the batches should be deserialized ahead of the consumer
      */
-    private void applyForEachAddress(BiConsumer<Long, ILogData> logDataProcessor) {
+    private void applyForEachAddress(BiConsumer<Long, ILogData> logDataProcessor, boolean deserialize) {
 
-        summonNecromancer();
-        nextRead = logHead;
-        while (nextRead <= logTail) {
-            try {
-                final long lower = nextRead;
-                final long upper = Math.min(lower + batchReadSize - 1, logTail);
-                nextRead = upper + 1;
-
-                // Don't cache the read results on server for fast loader
-                ContiguousSet<Long> addresses = ContiguousSet.create(
-                        Range.closed(lower, upper), DiscreteDomain.longs());
-
-                Map<Long, ILogData> range = new TreeMap<>(
-                        runtime.getAddressSpaceView().read(addresses,
-                                RecoveryUtils.fastLoaderReadOptions));
-
-                // Sanity
-                for (Map.Entry<Long, ILogData> entry : range.entrySet()) {
-                    long address = entry.getKey();
-                    ILogData logData = entry.getValue();
-                    if (address != addressProcessed + 1) {
-                        throw new IllegalStateException("We missed an entry. It can lead to correctness issues.");
-                    }
-                    addressProcessed++;
+        summonNecromancers();
+        long pipelineStart = System.nanoTime();
+        Deque<CompletableFuture<Map<Long, ILogData>>> pendingReads = new ArrayDeque<>();
+        boolean loaded = false;
+        try {
+            nextRead = logHead;
+            while (nextRead <= logTail || !pendingReads.isEmpty()) {
+                while (nextRead <= logTail && pendingReads.size() < numberOfInflightReads) {
+                    final long lower = nextRead;
+                    final long upper = Math.min(lower + batchReadSize - 1, logTail);
+                    nextRead = upper + 1;
+                    pendingReads.add(submitRead(lower, upper, deserialize));
+                }
 
-                    if (logData.getType() == DataType.TRIMMED) {
-                        throw new IllegalStateException("Unexpected TRIMMED data");
-                    }
+                try {
+                    Map<Long, ILogData> range = CFUtils.getUninterruptibly(pendingReads.poll(),
+                            TrimmedException.class);
+                    long start = System.nanoTime();
+
+                    // Sanity
+                    for (Map.Entry<Long, ILogData> entry : range.entrySet()) {
+                        long address = entry.getKey();
+                        ILogData logData = entry.getValue();
+                        if (address != addressProcessed + 1) {
+                            throw new IllegalStateException("We missed an entry. It can lead to correctness issues.");
+                        }
+                        addressProcessed++;
 
-                    if (address % STATUS_UPDATE_PACE == 0) {
-                        log.info("applyForEachAddress: read up to {}", address);
-                    }
-                }
+                        if (logData.getType() == DataType.TRIMMED) {
+                            throw new IllegalStateException("Unexpected TRIMMED data");
+                        }
+
+                        if (address % STATUS_UPDATE_PACE == 0) {
+                            log.info("applyForEachAddress: read up to {}", address);
+                        }
 
-                invokeNecromancer(range, logDataProcessor);
+                        logDataProcessor.accept(address, logData);
+                    }
 
-            } catch (TrimmedException ex) {
-                log.warn("Error loading data", ex);
-                handleRetry();
+                    invokeNecromancers();
+                    dispatchStats.record(range.size(), start);
+
+                } catch (TrimmedException ex) {
+                    log.warn("Error loading data", ex);
+                    // The reads ahead are discarded, and the necromancers must be done
+                    // with the objects before they are cleaned up
+                    pendingReads.forEach(read -> read.cancel(true));
+                    pendingReads.clear();
+                    pendingApplies.forEach(List::clear);
+                    awaitNecromancers();
+                    handleRetry();
+                }
+            }
+            killNecromancers();
+            loaded = true;
+        } finally {
+            if (!loaded) {
+                banishNecromancers();
             }
         }
-        killNecromancer();
+
+        log.info("applyForEachAddress[{}, {}]: processed in {} ms, {}, {}, {}, {}", logHead, logTail,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pipelineStart),
+                readStats, deserializeStats, dispatchStats, applyStats);
     }
 
     @Data
@@ -797,6 +1017,8 @@ public class FastObjectLoader {
         long startAddress;
         boolean ended = false;
         boolean started = false;
+        // The checkpoint a delta checkpoint is chained to, null for a full checkpoint
+        UUID baseCheckPointId = null;
         List<Long> addresses = new ArrayList<>();
 
         public CheckPoint addAddress(long address) {
@@ -829,11 +1051,70 @@ public class FastObjectLoader {
 
         public void updateLatestCheckpointIfLater(UUID checkPointId) {
             CheckPoint contender = getCheckPoint(checkPointId);
+            if (getCheckPointChain(contender).isEmpty()) {
+                log.warn("updateLatestCheckpointIfLater[{}]: base of delta checkpoint {} not found",
+                        Utils.toReadableId(streamId), checkPointId);
+                return;
+            }
+
             if (latestCheckPoint == null ||
                     contender.getSnapshotAddress() > latestCheckPoint.getSnapshotAddress()) {
                         latestCheckPoint = contender;
             }
         }
+
+        /**
+         * The checkpoints to apply to load a checkpoint, i.e., the full checkpoint it is
+         * chained to followed by the delta checkpoints up to this one.
+         *
+         * @return the chain of checkpoints, or an empty list if a checkpoint of the
+         *         chain is missing or incomplete
+         */
+        public List<CheckPoint> getCheckPointChain(CheckPoint checkPoint) {
+            LinkedList<CheckPoint> chain = new LinkedList<>();
+            CheckPoint current = checkPoint;
+            while (current != null && current.isStarted() && current.isEnded()
+                    && chain.size() < checkPoints.size()) {
+                chain.addFirst(current);
+                if (current.getBaseCheckPointId() == null) {
+                    return chain;
+                }
+                current = getCheckPoint(current.getBaseCheckPointId());
+            }
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * The number of items processed by a stage of the loading pipeline and the
+     * time its threads spent processing them.
+     */
+    private static class StageStats {
+        private final String name;
+        private final LongAdder items = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        StageStats(String name) {
+            this.name = name;
+        }
+
+        void record(long count, long startNanos) {
+            items.add(count);
+            nanos.add(System.nanoTime() - startNanos);
+        }
+
+        void reset() {
+            items.reset();
+            nanos.reset();
+        }
+
+        @Override
+        public String toString() {
+            long busyNanos = Math.max(nanos.sum(), 1);
+            return String.format("%s: %d in %d ms (%d/s)", name, items.sum(),
+                    TimeUnit.NANOSECONDS.toMillis(busyNanos),
+                    items.sum() * TimeUnit.SECONDS.toNanos(1) / busyNanos);
+        }
     }
 
     /**
@@ -4,32 +4,51 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.logprotocol.CheckpointEntry;
+import org.corfudb.protocols.logprotocol.ISMRConsumable;
 import org.corfudb.protocols.logprotocol.MultiSMREntry;
 import org.corfudb.protocols.logprotocol.SMREntry;
 import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.runtime.collections.StreamingMap;
+import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.object.transactions.TransactionType;
+import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.CacheOption;
+import org.corfudb.runtime.view.ReadOptions;
 import org.corfudb.runtime.view.StreamsView;
+import org.corfudb.runtime.view.TokenLease;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
+import org.roaringbitmap.longlong.LongIterator;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -52,7 +71,20 @@ public class CheckpointWriter<T extends StreamingMap> {
     private long startAddress;
     private long endAddress;
     private long numEntries = 0;
+
+    /** Serialized bytes and number of the map entries in the checkpoint records.
+     */
+    @Getter
     private long numBytes = 0;
+    @Getter
+    private int entryCount = 0;
+
+    /** Address of the START record of the full checkpoint that the checkpoint
+     *  written by this writer is chained to (its own START if it is a full checkpoint).
+     *  Trimming the log past this address makes the checkpoint unreadable.
+     */
+    @Getter
+    private long chainStartAddress = Address.NON_ADDRESS;
 
     // Registry and Timer used for measuring append checkpoint
     private static final MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
@@ -64,6 +96,15 @@ public class CheckpointWriter<T extends StreamingMap> {
     private final UUID checkpointStreamID;
     private final Map<CheckpointEntry.CheckpointDictKey, String> mdkv = new HashMap<>();
 
+    // Number of records to append isn't known in advance
+    private static final int UNKNOWN_RECORDS = 0;
+
+    // Reads of the previous checkpoint and of the updates for a delta checkpoint aren't cached
+    private static final ReadOptions deltaReadOptions = ReadOptions.builder()
+            .clientCacheable(false)
+            .serverCacheable(false)
+            .build();
+
     /** Mutator lambda to change map key.  Typically used for
      *  testing but could also be used for type conversion, etc.
      */
@@ -78,12 +119,42 @@ public class CheckpointWriter<T extends StreamingMap> {
     @Setter
     Function<Object,Object> valueMutator = (x) -> x;
 
-    /** Batch size: number of SMREntry in a single CONTINUATION.
+    /** Batch size: number of SMREntry in a single CONTINUATION, if
+     *  batches are not sized by bytes.
      */
     @Getter
     @Setter
     private int batchSize = 50;
 
+    /** Batch bytes: if positive, the maximum serialized size of the SMREntries
+     *  in a single CONTINUATION, which holds as many SMREntry as fit. A single
+     *  SMREntry larger than this is written in a CONTINUATION of its own.
+     */
+    @Getter
+    @Setter
+    private int batchBytes = 0;
+
+    /** Max number of tokens leased at once to append the checkpoint records, if
+     *  zero the tokens are acquired one at a time. Leased tokens are allocated
+     *  in a growing block, any tokens left unused are hole-filled.
+     */
+    @Getter
+    @Setter
+    private int maxTokenLeaseSize = 0;
+
+    private TokenLease lease;
+
+    private int leaseSize = 1;
+
+    /** Max number of delta checkpoints chained to a full checkpoint. A delta checkpoint
+     *  only contains the keys modified since the previous checkpoint of the stream, a
+     *  full checkpoint is written once the chain reaches this length. If zero, only
+     *  full checkpoints are written.
+     */
+    @Getter
+    @Setter
+    private int maxDeltaCheckpoints = 0;
+
     /** BiConsumer to run after every CheckpointEntry is appended to the stream.
      */
     @Getter
@@ -145,7 +216,8 @@ public class CheckpointWriter<T extends StreamingMap> {
     /**
      * Write a checkpoint which reflects the state at snapshot.
      *
-     * This API should not be directly invoked.
+     * This API should not be directly invoked, other than with a snapshot at a NO_OP
+     * entry of the stream (see {@link CheckpointWriter#forceNoOpEntry(CorfuRuntime, UUID...)}).
      *
      *  @param snapshotTimestamp snapshot at which the checkpoint is taken.
      *  @param streamTail tail of the stream to checkpoint at snapshot time.
@@ -163,19 +235,33 @@ public class CheckpointWriter<T extends StreamingMap> {
             // A checkpoint writer will do two accesses one to obtain the object
             // vlo version and to get a shallow copy of the entry set
             log.info("appendCheckpoint: Started checkpoint for {} at snapshot {}", streamId, snapshotTimestamp);
-            Stream<Map.Entry> entries = this.map.entryStream();
+            Optional<DeltaBase> base = findDeltaBase(snapshotTimestamp);
+            Optional<Set<Object>> modifiedKeys = base.flatMap(b -> getModifiedKeys(b, snapshotTimestamp));
             // The vloVersion which will determine the checkpoint START_LOG_ADDRESS (last observed update for this
             // stream by the time of checkpointing) is defined by the stream's tail instead of the stream's version,
             // as the latter discards holes for resolution, hence if last address is a hole it would diverge
             // from the stream address space maintained by the sequencer.
-            startCheckpoint(snapshotTimestamp, streamTail);
-            int entryCount = appendObjectState(entries);
+            if (modifiedKeys.isPresent()) {
+                startDeltaCheckpoint(snapshotTimestamp, streamTail, base.get());
+                appendObjectDelta(modifiedKeys.get());
+            } else {
+                Stream<Map.Entry> entries = this.map.entryStream();
+                mdkv.remove(CheckpointEntry.CheckpointDictKey.BASE_CHECKPOINT_ID);
+                mdkv.remove(CheckpointEntry.CheckpointDictKey.DELTA_COUNT);
+                mdkv.remove(CheckpointEntry.CheckpointDictKey.CHAIN_START_ADDRESS);
+                startCheckpoint(snapshotTimestamp, streamTail);
+                chainStartAddress = startAddress;
+                mdkv.put(CheckpointEntry.CheckpointDictKey.CHAIN_START_ADDRESS, Long.toString(chainStartAddress));
+                appendObjectState(entries);
+            }
             finishCheckpoint();
             long cpDuration = System.currentTimeMillis() - start;
-            log.info("appendCheckpoint: completed checkpoint for {}, entries({}), " +
+            log.info("appendCheckpoint: completed {} checkpoint for {}, entries({}), records({}), " +
                             "cpSize({}) bytes at snapshot {} in {} ms",
-                    streamId, entryCount, numBytes, snapshotTimestamp, cpDuration);
+                    modifiedKeys.isPresent() ? "delta" : "full",
+                    streamId, entryCount, numEntries, numBytes, snapshotTimestamp, cpDuration);
         } finally {
+            releaseTokens();
             rt.getObjectsView().TXEnd();
         }
 
@@ -183,7 +269,19 @@ public class CheckpointWriter<T extends StreamingMap> {
     }
 
     private Token forceNoOpEntry() {
-        TokenResponse writeToken = rt.getSequencerView().next(streamId);
+        return forceNoOpEntry(rt, streamId);
+    }
+
+    /**
+     * Write a single NO_OP entry to several streams, a snapshot at this entry is the
+     * tail of each of these streams.
+     *
+     * @param rt        runtime
+     * @param streamIds streams to write the NO_OP entry to
+     * @return the token of the NO_OP entry
+     */
+    static Token forceNoOpEntry(CorfuRuntime rt, UUID... streamIds) {
+        TokenResponse writeToken = rt.getSequencerView().next(streamIds);
         LogData logData = new LogData(DataType.HOLE);
         rt.getAddressSpaceView().write(writeToken, logData, CacheOption.WRITE_AROUND);
         return writeToken.getToken();
@@ -208,22 +306,62 @@ public class CheckpointWriter<T extends StreamingMap> {
                 ImmutableMap.copyOf(this.mdkv);
         CheckpointEntry cp = new CheckpointEntry(CheckpointEntry.CheckpointEntryType.START,
                 author, checkpointId, streamId, mdkv, null);
-        startAddress = nonCachedAppend(cp, checkpointStreamID);
+        startAddress = nonCachedAppend(cp, UNKNOWN_RECORDS);
 
         postAppendFunc.accept(cp, startAddress);
     }
 
+    /** Append a START record of a delta checkpoint, chained to a previous checkpoint
+     *  of this object's stream.
+     *
+     * @param txnSnapshot snapshot at which the checkpoint is taken
+     * @param vloVersion  tail of the stream at snapshot time
+     * @param base        the checkpoint this delta checkpoint is based on
+     */
+    private void startDeltaCheckpoint(Token txnSnapshot, long vloVersion, DeltaBase base) {
+        chainStartAddress = base.getChainStartAddress();
+        mdkv.put(CheckpointEntry.CheckpointDictKey.BASE_CHECKPOINT_ID, base.getCheckpointId().toString());
+        mdkv.put(CheckpointEntry.CheckpointDictKey.DELTA_COUNT, Integer.toString(base.getDeltaCount() + 1));
+        mdkv.put(CheckpointEntry.CheckpointDictKey.CHAIN_START_ADDRESS, Long.toString(chainStartAddress));
+        startCheckpoint(txnSnapshot, vloVersion);
+    }
+
+    /**
+     *  Append a checkpoint record to the checkpoint stream without caching it.
+     *
+     *  @param cp checkpoint record to append
+     *  @param remainingRecords number of records left to append including this one,
+     *                          or UNKNOWN_RECORDS, used to size a new token lease
+     */
+    private long nonCachedAppend(CheckpointEntry cp, int remainingRecords) {
+        if (maxTokenLeaseSize <= 0) {
+            return sv.append(cp, null, CacheOption.WRITE_AROUND, checkpointStreamID);
+        }
+
+        if (lease == null || lease.remaining() == 0) {
+            if (remainingRecords == UNKNOWN_RECORDS) {
+                leaseSize = Math.min(leaseSize * 2, maxTokenLeaseSize);
+            }
+            int size = remainingRecords == UNKNOWN_RECORDS ? leaseSize : remainingRecords;
+            lease = rt.getSequencerView().lease(checkpointStreamID, Math.min(size, maxTokenLeaseSize));
+        }
+        return sv.append(cp, lease, CacheOption.WRITE_AROUND);
+    }
+
     /**
-     *  Append an object to a stream without caching the entries.
+     *  Hole-fill the leased tokens that weren't used.
      */
-    private long nonCachedAppend(Object object, UUID ... streamIDs) {
-        return sv.append(object, null, CacheOption.WRITE_AROUND, streamIDs);
+    private void releaseTokens() {
+        if (lease != null) {
+            lease.release();
+            lease = null;
+        }
     }
 
     /** Append zero or more CONTINUATION records to this
      *  object's stream.  Each will contain a fraction of
      *  the state of the object that we're checkpointing
-     *  (up to batchSize items at a time).
+     *  (up to batchSize items, or up to batchBytes, at a time).
      *
      *  <p>Corfu client transaction management, if desired, is the
      *  caller's responsibility.</p>
@@ -245,35 +383,97 @@ public class CheckpointWriter<T extends StreamingMap> {
      * @return Stream of global log addresses of the CONTINUATION records written.
      */
     public int appendObjectState(Stream<Map.Entry> entryStream) {
+        return appendSmrEntries(entryStream
+                .map(entry -> new SMREntry("put",
+                        new Object[]{keyMutator.apply(entry.getKey()),
+                                valueMutator.apply(entry.getValue())},
+                        serializer))
+                .iterator());
+    }
+
+    /** Append the CONTINUATION records of a delta checkpoint: the current value of
+     *  each modified key, or its removal if the key isn't in the map anymore.
+     *
+     *  <p>Corfu client transaction management, if desired, is the
+     *  caller's responsibility.</p>
+     *
+     * @param modifiedKeys keys modified since the base checkpoint
+     * @return number of SMREntry written
+     */
+    public int appendObjectDelta(Set<Object> modifiedKeys) {
+        return appendSmrEntries(modifiedKeys.stream()
+                .map(key -> map.containsKey(key)
+                        ? new SMREntry("put",
+                        new Object[]{keyMutator.apply(key), valueMutator.apply(map.get(key))},
+                        serializer)
+                        : new SMREntry("remove", new Object[]{keyMutator.apply(key)}, serializer))
+                .iterator());
+    }
+
+    private int appendSmrEntries(Iterator<SMREntry> entries) {
         ImmutableMap<CheckpointEntry.CheckpointDictKey, String> mdkv =
                 ImmutableMap.copyOf(this.mdkv);
 
-        final Iterable<List<Map.Entry>> partitions =
-                Iterables.partition(entryStream::iterator, batchSize);
-        int entryCount = 0;
-
-        for (List<Map.Entry> partition : partitions) {
-            MultiSMREntry smrEntries = new MultiSMREntry();
-            for (Map.Entry entry : partition) {
-                smrEntries.addTo(new SMREntry("put",
-                        new Object[]{keyMutator.apply(entry.getKey()),
-                                valueMutator.apply(entry.getValue())},
-                        serializer));
-                entryCount++;
+        PeekingIterator<SMREntry> iterator = Iterators.peekingIterator(entries);
+        // When batches are sized by bytes, each entry is serialized in this buffer
+        // to measure it before it is added to the batch
+        ByteBuf sizeBuf = batchBytes > 0 ? Unpooled.buffer() : null;
+        int batchEntryCount = 0;
+
+        try {
+            while (iterator.hasNext()) {
+                MultiSMREntry smrEntries = new MultiSMREntry();
+                int partitionSize = 0;
+                long partitionBytes = sizeBuf == null ? 0 : getSerializedSize(smrEntries::serialize, sizeBuf);
+                while (iterator.hasNext()) {
+                    if (sizeBuf == null) {
+                        if (partitionSize >= batchSize) {
+                            break;
+                        }
+                    } else {
+                        SMREntry entry = iterator.peek();
+                        long entryBytes = getSerializedSize(b -> Serializers.CORFU.serialize(entry, b), sizeBuf);
+                        if (partitionSize > 0 && partitionBytes + entryBytes > batchBytes) {
+                            break;
+                        }
+                        partitionBytes += entryBytes;
+                    }
+                    smrEntries.addTo(iterator.next());
+                    partitionSize++;
+                }
+                batchEntryCount += partitionSize;
+
+                CheckpointEntry cp = new CheckpointEntry(CheckpointEntry
+                        .CheckpointEntryType.CONTINUATION,
+                        author, checkpointId, streamId, mdkv, smrEntries);
+                // The last CONTINUATION is only followed by the END record
+                long pos = nonCachedAppend(cp, iterator.hasNext() ? UNKNOWN_RECORDS : 2);
+                postAppendFunc.accept(cp, pos);
+                numEntries++;
+                // CheckpointEntry::serialize() has a side-effect we use
+                // for an accurate count of serialized bytes of SRMEntries.
+                numBytes += cp.getSmrEntriesBytes();
+            }
+        } finally {
+            if (sizeBuf != null) {
+                sizeBuf.release();
             }
-
-            CheckpointEntry cp = new CheckpointEntry(CheckpointEntry
-                    .CheckpointEntryType.CONTINUATION,
-                    author, checkpointId, streamId, mdkv, smrEntries);
-            long pos = nonCachedAppend(cp, checkpointStreamID);
-            postAppendFunc.accept(cp, pos);
-            numEntries++;
-            // CheckpointEntry::serialize() has a side-effect we use
-            // for an accurate count of serialized bytes of SRMEntries.
-            numBytes += cp.getSmrEntriesBytes();
         }
 
-        return entryCount;
+        entryCount += batchEntryCount;
+        return batchEntryCount;
+    }
+
+    /**
+     * The serialized size of an object.
+     *
+     * @param serializer serializes the object into a buffer
+     * @param buf        scratch buffer to serialize the object into
+     */
+    private static int getSerializedSize(Consumer<ByteBuf> serializer, ByteBuf buf) {
+        buf.clear();
+        serializer.accept(buf);
+        return buf.readableBytes();
     }
 
     /** Append a checkpoint END record to this object's stream.
@@ -294,8 +494,155 @@ public class CheckpointWriter<T extends StreamingMap> {
         CheckpointEntry cp = new CheckpointEntry(CheckpointEntry.CheckpointEntryType.END,
                 author, checkpointId, streamId, mdkv, null);
 
-        endAddress = nonCachedAppend(cp, checkpointStreamID);
+        endAddress = nonCachedAppend(cp, 1);
+        releaseTokens();
 
         postAppendFunc.accept(cp, endAddress);
     }
+
+    /**
+     * Find the checkpoint a delta checkpoint at a snapshot can be based on, that is the
+     * last checkpoint completed in the checkpoint stream before the snapshot.
+     *
+     * @param snapshot snapshot of the new checkpoint
+     * @return the base checkpoint, or empty if a full checkpoint must be written
+     */
+    private Optional<DeltaBase> findDeltaBase(Token snapshot) {
+        if (maxDeltaCheckpoints <= 0) {
+            return Optional.empty();
+        }
+
+        try {
+            StreamAddressSpace cpAddresses = rt.getSequencerView().getStreamAddressSpace(
+                    new StreamAddressRange(checkpointStreamID, snapshot.getSequence(), Address.NON_ADDRESS));
+            if (cpAddresses == null) {
+                // This stream has never been checkpointed
+                return Optional.empty();
+            }
+            long trimMark = rt.getAddressSpaceView().getTrimMark().getSequence();
+
+            // Scan the checkpoint stream backwards, the END record of the last
+            // checkpoint is usually only preceded by the holes of a token lease
+            LongIterator addresses = cpAddresses.getAddressMap().getReverseLongIterator();
+            while (addresses.hasNext()) {
+                ILogData data = rt.getAddressSpaceView().read(addresses.next(), deltaReadOptions);
+                if (!data.hasCheckpointMetadata()) {
+                    continue;
+                }
+
+                CheckpointEntry cp = (CheckpointEntry) data.getPayload(rt);
+                if (cp.getCpType() != CheckpointEntry.CheckpointEntryType.END) {
+                    continue;
+                }
+
+                Map<CheckpointEntry.CheckpointDictKey, String> dict = cp.getDict();
+                String chainStart = dict.get(CheckpointEntry.CheckpointDictKey.CHAIN_START_ADDRESS);
+                String baseSnapshot = dict.get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS);
+                int deltaCount = Integer.parseInt(
+                        dict.getOrDefault(CheckpointEntry.CheckpointDictKey.DELTA_COUNT, "0"));
+                if (chainStart == null || baseSnapshot == null
+                        || Long.parseLong(baseSnapshot) >= snapshot.getSequence()) {
+                    // Checkpoints written by older versions or at a higher snapshot can't be a base
+                    return Optional.empty();
+                }
+
+                if (deltaCount >= maxDeltaCheckpoints || Long.parseLong(chainStart) < trimMark) {
+                    log.debug("findDeltaBase[{}]: chain of checkpoint {} is too long ({}) or trimmed",
+                            streamId, cp.getCheckpointId(), deltaCount);
+                    return Optional.empty();
+                }
+
+                return Optional.of(new DeltaBase(cp.getCheckpointId(), Long.parseLong(baseSnapshot),
+                        Long.parseLong(chainStart), deltaCount));
+            }
+        } catch (TrimmedException te) {
+            log.debug("findDeltaBase[{}]: checkpoint stream trimmed", streamId, te);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Collect the keys of this object modified after the base checkpoint and up to the
+     * snapshot, by reading the updates of the stream in between.
+     *
+     * @param base     the base checkpoint
+     * @param snapshot snapshot of the new checkpoint
+     * @return the modified keys, or empty if a full checkpoint must be written (i.e.,
+     *         the map was cleared, too many keys were modified or the updates were trimmed)
+     */
+    private Optional<Set<Object>> getModifiedKeys(DeltaBase base, Token snapshot) {
+        StreamAddressSpace updates = rt.getSequencerView().getStreamAddressSpace(
+                new StreamAddressRange(streamId, snapshot.getSequence(), base.getSnapshot()));
+        if (updates == null || updates.getTrimMark() > base.getSnapshot()) {
+            return Optional.empty();
+        }
+
+        // A delta checkpoint larger than half of the map doesn't save much
+        final int maxModifiedKeys = map.size() / 2;
+        final int readBatchSize = rt.getParameters().getCheckpointReadBatchSize();
+        Set<Object> modifiedKeys = new HashSet<>();
+
+        try {
+            List<Long> batch = new ArrayList<>(readBatchSize);
+            Iterator<Long> addresses = updates.getAddressMap().iterator();
+            while (addresses.hasNext()) {
+                batch.add(addresses.next());
+                if (batch.size() < readBatchSize && addresses.hasNext()) {
+                    continue;
+                }
+
+                for (ILogData data : rt.getAddressSpaceView().read(batch, deltaReadOptions).values()) {
+                    if (data.isHole() || !(data.getPayload(rt) instanceof ISMRConsumable)) {
+                        continue;
+                    }
+
+                    for (SMREntry update : ((ISMRConsumable) data.getPayload(rt)).getSMRUpdates(streamId)) {
+                        if (!addModifiedKeys(update, modifiedKeys) || modifiedKeys.size() > maxModifiedKeys) {
+                            return Optional.empty();
+                        }
+                    }
+                }
+                batch.clear();
+            }
+        } catch (TrimmedException te) {
+            log.debug("getModifiedKeys[{}]: updates since {} trimmed", streamId, base.getSnapshot(), te);
+            return Optional.empty();
+        }
+
+        return Optional.of(modifiedKeys);
+    }
+
+    /**
+     * Add the keys modified by an update of the map.
+     *
+     * @return false if the keys modified by the update aren't known
+     */
+    private static boolean addModifiedKeys(SMREntry update, Set<Object> modifiedKeys) {
+        if (update.getSMRMethod() == null) {
+            return false;
+        }
+
+        switch (update.getSMRMethod()) {
+            case "put":
+            case "remove":
+                modifiedKeys.add(update.getSMRArguments()[0]);
+                return true;
+            case "putAll":
+                modifiedKeys.addAll(((Map<?, ?>) update.getSMRArguments()[0]).keySet());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** The checkpoint a delta checkpoint is chained to.
+     */
+    @Value
+    private static class DeltaBase {
+        UUID checkpointId;
+        long snapshot;
+        long chainStartAddress;
+        int deltaCount;
+    }
 }
@@ -60,6 +60,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
@@ -118,6 +119,40 @@ public class CorfuRuntime {
          */
         @Default
         Duration fastLoaderTimeout = Duration.ofMinutes(30);
+
+        /**
+         * The maximum number of past versions of entries kept by each object for snapshot reads.
+         *
+         * <p>If non-zero, objects made of entries (such as a {@link
+         * org.corfudb.runtime.collections.CorfuTable}) keep the past values of the entries
+         * updated since they were synced, in per-key version chains that are pruned at the
+         * trim mark. A snapshot transaction behind the current version of such an object reads
+         * the entries of the keys it accesses from the chains, instead of rolling back the
+         * object shared with the other transactions. Objects with a monotonic version policy
+         * are always rolled forward.
+         */
+        @Default
+        int maxSnapshotVersions = 0;
+
+        /**
+         * Whether the SMR entries of objects are serialized with the id of their SMR method
+         * instead of its name.
+         *
+         * <p>Method ids are given by the id field of the mutator annotations, methods without an
+         * id are always serialized with their names. Entries serialized with names are always
+         * readable.
+         */
+        @Default
+        boolean compactSMREntries = false;
+
+        /**
+         * The parallelism of the ForkJoin pool that runs the scan and filter queries
+         * of CorfuStore tables, the splits of a table are filtered concurrently.
+         *
+         * <p>If zero, scans are run by the default stream of the table.
+         */
+        @Default
+        int scanParallelism = 0;
         // endregion
 
         // region Address Space Parameters
@@ -213,6 +248,27 @@ public class CorfuRuntime {
         @Default
         int checkpointRetries = 5;
 
+        /**
+         * The number of maps the {@link MultiCheckpointWriter} checkpoints concurrently.
+         */
+        @Default
+        int checkpointThreads = 4;
+
+        /**
+         * The approximate serialized size of the map entries in a checkpoint CONTINUATION record
+         * written by the {@link MultiCheckpointWriter}, it should be well below the max write size.
+         */
+        @Default
+        int checkpointBatchBytes = 1024 * 1024;
+
+        /**
+         * The max number of delta checkpoints the {@link MultiCheckpointWriter} chains to a full
+         * checkpoint of a map. A delta checkpoint only contains the keys modified since the previous
+         * checkpoint. If zero, only full checkpoints are written.
+         */
+        @Default
+        int maxDeltaCheckpoints = 0;
+
         /**
          * Stream Batch Size: number of addresses to fetch in advance when stream address discovery mechanism
          * relies on address maps instead of follow backpointers, i.e., followBackpointersEnabled = false;
@@ -580,6 +636,12 @@ public class CorfuRuntime {
             .setNameFormat("CorfuRuntime-%d")
             .build());
 
+    /**
+     * The pool that runs the parallel scans of tables, or null if parallel scans are disabled.
+     */
+    @Getter
+    private final ForkJoinPool scanPool;
+
     /**
      * Latest layout seen by the runtime.
      */
@@ -686,6 +748,9 @@ public class CorfuRuntime {
         // Initializing the node router pool.
         nodeRouterPool = new NodeRouterPool(getRouterFunction);
 
+        scanPool = parameters.getScanParallelism() > 0
+                ? new ForkJoinPool(parameters.getScanParallelism()) : null;
+
         // Try to expose metrics via Dropwizard CsvReporter JmxReporter and Slf4jReporter.
         MetricsUtils.metricsReportingSetup(defaultMetrics);
         if (parameters.getPrometheusMetricsPort() != MetricsUtils.NO_METRICS_PORT) {
@@ -743,6 +808,9 @@ public class CorfuRuntime {
         isShutdown = true;
         garbageCollector.stop();
         runtimeExecutor.shutdownNow();
+        if (scanPool != null) {
+            scanPool.shutdownNow();
+        }
         if (layout != null) {
             try {
                 layout.cancel(true);
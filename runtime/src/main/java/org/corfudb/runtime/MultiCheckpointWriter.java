@@ -2,6 +2,7 @@ package org.corfudb.runtime;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.Token;
@@ -9,6 +10,7 @@ import org.corfudb.runtime.collections.StreamingMap;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.object.CorfuCompileProxy;
 import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.util.CFUtils;
 import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.serializer.ISerializer;
@@ -17,9 +19,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Checkpoint multiple SMRMaps serially as a prerequisite for a later log trim.
+ * Checkpoint multiple SMRMaps concurrently as a prerequisite for a later log trim.
  */
 @Slf4j
 public class MultiCheckpointWriter<T extends StreamingMap> {
@@ -32,6 +38,9 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
             "append-several-checkpoints";
     private final Timer appendCheckpointsTimer = metricRegistry.timer(MULTI_CHECKPOINT_TIMER_NAME);
 
+    // Max number of tokens leased at once to append the checkpoint records of a map
+    private static final int MAX_TOKEN_LEASE_SIZE = 64;
+
     /** Add a map to the list of maps to be checkpointed by this class. */
     @SuppressWarnings("unchecked")
     public void addMap(T map) {
@@ -49,56 +58,53 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
     /** Checkpoint multiple SMRMaps. Since this method is Map specific
      *  then the keys are unique and the order doesn't matter.
      *
+     *  <p>All the maps are snapshot at a single NO_OP entry written to all their streams,
+     *  and up to checkpointThreads maps are checkpointed concurrently.</p>
+     *
+     *  <p>If delta checkpoints are enabled, the returned token is lowered so that
+     *  trimming the log at it keeps the full checkpoints the delta checkpoints are chained to.</p>
+     *
      * @param rt CorfuRuntime
      * @param author Author's name, stored in checkpoint metadata
      * @return Global log address of the first record of
      */
     public Token appendCheckpoints(CorfuRuntime rt, String author) {
-        int numRetries = rt.getParameters().getCheckpointRetries();
-        int retry = 0;
         log.info("appendCheckpoints: appending checkpoints for {} maps", maps.size());
 
         Token minSnapshot = Token.UNINITIALIZED;
+        long numEntries = 0;
+        long numBytes = 0;
 
         final long cpStart = System.currentTimeMillis();
+        final int numThreads = Math.max(Math.min(rt.getParameters().getCheckpointThreads(), maps.size()), 1);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("MultiCheckpointWriter-%d").setDaemon(true).build());
         try (Timer.Context context = MetricsUtils.getConditionalContext(appendCheckpointsTimer)) {
-            for (ICorfuSMR<T> map : maps) {
-                UUID streamId = map.getCorfuStreamID();
-
-                CheckpointWriter<T> cpw = new CheckpointWriter(rt, streamId, author, (T) map);
-                ISerializer serializer = ((CorfuCompileProxy) map.getCorfuSMRProxy())
-                                .getSerializer();
-                cpw.setSerializer(serializer);
-
-                Token minCPSnapshot = Token.UNINITIALIZED;
-                while (retry < numRetries) {
-                    try {
-                        minCPSnapshot = cpw.appendCheckpoint();
-                        break;
-                    } catch (WrongEpochException wee) {
-                        log.info("Epoch changed to {} during append checkpoint snapshot resolution. Sequencer" +
-                                " failover can lead to potential epoch regression, retry {}/{}", wee.getCorrectEpoch(),
-                                retry, numRetries);
-                        retry++;
-                        if (retry == numRetries) {
-                            String msg = String.format("Epochs changed during checkpoint cycle, " +
-                                    "over more than %s times. Potential sequencer regressions can lead to data loss. " +
-                                    "Aborting.", numRetries);
-                            throw new IllegalStateException(msg);
-                        }
-                    }
+            if (!maps.isEmpty()) {
+                UUID[] streamIds = maps.stream().map(ICorfuSMR::getCorfuStreamID).toArray(UUID[]::new);
+                final Token snapshot = CheckpointWriter.forceNoOpEntry(rt, streamIds);
+                final AtomicInteger retries = new AtomicInteger();
+
+                List<CompletableFuture<CheckpointWriter<T>>> checkpoints = new ArrayList<>();
+                for (ICorfuSMR<T> map : maps) {
+                    checkpoints.add(CompletableFuture.supplyAsync(() ->
+                            appendCheckpoint(rt, author, map, snapshot, retries), executor));
                 }
 
-                if (minSnapshot == Token.UNINITIALIZED) {
-                    minSnapshot = minCPSnapshot;
-                } else if (minCPSnapshot.compareTo(minSnapshot) < 0) {
-                    // Given that the snapshot returned by appendCheckpoint is a global snapshot that shouldn't regress.
-                    String msg = String.format("Potential epoch regression. Subsequent checkpoint returned a greater" +
-                            "snapshot {} than previous {}.", minCPSnapshot, minSnapshot);
-                    throw new IllegalStateException(msg);
+                minSnapshot = snapshot;
+                for (CompletableFuture<CheckpointWriter<T>> checkpoint : checkpoints) {
+                    CheckpointWriter<T> cpw = CFUtils.getUninterruptibly(checkpoint);
+                    numEntries += cpw.getEntryCount();
+                    numBytes += cpw.getNumBytes();
+                    // Delta checkpoints need the checkpoints they are chained to, so the
+                    // log can't be trimmed past the first record of the chain
+                    if (cpw.getChainStartAddress() <= minSnapshot.getSequence()) {
+                        minSnapshot = new Token(minSnapshot.getEpoch(), cpw.getChainStartAddress() - 1);
+                    }
                 }
             }
         } finally {
+            executor.shutdownNow();
             // TODO(Maithem): print cp id?
             log.trace("appendCheckpoints: finished, author '{}' at min globalAddress {}",
                     author, minSnapshot);
@@ -106,9 +112,59 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
         }
         final long cpStop = System.currentTimeMillis();
 
-        log.info("appendCheckpoints: took {} ms to append {} checkpoints", cpStop - cpStart,
-                maps.size());
+        log.info("appendCheckpoints: took {} ms to append {} checkpoints, entries({}), cpSize({}) bytes",
+                cpStop - cpStart, maps.size(), numEntries, numBytes);
         return minSnapshot;
     }
 
+    /**
+     * Checkpoint a single map at the snapshot of the checkpoint cycle, on epoch change the
+     * map is checkpointed at a snapshot of its own.
+     *
+     * @param retries number of retries of the checkpoint cycle so far
+     * @return the checkpoint writer of the map
+     */
+    private CheckpointWriter<T> appendCheckpoint(CorfuRuntime rt, String author, ICorfuSMR<T> map,
+                                                 Token snapshot, AtomicInteger retries) {
+        int numRetries = rt.getParameters().getCheckpointRetries();
+        UUID streamId = map.getCorfuStreamID();
+
+        CheckpointWriter<T> cpw = new CheckpointWriter(rt, streamId, author, (T) map);
+        ISerializer serializer = ((CorfuCompileProxy) map.getCorfuSMRProxy())
+                        .getSerializer();
+        cpw.setSerializer(serializer);
+        cpw.setBatchBytes(rt.getParameters().getCheckpointBatchBytes());
+        cpw.setMaxTokenLeaseSize(MAX_TOKEN_LEASE_SIZE);
+        cpw.setMaxDeltaCheckpoints(rt.getParameters().getMaxDeltaCheckpoints());
+
+        Token cpSnapshot = snapshot;
+        while (true) {
+            try {
+                Token minCPSnapshot = cpSnapshot == null ? cpw.appendCheckpoint()
+                        : cpw.appendCheckpoint(cpSnapshot, cpSnapshot.getSequence());
+
+                if (minCPSnapshot.compareTo(snapshot) < 0) {
+                    // Given that the snapshot returned by appendCheckpoint is a global snapshot that shouldn't regress.
+                    String msg = String.format("Potential epoch regression. Checkpoint of %s returned a smaller " +
+                            "snapshot %s than the checkpoint cycle %s.", streamId, minCPSnapshot, snapshot);
+                    throw new IllegalStateException(msg);
+                }
+                return cpw;
+            } catch (WrongEpochException wee) {
+                int retry = retries.getAndIncrement();
+                log.info("Epoch changed to {} during append checkpoint snapshot resolution. Sequencer" +
+                                " failover can lead to potential epoch regression, retry {}/{}", wee.getCorrectEpoch(),
+                        retry, numRetries);
+                if (retry + 1 >= numRetries) {
+                    String msg = String.format("Epochs changed during checkpoint cycle, " +
+                            "over more than %s times. Potential sequencer regressions can lead to data loss. " +
+                            "Aborting.", numRetries);
+                    throw new IllegalStateException(msg);
+                }
+                // The snapshot of the checkpoint cycle belongs to a previous epoch
+                cpSnapshot = null;
+            }
+        }
+    }
+
 }
@@ -24,6 +24,9 @@ import org.corfudb.protocols.wireprotocol.MultipleReadRequest;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
 import org.corfudb.protocols.wireprotocol.ReadRequest;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
+import org.corfudb.protocols.wireprotocol.StreamAddressRange;
+import org.corfudb.protocols.wireprotocol.StreamReadRequest;
+import org.corfudb.protocols.wireprotocol.StreamReadResponse;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsRequest;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
@@ -187,6 +190,31 @@ public class LogUnitClient extends AbstractClient {
         });
     }
 
+    /**
+     * Read the updates of a stream in a range of addresses. The log unit resolves
+     * the addresses of the stream, and entries that span multiple streams only
+     * contain the updates of this stream.
+     *
+     * <p>The updates are returned a page at a time, from the lowest address of the range.
+     * If the response isn't complete, the rest of the range is read by sending a request
+     * for (response.getResumeAddress(), start].</p>
+     *
+     * @param range      the stream and its range of addresses, i.e. (end, start]
+     * @param maxEntries the maximum number of entries of the response
+     * @param cacheable  Whether the read results should be cached on log unit server.
+     * @return a completableFuture which returns a StreamReadResponse on completion.
+     */
+    public CompletableFuture<StreamReadResponse> readStream(StreamAddressRange range, int maxEntries,
+                                                            boolean cacheable) {
+        Timer.Context context = getTimerContext("readStream");
+        CompletableFuture<StreamReadResponse> cf = sendMessageWithFuture(CorfuMsgType.STREAM_READ_REQUEST
+                .payloadMsg(new StreamReadRequest(range, maxEntries, cacheable)));
+        return cf.thenApply(x -> {
+            context.stop();
+            return x;
+        });
+    }
+
     /**
      * Get the global tail maximum address the log unit has written.
      *
@@ -12,6 +12,7 @@ import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.KnownAddressResponse;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
+import org.corfudb.protocols.wireprotocol.StreamReadResponse;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.runtime.exceptions.DataCorruptionException;
 import org.corfudb.runtime.exceptions.DataOutrankedException;
@@ -171,6 +172,19 @@ public class LogUnitHandler implements IClient, IHandler<LogUnitClient> {
         return msg.getPayload();
     }
 
+    /**
+     * Handle a STREAM_READ_RESPONSE message.
+     *
+     * @param msg Incoming Message
+     * @param ctx Context
+     * @param r   Router
+     */
+    @ClientHandler(type = CorfuMsgType.STREAM_READ_RESPONSE)
+    private static Object handleStreamReadResponse(CorfuPayloadMsg<StreamReadResponse> msg,
+                                                   ChannelHandlerContext ctx, IClientRouter r) {
+        return msg.getPayload();
+    }
+
     /**
      * Handle a ERROR_DATA_CORRUPTION message.
      *
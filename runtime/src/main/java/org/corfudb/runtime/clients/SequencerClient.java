@@ -1,5 +1,6 @@
 package org.corfudb.runtime.clients;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -12,6 +13,7 @@ import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
+import org.corfudb.protocols.wireprotocol.StreamTailWaitRequest;
 import org.corfudb.protocols.wireprotocol.TokenRequest;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
@@ -59,6 +61,20 @@ public class SequencerClient extends AbstractClient {
                 new StreamsAddressRequest(streamsAddressesRange)));
     }
 
+    /**
+     * Waits until the tail of a stream is past an address.
+     *
+     * @param streamId stream to wait on.
+     * @param address  address the stream tail has to be past of.
+     * @param timeout  maximum time the sequencer waits before responding.
+     * @return A completable future with the stream tail, which is not past the address
+     * if the wait timed out.
+     */
+    public CompletableFuture<Long> waitForStreamTail(UUID streamId, long address, Duration timeout) {
+        return sendMessageWithFuture(CorfuMsgType.STREAM_TAIL_WAIT_REQUEST.payloadMsg(
+                new StreamTailWaitRequest(streamId, address, timeout.toMillis())));
+    }
+
     /**
      * Fetches the next available token from the sequencer.
      *
@@ -56,4 +56,10 @@ public class SequencerHandler implements IClient, IHandler<SequencerClient> {
                                               ChannelHandlerContext ctx, IClientRouter r) {
         return msg.getPayload();
     }
+
+    @ClientHandler(type = CorfuMsgType.STREAM_TAIL_WAIT_RESPONSE)
+    private static Object handleStreamTailWaitResponse(CorfuPayloadMsg<Long> msg,
+                                                       ChannelHandlerContext ctx, IClientRouter r) {
+        return msg.getPayload();
+    }
 }
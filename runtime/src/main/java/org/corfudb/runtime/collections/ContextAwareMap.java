@@ -1,15 +1,18 @@
 package org.corfudb.runtime.collections;
 
 import org.corfudb.runtime.object.ICorfuExecutionContext;
+import org.corfudb.runtime.object.IPersistedState;
+import org.corfudb.runtime.view.Address;
 
 /**
  * A flavour of {@link StreamingMap} that is {@link ICorfuExecutionContext} aware
- * and {@link AutoCloseable}.
+ * and {@link AutoCloseable}. Maps whose data survives restarts implement
+ * {@link IPersistedState}, which is a no-op by default.
  *
  * @param <K> key type
  * @param <V> value type
  */
-public interface ContextAwareMap<K, V> extends StreamingMap<K, V>, AutoCloseable {
+public interface ContextAwareMap<K, V> extends StreamingMap<K, V>, IPersistedState, AutoCloseable {
 
     /**
      * Return an optional implementation of the {@link StreamingMap} that
@@ -24,6 +27,35 @@ public interface ContextAwareMap<K, V> extends StreamingMap<K, V>, AutoCloseable
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default long getPersistedVersion() {
+        return Address.NON_ADDRESS;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void startBatch() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void commitBatch(long version) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void discardPersistedState() {
+    }
+
     /**
      * Relinquish any resources associated with this object.
      */
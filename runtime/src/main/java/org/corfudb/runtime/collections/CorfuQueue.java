@@ -6,15 +6,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.object.transactions.TransactionType;
 import org.corfudb.runtime.object.transactions.TransactionalContext;
+import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.CorfuGuidGenerator;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Supplier;
 
@@ -29,6 +34,10 @@ import java.util.function.Supplier;
  * Entries cannot be modified in-place (or will lose ordering) but can be removed from anywhere
  * from the persisted queue.
  *
+ * <p>Consumers that only want the entries enqueued since their last read can use
+ * <b>poll()</b> and <b>peek()</b> instead, which follow the commit order of the entries from
+ * a persisted per-consumer cursor, and <b>acknowledge()</b> to remove consumed entries.</p>
+ *
  * Created by hisundar on 5/8/19.
  *
  * @param <E>   Type of the entry to be enqueued into the persisted queue
@@ -39,6 +48,17 @@ public class CorfuQueue<E> {
      * The main CorfuTable which contains the primary key-value mappings.
      */
     private final CorfuTable<Long, E> corfuTable;
+
+    /**
+     * The commit order of the entries of the queue, by entry id. The entries are
+     * sorted by commit order in the BY_COMMIT_ORDER index.
+     */
+    private final CorfuTable<Long, CommitOrder> commitOrders;
+
+    /**
+     * The commit order of the last entry consumed by each consumer.
+     */
+    private final CorfuTable<String, UUID> cursors;
     private final CorfuRuntime runtime;
     private final CorfuGuidGenerator guidGenerator;
 
@@ -53,6 +73,15 @@ public class CorfuQueue<E> {
                 .setArguments(indices, mapSupplier)
                 .setSerializer(serializer)
                 .open();
+        commitOrders = runtime.getObjectsView().build()
+                .setTypeToken(new TypeToken<CorfuTable<Long, CommitOrder>>() {})
+                .setStreamName(streamName + COMMIT_ORDERS_SUFFIX)
+                .setArguments(new CommitOrderIndexer())
+                .open();
+        cursors = runtime.getObjectsView().build()
+                .setTypeToken(new TypeToken<CorfuTable<String, UUID>>() {})
+                .setStreamName(streamName + CURSORS_SUFFIX)
+                .open();
         guidGenerator = CorfuGuidGenerator.getInstance(runtime);
     }
 
@@ -150,7 +179,19 @@ public class CorfuQueue<E> {
      */
     public CorfuRecordId enqueue(E e) {
         final Long id = guidGenerator.nextLong();
-        corfuTable.put(id, e);
+        final CommitOrder commitOrder = new CommitOrder();
+        final boolean startedNewTransaction = beginTransaction();
+        try {
+            corfuTable.put(id, e);
+            commitOrders.insert(id, commitOrder);
+            // The commit order is only serialized once the address of the commit is known
+            TransactionalContext.getCurrentContext().addCommitTokenListener(
+                    token -> commitOrder.address = token.getSequence());
+        } catch (RuntimeException ex) {
+            abortTransaction(startedNewTransaction);
+            throw ex;
+        }
+        endTransaction(startedNewTransaction);
         return new CorfuRecordId(0, id);
     }
 
@@ -199,6 +240,53 @@ public class CorfuQueue<E> {
     final private static int MAX_BITS_FOR_INDEX = 24;
     final private static int MAX_INDEX_ENTRIES = (1<<MAX_BITS_FOR_INDEX) - 1;
 
+    final private static String CURSORS_SUFFIX = "$cursors";
+    final private static String COMMIT_ORDERS_SUFFIX = "$commitOrders";
+
+    /**
+     * The address of the log entry that enqueued an entry, which is only known once the
+     * enqueue commits. It is set from the commit token before the log entry is written,
+     * so the address of a commit order read from the log is always known.
+     */
+    static class CommitOrder {
+        private long address = Address.NON_ADDRESS;
+    }
+
+    /**
+     * Indexes committed entries by their commit order: the address of the log entry that
+     * enqueued them, then their id. The entries enqueued by one transaction are ordered by
+     * their ids, which follow the enqueue order on a best-effort basis.
+     */
+    private static class CommitOrderIndexer implements Index.Registry<Long, CommitOrder> {
+        private static final Index.Name BY_COMMIT_ORDER = () -> "BY_COMMIT_ORDER";
+
+        // Entries enqueued by a transaction that didn't commit yet have no commit order
+        private static final Index.Spec<Long, CommitOrder, UUID> BY_COMMIT_ORDER_INDEX =
+                new Index.Spec<>(BY_COMMIT_ORDER,
+                        (Index.MultiValueFunction<Long, CommitOrder, UUID>) (id, order) ->
+                                Address.isAddress(order.address)
+                                        ? Collections.singletonList(new UUID(order.address, id))
+                                        : Collections.emptyList(),
+                        true);
+
+        @Override
+        public Iterator<Index.Spec<Long, CommitOrder, ? extends Comparable<?>>> iterator() {
+            return Collections.<Index.Spec<Long, CommitOrder, ? extends Comparable<?>>>
+                    singletonList(BY_COMMIT_ORDER_INDEX).iterator();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <I extends Comparable<?>> Optional<Index.Spec<Long, CommitOrder, I>> get(
+                Index.Name name) {
+            if (name != null && BY_COMMIT_ORDER.get().equals(name.get())) {
+                return Optional.of((Index.Spec<Long, CommitOrder, I>) (Index.Spec<?, ?, ?>)
+                        BY_COMMIT_ORDER_INDEX);
+            }
+            return Optional.empty();
+        }
+    }
+
     /**
      * Returns a List of CorfuQueueRecords sorted by the order in which the enqueue materialized.
      * This is the primary method of consumption of entries enqueued into CorfuQueue.
@@ -284,6 +372,158 @@ public class CorfuQueue<E> {
         return this.entryList(MAX_INDEX_ENTRIES);
     }
 
+    /**
+     * Returns up to maxEntries entries of the queue that were committed after the cursor of
+     * a consumer, in commit order, without moving the cursor.
+     *
+     * <p>Unlike entryList(), the entries are paged from the cursor over an index of the
+     * queue sorted by commit order, so the cost is proportional to the entries returned
+     * rather than to the size of the queue. An entry is ordered by the address of the log
+     * entry that enqueued it and its ID:
+     *     +----------------------------------------------------------------------------+
+     *     |            Log address             |      ID of the entry in the map       |
+     *     +----------------------------------------------------------------------------+
+     *     <------------- 8 bytes --------------><--------------- 8 bytes --------------->
+     * which is the order in which the enqueue operations were committed, also for enqueue
+     * operations of transactions. The commit order is part of the state of the queue, so it
+     * is kept by checkpoints and isn't affected by trimming the log.
+     * </p>
+     *
+     * @param consumer   name of the consumer
+     * @param maxEntries limit the number of entries returned
+     * @throws IllegalArgumentException if maxEntries is not positive.
+     * @return List of Entries sorted by their commit order
+     */
+    public List<CorfuQueueRecord<E>> peek(String consumer, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("peek given non-positive maxEntries");
+        }
+        // Read the cursor and the entries from the same snapshot
+        final boolean startedNewTransaction = beginTransaction();
+        final List<CorfuQueueRecord<E>> records;
+        try {
+            records = readAfter(cursors.get(consumer), maxEntries);
+        } catch (RuntimeException e) {
+            abortTransaction(startedNewTransaction);
+            throw e;
+        }
+        endTransaction(startedNewTransaction);
+        return records;
+    }
+
+    /**
+     * Returns up to maxEntries entries of the queue that were committed after the cursor of
+     * a consumer, in commit order, and moves the cursor past them. The entries are not removed
+     * from the queue, see acknowledge().
+     *
+     * @param consumer   name of the consumer
+     * @param maxEntries limit the number of entries returned
+     * @throws IllegalArgumentException if maxEntries is not positive.
+     * @return List of Entries sorted by their commit order
+     */
+    public List<CorfuQueueRecord<E>> poll(String consumer, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("poll given non-positive maxEntries");
+        }
+        final boolean startedNewTransaction = beginTransaction();
+        final List<CorfuQueueRecord<E>> records;
+        try {
+            records = readAfter(cursors.get(consumer), maxEntries);
+            if (!records.isEmpty()) {
+                cursors.put(consumer, records.get(records.size() - 1).getRecordId().id);
+            }
+        } catch (RuntimeException e) {
+            abortTransaction(startedNewTransaction);
+            throw e;
+        }
+        endTransaction(startedNewTransaction);
+        return records;
+    }
+
+    /**
+     * Moves the cursor of a consumer back to the head of the queue, so that the entries
+     * which are still in the queue, i.e. that were not acknowledged, are polled again.
+     *
+     * @param consumer name of the consumer
+     */
+    public void resetCursor(String consumer) {
+        cursors.remove(consumer);
+    }
+
+    /**
+     * Removes a batch of entries from the queue, i.e. the entries that have been processed
+     * by a consumer. The entries are removed atomically, within the current transaction if
+     * there is one.
+     *
+     * @param recordIds the IDs of the entries to remove
+     */
+    public void acknowledge(Collection<CorfuRecordId> recordIds) {
+        if (recordIds.isEmpty()) {
+            return;
+        }
+        final boolean startedNewTransaction = beginTransaction();
+        try {
+            for (CorfuRecordId recordId : recordIds) {
+                corfuTable.delete(recordId.getEntryId());
+                commitOrders.delete(recordId.getEntryId());
+            }
+        } catch (RuntimeException e) {
+            abortTransaction(startedNewTransaction);
+            throw e;
+        }
+        endTransaction(startedNewTransaction);
+    }
+
+    /**
+     * Returns up to maxEntries committed entries whose commit order is after a cursor.
+     *
+     * @param cursor     the commit order of the last consumed entry, or null to read
+     *                   from the head of the queue
+     * @param maxEntries limit the number of entries returned
+     * @return List of Entries sorted by their commit order
+     */
+    private List<CorfuQueueRecord<E>> readAfter(UUID cursor, int maxEntries) {
+        List<Map.Entry<Long, CommitOrder>> page = commitOrders.getByIndexRange(
+                CommitOrderIndexer.BY_COMMIT_ORDER, cursor, false, null, false, false, maxEntries);
+        List<CorfuQueueRecord<E>> records = new ArrayList<>(page.size());
+        for (Map.Entry<Long, CommitOrder> entry : page) {
+            long entryId = entry.getKey();
+            E value = corfuTable.get(entryId);
+            if (value != null) {
+                records.add(new CorfuQueueRecord<>(entry.getValue().address, entryId, value));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Begins a transaction if the caller isn't in one, so that the updates of a queue
+     * operation are atomic.
+     *
+     * @return true if a new transaction was started
+     */
+    private boolean beginTransaction() {
+        if (TransactionalContext.isInTransaction()) {
+            return false;
+        }
+        runtime.getObjectsView().TXBuild().type(TransactionType.WRITE_AFTER_WRITE)
+                .build()
+                .begin();
+        return true;
+    }
+
+    private void endTransaction(boolean startedNewTransaction) {
+        if (startedNewTransaction) {
+            runtime.getObjectsView().TXEnd();
+        }
+    }
+
+    private void abortTransaction(boolean startedNewTransaction) {
+        if (startedNewTransaction) {
+            runtime.getObjectsView().TXAbort();
+        }
+    }
+
     public boolean isEmpty() {
         return corfuTable.isEmpty();
     }
@@ -307,14 +547,32 @@ public class CorfuQueue<E> {
      * @return The entry that was successfully removed or null if there was no mapping.
      */
     public E removeEntry(CorfuRecordId entryId) {
-        return corfuTable.remove(entryId.id.getLeastSignificantBits());
+        final boolean startedNewTransaction = beginTransaction();
+        final E entry;
+        try {
+            entry = corfuTable.remove(entryId.id.getLeastSignificantBits());
+            commitOrders.delete(entryId.id.getLeastSignificantBits());
+        } catch (RuntimeException e) {
+            abortTransaction(startedNewTransaction);
+            throw e;
+        }
+        endTransaction(startedNewTransaction);
+        return entry;
     }
 
     /**
      * Remove all entries from the Queue.
      */
     public void clear() {
-        corfuTable.clear();
+        final boolean startedNewTransaction = beginTransaction();
+        try {
+            corfuTable.clear();
+            commitOrders.clear();
+        } catch (RuntimeException e) {
+            abortTransaction(startedNewTransaction);
+            throw e;
+        }
+        endTransaction(startedNewTransaction);
     }
 
     public int hashCode() {
@@ -73,6 +73,11 @@ public class CorfuStreamEntry<K extends Message, V extends Message, M extends Me
 
         long address = entry.getGlobalAddress();
 
+        if (entry.getSMRMethod() == null) {
+            throw new IllegalStateException("Unresolved SMR method #" + entry.getSMRMethodId()
+                    + " at address " + address);
+        }
+
         OperationType operationType = (entry.getSMRMethod().equals("put")) ? OperationType.UPDATE : OperationType.DELETE;
         // TODO[sneginhal]: Need a way to differentiate between update and create.
         Object[] args = entry.getSMRArguments();
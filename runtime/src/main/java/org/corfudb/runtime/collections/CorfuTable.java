@@ -4,16 +4,22 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -38,6 +44,9 @@ import org.corfudb.runtime.object.ICorfuSMR;
 import org.corfudb.util.ImmutableListSetWrapper;
 import org.corfudb.runtime.object.ICorfuExecutionContext;
 import org.corfudb.runtime.object.ICorfuVersionPolicy;
+import org.corfudb.runtime.object.IPersistedState;
+import org.corfudb.runtime.object.IVersionedEntries;
+import org.corfudb.runtime.view.Address;
 
 /** The CorfuTable implements a simple key-value store.
  *
@@ -59,7 +68,8 @@ import org.corfudb.runtime.object.ICorfuVersionPolicy;
 @Slf4j
 @CorfuObject
 public class CorfuTable<K ,V> implements
-        ICorfuTable<K, V>, ICorfuSMR<CorfuTable<K, V>> {
+        ICorfuTable<K, V>, ICorfuSMR<CorfuTable<K, V>>, IPersistedState,
+        IVersionedEntries<CorfuTable<K, V>> {
 
     // The "main" map which contains the primary key-value mappings.
     private final ContextAwareMap<K,V> mainMap;
@@ -68,6 +78,11 @@ public class CorfuTable<K ,V> implements
     private final CorfuTable<K, V> optimisticTable;
     private final VersionPolicy versionPolicy;
 
+    // The order of the index keys of a sorted index, null keys first like unbounded ranges.
+    @SuppressWarnings("unchecked")
+    private static final Comparator<Comparable> SORTED_INDEX_ORDER =
+            Comparator.nullsFirst((Comparable a, Comparable b) -> a.compareTo(b));
+
     public CorfuTable(ContextAwareMap<K,V> mainMap,
                       Set<Index.Spec<K, V, ? extends Comparable>> indexSpec,
                       Map<String, Map<Comparable, Map<K, V>>> secondaryIndexe,
@@ -96,10 +111,18 @@ public class CorfuTable<K ,V> implements
                 this.secondaryIndexes, null);
 
         indices.forEach(index -> {
-            secondaryIndexes.put(index.getName().get(), new HashMap<>());
+            secondaryIndexes.put(index.getName().get(),
+                    index.isSorted() ? new TreeMap<>(SORTED_INDEX_ORDER) : new HashMap<>());
             indexSpec.add(index);
         });
 
+        // A durable map is resumed with the entries it persisted, which have to be indexed
+        if (!secondaryIndexes.isEmpty() && Address.isAddress(mainMap.getPersistedVersion())) {
+            try (Stream<Entry<K, V>> entries = mainMap.entryStream()) {
+                entries.forEach(entry -> mapSecondaryIndexes(entry.getKey(), entry.getValue()));
+            }
+        }
+
         log.info("CorfuTable: creating CorfuTable with the following indexes: {}",
                 secondaryIndexes.keySet());
     }
@@ -265,9 +288,117 @@ public class CorfuTable<K ,V> implements
         throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not defined.");
     }
 
+    /**
+     * Get the sorted secondary index with the specified name.
+     *
+     * @param indexName Name of the sorted secondary index.
+     * @return The secondary index.
+     */
+    @DontInstrument
+    @SuppressWarnings("unchecked")
+    private NavigableMap<Comparable, Map<K, V>> getSortedIndex(@Nonnull Index.Name indexName) {
+        String secondaryIndex = indexName.get();
+        Map<Comparable, Map<K, V>> secondaryMap = secondaryIndexes.get(secondaryIndex);
+        if (secondaryMap == null) {
+            log.error("CorfuTable: secondary index " + secondaryIndex + " does not exist for this table, cannot complete the range query.");
+            throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not defined.");
+        }
+        if (!(secondaryMap instanceof NavigableMap)) {
+            throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not sorted.");
+        }
+        return (NavigableMap<Comparable, Map<K, V>>) secondaryMap;
+    }
+
+    /**
+     * Collects the entries of the slots of a sorted index, at most limit entries.
+     */
+    @DontInstrument
+    private List<Entry<K, V>> collectSlots(@Nonnull Collection<Map<K, V>> slots, int limit) {
+        List<Entry<K, V>> result = new ArrayList<>();
+        for (Map<K, V> slot : slots) {
+            for (Entry<K, V> entry : slot.entrySet()) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                result.add(new SimpleImmutableEntry<>(entry));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the mappings whose index key is within a range, ordered by index key.
+     * The index must be sorted (see {@link Index.Spec#isSorted()}).
+     * Entries with a null index key are ordered first, within a range not bounded below.
+     *
+     * @param indexName     Name of the the sorted secondary index to query.
+     * @param fromKey       Low end of the range, or null if the range is not bounded below.
+     * @param fromInclusive True if the low end is included in the range.
+     * @param toKey         High end of the range, or null if the range is not bounded above.
+     * @param toInclusive   True if the high end is included in the range.
+     * @param descending    True to return the entries in descending order of index key.
+     * @param limit         Maximum number of entries to return.
+     * @return A list of Map.Entry<K, V>
+     */
+    @Accessor
+    @SuppressWarnings("unchecked")
+    public @Nonnull
+    <I extends Comparable<I>>
+    List<Entry<K, V>> getByIndexRange(@Nonnull Index.Name indexName,
+                                      I fromKey, boolean fromInclusive,
+                                      I toKey, boolean toInclusive,
+                                      boolean descending, int limit) {
+        NavigableMap<Comparable, Map<K, V>> range = getSortedIndex(indexName);
+        if (fromKey != null && toKey != null) {
+            range = range.subMap(fromKey, fromInclusive, toKey, toInclusive);
+        } else if (fromKey != null) {
+            range = range.tailMap(fromKey, fromInclusive);
+        } else if (toKey != null) {
+            range = range.headMap(toKey, toInclusive);
+        }
+        if (descending) {
+            range = range.descendingMap();
+        }
+        return collectSlots(range.values(), limit);
+    }
+
+    /**
+     * Get the mappings whose string index key starts with a prefix, ordered by index key.
+     * The index must be sorted (see {@link Index.Spec#isSorted()}) and keyed by strings.
+     *
+     * @param indexName Name of the the sorted secondary index to query.
+     * @param prefix    Prefix of the index keys.
+     * @param limit     Maximum number of entries to return.
+     * @return A list of Map.Entry<K, V>
+     */
+    @Accessor
+    @SuppressWarnings("unchecked")
+    public @Nonnull
+    List<Entry<K, V>> getByIndexPrefix(@Nonnull Index.Name indexName,
+                                       @Nonnull String prefix,
+                                       int limit) {
+        NavigableMap<Comparable, Map<K, V>> sortedIndex = getSortedIndex(indexName);
+        // The keys are mutually comparable, so the first non-null key has the type of all of them
+        Comparable firstKey = sortedIndex.higherKey(null);
+        if (firstKey != null && !(firstKey instanceof String)) {
+            throw new IllegalArgumentException("Secondary Index " + indexName.get()
+                    + " is not keyed by strings.");
+        }
+
+        List<Map<K, V>> slots = new ArrayList<>();
+        for (Entry<Comparable, Map<K, V>> slot : sortedIndex.tailMap(prefix, true).entrySet()) {
+            if (!((String) slot.getKey()).startsWith(prefix)) {
+                break;
+            }
+            slots.add(slot.getValue());
+        }
+        return collectSlots(slots, limit);
+    }
+
     /** {@inheritDoc} */
     @Override
-    @MutatorAccessor(name = "put", undoFunction = "undoPut", undoRecordFunction = "undoPutRecord")
+    @MutatorAccessor(name = "put", id = 0, undoFunction = "undoPut",
+            undoRecordFunction = "undoPutRecord")
     public V put(@ConflictParameter K key, V value) {
         V previous = mainMap.put(key, value);
         // If we have index functions, update the secondary indexes.
@@ -373,9 +504,71 @@ public class CorfuTable<K ,V> implements
                 .collect(Collectors.toCollection(ArrayList::new));
     }
 
+    /**
+     * Runs a scan over a parallel stream of the entries of this table in a pool, so that
+     * the splits of the table are filtered and projected concurrently by the workers of the pool.
+     * The calling thread waits for the scan, so the table can't change while it runs.
+     *
+     * @param pool the pool that runs the scan
+     * @param scan the function that consumes the stream of entries
+     * @param <R>  the type of the result
+     * @return the result of the scan
+     */
+    @DontInstrument
+    private <R> R parallelScan(@Nonnull ForkJoinPool pool,
+                               @Nonnull Function<Stream<Entry<K, V>>, R> scan) {
+        try (Stream<Entry<K, V>> entries = mainMap.parallelEntryStream()) {
+            return pool.invoke(ForkJoinTask.adapt(() -> scan.apply(entries)));
+        }
+    }
+
+    /**
+     * Returns a filtered {@link List} view of the values contained in this map,
+     * the predicate is evaluated concurrently by the workers of the pool.
+     *
+     * @param valuePredicate java predicate (function to evaluate)
+     * @param pool           the pool that runs the scan
+     * @return a view of the values contained in this map meeting the predicate condition.
+     */
+    @Accessor
+    public List<V> scanAndFilter(Predicate<? super V> valuePredicate, @Nonnull ForkJoinPool pool) {
+        return parallelScan(pool, entries -> entries
+                .map(Entry::getValue).filter(valuePredicate)
+                .collect(Collectors.toCollection(ArrayList::new)));
+    }
+
+    /**
+     * Returns the entries of this map meeting the predicate condition,
+     * the predicate is evaluated concurrently by the workers of the pool.
+     *
+     * @param entryPredicate java predicate (function to evaluate)
+     * @param pool           the pool that runs the scan
+     * @return the entries meeting the predicate condition.
+     */
+    @Accessor
+    public Collection<Map.Entry<K, V>> scanAndFilterByEntry(
+            Predicate<? super Map.Entry<K, V>> entryPredicate, @Nonnull ForkJoinPool pool) {
+        return parallelScan(pool, entries -> entries
+                .filter(entryPredicate)
+                .collect(Collectors.toCollection(ArrayList::new)));
+    }
+
+    /**
+     * Counts the entries of this map meeting the predicate condition,
+     * the predicate is evaluated concurrently by the workers of the pool.
+     *
+     * @param entryPredicate java predicate (function to evaluate)
+     * @param pool           the pool that runs the scan
+     * @return the number of entries meeting the predicate condition.
+     */
+    @Accessor
+    public long countByEntry(Predicate<? super Map.Entry<K, V>> entryPredicate, @Nonnull ForkJoinPool pool) {
+        return parallelScan(pool, entries -> entries.filter(entryPredicate).count());
+    }
+
     /** {@inheritDoc} */
     @Override
-    @MutatorAccessor(name = "remove", undoFunction = "undoRemove",
+    @MutatorAccessor(name = "remove", id = 1, undoFunction = "undoRemove",
             undoRecordFunction = "undoRemoveRecord")
     @SuppressWarnings("unchecked")
     public V remove(@ConflictParameter Object key) {
@@ -414,7 +607,7 @@ public class CorfuTable<K ,V> implements
 
     /** {@inheritDoc} */
     @Override
-    @Mutator(name = "putAll",
+    @Mutator(name = "putAll", id = 2,
             undoFunction = "undoPutAll",
             undoRecordFunction = "undoPutAllRecord",
             conflictParameterFunction = "putAllConflictFunction")
@@ -436,7 +629,7 @@ public class CorfuTable<K ,V> implements
 
     /** {@inheritDoc} */
     @Override
-    @Mutator(name = "clear", reset = true)
+    @Mutator(name = "clear", id = 3, reset = true)
     public void clear() {
         mainMap.clear();
         secondaryIndexes.values().forEach(Map::clear);
@@ -637,6 +830,10 @@ public class CorfuTable<K ,V> implements
                     Map<K, V> slot = secondaryIndex.get(indexKey);
                     if (slot != null) {
                         slot.remove(key, value);
+                        // Sorted indexes are scanned, so don't leave empty slots behind
+                        if (slot.isEmpty()) {
+                            secondaryIndex.remove(indexKey);
+                        }
                     }
                 }
             }
@@ -728,6 +925,88 @@ public class CorfuTable<K ,V> implements
         this.mainMap.close();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @DontInstrument
+    @Override
+    public long getPersistedVersion() {
+        return mainMap.getPersistedVersion();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @DontInstrument
+    @Override
+    public void startBatch() {
+        mainMap.startBatch();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @DontInstrument
+    @Override
+    public void commitBatch(long version) {
+        mainMap.commitBatch(version);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @DontInstrument
+    @Override
+    public void discardPersistedState() {
+        mainMap.discardPersistedState();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @DontInstrument
+    @Override
+    public Object[] getUpdatedKeys(String smrMethod, Object[] arguments) {
+        switch (smrMethod) {
+            case "put":
+            case "remove":
+                return new Object[]{arguments[0]};
+            case "putAll":
+                return ((Map<?, ?>) arguments[0]).keySet().toArray();
+            default:
+                // A clear modifies every entry
+                return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @DontInstrument
+    @Override
+    public Object getEntryValue(Object key) {
+        return mainMap.get(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned table has no secondary indexes.
+     */
+    @DontInstrument
+    @Override
+    @SuppressWarnings("unchecked")
+    public CorfuTable<K, V> fromEntries(Map<Object, Object> entries) {
+        Map<K, V> map = new HashMap<>();
+        entries.forEach((key, value) -> {
+            if (value != null) {
+                map.put((K) key, (V) value);
+            }
+        });
+        return new CorfuTable<K, V>(new StreamingMapDecorator<>(map), Collections.emptySet(),
+                Collections.emptyMap(), null);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -71,7 +71,8 @@ public interface ISMRMap<K, V> extends StreamingMap<K, V> {
      * <p>Conflicts: this operation produces a conflict with any other
      * operation on the given key.
      */
-    @MutatorAccessor(name = "put", undoFunction = "undoPut", undoRecordFunction = "undoPutRecord")
+    @MutatorAccessor(name = "put", id = 0, undoFunction = "undoPut",
+            undoRecordFunction = "undoPutRecord")
     @Override
     V put(@ConflictParameter K key, V value);
 
@@ -132,7 +133,7 @@ public interface ISMRMap<K, V> extends StreamingMap<K, V> {
      * <p>Conflicts: this operation produces a conflict with any other
      * operation on the given key.
      */
-    @MutatorAccessor(name = "remove", undoFunction = "undoRemove",
+    @MutatorAccessor(name = "remove", id = 1, undoFunction = "undoRemove",
             undoRecordFunction = "undoRemoveRecord")
     @Override
     V remove(@ConflictParameter Object key);
@@ -168,7 +169,7 @@ public interface ISMRMap<K, V> extends StreamingMap<K, V> {
      *
      * <p>Conflicts: this operation conflicts on any keys that are in the map given.
      */
-    @Mutator(name = "putAll", undoFunction = "undoPutAll",
+    @Mutator(name = "putAll", id = 2, undoFunction = "undoPutAll",
             undoRecordFunction = "undoPutAllRecord",
             conflictParameterFunction = "putAllConflictFunction")
     @Override
@@ -231,7 +232,7 @@ public interface ISMRMap<K, V> extends StreamingMap<K, V> {
      * <p>Conflicts: this operation conflicts with the entire map, since it drops
      * all mappings which are present.
      */
-    @Mutator(name = "clear", reset = true)
+    @Mutator(name = "clear", id = 3, reset = true)
     @Override
     void clear();
 
@@ -40,6 +40,11 @@ public class Index {
      * secondary index value, or a multi indexer {@link Function}
      * mapping a value to multiple secondary index values.
      *
+     * <p>A sorted index keeps its index values in their natural order, and supports range,
+     * prefix and ordered limit queries in addition to exact-match lookups. The index values
+     * of a sorted index must be mutually comparable, a null index value is ordered before all
+     * the others.</p>
+     *
      * @param <K> type of the record key associated with {@code IndexKey}.
      * @param <V> type of the record value associated with {@code IndexKey}.
      * @param <I> type of the index value computed using the {@code IndexKey}.
@@ -47,16 +52,27 @@ public class Index {
     public static class Spec<K, V, I extends Comparable<?>> {
         private final Name name;
         private final MultiValueFunction<K, V, I> indexFunction;
+        private final boolean sorted;
 
         public Spec(Name name, Function<K, V, I> indexFunction) {
+            this(name, indexFunction, false);
+        }
+
+        public Spec(Name name, Function<K, V, I> indexFunction, boolean sorted) {
             this.name = name;
             this.indexFunction =
                     (k, v) -> Collections.singletonList(indexFunction.apply(k, v));
+            this.sorted = sorted;
         }
 
         public Spec(Name name, MultiValueFunction<K, V, I> indexFunction) {
+            this(name, indexFunction, false);
+        }
+
+        public Spec(Name name, MultiValueFunction<K, V, I> indexFunction, boolean sorted) {
             this.name = name;
             this.indexFunction = indexFunction;
+            this.sorted = sorted;
         }
 
         public Name getName() {
@@ -67,6 +83,10 @@ public class Index {
             return indexFunction;
         }
 
+        public boolean isSorted() {
+            return sorted;
+        }
+
 
         @Override
         public boolean equals(Object o) {
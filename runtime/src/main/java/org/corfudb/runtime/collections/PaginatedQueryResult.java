@@ -0,0 +1,36 @@
+package org.corfudb.runtime.collections;
+
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import org.corfudb.runtime.CorfuStoreMetadata.QueryCursor;
+
+/**
+ * A page of the result of a paginated query, with the cursor to query the next page.
+ */
+@EqualsAndHashCode(callSuper = true)
+public class PaginatedQueryResult<E> extends QueryResult<E> {
+
+    /**
+     * The cursor of the next page, or null if this is the last page.
+     */
+    @Getter
+    @Nullable
+    private final QueryCursor cursor;
+
+    public PaginatedQueryResult(Collection<E> result, @Nullable QueryCursor cursor) {
+        super(result);
+        this.cursor = cursor;
+    }
+
+    /**
+     * Whether there are more pages after this one.
+     */
+    public boolean hasMore() {
+        return cursor != null;
+    }
+}
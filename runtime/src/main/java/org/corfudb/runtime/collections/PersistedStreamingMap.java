@@ -1,35 +1,56 @@
 package org.corfudb.runtime.collections;
 
-import com.google.common.collect.Streams;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
+import org.corfudb.runtime.view.Address;
 import org.corfudb.util.serializer.ISerializer;
+import org.rocksdb.DBOptions;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Snapshot;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteBatchWithIndex;
+import org.rocksdb.WriteOptions;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
-import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A concrete implementation of {@link StreamingMap} that is capable of storing data
  * off-heap. The location for the off-heap data is provided by {@link File} dataPath,
  * while the resource policy (memory and storage limits) are defined in {@link Options}.
  *
+ * <p>A {@link Persistence#DURABLE} map keeps its data when it is re-opened. The version
+ * (i.e. the log address) the data reflects and the size of the map are stored along with the
+ * data, and updated atomically with it, so that the map is only synced with the log entries
+ * committed after that version. A {@link Persistence#NON_DURABLE} map doesn't keep any
+ * metadata nor batch its updates, since its data doesn't outlive it.</p>
+ *
+ * <p>Iteration reads from a RocksDB snapshot, so it doesn't block (nor is it affected by)
+ * concurrent updates. Keys and values are only deserialized when they are accessed.</p>
+ *
  * @param <K> key type
  * @param <V> value type
  */
@@ -40,54 +61,170 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
         RocksDB.loadLibrary();
     }
 
+    /**
+     * What happens to the data of the map when it is opened.
+     */
+    public enum Persistence {
+        /**
+         * The data is destroyed, the map is rebuilt from the log.
+         */
+        NON_DURABLE,
+
+        /**
+         * The data is kept, the map is synced from the version it reflects.
+         */
+        DURABLE
+    }
+
+    // The metadata (version and size) is stored under the empty key, which a serialized
+    // key never is
+    private static final byte[] METADATA_KEY = new byte[0];
+
+    private static final int METADATA_SIZE = Long.BYTES * 2;
+
+    // The smallest key that isn't the metadata key
+    private static final byte[] FIRST_DATA_KEY = new byte[]{0};
+
     private final ContextAwareMap<K, V> optimisticMap = new StreamingMapDecorator<>();
-    private final AtomicInteger dataSetSize = new AtomicInteger();
     private final CorfuRuntime corfuRuntime;
     private final ISerializer serializer;
+    private final Persistence persistence;
+    private final String path;
+    private final ReadOptions readOptions = new ReadOptions();
+    private final WriteOptions writeOptions = new WriteOptions();
+    private final DBOptions batchOptions = new DBOptions();
     private final RocksDB rocksDb;
 
+    // The size and the version are only modified by the thread that syncs the map
+    private volatile int dataSetSize;
+    private long version;
+
+    // The version of the data when the map was opened
+    private final long persistedVersion;
+
+    // The updates that have not been committed yet, and the thread that applies them
+    private WriteBatchWithIndex batch;
+    private Thread batchOwner;
+
     public PersistedStreamingMap(@NonNull Path dataPath,
                                  @NonNull Options options,
                                  @NonNull ISerializer serializer,
                                  @NonNull CorfuRuntime corfuRuntime) {
+        this(dataPath, options, serializer, corfuRuntime, Persistence.NON_DURABLE);
+    }
+
+    public PersistedStreamingMap(@NonNull Path dataPath,
+                                 @NonNull Options options,
+                                 @NonNull ISerializer serializer,
+                                 @NonNull CorfuRuntime corfuRuntime,
+                                 @NonNull Persistence persistence) {
+        this.path = dataPath.toFile().getAbsolutePath();
+        this.serializer = serializer;
+        this.corfuRuntime = corfuRuntime;
+        this.persistence = persistence;
+
         try {
-            RocksDB.destroyDB(dataPath.toFile().getAbsolutePath(), options);
-            this.rocksDb = RocksDB.open(options, dataPath.toFile().getAbsolutePath());
+            if (persistence == Persistence.NON_DURABLE) {
+                RocksDB.destroyDB(path, options);
+            }
+            RocksDB db = RocksDB.open(options, path);
+
+            byte[] metadata = db.get(METADATA_KEY);
+            if (metadata == null) {
+                if (persistence == Persistence.DURABLE) {
+                    // Data without metadata can't be trusted (i.e. left by a non-durable map)
+                    db.close();
+                    RocksDB.destroyDB(path, options);
+                    db = RocksDB.open(options, path);
+                }
+                version = Address.NON_ADDRESS;
+                dataSetSize = 0;
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(metadata);
+                version = buffer.getLong();
+                dataSetSize = (int) buffer.getLong();
+            }
+            this.rocksDb = db;
         } catch (RocksDBException e) {
             throw new UnrecoverableCorfuError(e);
         }
-        this.serializer = serializer;
-        this.corfuRuntime = corfuRuntime;
+
+        this.persistedVersion = version;
+        log.info("PersistedStreamingMap: opened {} map at {} with {} entries, version {}",
+                persistence, path, dataSetSize, version);
     }
 
     /**
-     * A Java compatible {@link RocksIterator} implementation
+     * An entry whose key and value are deserialized when they are first accessed.
      */
-    public class RocksDbIterator implements Iterator<Entry<K, V>> {
-        private RocksIterator iterator;
-        private Entry<K, V> current;
-        private Entry<K, V> next;
+    private class LazyEntry implements Entry<K, V> {
+        private final byte[] keyBytes;
+        private final byte[] valueBytes;
+        private K key;
+        private V value;
+
+        LazyEntry(byte[] keyBytes, byte[] valueBytes) {
+            this.keyBytes = keyBytes;
+            this.valueBytes = valueBytes;
+        }
 
-        RocksDbIterator(RocksIterator iterator) {
-            this.iterator = iterator;
+        @Override
+        public K getKey() {
+            if (key == null) {
+                key = deserialize(keyBytes);
+            }
+            return key;
         }
 
-        /**
-         * Ensure that this iterator is operating under the correct assumptions.
-         */
-        private void checkInvariants() {
-            // RocksDB does not support multi-threaded access.
-            // If the iterator was created by some thread, it also has to be consumed by it.
-            if (!iterator.isOwningHandle()) {
-                throw new IllegalStateException("Detected multi-threaded access to this iterator.");
+        @Override
+        public V getValue() {
+            if (value == null) {
+                value = deserialize(valueBytes);
             }
+            return value;
+        }
 
-            try {
-                iterator.status();
-            } catch (RocksDBException e) {
-                throw new UnrecoverableCorfuError(
-                        "There was an error reading the persisted map.", e);
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
             }
+            Entry<?, ?> other = (Entry<?, ?>) o;
+            return Objects.equals(getKey(), other.getKey())
+                    && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * A Java compatible {@link RocksIterator} implementation, that reads from a snapshot
+     * and releases it once it is exhausted or closed.
+     */
+    public class RocksDbIterator implements Iterator<Entry<K, V>>, AutoCloseable {
+        private final Snapshot snapshot;
+        private final ReadOptions snapshotOptions;
+        private final RocksIterator iterator;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        RocksDbIterator() {
+            this.snapshot = rocksDb.getSnapshot();
+            this.snapshotOptions = new ReadOptions().setSnapshot(snapshot);
+            this.iterator = rocksDb.newIterator(snapshotOptions);
+            iterator.seekToFirst();
         }
 
         /**
@@ -95,26 +232,29 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
          */
         @Override
         public boolean hasNext() {
-            // If we have the next element pipelined, go ahead and return true.
-            if (next != null) {
-                return true;
+            if (released.get()) {
+                return false;
+            }
+
+            try {
+                iterator.status();
+            } catch (RocksDBException e) {
+                close();
+                throw new UnrecoverableCorfuError(
+                        "There was an error reading the persisted map.", e);
             }
 
-            // If the iterator is valid, this means that the next entry exists.
-            checkInvariants();
-            if (iterator.isValid()) {
-                // Go ahead and cache that entry.
-                next = new AbstractMap.SimpleEntry(
-                        serializer.deserialize(Unpooled.wrappedBuffer(iterator.key()), corfuRuntime),
-                        serializer.deserialize(Unpooled.wrappedBuffer(iterator.value()), corfuRuntime));
-                // Advance the underlying iterator.
+            if (iterator.isValid() && iterator.key().length == 0) {
+                // Skip the metadata
                 iterator.next();
-            } else {
-                // If there is no more elements to consume, we should release the resources.
-                iterator.close();
             }
 
-            return next != null;
+            if (!iterator.isValid()) {
+                // If there is no more elements to consume, we should release the resources.
+                close();
+                return false;
+            }
+            return true;
         }
 
         /**
@@ -122,14 +262,163 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
          */
         @Override
         public Entry<K, V> next() {
-            if (hasNext()) {
-                current = next;
-                next = null;
-                return current;
-            } else {
+            if (!hasNext()) {
                 throw new NoSuchElementException();
             }
+            Entry<K, V> entry = new LazyEntry(iterator.key(), iterator.value());
+            iterator.next();
+            return entry;
+        }
+
+        /**
+         * Release the snapshot, which is also done once the iterator is exhausted.
+         */
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                iterator.close();
+                rocksDb.releaseSnapshot(snapshot);
+                snapshotOptions.close();
+            }
+        }
+    }
+
+    private byte[] serialize(Object object) {
+        final ByteBuf payload = Unpooled.buffer();
+        try {
+            serializer.serialize(object, payload);
+            byte[] bytes = new byte[payload.readableBytes()];
+            payload.readBytes(bytes);
+            return bytes;
+        } finally {
+            payload.release();
+        }
+    }
+
+    private <T> T deserialize(byte[] bytes) {
+        return (T) serializer.deserialize(Unpooled.wrappedBuffer(bytes), corfuRuntime);
+    }
 
+    private byte[] getMetadata() {
+        return ByteBuffer.allocate(METADATA_SIZE)
+                .putLong(version)
+                .putLong(dataSetSize)
+                .array();
+    }
+
+    /**
+     * Read a serialized value, including the updates of the current batch if it
+     * belongs to this thread.
+     */
+    private byte[] read(byte[] key) throws RocksDBException {
+        if (batchOwner == Thread.currentThread()) {
+            return batch.getFromBatchAndDB(rocksDb, readOptions, key);
+        }
+        return rocksDb.get(readOptions, key);
+    }
+
+    /**
+     * Whether a key may have a value. The database rules out most of the keys it doesn't
+     * have without reading them (i.e. with its bloom filters), the keys updated by the
+     * current batch are looked up in the batch.
+     */
+    private boolean mayExist(byte[] key, boolean batched) throws RocksDBException {
+        return rocksDb.keyMayExist(key, 0, key.length, new StringBuilder())
+                || (batched && batch.getFromBatch(batchOptions, key) != null);
+    }
+
+    /**
+     * Write (or delete, if the value is null) a serialized value, either to the current
+     * batch or along with the metadata if there is no batch.
+     *
+     * <p>The size of the map is kept exact, so a write has to know whether its key has a
+     * value. A put only reads the key if it may exist, which is the case of the updates of
+     * existing keys. A put of a new key usually doesn't read the database.</p>
+     *
+     * @return the previous serialized value of a delete, null for a put of a new key
+     */
+    private byte[] write(byte[] key, @Nullable byte[] value) {
+        if (persistence == Persistence.NON_DURABLE) {
+            return writeNonDurable(key, value);
+        }
+
+        final boolean batched = batchOwner == Thread.currentThread();
+        final WriteBatchWithIndex writeBatch = batched ? batch : new WriteBatchWithIndex(true);
+        try {
+            byte[] previous = value == null || mayExist(key, batched) ? read(key) : null;
+            if (value != null) {
+                writeBatch.put(key, value);
+                if (previous == null) {
+                    dataSetSize++;
+                }
+            } else if (previous != null) {
+                writeBatch.delete(key);
+                dataSetSize--;
+            }
+
+            if (!batched) {
+                writeBatch.put(METADATA_KEY, getMetadata());
+                rocksDb.write(writeOptions, writeBatch);
+            }
+            return previous;
+        } catch (RocksDBException ex) {
+            throw new UnrecoverableCorfuError(ex);
+        } finally {
+            if (!batched) {
+                writeBatch.close();
+            }
+        }
+    }
+
+    /**
+     * Write (or delete, if the value is null) a serialized value of a non-durable map,
+     * directly to the database. A put only reads the key if it may exist, to keep the size.
+     *
+     * @return the previous serialized value of a delete, null for a put
+     */
+    private byte[] writeNonDurable(byte[] key, @Nullable byte[] value) {
+        try {
+            if (value != null) {
+                if (!rocksDb.keyMayExist(key, 0, key.length, new StringBuilder())
+                        || rocksDb.get(readOptions, key) == null) {
+                    dataSetSize++;
+                }
+                rocksDb.put(writeOptions, key, value);
+                return null;
+            }
+
+            byte[] previous = rocksDb.get(readOptions, key);
+            if (previous != null) {
+                rocksDb.delete(writeOptions, key);
+                dataSetSize--;
+            }
+            return previous;
+        } catch (RocksDBException ex) {
+            throw new UnrecoverableCorfuError(ex);
+        }
+    }
+
+    /**
+     * Delete all the entries with a range deletion, rather than one deletion per entry,
+     * along with the metadata of a durable map.
+     */
+    private void deleteAll() throws RocksDBException {
+        try (RocksIterator iterator = rocksDb.newIterator(readOptions);
+             WriteBatch writeBatch = new WriteBatch()) {
+            iterator.seekToLast();
+            iterator.status();
+            if (iterator.isValid() && iterator.key().length > 0) {
+                // The end of the range is exclusive
+                byte[] lastKey = iterator.key();
+                writeBatch.deleteRange(FIRST_DATA_KEY, lastKey);
+                writeBatch.delete(lastKey);
+            }
+
+            dataSetSize = 0;
+            if (persistence == Persistence.DURABLE) {
+                writeBatch.put(METADATA_KEY, getMetadata());
+            }
+            rocksDb.write(writeOptions, writeBatch);
         }
     }
 
@@ -138,7 +427,7 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
      */
     @Override
     public int size() {
-        return dataSetSize.get();
+        return dataSetSize;
     }
 
     /**
@@ -146,7 +435,7 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
      */
     @Override
     public boolean isEmpty() {
-        return dataSetSize.get() == 0;
+        return dataSetSize == 0;
     }
 
     /**
@@ -154,16 +443,10 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
      */
     @Override
     public boolean containsKey(@NonNull Object key) {
-        final ByteBuf keyPayload = Unpooled.buffer();
-        serializer.serialize(key, keyPayload);
         try {
-            byte[] value = rocksDb.get(
-                    keyPayload.array(), keyPayload.arrayOffset(), keyPayload.readableBytes());
-            return value != null;
+            return read(serialize(key)) != null;
         } catch (RocksDBException ex) {
             throw new UnrecoverableCorfuError(ex);
-        } finally {
-            keyPayload.release();
         }
     }
 
@@ -182,20 +465,11 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
      */
     @Override
     public V get(@NonNull Object key) {
-        final ByteBuf keyPayload = Unpooled.buffer();
-        serializer.serialize(key, keyPayload);
-
         try {
-            byte[] value = rocksDb.get(
-                    keyPayload.array(), keyPayload.arrayOffset(), keyPayload.readableBytes());
-            if (value == null) {
-                return null;
-            }
-            return (V) serializer.deserialize(Unpooled.wrappedBuffer(value), corfuRuntime);
+            byte[] value = read(serialize(key));
+            return value == null ? null : deserialize(value);
         } catch (RocksDBException ex) {
             throw new UnrecoverableCorfuError(ex);
-        } finally {
-            keyPayload.release();
         }
     }
 
@@ -204,30 +478,7 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
      */
     @Override
     public V put(@NonNull K key, @NonNull V value) {
-        final ByteBuf keyPayload = Unpooled.buffer();
-        final ByteBuf valuePayload = Unpooled.buffer();
-        serializer.serialize(key, keyPayload);
-        serializer.serialize(value, valuePayload);
-
-        // Only increment the count if the value is not present. In other words,
-        // increment the count if this is an update operation.
-        final boolean keyExists = rocksDb.keyMayExist(keyPayload.array(),
-                keyPayload.arrayOffset(), keyPayload.readableBytes(), new StringBuilder());
-        if (!keyExists) {
-            dataSetSize.incrementAndGet();
-        }
-
-        try {
-            rocksDb.put(
-                    keyPayload.array(), keyPayload.arrayOffset(), keyPayload.readableBytes(),
-                    valuePayload.array(), valuePayload.arrayOffset(), valuePayload.readableBytes());
-        } catch (RocksDBException ex) {
-            throw new UnrecoverableCorfuError(ex);
-        } finally {
-            keyPayload.release();
-            valuePayload.release();
-        }
-
+        write(serialize(key), serialize(value));
         return value;
     }
 
@@ -236,23 +487,8 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
      */
     @Override
     public V remove(@NonNull Object key) {
-        final ByteBuf keyPayload = Unpooled.buffer();
-        serializer.serialize(key, keyPayload);
-        try {
-            V value = get(key);
-            if (value != null) {
-                rocksDb.delete(
-                        keyPayload.array(), keyPayload.arrayOffset(), keyPayload.readableBytes());
-                dataSetSize.decrementAndGet();
-                return value;
-            } else {
-                return null;
-            }
-        } catch (RocksDBException ex) {
-            throw new UnrecoverableCorfuError(ex);
-        } finally {
-            keyPayload.release();
-        }
+        byte[] previous = write(serialize(key), null);
+        return previous == null ? null : deserialize(previous);
     }
 
     /**
@@ -268,8 +504,37 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
      */
     @Override
     public void clear() {
-        entryStream().map(Entry::getKey).forEach(this::remove);
-        dataSetSize.set(0);
+        if (batchOwner != Thread.currentThread()) {
+            try {
+                deleteAll();
+                return;
+            } catch (RocksDBException ex) {
+                throw new UnrecoverableCorfuError(ex);
+            }
+        }
+
+        // A write batch with index doesn't support range deletions. The keys are collected
+        // before they are deleted, since the batch can't be modified while it is iterated.
+        List<byte[]> keys = new ArrayList<>(dataSetSize);
+        try (RocksIterator iterator = batch.newIteratorWithBase(rocksDb.newIterator(readOptions))) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                if (iterator.key().length > 0) {
+                    keys.add(iterator.key());
+                }
+            }
+            iterator.status();
+        } catch (RocksDBException ex) {
+            throw new UnrecoverableCorfuError(ex);
+        }
+
+        try {
+            for (byte[] key : keys) {
+                batch.delete(key);
+            }
+            dataSetSize = 0;
+        } catch (RocksDBException ex) {
+            throw new UnrecoverableCorfuError(ex);
+        }
     }
 
     /**
@@ -308,26 +573,125 @@ public class PersistedStreamingMap<K, V> implements ContextAwareMap<K, V> {
         return optimisticMap;
     }
 
+    private Stream<Entry<K, V>> snapshotStream(boolean parallel) {
+        final RocksDbIterator iterator = new RocksDbIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), parallel)
+                .onClose(iterator::close);
+    }
+
     /**
      * {@inheritDoc}
+     *
+     * The entries are read from a RocksDB snapshot, which is released once the stream
+     * is consumed or closed.
      */
     @Override
     public Stream<Entry<K, V>> entryStream() {
-        final ReadOptions readOptions = new ReadOptions();
-        // If ReadOptions.snapshot is given, the iterator will return data as of the snapshot.
-        // If it is nullptr, the iterator will read from an implicit snapshot as of the time the
-        // iterator is created. The implicit snapshot is preserved by pinning resource.
-        readOptions.setSnapshot(null);
-        final RocksIterator rocksIterator = rocksDb.newIterator(readOptions);
-        rocksIterator.seekToFirst();
-        return Streams.stream(new RocksDbIterator(rocksIterator));
+        return snapshotStream(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The entries are read from a RocksDB snapshot by a single iterator, and handed out
+     * in batches so that they are deserialized and processed concurrently. The snapshot
+     * is released once the stream is consumed or closed.
+     */
+    @Override
+    public Stream<Entry<K, V>> parallelEntryStream() {
+        return snapshotStream(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPersistedVersion() {
+        return persistedVersion;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The updates are written to a RocksDB write batch, which is also read by the
+     * updates of the batch. The updates of a non-durable map are not batched.
+     */
+    @Override
+    public void startBatch() {
+        if (persistence == Persistence.DURABLE && batchOwner == null) {
+            batch = new WriteBatchWithIndex(true);
+            batchOwner = Thread.currentThread();
+        }
     }
 
     /**
-     * Close the underlying database.
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitBatch(long version) {
+        if (persistence == Persistence.NON_DURABLE) {
+            return;
+        }
+
+        final boolean batched = batchOwner == Thread.currentThread();
+        if (!batched && !Address.isAddress(version)) {
+            return;
+        }
+
+        final WriteBatchWithIndex writeBatch = batched ? batch : new WriteBatchWithIndex(true);
+        batchOwner = null;
+        batch = null;
+        try {
+            if (Address.isAddress(version)) {
+                this.version = version;
+            }
+            writeBatch.put(METADATA_KEY, getMetadata());
+            rocksDb.write(writeOptions, writeBatch);
+        } catch (RocksDBException ex) {
+            throw new UnrecoverableCorfuError(ex);
+        } finally {
+            writeBatch.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The updates of an uncommitted batch are discarded as well.
+     */
+    @Override
+    public void discardPersistedState() {
+        if (persistence == Persistence.DURABLE) {
+            log.info("discardPersistedState: discarding {} entries of {} at version {}",
+                    dataSetSize, path, version);
+            if (batch != null) {
+                batch.close();
+                batchOwner = null;
+                batch = null;
+            }
+            version = Address.NON_ADDRESS;
+            try {
+                deleteAll();
+            } catch (RocksDBException ex) {
+                throw new UnrecoverableCorfuError(ex);
+            }
+        }
+    }
+
+    /**
+     * Close the underlying database, the updates of an uncommitted batch are lost.
      */
     @Override
     public void close() {
+        if (batch != null) {
+            batch.close();
+            batchOwner = null;
+            batch = null;
+        }
         this.rocksDb.close();
+        readOptions.close();
+        writeOptions.close();
+        batchOptions.close();
     }
 }
@@ -1,12 +1,16 @@
 package org.corfudb.runtime.collections;
 
+import com.google.common.primitives.UnsignedBytes;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.Message;
 
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import org.corfudb.common.util.ClassUtils;
 import org.corfudb.runtime.CorfuOptions;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Optional;
@@ -17,36 +21,77 @@ import java.util.Optional;
  * protobuf definitions (like secondary_key) and create secondary indexes callbacks over CorfuTable
  * based on that.
  *
+ * Every table also gets a sorted index of its serialized primary keys (see {@link #PRIMARY_KEY_INDEX}),
+ * which lets a paginated query resume from the last key of the previous page.
+ *
  * Created by hisundar on 2019-08-12.
  */
 public class ProtobufIndexer implements Index.Registry<Message, CorfuRecord<Message,
         Message>> {
 
+    /**
+     * Name of the sorted index of the serialized primary keys. Protobuf field names
+     * can't contain a '$', so it can't collide with a secondary key.
+     */
+    static final String PRIMARY_KEY_INDEX = "$primaryKey";
+
     private final HashMap<String,
             Index.Spec<Message, CorfuRecord<Message, Message>, ? extends Comparable<?>>>
             indices = new HashMap<>();
 
     ProtobufIndexer(Message payloadSchema) {
         payloadSchema.getDescriptorForType().getFields().forEach(this::registerIndices);
+        indices.put(PRIMARY_KEY_INDEX, new Index.Spec<>(
+                () -> PRIMARY_KEY_INDEX,
+                (Index.Function<Message, CorfuRecord<Message, Message>, SerializedKey>)
+                        (key, val) -> new SerializedKey(key.toByteArray()),
+                true));
     }
 
     private <T extends Comparable<T>> Index.Spec<Message, CorfuRecord<Message, Message>, ? extends Comparable<?>>
-    getIndex(String indexName, FieldDescriptor fieldDescriptor) {
+    getIndex(String indexName, FieldDescriptor fieldDescriptor, boolean sorted) {
 
         return new Index.Spec<>(
                 () -> indexName,
                 (Index.Function<Message, CorfuRecord<Message, Message>, T>)
-                        (key, val) -> ClassUtils.cast(val.getPayload().getField(fieldDescriptor)));
+                        (key, val) -> ClassUtils.cast(val.getPayload().getField(fieldDescriptor)),
+                sorted);
     }
 
     void registerIndices(final Descriptors.FieldDescriptor fieldDescriptor) {
 
-        if (fieldDescriptor.getOptions().getExtension(CorfuOptions.schema).getSecondaryKey()) {
+        CorfuOptions.SchemaOptions schemaOptions = fieldDescriptor.getOptions().getExtension(CorfuOptions.schema);
+        if (schemaOptions.getSecondaryKey() || schemaOptions.getSortedSecondaryKey()) {
             final String indexName = fieldDescriptor.getName();
             if (fieldDescriptor.getType() == FieldDescriptor.Type.GROUP) {
                 throw new IllegalArgumentException("group is a deprecated, unsupported type");
             }
-            indices.put(indexName, getIndex(indexName, fieldDescriptor));
+            final boolean sorted = schemaOptions.getSortedSecondaryKey();
+            if (sorted && !isSortable(fieldDescriptor)) {
+                throw new IllegalArgumentException("sorted secondary key " + indexName
+                        + " must be a scalar numeric, bool or string field");
+            }
+            indices.put(indexName, getIndex(indexName, fieldDescriptor, sorted));
+        }
+    }
+
+    /**
+     * Only the fields whose values are {@link Comparable} with each other can be sorted.
+     */
+    private boolean isSortable(final FieldDescriptor fieldDescriptor) {
+        if (fieldDescriptor.isRepeated()) {
+            return false;
+        }
+        switch (fieldDescriptor.getJavaType()) {
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+            case BOOLEAN:
+            case STRING:
+                return true;
+            default:
+                return false;
         }
     }
 
@@ -62,4 +107,25 @@ public class ProtobufIndexer implements Index.Registry<Message, CorfuRecord<Mess
         return indices.values().iterator();
 
     }
+
+    /**
+     * The serialized form of a primary key, ordered by its unsigned bytes.
+     */
+    @EqualsAndHashCode
+    static class SerializedKey implements Comparable<SerializedKey> {
+
+        private static final Comparator<byte[]> ORDER = UnsignedBytes.lexicographicalComparator();
+
+        @Getter
+        private final byte[] bytes;
+
+        SerializedKey(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int compareTo(SerializedKey other) {
+            return ORDER.compare(bytes, other.bytes);
+        }
+    }
 }
@@ -2,28 +2,38 @@ package org.corfudb.runtime.collections;
 
 import static org.corfudb.runtime.collections.QueryOptions.DEFAULT_OPTIONS;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.Message;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.corfudb.common.util.ClassUtils;
 import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.CorfuStoreMetadata.QueryCursor;
 import org.corfudb.runtime.CorfuStoreMetadata.Timestamp;
 import org.corfudb.runtime.object.transactions.Transaction.TransactionBuilder;
+import org.corfudb.runtime.object.transactions.TransactionalContext;
 import org.corfudb.runtime.object.transactions.TransactionType;
 import org.corfudb.runtime.view.ObjectsView;
 import org.corfudb.runtime.view.TableRegistry;
@@ -151,6 +161,29 @@ public class Query {
         }
     }
 
+    /**
+     * Gets the count of records in the table meeting a predicate at a particular timestamp.
+     * If the runtime has a scan pool, the predicate is evaluated in parallel.
+     *
+     * @param tableName Table name.
+     * @param timestamp Timestamp to perform the query on. If null, latest timestamp is used.
+     * @param query     Predicate to filter the entries.
+     * @param <K>       Type of Key.
+     * @param <V>       Type of Value.
+     * @return Count of records.
+     */
+    public <K extends Message, V extends Message, M extends Message>
+    long count(@Nonnull final String tableName,
+               @Nullable final Timestamp timestamp,
+               @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> query) {
+        try {
+            txBegin(timestamp);
+            return ((Table<K, V, M>) getTable(tableName)).count(query);
+        } finally {
+            txEnd();
+        }
+    }
+
     /**
      * Returns the keySet of the Table.
      *
@@ -203,6 +236,123 @@ public class Query {
         return new QueryResult<>(((Table<K, V, M>) getTable(tableName)).getByIndex(indexName, indexKey));
     }
 
+    /**
+     * Query by a range of a sorted secondary index, in ascending order of index key.
+     *
+     * @param tableName     Table name.
+     * @param indexName     Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param fromKey       Low end of the range, or null if the range is not bounded below.
+     * @param fromInclusive True if the low end is included in the range.
+     * @param toKey         High end of the range, or null if the range is not bounded above.
+     * @param toInclusive   True if the high end is included in the range.
+     * @param <K>           Type of Key.
+     * @param <V>           Type of Value.
+     * @param <I>           Type of index/secondary key.
+     * @return Result of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message, I extends Comparable<I>>
+    QueryResult<Entry<K, V>> getByIndexRange(@Nonnull final String tableName,
+                                             @Nonnull final String indexName,
+                                             @Nullable final I fromKey,
+                                             final boolean fromInclusive,
+                                             @Nullable final I toKey,
+                                             final boolean toInclusive) {
+        return getByIndexRange(tableName, indexName, fromKey, fromInclusive, toKey, toInclusive,
+                false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Query by a range of a sorted secondary index, ordered by index key.
+     *
+     * @param tableName     Table name.
+     * @param indexName     Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param fromKey       Low end of the range, or null if the range is not bounded below.
+     * @param fromInclusive True if the low end is included in the range.
+     * @param toKey         High end of the range, or null if the range is not bounded above.
+     * @param toInclusive   True if the high end is included in the range.
+     * @param descending    True to return the entries in descending order of index key.
+     * @param limit         Maximum number of entries to return.
+     * @param <K>           Type of Key.
+     * @param <V>           Type of Value.
+     * @param <I>           Type of index/secondary key.
+     * @return Result of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message, I extends Comparable<I>>
+    QueryResult<Entry<K, V>> getByIndexRange(@Nonnull final String tableName,
+                                             @Nonnull final String indexName,
+                                             @Nullable final I fromKey,
+                                             final boolean fromInclusive,
+                                             @Nullable final I toKey,
+                                             final boolean toInclusive,
+                                             final boolean descending,
+                                             final int limit) {
+        return new QueryResult<>(((Table<K, V, M>) getTable(tableName)).getByIndexRange(
+                indexName, fromKey, fromInclusive, toKey, toInclusive, descending, limit));
+    }
+
+    /**
+     * Query the top (or bottom) entries of a sorted secondary index.
+     *
+     * @param tableName  Table name.
+     * @param indexName  Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param limit      Maximum number of entries to return.
+     * @param descending True to return the entries with the highest index keys first.
+     * @param <K>        Type of Key.
+     * @param <V>        Type of Value.
+     * @return Result of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    QueryResult<Entry<K, V>> getByIndexTopK(@Nonnull final String tableName,
+                                            @Nonnull final String indexName,
+                                            final int limit,
+                                            final boolean descending) {
+        // The range is unbounded, so the type of the index key doesn't matter
+        return new QueryResult<>(((Table<K, V, M>) getTable(tableName)).<String>getByIndexRange(
+                indexName, null, true, null, true, descending, limit));
+    }
+
+    /**
+     * Query by a prefix of a sorted string secondary index, in ascending order of index key.
+     *
+     * @param tableName Table name.
+     * @param indexName Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param prefix    Prefix of the index keys.
+     * @param <K>       Type of Key.
+     * @param <V>       Type of Value.
+     * @return Result of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    QueryResult<Entry<K, V>> getByIndexPrefix(@Nonnull final String tableName,
+                                              @Nonnull final String indexName,
+                                              @Nonnull final String prefix) {
+        return getByIndexPrefix(tableName, indexName, prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Query by a prefix of a sorted string secondary index, in ascending order of index key.
+     *
+     * @param tableName Table name.
+     * @param indexName Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param prefix    Prefix of the index keys.
+     * @param limit     Maximum number of entries to return.
+     * @param <K>       Type of Key.
+     * @param <V>       Type of Value.
+     * @return Result of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message>
+    QueryResult<Entry<K, V>> getByIndexPrefix(@Nonnull final String tableName,
+                                              @Nonnull final String indexName,
+                                              @Nonnull final String prefix,
+                                              final int limit) {
+        return new QueryResult<>(((Table<K, V, M>) getTable(tableName)).getByIndexPrefix(
+                indexName, prefix, limit));
+    }
+
     private <K extends Message, V extends Message, M extends Message, R>
     Collection<R> initializeResultCollection(QueryOptions<K, V, M, R> queryOptions) {
         if (!queryOptions.isDistinct()) {
@@ -268,6 +418,105 @@ public class Query {
         return new QueryResult<>(transform(filterResult, result, queryOptions.getProjection()));
     }
 
+    /**
+     * Execute a page of a scan and filter query.
+     *
+     * @param tableName Table name.
+     * @param query     Predicate to filter the values.
+     * @param limit     Maximum number of entries of the page.
+     * @param cursor    Cursor returned with the previous page, or null for the first page.
+     * @param <K>       Type of Key.
+     * @param <V>       Type of Value.
+     * @param <R>       Type of returned projected values.
+     * @return Page of the result of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message, R>
+    PaginatedQueryResult<R> executePaginatedQuery(@Nonnull final String tableName,
+                                                  @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> query,
+                                                  final int limit,
+                                                  @Nullable final QueryCursor cursor) {
+        return executePaginatedQuery(tableName, query, DEFAULT_OPTIONS, limit, cursor);
+    }
+
+    /**
+     * Execute a page of a scan and filter query.
+     * <p>
+     * The entries are returned in the order of their serialized keys, and all the pages
+     * are read at the snapshot of the first page (or at the timestamp of the query options).
+     * A page is read from the primary key index of the table, starting after the last key
+     * scanned by the previous page, and entries are filtered and projected as they are
+     * scanned. So a page costs the entries scanned to fill it, not a scan of the table.
+     * A full page always comes with a cursor, so the last page may be empty.
+     * The distinct and comparator query options only apply within a page.
+     *
+     * @param tableName    Table name.
+     * @param query        Predicate to filter the values.
+     * @param queryOptions Query options.
+     * @param limit        Maximum number of entries of the page.
+     * @param cursor       Cursor returned with the previous page, or null for the first page.
+     * @param <V>          Type of Value.
+     * @param <R>          Type of returned projected values.
+     * @return Page of the result of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message, R>
+    PaginatedQueryResult<R> executePaginatedQuery(@Nonnull final String tableName,
+                                                  @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> query,
+                                                  @Nonnull final QueryOptions<K, V, M, R> queryOptions,
+                                                  final int limit,
+                                                  @Nullable final QueryCursor cursor) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Invalid page size " + limit);
+        }
+        Timestamp timestamp = cursor == null ? queryOptions.getTimestamp() : cursor.getTimestamp();
+        Function<CorfuStoreEntry<K, V, M>, R> projection = queryOptions.getProjection();
+        Collection<R> result = initializeResultCollection(queryOptions);
+
+        byte[] lastKey = cursor == null ? null : cursor.getLastKey().toByteArray();
+        boolean hasNext = false;
+        Token snapshot;
+        try {
+            txBegin(timestamp);
+            snapshot = TransactionalContext.getCurrentContext().getSnapshotTimestamp();
+            Table<K, V, M> table = getTable(tableName);
+
+            // Scan from the cursor in batches of the page size, until the page is full
+            int matches = 0;
+            while (matches < limit) {
+                List<CorfuStoreEntry<K, V, M>> batch = table.getAfterKey(lastKey, limit);
+                int scanned = 0;
+                while (scanned < batch.size() && matches < limit) {
+                    CorfuStoreEntry<K, V, M> entry = batch.get(scanned++);
+                    lastKey = entry.getKey().toByteArray();
+                    if (query.test(entry)) {
+                        result.add(projection == null ? (R) entry : projection.apply(entry));
+                        matches++;
+                    }
+                }
+                // A batch that is smaller than requested is the end of the table
+                hasNext = scanned < batch.size() || batch.size() == limit;
+                if (!hasNext) {
+                    break;
+                }
+            }
+        } finally {
+            txEnd();
+        }
+
+        QueryCursor nextCursor = null;
+        if (hasNext) {
+            nextCursor = QueryCursor.newBuilder()
+                    .setTimestamp(Timestamp.newBuilder()
+                            .setEpoch(snapshot.getEpoch())
+                            .setSequence(snapshot.getSequence())
+                            .build())
+                    .setLastKey(ByteString.copyFrom(lastKey))
+                    .build();
+        }
+        return new PaginatedQueryResult<>(result, nextCursor);
+    }
+
     /**
      * Execute a join of 2 tables.
      *
@@ -310,6 +559,8 @@ public class Query {
 
     /**
      * Execute a join of 2 tables.
+     * The join predicate is tested against every pair of filtered values, equi-joins should use
+     * {@link Query#executeEquiJoinQuery} or {@link Query#executeIndexJoinQuery} instead.
      *
      * @param tableName1     Table name 1.
      * @param tableName2     Table name 2.
@@ -371,11 +622,242 @@ public class Query {
             }
         }
 
-        return new QueryResult<>(joinResult.stream()
+        return new QueryResult<>(project(joinResult, joinProjection));
+    }
+
+    private <T, U> List<U> project(Collection<T> joinResult, Function<T, U> joinProjection) {
+        return joinResult.stream()
                 .map(v -> Optional.ofNullable(joinProjection)
                         .map(function -> function.apply(v))
                         .orElse((U) v))
-                .collect(Collectors.toList()));
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Groups values by their join key, values with a null join key are dropped since they can't match.
+     */
+    private <E, J> Map<J, List<E>> groupByKey(Collection<E> values, Function<E, J> joinKey) {
+        Map<J, List<E>> groups = new HashMap<>();
+        for (E value : values) {
+            J key = joinKey.apply(value);
+            if (key != null) {
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Hash join of 2 collections. The hash table is built on the smaller collection
+     * and probed with the larger one.
+     */
+    private <R, S, J, T> void hashJoin(@Nonnull Collection<R> values1,
+                                       @Nonnull Collection<S> values2,
+                                       @Nonnull Function<R, J> joinKey1,
+                                       @Nonnull Function<S, J> joinKey2,
+                                       @Nonnull BiFunction<R, S, T> joinFunction,
+                                       @Nonnull Consumer<T> consumer) {
+        if (values1.size() <= values2.size()) {
+            Map<J, List<R>> hashTable = groupByKey(values1, joinKey1);
+            for (S value2 : values2) {
+                List<R> matches = hashTable.get(joinKey2.apply(value2));
+                if (matches != null) {
+                    matches.forEach(value1 -> consumer.accept(joinFunction.apply(value1, value2)));
+                }
+            }
+        } else {
+            Map<J, List<S>> hashTable = groupByKey(values2, joinKey2);
+            for (R value1 : values1) {
+                List<S> matches = hashTable.get(joinKey1.apply(value1));
+                if (matches != null) {
+                    matches.forEach(value2 -> consumer.accept(joinFunction.apply(value1, value2)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Execute an equi-join of 2 tables.
+     *
+     * @param tableName1     Table name 1.
+     * @param tableName2     Table name 2.
+     * @param query1         Predicate to filter entries in table 1.
+     * @param query2         Predicate to filter entries in table 2.
+     * @param joinKey1       Extracts the join key of the values of table 1.
+     * @param joinKey2       Extracts the join key of the values of table 2.
+     * @param joinFunction   Function to merge entries.
+     * @param joinProjection Project the merged entries.
+     * @param <V1>           Type of Value in table 1.
+     * @param <V2>           Type of Value in table 2.
+     * @param <J>            Type of the join key.
+     * @param <T>            Type of resultant value after merging type V1 and type V2.
+     * @param <U>            Type of value projected from T.
+     * @return Result of query.
+     */
+    @Nonnull
+    public <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message, J, T, U>
+    QueryResult<U> executeEquiJoinQuery(
+            @Nonnull final String tableName1,
+            @Nonnull final String tableName2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final Function<V1, J> joinKey1,
+            @Nonnull final Function<V2, J> joinKey2,
+            @Nonnull final BiFunction<V1, V2, T> joinFunction,
+            final Function<T, U> joinProjection) {
+        return executeEquiJoinQuery(
+                tableName1,
+                tableName2,
+                query1,
+                query2,
+                DEFAULT_OPTIONS,
+                DEFAULT_OPTIONS,
+                joinKey1,
+                joinKey2,
+                joinFunction,
+                joinProjection);
+    }
+
+    /**
+     * Execute an equi-join of 2 tables as a hash join: the smaller of the filtered tables
+     * is hashed by its join key and probed with the values of the other one.
+     *
+     * @param tableName1     Table name 1.
+     * @param tableName2     Table name 2.
+     * @param query1         Predicate to filter entries in table 1.
+     * @param query2         Predicate to filter entries in table 2.
+     * @param queryOptions1  Query options to transform table 1 filtered values.
+     * @param queryOptions2  Query options to transform table 2 filtered values.
+     * @param joinKey1       Extracts the join key of the projected values of table 1.
+     * @param joinKey2       Extracts the join key of the projected values of table 2.
+     * @param joinFunction   Function to merge entries.
+     * @param joinProjection Project the merged entries.
+     * @param <V1>           Type of Value in table 1.
+     * @param <V2>           Type of Value in table 2.
+     * @param <R>            Type of projected values from table 1 from type V1.
+     * @param <S>            Type of projected values from table 2 from type V2.
+     * @param <J>            Type of the join key.
+     * @param <T>            Type of resultant value after merging type R and type S.
+     * @param <U>            Type of value projected from T.
+     * @return Result of query.
+     */
+    @Nonnull
+    public <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message,
+            R, S, J, T, U>
+    QueryResult<U> executeEquiJoinQuery(
+            @Nonnull final String tableName1,
+            @Nonnull final String tableName2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final QueryOptions<K1, V1, M1, R> queryOptions1,
+            @Nonnull final QueryOptions<K2, V2, M2, S> queryOptions2,
+            @Nonnull final Function<R, J> joinKey1,
+            @Nonnull final Function<S, J> joinKey2,
+            @Nonnull final BiFunction<R, S, T> joinFunction,
+            final Function<T, U> joinProjection) {
+
+        Collection<R> queryResult1 = transform(
+                scanAndFilterByEntry(tableName1, queryOptions1.getTimestamp(), query1),
+                initializeResultCollection(queryOptions1),
+                queryOptions1.getProjection());
+
+        Collection<S> queryResult2 = transform(
+                scanAndFilterByEntry(tableName2, queryOptions2.getTimestamp(), query2),
+                initializeResultCollection(queryOptions2),
+                queryOptions2.getProjection());
+
+        List<T> joinResult = new ArrayList<>();
+        hashJoin(queryResult1, queryResult2, joinKey1, joinKey2, joinFunction, joinResult::add);
+        return new QueryResult<>(project(joinResult, joinProjection));
+    }
+
+    /**
+     * Execute an equi-join of 2 tables, where the join column of table 2 is a field of its values.
+     * If the field is a secondary index (i.e. a secondary_key in the value schema), the entries of
+     * table 2 are looked up in the index for every filtered value of table 1, otherwise this is
+     * executed as a hash join on the field.
+     * Both tables are read at the timestamp of the query options of table 1.
+     *
+     * @param tableName1     Table name 1.
+     * @param tableName2     Table name 2.
+     * @param query1         Predicate to filter entries in table 1.
+     * @param query2         Predicate to filter entries in table 2.
+     * @param queryOptions1  Query options to transform table 1 filtered values.
+     * @param joinKey1       Extracts the join key of the projected values of table 1.
+     * @param fieldName2     Name of the join field of the values of table 2.
+     * @param joinFunction   Function to merge entries.
+     * @param joinProjection Project the merged entries.
+     * @param <V1>           Type of Value in table 1.
+     * @param <V2>           Type of Value in table 2.
+     * @param <R>            Type of projected values from table 1 from type V1.
+     * @param <I>            Type of the join key.
+     * @param <T>            Type of resultant value after merging type R and the entries of table 2.
+     * @param <U>            Type of value projected from T.
+     * @return Result of query.
+     */
+    @Nonnull
+    public <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message,
+            R, I extends Comparable<I>, T, U>
+    QueryResult<U> executeIndexJoinQuery(
+            @Nonnull final String tableName1,
+            @Nonnull final String tableName2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final QueryOptions<K1, V1, M1, R> queryOptions1,
+            @Nonnull final Function<R, I> joinKey1,
+            @Nonnull final String fieldName2,
+            @Nonnull final BiFunction<R, CorfuStoreEntry<K2, V2, M2>, T> joinFunction,
+            final Function<T, U> joinProjection) {
+
+        List<T> joinResult = new ArrayList<>();
+        try {
+            txBegin(queryOptions1.getTimestamp());
+            Table<K1, V1, M1> table1 = getTable(tableName1);
+            Table<K2, V2, M2> table2 = getTable(tableName2);
+
+            Collection<R> queryResult1 = transform(
+                    table1.scanAndFilterByEntry(query1),
+                    initializeResultCollection(queryOptions1),
+                    queryOptions1.getProjection());
+
+            if (table2.hasSecondaryIndex(fieldName2)) {
+                for (R value1 : queryResult1) {
+                    I key = joinKey1.apply(value1);
+                    if (key == null) {
+                        continue;
+                    }
+                    for (CorfuStoreEntry<K2, V2, M2> entry2 : table2.getByIndexAsEntry(fieldName2, key)) {
+                        if (query2.test(entry2)) {
+                            joinResult.add(joinFunction.apply(value1, entry2));
+                        }
+                    }
+                }
+            } else {
+                List<CorfuStoreEntry<K2, V2, M2>> queryResult2 = table2.scanAndFilterByEntry(query2);
+                Function<CorfuStoreEntry<K2, V2, M2>, I> joinKey2 =
+                        entry -> ClassUtils.cast(getField(entry.getPayload(), fieldName2));
+                hashJoin(queryResult1, queryResult2, joinKey1, joinKey2, joinFunction, joinResult::add);
+            }
+        } finally {
+            txEnd();
+        }
+
+        return new QueryResult<>(project(joinResult, joinProjection));
+    }
+
+    private Object getField(@Nonnull Message message, @Nonnull String fieldName) {
+        FieldDescriptor field = message.getDescriptorForType().findFieldByName(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Field " + fieldName + " is not defined in "
+                    + message.getDescriptorForType().getFullName());
+        }
+        return message.getField(field);
     }
 
     /**
@@ -396,41 +878,35 @@ public class Query {
     }
 
     /**
-     * Combines the result of a multi table join, two tables at a time
-     * This function can be optimized without recursions if required.
+     * Combines the result of a multi table join, two tables at a time.
+     * The merged values are passed to the consumer as they are produced,
+     * so no intermediate results are collected.
      *
      * @param list         List of collection of values across tables.
      * @param mergePayload Payload for the next merge level. Starts with an empty list.
      * @param func         Merge function specified by the user.
      * @param depth        Current depth. Starts at 0.
+     * @param consumer     Consumer of the non-null merge results.
      * @param <R>          Return type.
-     * @return List of values after merge.
      */
-    private <R> List<R> merge(@Nonnull List<Collection<?>> list,
-                              @Nonnull List<Object> mergePayload,
-                              @Nonnull MergeFunction<R> func,
-                              int depth) {
-        Collection<?> collection = list.get(depth);
-        if (list.size() - 1 == depth) {
-            List<R> result = new ArrayList<>();
-            for (Object o : collection) {
-                List<Object> finalMergeList = new ArrayList<>(mergePayload);
-                finalMergeList.add(o);
-                R mergeResult = func.merge(finalMergeList);
-                if (mergeResult != null) {
-                    result.add(mergeResult);
-                }
+    private <R> void merge(@Nonnull List<Collection<?>> list,
+                           @Nonnull List<Object> mergePayload,
+                           @Nonnull MergeFunction<R> func,
+                           int depth,
+                           @Nonnull Consumer<R> consumer) {
+        if (list.size() == depth) {
+            R mergeResult = func.merge(new ArrayList<>(mergePayload));
+            if (mergeResult != null) {
+                consumer.accept(mergeResult);
             }
-            return result;
+            return;
         }
 
-        List<R> result = new ArrayList<>();
-        for (Object o : collection) {
-            List<Object> mergeList = new ArrayList<>(mergePayload);
-            mergeList.add(o);
-            result.addAll(merge(list, mergeList, func, depth + 1));
+        for (Object o : list.get(depth)) {
+            mergePayload.add(o);
+            merge(list, mergePayload, func, depth + 1, consumer);
+            mergePayload.remove(mergePayload.size() - 1);
         }
-        return result;
     }
 
     /**
@@ -455,7 +931,72 @@ public class Query {
         }
 
         int mergeJoinDepth = 0; // shallow merges for now
-        Collection<R> mergedResults = merge(values, new ArrayList<>(), joinFunction, mergeJoinDepth);
+        List<R> mergedResults = new ArrayList<>();
+        merge(values, new ArrayList<>(), joinFunction, mergeJoinDepth, mergedResults::add);
+        return new QueryResult<>(mergedResults);
+    }
+
+    /**
+     * Performs an equi-join of multiple tables: only the values with the same join key are merged.
+     * <p>
+     * The tables are read in ascending order of size at the same snapshot. The smallest table is
+     * hashed by join key first, and every larger table only keeps the values whose join key matched
+     * all the tables read before it, so the hashed values are bounded by the smallest table and the
+     * join stops reading as soon as no join key is left. The values of every remaining join key are
+     * then merged in the order of the table names.
+     *
+     * @param tableNames   Collection of table names to be joined.
+     * @param joinKey      Extracts the join key of the values of any of the tables.
+     * @param joinFunction MergeFunction to perform the join across the specified tables.
+     * @param <R>          Type of resultant Object.
+     * @return Result of the query.
+     */
+    @Nonnull
+    public <R> QueryResult<R> executeMultiJoinQuery(@Nonnull final Collection<String> tableNames,
+                                                    @Nonnull final Function<Message, ?> joinKey,
+                                                    @Nonnull final MergeFunction<R> joinFunction) {
+
+        List<String> names = new ArrayList<>(tableNames);
+        List<Map<Object, List<Message>>> groups = new ArrayList<>();
+        Set<Object> joinKeys = new HashSet<>();
+        try {
+            txBegin(null);
+            List<Table<Message, Message, Message>> tables = names.stream()
+                    .map(this::<Message, Message, Message>getTable)
+                    .collect(Collectors.toList());
+            List<Integer> plan = IntStream.range(0, tables.size())
+                    .boxed()
+                    .sorted(Comparator.comparingInt(i -> tables.get(i).count()))
+                    .collect(Collectors.toList());
+
+            names.forEach(name -> groups.add(null));
+            for (int i = 0; i < plan.size(); i++) {
+                final int table = plan.get(i);
+                final boolean first = i == 0;
+                final Set<Object> candidates = joinKeys;
+                Map<Object, List<Message>> group = groupByKey(tables.get(table)
+                        .scanAndFilterByEntry(entry -> first
+                                || candidates.contains(joinKey.apply(entry.getPayload())))
+                        .stream()
+                        .map(CorfuStoreEntry::getPayload)
+                        .collect(Collectors.toList()), joinKey::apply);
+                groups.set(table, group);
+                joinKeys = new HashSet<>(group.keySet());
+                if (joinKeys.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            txEnd();
+        }
+
+        List<R> mergedResults = new ArrayList<>();
+        for (Object key : joinKeys) {
+            List<Collection<?>> values = groups.stream()
+                    .map(group -> group.get(key))
+                    .collect(Collectors.toList());
+            merge(values, new ArrayList<>(), joinFunction, 0, mergedResults::add);
+        }
         return new QueryResult<>(mergedResults);
     }
 }
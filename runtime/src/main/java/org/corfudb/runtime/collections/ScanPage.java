@@ -0,0 +1,137 @@
+package org.corfudb.runtime.collections;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import lombok.Getter;
+
+/**
+ * A page of a table scan, i.e. the first entries of a stream of entries in the order
+ * of their serialized keys, starting after the last key of the previous page.
+ * <p>
+ * Entries are ordered by serialized key, so that the pages of a scan over the same
+ * snapshot are disjoint and cover the whole table, whatever the iteration order of the
+ * table. A page is collected with a single pass over the entries and only retains
+ * the entries of the page, so each page costs a scan of the table but the memory used
+ * is bounded by the page size.
+ * <p>
+ * Used by the CorfuStore browser, whose tables aren't opened with the primary key index
+ * that {@link Query#executePaginatedQuery} pages over.
+ *
+ * @param <E> Type of the entries.
+ */
+public class ScanPage<E> {
+
+    private static final Comparator<byte[]> KEY_ORDER = UnsignedBytes.lexicographicalComparator();
+
+    private static final Comparator<Entry<byte[], ?>> ENTRY_ORDER =
+            (entry1, entry2) -> KEY_ORDER.compare(entry1.getKey(), entry2.getKey());
+
+    /**
+     * The entries of this page, in the order of their serialized keys.
+     */
+    @Getter
+    private final List<E> entries;
+
+    /**
+     * The serialized key of the last entry of this page,
+     * or null if this is the last page of the scan.
+     */
+    @Getter
+    @Nullable
+    private final byte[] nextKey;
+
+    private ScanPage(List<E> entries, byte[] nextKey) {
+        this.entries = entries;
+        this.nextKey = nextKey;
+    }
+
+    /**
+     * Whether there are entries after this page.
+     */
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+
+    /**
+     * Collects a page of entries.
+     *
+     * @param entries       Entries to scan.
+     * @param keySerializer Function that serializes the key of an entry.
+     * @param afterKey      Serialized key of the last entry of the previous page, or null for the first page.
+     * @param limit         Maximum number of entries of the page.
+     * @param <E>           Type of the entries.
+     * @return The page.
+     */
+    @Nonnull
+    public static <E> ScanPage<E> collect(@Nonnull Stream<E> entries,
+                                          @Nonnull Function<E, byte[]> keySerializer,
+                                          @Nullable byte[] afterKey,
+                                          int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Invalid page size " + limit);
+        }
+
+        Accumulator<E> accumulator = entries
+                .<Entry<byte[], E>>map(entry -> new SimpleImmutableEntry<>(keySerializer.apply(entry), entry))
+                .filter(entry -> afterKey == null || KEY_ORDER.compare(entry.getKey(), afterKey) > 0)
+                .collect(Collector.of(
+                        () -> new Accumulator<E>(limit),
+                        Accumulator::add,
+                        Accumulator::merge));
+
+        List<Entry<byte[], E>> page = new ArrayList<>(accumulator.heap);
+        page.sort(ENTRY_ORDER);
+
+        List<E> pageEntries = new ArrayList<>(page.size());
+        page.forEach(entry -> pageEntries.add(entry.getValue()));
+        byte[] nextKey = accumulator.truncated ? page.get(page.size() - 1).getKey() : null;
+        return new ScanPage<>(Collections.unmodifiableList(pageEntries), nextKey);
+    }
+
+    /**
+     * Keeps the first entries in key order in a max-heap, so that the entry to evict
+     * when the heap is full is at its head.
+     */
+    private static class Accumulator<E> {
+        private final int limit;
+        private final PriorityQueue<Entry<byte[], E>> heap;
+        private boolean truncated = false;
+
+        Accumulator(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(ENTRY_ORDER.reversed());
+        }
+
+        void add(Entry<byte[], E> entry) {
+            if (heap.size() < limit) {
+                heap.add(entry);
+                return;
+            }
+            truncated = true;
+            if (ENTRY_ORDER.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        Accumulator<E> merge(Accumulator<E> other) {
+            truncated |= other.truncated;
+            other.heap.forEach(this::add);
+            return this;
+        }
+    }
+}
@@ -21,4 +21,15 @@ public interface StreamingMap<K, V> extends Map<K, V> {
      * @return stream of entries
      */
     Stream<Map.Entry<K, V>> entryStream();
+
+    /**
+     * Present the content of a {@link StreamingMap} via a parallel {@link Stream}, whose
+     * spliterator can be split to process the entries concurrently. The entries are read
+     * from a consistent snapshot of the map. The stream should be closed once consumed.
+     *
+     * @return parallel stream of entries
+     */
+    default Stream<Map.Entry<K, V>> parallelEntryStream() {
+        return entryStream().parallel();
+    }
 }
@@ -208,12 +208,27 @@ public class StreamingSubscriptionContext {
         return false;
     }
 
+    /**
+     * Whether the queue of updates to deliver is full, in which case no update can be enqueued.
+     */
+    public boolean isQueueFull() {
+        return streamQueue.remainingCapacity() == 0;
+    }
+
+    /**
+     * Whether there are updates to deliver to the client.
+     */
+    public boolean hasPendingUpdates() {
+        return !streamQueue.isEmpty();
+    }
+
     /**
      * Deliver updates to the client.
      *
      * @param numUpdatesToDeliver Number of updates to deliver.
+     * @return False, if another notification thread is already delivering updates.
      */
-    public void notifyClient(int numUpdatesToDeliver) {
+    public boolean notifyClient(int numUpdatesToDeliver) {
         if (notificationInProgress.compareAndSet(false, true)) {
             int updatesDelivered = 0;
             try {
@@ -236,12 +251,12 @@ public class StreamingSubscriptionContext {
                         // The StreamingSubscriptionContext will be shortly reaped, no need to
                         // deliver any more updates on this stream.
                         streamQueue.clear();
-                        return;
+                        return true;
                     }
 
                     CorfuStreamEntries nextUpdate = streamQueue.poll();
                     if (nextUpdate == null) {
-                        return;
+                        return true;
                     }
                     long before = System.nanoTime();
 
@@ -264,9 +279,11 @@ public class StreamingSubscriptionContext {
                         updatesDelivered);
                 notificationInProgress.set(false);
             }
+            return true;
         } else {
             log.trace("Another notification thread is already servicing this " +
                     "StreamingSubscriptionContext {}", listener.toString());
+            return false;
         }
     }
 
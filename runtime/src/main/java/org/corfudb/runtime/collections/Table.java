@@ -5,9 +5,11 @@ import com.google.protobuf.Message;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -49,6 +51,8 @@ public class Table<K extends Message, V extends Message, M extends Message> {
     @Getter
     private final MetadataOptions metadataOptions;
 
+    private final ProtobufIndexer indexer;
+
     /**
      * Returns a Table instance backed by a CorfuTable.
      *
@@ -78,11 +82,12 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                         .build())
                 .orElse(MetadataOptions.builder().build());
 
+        this.indexer = new ProtobufIndexer(valueSchema);
         this.corfuTable = corfuRuntime.getObjectsView().build()
                 .setTypeToken(CorfuTable.<K, CorfuRecord<V, M>>getTableType())
                 .setStreamName(this.fullyQualifiedTableName)
                 .setSerializer(serializer)
-                .setArguments(new ProtobufIndexer(valueSchema), streamingMapSupplier, versionPolicy)
+                .setArguments(indexer, streamingMapSupplier, versionPolicy)
                 .open();
     }
 
@@ -232,6 +237,21 @@ public class Table<K extends Message, V extends Message, M extends Message> {
         return corfuTable.size();
     }
 
+    /**
+     * Count of records meeting a predicate.
+     *
+     * @param entryPredicate Predicate to filter the entries.
+     * @return Count of records.
+     */
+    long count(@Nonnull final Predicate<CorfuStoreEntry<K, V, M>> entryPredicate) {
+        ForkJoinPool scanPool = corfuRuntime.getScanPool();
+        Predicate<Entry<K, CorfuRecord<V, M>>> recordPredicate = toRecordPredicate(entryPredicate);
+        if (scanPool == null) {
+            return corfuTable.entryStream().filter(recordPredicate).count();
+        }
+        return corfuTable.countByEntry(recordPredicate, scanPool);
+    }
+
     /**
      * Keyset of the table.
      *
@@ -249,7 +269,19 @@ public class Table<K extends Message, V extends Message, M extends Message> {
      */
     @Nonnull
     Collection<CorfuRecord<V, M>> scanAndFilter(@Nonnull final Predicate<CorfuRecord<V, M>> p) {
-        return corfuTable.scanAndFilter(p);
+        ForkJoinPool scanPool = corfuRuntime.getScanPool();
+        return scanPool == null ? corfuTable.scanAndFilter(p) : corfuTable.scanAndFilter(p, scanPool);
+    }
+
+    /**
+     * Adapts a predicate over the CorfuStore entries to the entries of the CorfuTable.
+     */
+    private Predicate<Entry<K, CorfuRecord<V, M>>> toRecordPredicate(
+            @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> entryPredicate) {
+        return recordEntry -> entryPredicate.test(new CorfuStoreEntry<>(
+                recordEntry.getKey(),
+                recordEntry.getValue().getPayload(),
+                recordEntry.getValue().getMetadata()));
     }
 
     /**
@@ -261,11 +293,11 @@ public class Table<K extends Message, V extends Message, M extends Message> {
     @Nonnull
     List<CorfuStoreEntry<K, V, M>> scanAndFilterByEntry(
             @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> entryPredicate) {
-        return corfuTable.scanAndFilterByEntry(recordEntry ->
-                entryPredicate.test(new CorfuStoreEntry<>(
-                        recordEntry.getKey(),
-                        recordEntry.getValue().getPayload(),
-                        recordEntry.getValue().getMetadata())))
+        ForkJoinPool scanPool = corfuRuntime.getScanPool();
+        Predicate<Entry<K, CorfuRecord<V, M>>> recordPredicate = toRecordPredicate(entryPredicate);
+        return (scanPool == null
+                ? corfuTable.scanAndFilterByEntry(recordPredicate)
+                : corfuTable.scanAndFilterByEntry(recordPredicate, scanPool))
                 .parallelStream()
                 .map(entry -> new CorfuStoreEntry<>(
                         entry.getKey(),
@@ -274,6 +306,41 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Stream of the entries of the table.
+     *
+     * @return Stream of entries.
+     */
+    @Nonnull
+    Stream<CorfuStoreEntry<K, V, M>> entryStream() {
+        return corfuTable.entryStream()
+                .map(entry -> new CorfuStoreEntry<>(
+                        entry.getKey(),
+                        entry.getValue().getPayload(),
+                        entry.getValue().getMetadata()));
+    }
+
+    /**
+     * Get the entries whose serialized primary keys follow a key, in the order of the
+     * serialized keys (see {@link ProtobufIndexer#PRIMARY_KEY_INDEX}).
+     *
+     * @param afterKey Serialized key to start after, or null to start from the first key.
+     * @param limit    Maximum number of entries to return.
+     * @return List of entries ordered by serialized key.
+     */
+    @Nonnull
+    List<CorfuStoreEntry<K, V, M>> getAfterKey(@Nullable final byte[] afterKey, final int limit) {
+        ProtobufIndexer.SerializedKey fromKey = afterKey == null
+                ? null : new ProtobufIndexer.SerializedKey(afterKey);
+        return corfuTable.getByIndexRange(() -> ProtobufIndexer.PRIMARY_KEY_INDEX, fromKey, false,
+                null, false, false, limit).stream()
+                .map(entry -> new CorfuStoreEntry<>(
+                        entry.getKey(),
+                        entry.getValue().getPayload(),
+                        entry.getValue().getMetadata()))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Get by secondary index.
      *
@@ -291,6 +358,78 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get by a range of a sorted secondary index, ordered by index key.
+     *
+     * @param indexName     Index name.
+     * @param fromKey       Low end of the range, or null if the range is not bounded below.
+     * @param fromInclusive True if the low end is included in the range.
+     * @param toKey         High end of the range, or null if the range is not bounded above.
+     * @param toInclusive   True if the high end is included in the range.
+     * @param descending    True to return the entries in descending order of index key.
+     * @param limit         Maximum number of entries to return.
+     * @param <I>           Type of index key.
+     * @return List of entries filtered by the secondary index.
+     */
+    @Nonnull
+    protected <I extends Comparable<I>>
+    List<Entry<K, V>> getByIndexRange(@Nonnull final String indexName,
+                                      @Nullable final I fromKey, final boolean fromInclusive,
+                                      @Nullable final I toKey, final boolean toInclusive,
+                                      final boolean descending, final int limit) {
+        return corfuTable.getByIndexRange(() -> indexName, fromKey, fromInclusive, toKey, toInclusive,
+                descending, limit).stream()
+                .map(entry -> new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue().getPayload()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get by a prefix of the string keys of a sorted secondary index, ordered by index key.
+     *
+     * @param indexName Index name.
+     * @param prefix    Prefix of the index keys.
+     * @param limit     Maximum number of entries to return.
+     * @return List of entries filtered by the secondary index.
+     */
+    @Nonnull
+    protected List<Entry<K, V>> getByIndexPrefix(@Nonnull final String indexName,
+                                                 @Nonnull final String prefix,
+                                                 final int limit) {
+        return corfuTable.getByIndexPrefix(() -> indexName, prefix, limit).stream()
+                .map(entry -> new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue().getPayload()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get by secondary index, with the metadata of the entries.
+     *
+     * @param indexName Index name.
+     * @param indexKey  Index key.
+     * @param <I>       Type of index key.
+     * @return Entries filtered by the secondary index.
+     */
+    @Nonnull
+    <I extends Comparable<I>>
+    List<CorfuStoreEntry<K, V, M>> getByIndexAsEntry(@Nonnull final String indexName,
+                                                     @Nonnull final I indexKey) {
+        return corfuTable.getByIndex(() -> indexName, indexKey).stream()
+                .map(entry -> new CorfuStoreEntry<>(
+                        entry.getKey(),
+                        entry.getValue().getPayload(),
+                        entry.getValue().getMetadata()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks if the values of this table are indexed by a secondary index.
+     *
+     * @param indexName Index name.
+     * @return True if the secondary index is defined in the value schema.
+     */
+    boolean hasSecondaryIndex(@Nonnull final String indexName) {
+        return indexer.get(() -> indexName).isPresent();
+    }
+
     private Set<Descriptors.FieldDescriptor.Type> versionTypes = new HashSet<>(Arrays.asList(
             Descriptors.FieldDescriptor.Type.INT32,
             Descriptors.FieldDescriptor.Type.INT64,
@@ -1,6 +1,7 @@
 package org.corfudb.runtime.collections;
 
 import lombok.Builder;
+import lombok.Getter;
 
 import java.nio.file.Path;
 import java.util.Optional;
@@ -18,6 +19,20 @@ public class TableOptions<K, V> {
      */
     private final Path persistentDataPath;
 
+    /**
+     * If set along with the persistent data path, the disk-backed {@link CorfuTable} keeps
+     * its data across restarts, and is only synced with the updates committed since.
+     */
+    @Getter
+    private final boolean durable;
+
+    /**
+     * If set along with the persistent data path, the disk-backed {@link CorfuTable} keeps up
+     * to this many of its most accessed entries deserialized on the heap.
+     */
+    @Getter
+    private final long cacheSize;
+
     public Optional<Path> getPersistentDataPath() {
         return Optional.ofNullable(persistentDataPath);
     }
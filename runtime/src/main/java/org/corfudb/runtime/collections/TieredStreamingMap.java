@@ -0,0 +1,343 @@
+package org.corfudb.runtime.collections;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.NonNull;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.util.CorfuComponent;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A {@link ContextAwareMap} that keeps its hot entries deserialized on the heap and the
+ * whole data-set in a {@link PersistedStreamingMap}.
+ *
+ * <p>Updates are written through to the persisted map, so the cache only holds copies of
+ * the most accessed entries. The updates of a batch only reach the cache when the batch is
+ * committed, so the cache never holds uncommitted values. The cache is bounded by a number of entries and evicts by
+ * access frequency (W-TinyLFU), so a scan of the cold entries doesn't flush the hot ones.
+ * An evicted entry is said to be spilled, since it is then only read from disk.</p>
+ *
+ * <p>The hits, misses and spills of the cache are exported as counters named after
+ * the table.</p>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class TieredStreamingMap<K, V> implements ContextAwareMap<K, V> {
+
+    private final PersistedStreamingMap<K, V> persistedMap;
+
+    private final Cache<K, V> cache;
+
+    // Incremented on every update, so that a value read from disk concurrently with an
+    // update is not cached
+    private final AtomicLong modifications = new AtomicLong();
+
+    // Values aren't cached while a batch is pending, since the persisted map doesn't
+    // reflect the batch yet
+    private volatile Thread batchOwner;
+
+    // The values of the keys updated by the pending batch (null if removed), which are
+    // applied to the cache when the batch is committed. Only used by the batch owner.
+    private final Map<K, V> batchUpdates = new HashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter spills;
+
+    public TieredStreamingMap(@NonNull PersistedStreamingMap<K, V> persistedMap,
+                              long cacheSize,
+                              @NonNull String tableName) {
+        checkArgument(cacheSize > 0, "Invalid cache size %s", cacheSize);
+        this.persistedMap = persistedMap;
+
+        MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        String prefix = CorfuComponent.OBJECT + "tiered-map." + tableName + ".";
+        this.hits = metrics.counter(prefix + "hit");
+        this.misses = metrics.counter(prefix + "miss");
+        this.spills = metrics.counter(prefix + "spill");
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                // Evict on the updating thread, the removal listener is cheap
+                .executor(Runnable::run)
+                .removalListener((K key, V value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        spills.inc();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * The underlying map that holds all the entries.
+     */
+    public PersistedStreamingMap<K, V> getPersistedMap() {
+        return persistedMap;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return persistedMap.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return persistedMap.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(@NonNull Object key) {
+        if (batchOwner == Thread.currentThread() && batchUpdates.containsKey(key)) {
+            return batchUpdates.get(key) != null;
+        }
+        return cache.getIfPresent(key) != null || persistedMap.containsKey(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Please use {@link StreamingMap#entryStream()}.
+     */
+    @Override
+    public boolean containsValue(@NonNull Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V get(@NonNull Object key) {
+        final Thread owner = batchOwner;
+        if (owner == Thread.currentThread() && batchUpdates.containsKey(key)) {
+            hits.inc();
+            return batchUpdates.get(key);
+        }
+
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            hits.inc();
+            return value;
+        }
+
+        misses.inc();
+        final boolean cacheable = owner == null;
+        final long version = modifications.get();
+        final V persistedValue = persistedMap.get(key);
+        if (persistedValue != null && cacheable) {
+            // Don't overwrite (or resurrect) an entry updated since the value was read
+            cache.asMap().compute((K) key, (k, current) -> {
+                if (current != null) {
+                    return current;
+                }
+                return modifications.get() == version ? persistedValue : null;
+            });
+        }
+        return persistedValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) {
+        persistedMap.put(key, value);
+        if (batchOwner == Thread.currentThread()) {
+            batchUpdate(key, value);
+            return value;
+        }
+        cache.asMap().compute(key, (k, current) -> {
+            modifications.incrementAndGet();
+            return value;
+        });
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public V remove(@NonNull Object key) {
+        V previous = persistedMap.remove(key);
+        if (batchOwner == Thread.currentThread()) {
+            batchUpdate((K) key, null);
+            return previous;
+        }
+        cache.asMap().compute((K) key, (k, current) -> {
+            modifications.incrementAndGet();
+            return null;
+        });
+        return previous;
+    }
+
+    /**
+     * Record an update of the pending batch. The cached value of the key is dropped, so
+     * that the other threads read the committed value from the persisted map.
+     *
+     * @param key   the updated key
+     * @param value the new value of the key, or null if it was removed
+     */
+    private void batchUpdate(K key, V value) {
+        batchUpdates.put(key, value);
+        cache.asMap().compute(key, (k, current) -> {
+            modifications.incrementAndGet();
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(@NonNull Map<? extends K, ? extends V> map) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        persistedMap.clear();
+        if (batchOwner == Thread.currentThread()) {
+            batchUpdates.clear();
+        }
+        modifications.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<K> keySet() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Please use {@link StreamingMap#entryStream()}.
+     */
+    @Override
+    public Collection<V> values() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Please use {@link StreamingMap#entryStream()}.
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ContextAwareMap<K, V> getOptimisticMap() {
+        return persistedMap.getOptimisticMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The entries are read from the persisted map, and don't affect the cache.
+     */
+    @Override
+    public Stream<Entry<K, V>> entryStream() {
+        return persistedMap.entryStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The entries are read from the persisted map, and don't affect the cache.
+     */
+    @Override
+    public Stream<Entry<K, V>> parallelEntryStream() {
+        return persistedMap.parallelEntryStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getPersistedVersion() {
+        return persistedMap.getPersistedVersion();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void startBatch() {
+        batchOwner = Thread.currentThread();
+        modifications.incrementAndGet();
+        persistedMap.startBatch();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitBatch(long version) {
+        persistedMap.commitBatch(version);
+        if (batchOwner == Thread.currentThread()) {
+            batchUpdates.forEach((key, value) -> cache.asMap().compute(key, (k, current) -> {
+                modifications.incrementAndGet();
+                return value;
+            }));
+            batchUpdates.clear();
+        }
+        modifications.incrementAndGet();
+        batchOwner = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void discardPersistedState() {
+        persistedMap.discardPersistedState();
+        batchUpdates.clear();
+        batchOwner = null;
+        modifications.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Close the persisted map and drop the cached entries.
+     */
+    @Override
+    public void close() {
+        batchUpdates.clear();
+        batchOwner = null;
+        cache.invalidateAll();
+        persistedMap.close();
+    }
+}
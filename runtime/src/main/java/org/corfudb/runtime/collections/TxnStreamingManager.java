@@ -4,13 +4,14 @@ import com.google.protobuf.Message;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -18,8 +19,14 @@ import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.ObjectsView;
 
 /**
+ * Delivers the updates of the transaction stream to the streaming subscriptions.
+ *
+ * <p>The poller thread waits on the sequencer for the tail of the transaction stream
+ * to move past the last address read by the subscriptions, and then polls the new
+ * transactions. There is no polling while no transaction is committed.</p>
  *
  * Created by sneginhal on 10/22/2019.
  */
@@ -42,7 +49,7 @@ public class TxnStreamingManager {
     private final Map<Integer, StreamingSubscriptionContext> subscriptions = new HashMap<>();
 
     /**
-     * Executor service to run the txn stream poller.
+     * Executor service to run the txn stream poller, which waits for new transactions.
      */
     private ExecutorService pollerExecutor = Executors.newFixedThreadPool(1, (r) -> {
                     Thread t = Executors.defaultThreadFactory().newThread(r);
@@ -62,17 +69,7 @@ public class TxnStreamingManager {
                 });
 
     /**
-     * Scheduled executor to run the periodic tasks.
-     */
-    private ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor((r) -> {
-                    Thread t = Executors.defaultThreadFactory().newThread(r);
-                    t.setDaemon(true);
-                    t.setName("TxnStreamingManagerScheduler");
-                    return t;
-                });
-
-    /**
-     * Interval of polling and notification in milliseconds.
+     * Interval of polling in milliseconds, when waiting for new transactions fails.
      */
     private static final int INTERVAL = 50;
 
@@ -81,12 +78,18 @@ public class TxnStreamingManager {
      */
     private static final int MAX_NOTIFICATIONS = 25;
 
+    /**
+     * Maximum time the sequencer holds a wait for new transactions, it is shorter than
+     * the request timeout so that waits don't time out on the client.
+     */
+    private final Duration tailWaitTimeout;
+
+    private volatile boolean shutdown = false;
+
     public TxnStreamingManager(@Nonnull CorfuRuntime runtime) {
         this.runtime = runtime;
-        executor.scheduleWithFixedDelay(this::scheduleTxnPolling, 0, INTERVAL,
-                TimeUnit.MILLISECONDS);
-        executor.scheduleWithFixedDelay(this::scheduleClientNotification, INTERVAL, INTERVAL,
-                TimeUnit.MILLISECONDS);
+        this.tailWaitTimeout = runtime.getParameters().getRequestTimeout().dividedBy(2);
+        pollerExecutor.submit(this::watchTxnStream);
     }
 
     /**
@@ -111,6 +114,7 @@ public class TxnStreamingManager {
                 namespace, tablesOfInterest, startAddress);
 
         subscriptions.put(streamListener.hashCode(), sc);
+        notifyAll();
 
         log.info("Subscribed StreamListener {}", sc.toString());
     }
@@ -128,9 +132,56 @@ public class TxnStreamingManager {
     }
 
     /**
-     * Periodic task to schedule transaction polling.
+     * Task of the poller thread: waits for the transaction stream tail to move past the
+     * last address read by the subscriptions, then polls the new transactions and notifies
+     * the subscriptions. If waiting fails (e.g. during a sequencer failover), it falls back
+     * to polling every {@link TxnStreamingManager#INTERVAL} ms until waiting succeeds again.
+     */
+    private void watchTxnStream() {
+        boolean poll = false;
+        while (!shutdown) {
+            try {
+                if (poll) {
+                    poll = false;
+                    pollTxnStream();
+                }
+
+                OptionalLong lastReadAddress = awaitLastReadAddress();
+                if (!lastReadAddress.isPresent()) {
+                    continue;
+                }
+
+                long tail = runtime.getSequencerView().waitForStreamTail(
+                        ObjectsView.TRANSACTION_STREAM_ID, lastReadAddress.getAsLong(), tailWaitTimeout);
+                poll = tail > lastReadAddress.getAsLong();
+            } catch (InterruptedException ie) {
+                log.info("watchTxnStream: interrupted, stopping");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                // We don't want the poller thread to be terminated due to
+                // some unexpected exception, so catch all here.
+                log.warn("watchTxnStream: failed to wait for new transactions, polling in {} ms",
+                        INTERVAL, t);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(INTERVAL);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                poll = true;
+            }
+        }
+    }
+
+    /**
+     * Reaps the subscriptions that are done, and returns the lowest last read address of the
+     * subscriptions that can take updates. If no subscription can take updates, waits until
+     * one subscribes or a notification frees up queue space.
+     *
+     * @return the lowest last read address, or empty if no subscription can take updates
      */
-    private synchronized void scheduleTxnPolling() {
+    private synchronized OptionalLong awaitLastReadAddress() throws InterruptedException {
         // First remove any streamContexts that are ready to be reaped.
         List<Integer> keysToBeReaped = subscriptions.entrySet()
                 .stream()
@@ -139,34 +190,74 @@ public class TxnStreamingManager {
                 .collect(Collectors.toList());
         keysToBeReaped.forEach(k -> subscriptions.remove(k));
 
-        // Lock avaliable streamContexts.
-        List<StreamingSubscriptionContext> lockedStreamingSubscriptionContexts = subscriptions.values()
+        OptionalLong lastReadAddress = subscriptions.values()
                 .stream()
-                .filter(sc -> sc.acquire())
-                .collect(Collectors.toList());
+                .filter(sc -> sc.getPollerException() == null && !sc.isQueueFull())
+                .mapToLong(StreamingSubscriptionContext::getLastReadAddress)
+                .min();
+
+        if (!lastReadAddress.isPresent()) {
+            wait(tailWaitTimeout.toMillis());
+        }
+        return lastReadAddress;
+    }
 
-        if (!lockedStreamingSubscriptionContexts.isEmpty()) {
-            log.trace("Locked {} StreamingSubscriptionContexts for processing",
-                    lockedStreamingSubscriptionContexts.size());
+    /**
+     * Polls the transaction stream for all the available subscriptions, and then
+     * notifies them.
+     */
+    private void pollTxnStream() {
+        List<StreamingSubscriptionContext> lockedStreamingSubscriptionContexts;
+        synchronized (this) {
+            // Lock avaliable streamContexts.
+            lockedStreamingSubscriptionContexts = subscriptions.values()
+                    .stream()
+                    .filter(sc -> sc.acquire())
+                    .collect(Collectors.toList());
+        }
 
-            pollerExecutor.submit(new TransactionPoller(runtime, lockedStreamingSubscriptionContexts));
+        if (lockedStreamingSubscriptionContexts.isEmpty()) {
+            return;
         }
 
+        log.trace("Locked {} StreamingSubscriptionContexts for processing",
+                lockedStreamingSubscriptionContexts.size());
+        new TransactionPoller(runtime, lockedStreamingSubscriptionContexts).run();
 
+        lockedStreamingSubscriptionContexts.forEach(this::scheduleClientNotification);
     }
 
     /**
-     * Periodic task to schedule client notifications.
+     * Schedules the notification of a subscription, which is rescheduled until all the
+     * updates of the subscription are delivered.
      */
-    private void scheduleClientNotification() {
-        subscriptions.values().stream()
-                .forEach(sc -> notifierExecutor.submit(() -> sc.notifyClient(MAX_NOTIFICATIONS)));
+    private void scheduleClientNotification(StreamingSubscriptionContext sc) {
+        notifierExecutor.submit(() -> {
+            if (!sc.notifyClient(MAX_NOTIFICATIONS)) {
+                // Another notification is in progress, and will deliver the updates.
+                return;
+            }
+
+            if (sc.hasPendingUpdates() && !shutdown) {
+                scheduleClientNotification(sc);
+            }
+
+            // The queue has room for updates again, wake up the poller if it waits.
+            synchronized (this) {
+                notifyAll();
+            }
+        });
     }
 
     /**
      * Shutdown the TxnStreamingManager and all its threads.
      */
     public void shutdown() {
+        shutdown = true;
+        synchronized (this) {
+            notifyAll();
+        }
+
         Consumer<ExecutorService> shutdownExecutor = (executor) -> {
                     executor.shutdown();
                     try {
@@ -178,7 +269,6 @@ public class TxnStreamingManager {
                     }
                 };
 
-        CompletableFuture.runAsync(() -> shutdownExecutor.accept(executor));
         CompletableFuture.runAsync(() -> shutdownExecutor.accept(pollerExecutor));
         CompletableFuture.runAsync(() -> shutdownExecutor.accept(notifierExecutor));
     }
@@ -8,6 +8,7 @@ import com.codahale.metrics.Timer;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.logprotocol.SMREntry;
+import org.corfudb.protocols.logprotocol.SMRMethodNames;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
@@ -138,7 +139,8 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
         // because the VLO will control access to the stream
         underlyingObject = new VersionLockedObject<T>(this::getNewInstance,
                 new StreamViewSMRAdapter(rt, rt.getStreamsView().getUnsafe(streamID)),
-                wrapperObject);
+                wrapperObject, rt.getParameters().getMaxSnapshotVersions());
+        SMRMethodNames.register(streamID, underlyingObject.getMethodNames());
 
         final MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
         timerAccess = metrics.timer(CorfuComponent.OBJECT + "access");
@@ -224,7 +226,7 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
         if (TransactionalContext.isInTransaction()) {
             try {
                 // We generate an entry to avoid exposing the serializer to the tx context.
-                SMREntry entry = new SMREntry(smrUpdateFunction, args, serializer);
+                SMREntry entry = newSMREntry(smrUpdateFunction, args);
                 return TransactionalContext.getCurrentContext()
                         .logUpdate(this, entry, conflictObject);
             } catch (Exception e) {
@@ -235,7 +237,7 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
 
         // If we aren't in a transaction, we can just write the modification.
         // We need to add the acquired token into the pending upcall list.
-        SMREntry smrEntry = new SMREntry(smrUpdateFunction, args, serializer);
+        SMREntry smrEntry = newSMREntry(smrUpdateFunction, args);
         long address = underlyingObject.logUpdate(smrEntry, keepUpcallResult);
         log.trace("Update[{}] {}@{} ({}) conflictObj={}",
                 this, smrUpdateFunction, address, args, conflictObject);
@@ -243,6 +245,20 @@ public class CorfuCompileProxy<T extends ICorfuSMR<T>> implements ICorfuSMRProxy
         return address;
     }
 
+    /**
+     * Create an SMR entry for an update of this object, with the id of its SMR
+     * method if compact SMR entries are enabled.
+     */
+    private SMREntry newSMREntry(String smrUpdateFunction, Object[] args) {
+        if (rt.getParameters().isCompactSMREntries()) {
+            int methodId = underlyingObject.getSMRMethodId(smrUpdateFunction);
+            if (methodId != SMREntry.UNKNOWN_METHOD_ID) {
+                return new SMREntry(smrUpdateFunction, methodId, args, serializer);
+            }
+        }
+        return new SMREntry(smrUpdateFunction, args, serializer);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,39 @@
+package org.corfudb.runtime.object;
+
+/**
+ * The state of an SMR object that is persisted along with the version (i.e. the log address)
+ * it reflects, so that the object can be synced from that version when it is re-opened
+ * instead of replaying its whole stream.
+ *
+ * <p>The {@link VersionLockedObject} groups the updates of each log address in a batch, so
+ * that the state can apply them atomically.</p>
+ */
+public interface IPersistedState {
+
+    /**
+     * Get the version of the persisted state when it was opened.
+     *
+     * @return the log address the state reflects, or
+     * {@link org.corfudb.runtime.view.Address#NON_ADDRESS} if there is no persisted state
+     */
+    long getPersistedVersion();
+
+    /**
+     * Start a batch, the following updates are only persisted when the batch is committed.
+     */
+    void startBatch();
+
+    /**
+     * Persist the updates of the current batch, if any, along with a version.
+     *
+     * @param version the log address the state reflects, or
+     *                {@link org.corfudb.runtime.view.Address#NON_ADDRESS} to keep the
+     *                current version
+     */
+    void commitBatch(long version);
+
+    /**
+     * Discard the persisted state, when it can't be synced from its version anymore.
+     */
+    void discardPersistedState();
+}
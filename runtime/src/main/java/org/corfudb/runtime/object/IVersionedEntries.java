@@ -0,0 +1,46 @@
+package org.corfudb.runtime.object;
+
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * The state of an SMR object made of entries, such as a map, whose past values can be kept
+ * in per-key version chains.
+ *
+ * <p>The accessors of such an object which take keys as conflict parameters must only read
+ * the entries of those keys, as the conflicts of transactions already assume. The {@link
+ * VersionLockedObject} then serves them for a past version from the version chains, instead
+ * of rolling the object back.</p>
+ *
+ * @param <T> The type of the object.
+ */
+public interface IVersionedEntries<T> {
+
+    /**
+     * Get the keys of the entries an update modifies.
+     *
+     * @param smrMethod the name of the SMR method of the update
+     * @param arguments the arguments of the update
+     * @return the keys of the entries the update modifies, or null if it may modify any entry
+     */
+    @Nullable
+    Object[] getUpdatedKeys(String smrMethod, Object[] arguments);
+
+    /**
+     * Get the current value of an entry.
+     *
+     * @param key the key of the entry
+     * @return the value of the entry, or null if there is no entry for the key
+     */
+    @Nullable
+    Object getEntryValue(Object key);
+
+    /**
+     * Get a read-only object holding only the given entries.
+     *
+     * @param entries the values of the entries by key, a null value has no entry
+     * @return an object holding the entries
+     */
+    T fromEntries(Map<Object, Object> entries);
+}
@@ -0,0 +1,168 @@
+package org.corfudb.runtime.object;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.corfudb.runtime.view.Address;
+
+/**
+ * The past versions of the entries of an object, kept in a chain per key.
+ *
+ * <p>Each version in a chain is the value of the entry after an update at a log address,
+ * the oldest version of a chain is the value of the entry before its first tracked update.
+ * An entry without a chain was not updated since the chains are valid. A bounded window of
+ * versions is kept, the oldest versions are pruned when the window is full and at the trim
+ * mark.</p>
+ *
+ * <p>The chains are only modified by the owner of the write lock of the {@link
+ * VersionLockedObject}, and are read by snapshots concurrently with them.</p>
+ */
+class VersionChains {
+
+    /**
+     * A version of an entry.
+     */
+    private static final class Version {
+        final Object key;
+        final long address;
+        final Object value;
+        volatile Version previous;
+
+        Version(Object key, long address, Object value, Version previous) {
+            this.key = key;
+            this.address = address;
+            this.value = value;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * The maximum number of versions in the window.
+     */
+    private final int maxVersions;
+
+    /**
+     * The latest version of each updated entry, by key.
+     */
+    private final Map<Object, Version> chains = new ConcurrentHashMap<>();
+
+    /**
+     * The versions in the window, in the order of their addresses.
+     */
+    private final Deque<Version> window = new ArrayDeque<>();
+
+    /**
+     * The oldest version the chains can be read at, or {@link Address#MAX} if
+     * updates are not tracked.
+     */
+    private volatile long validFrom = Address.MAX;
+
+    VersionChains(int maxVersions) {
+        this.maxVersions = maxVersions;
+    }
+
+    /**
+     * Whether updates are tracked.
+     */
+    boolean isTracking() {
+        return validFrom != Address.MAX;
+    }
+
+    /**
+     * Whether the entries can be read at a version.
+     *
+     * @param timestamp the version to read at
+     */
+    boolean isReadable(long timestamp) {
+        return timestamp >= validFrom;
+    }
+
+    /**
+     * Start tracking the updates following a version, if they are not tracked.
+     *
+     * @param version the version of the object
+     */
+    void track(long version) {
+        if (!isTracking()) {
+            validFrom = version;
+        }
+    }
+
+    /**
+     * Drop all the versions.
+     *
+     * @param version the version the updates are tracked from, or {@link Address#MAX} to
+     *                stop tracking them until {@link #track(long)}
+     */
+    void reset(long version) {
+        chains.clear();
+        window.clear();
+        validFrom = version;
+    }
+
+    /**
+     * Record a version of an entry.
+     *
+     * @param key           the key of the entry
+     * @param address       the address of the update
+     * @param previousValue the value of the entry before the update
+     * @param value         the value of the entry after the update
+     */
+    void record(Object key, long address, Object previousValue, Object value) {
+        Version latest = chains.get(key);
+        if (latest == null) {
+            latest = new Version(key, validFrom, previousValue, null);
+        }
+        Version version = new Version(key, address, value, latest);
+        chains.put(key, version);
+        window.addLast(version);
+
+        while (window.size() > maxVersions) {
+            pruneOldest();
+        }
+    }
+
+    /**
+     * Prune the versions below the trim mark.
+     *
+     * @param trimMark the trim mark
+     */
+    void prune(long trimMark) {
+        while (!window.isEmpty() && window.peekFirst().address < trimMark) {
+            pruneOldest();
+        }
+    }
+
+    /**
+     * Prune the oldest version of the window. It becomes the oldest version of its chain,
+     * the chain is dropped if it is also the latest.
+     */
+    private void pruneOldest() {
+        Version version = window.pollFirst();
+        validFrom = Math.max(validFrom, version.address);
+        version.previous = null;
+        chains.remove(version.key, version);
+    }
+
+    /**
+     * Get the value of an entry at a version, which must be readable.
+     *
+     * @param key       the key of the entry
+     * @param timestamp the version to read at
+     * @param current   a function which returns the current value of an entry
+     * @return the value of the entry at the version, or null if there was no entry
+     */
+    Object get(Object key, long timestamp, Function<Object, Object> current) {
+        Version version = chains.get(key);
+        if (version == null) {
+            return current.apply(key);
+        }
+        while (version != null && version.address > timestamp) {
+            version = version.previous;
+        }
+        return version == null ? null : version.value;
+    }
+}
@@ -17,6 +17,9 @@ import org.corfudb.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -92,30 +95,60 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
     private WriteSetSMRStream optimisticStream;
 
     /**
-     * The upcall map for this object.
+     * The SMR method names of this object, indexed by method id. Ids which are not
+     * used have no name.
      */
-    private final Map<String, ICorfuSMRUpcallTarget<T>> upcallTargetMap;
+    @Getter
+    private final String[] methodNames;
+
+    /**
+     * The SMR methods of this object are dispatched by index. The index of a method
+     * is its id, methods without an id are indexed after the ids.
+     */
+    private final String[] methodIndexNames;
+
+    /**
+     * The indexes of the SMR methods of this object, by method name.
+     */
+    private final Map<String, Integer> methodIndexes;
+
+    /**
+     * The upcalls of this object, by method index.
+     */
+    private final ICorfuSMRUpcallTarget<T>[] upcallTargets;
 
     /**
-     * The undo record function map for this object.
+     * The undo record functions of this object, by method index.
      */
-    private final Map<String, IUndoRecordFunction<T>> undoRecordFunctionMap;
+    private final IUndoRecordFunction<T>[] undoRecordFunctions;
 
     /**
-     * The undo target map for this object.
+     * The undo functions of this object, by method index.
      */
-    private final Map<String, IUndoFunction<T>> undoFunctionMap;
+    private final IUndoFunction<T>[] undoFunctions;
 
     /**
-     * The reset set for this object.
+     * Whether a method resets this object, by method index.
      */
-    private final Set<String> resetSet;
+    private final boolean[] resets;
 
     /**
      * A function that generates a new instance of this object.
      */
     private final Supplier<T> newObjectFn;
 
+    /**
+     * The version of the persisted state this object was synced from, or
+     * {@link Address#NON_ADDRESS} if the object was synced from the start of its stream.
+     */
+    @Getter
+    private long resumedVersion = Address.NON_ADDRESS;
+
+    /**
+     * The past versions of the entries of this object, or null if they are not kept.
+     */
+    private final VersionChains versionChains;
+
     /**
      * Correctness Logging
      */
@@ -131,16 +164,62 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
     public VersionLockedObject(Supplier<T> newObjectFn,
                                StreamViewSMRAdapter smrStream,
                                ICorfuSMR<T> wrapperObject) {
+        this(newObjectFn, smrStream, wrapperObject, 0);
+    }
+
+    /**
+     * The VersionLockedObject maintains a versioned object which is backed by an ISMRStream,
+     * and is optionally backed by an additional optimistic update stream.
+     *
+     * @param newObjectFn         A function passed to instantiate a new instance of this object.
+     * @param smrStream           Stream View backing this object.
+     * @param maxSnapshotVersions The maximum number of past versions of entries kept for
+     *                            snapshot reads, or 0 to roll the object back for them.
+     */
+    public VersionLockedObject(Supplier<T> newObjectFn,
+                               StreamViewSMRAdapter smrStream,
+                               ICorfuSMR<T> wrapperObject,
+                               int maxSnapshotVersions) {
         this.smrStream = smrStream;
 
-        this.upcallTargetMap = wrapperObject.getCorfuSMRUpcallMap();
-        this.undoRecordFunctionMap = wrapperObject.getCorfuUndoRecordMap();
-        this.undoFunctionMap = wrapperObject.getCorfuUndoMap();
-        this.resetSet = wrapperObject.getCorfuResetSet();
+        // Resolve the SMR methods once, so that updates are dispatched by method index
+        Map<String, ICorfuSMRUpcallTarget<T>> upcallTargetMap = wrapperObject.getCorfuSMRUpcallMap();
+        Map<String, IUndoRecordFunction<T>> undoRecordFunctionMap = wrapperObject.getCorfuUndoRecordMap();
+        Map<String, IUndoFunction<T>> undoFunctionMap = wrapperObject.getCorfuUndoMap();
+        Set<String> resetSet = wrapperObject.getCorfuResetSet();
+
+        this.methodNames = wrapperObject.getCorfuSMRMethodNames();
+        List<String> indexNames = new ArrayList<>(Arrays.asList(methodNames));
+        upcallTargetMap.keySet().stream()
+                .filter(name -> !indexNames.contains(name))
+                .sorted()
+                .forEach(indexNames::add);
+
+        this.methodIndexNames = indexNames.toArray(new String[0]);
+        this.methodIndexes = new HashMap<>();
+        this.upcallTargets = new ICorfuSMRUpcallTarget[methodIndexNames.length];
+        this.undoRecordFunctions = new IUndoRecordFunction[methodIndexNames.length];
+        this.undoFunctions = new IUndoFunction[methodIndexNames.length];
+        this.resets = new boolean[methodIndexNames.length];
+        for (int index = 0; index < methodIndexNames.length; index++) {
+            String name = methodIndexNames[index];
+            if (name == null) {
+                continue;
+            }
+            methodIndexes.put(name, index);
+            upcallTargets[index] = upcallTargetMap.get(name);
+            undoRecordFunctions[index] = undoRecordFunctionMap.get(name);
+            undoFunctions[index] = undoFunctionMap.get(name);
+            resets[index] = resetSet.contains(name);
+        }
 
         wrapperObject.closeWrapper();
         this.newObjectFn = newObjectFn;
         this.object = newObjectFn.get();
+        this.versionChains = maxSnapshotVersions > 0 && object instanceof IVersionedEntries
+                && object.getVersionPolicy() != ICorfuVersionPolicy.MONOTONIC
+                ? new VersionChains(maxSnapshotVersions) : null;
+        resumeUnsafe();
         this.pendingUpcalls = ConcurrentHashMap.newKeySet();
         this.upcallResults = new ConcurrentHashMap<>();
 
@@ -159,6 +238,9 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
             pendingUpcalls.removeIf(e -> e < trimMark);
             upcallResults.entrySet().removeIf(e -> e.getKey() < trimMark);
             smrStream.gc(trimMark);
+            if (versionChains != null) {
+                versionChains.prune(trimMark);
+            }
         } finally {
             lock.unlock(ts);
         }
@@ -262,6 +344,102 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         }
     }
 
+    /**
+     * Access the internal state of the object at a version, reading the entries of the given
+     * keys from their version chains if the object is ahead of the version.
+     *
+     * <p>The version is read without taking the write lock or rolling the object back, so
+     * snapshots at different versions don't interfere with each other or with the updates
+     * of the object. The accessFunction only sees the entries of the given keys. If the
+     * entries can't be read at the version, this falls back to {@link #access}.
+     *
+     * @param timestamp                 The version to access the object at.
+     * @param keys                      The keys of the entries the accessFunction reads.
+     * @param directAccessCheckFunction A function which returns True if the object can be
+     *                                  accessed without being updated.
+     * @param updateFunction            A function which is executed when direct access
+     *                                  is not allowed and the object must be updated.
+     * @param accessFunction            A function which allows the user to directly access
+     *                                  the object.
+     * @param <R>                       The type of the access function return.
+     * @return Returns the access function.
+     */
+    public <R> R accessVersion(long timestamp, Object[] keys,
+                               Function<VersionLockedObject<T>, Boolean> directAccessCheckFunction,
+                               Consumer<VersionLockedObject<T>> updateFunction,
+                               Function<T, R> accessFunction) {
+        if (versionChains == null || keys == null || keys.length == 0) {
+            return access(directAccessCheckFunction, updateFunction, accessFunction);
+        }
+
+        // First, we try to read the entries under an optimistic read, then under a read lock
+        // if an update raced with it.
+        long ts = lock.tryOptimisticRead();
+        if (ts != 0) {
+            try (Timer.Context versionReadDuration = VloMetricsHelper.getVersionReadContext()) {
+                T version = getEntriesVersionUnsafe(timestamp, keys);
+                if (version != null) {
+                    R ret = accessFunction.apply(version);
+                    if (lock.validate(ts)) {
+                        log.trace("Access [{}] Version (optimistic-read) access at {}",
+                                this, timestamp);
+                        return ret;
+                    }
+                } else if (lock.validate(ts)) {
+                    return access(directAccessCheckFunction, updateFunction, accessFunction);
+                }
+            } catch (Exception e) {
+                // The exception is only thrown on a correct view of the entries if the
+                // optimistic read is still valid.
+                if (lock.validate(ts)) {
+                    throw e;
+                }
+            }
+        }
+
+        ts = lock.readLock();
+        try (Timer.Context versionReadDuration = VloMetricsHelper.getVersionReadContext()) {
+            T version = getEntriesVersionUnsafe(timestamp, keys);
+            if (version != null) {
+                log.trace("Access [{}] Version (readlock) access at {}", this, timestamp);
+                return accessFunction.apply(version);
+            }
+        } finally {
+            lock.unlockRead(ts);
+        }
+        return access(directAccessCheckFunction, updateFunction, accessFunction);
+    }
+
+    /**
+     * Get the entries of the given keys at a version from their version chains.
+     *
+     * <p>Unsafe, requires that the caller has acquired a read lock or validates its
+     * optimistic read.
+     *
+     * @param timestamp The version to read the entries at.
+     * @param keys      The keys of the entries.
+     * @return An object holding the entries at the version, or null if the object isn't
+     *         ahead of the version or the entries can't be read at the version.
+     */
+    @SuppressWarnings("unchecked")
+    private T getEntriesVersionUnsafe(long timestamp, Object[] keys) {
+        if (getVersionUnsafe() <= timestamp || isOptimisticallyModifiedUnsafe()
+                || !versionChains.isReadable(timestamp)
+                || !(object instanceof IVersionedEntries)) {
+            return null;
+        }
+
+        IVersionedEntries<T> entries = (IVersionedEntries<T>) object;
+        Map<Object, Object> values = new HashMap<>();
+        for (Object key : keys) {
+            if (key == null) {
+                return null;
+            }
+            values.put(key, versionChains.get(key, timestamp, entries::getEntryValue));
+        }
+        return entries.fromEntries(values);
+    }
+
     /**
      * Update the object under a write lock.
      *
@@ -303,6 +481,10 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
 
         try {
             log.trace("Rollback[{}] to {}", this, timestamp);
+            // The versions of the entries are tracked again once the object is synced
+            if (versionChains != null) {
+                versionChains.reset(Address.MAX);
+            }
             rollbackStreamUnsafe(smrStream, timestamp);
             log.trace("Rollback[{}] completed", this);
         } catch (NoRollbackException nre) {
@@ -319,6 +501,9 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
      * @param globalAddress The global address to set the pointer to
      */
     public void seek(long globalAddress) {
+        if (versionChains != null) {
+            versionChains.reset(Address.MAX);
+        }
         smrStream.seek(globalAddress);
     }
 
@@ -468,10 +653,53 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         log.debug("Reset[{}]", this);
         object.close();
         object = newObjectFn.get();
+        if (object instanceof IPersistedState) {
+            ((IPersistedState) object).discardPersistedState();
+        }
+        resumedVersion = Address.NON_ADDRESS;
+        if (versionChains != null) {
+            versionChains.reset(Address.MAX);
+        }
         smrStream.reset();
         optimisticStream = null;
     }
 
+    /**
+     * If the object has a persisted state, skip the part of the stream it reflects.
+     */
+    private void resumeUnsafe() {
+        if (!(object instanceof IPersistedState)) {
+            return;
+        }
+
+        long version = ((IPersistedState) object).getPersistedVersion();
+        if (Address.isAddress(version)) {
+            log.info("Resume[{}] from persisted version {}", this, version);
+            smrStream.seek(version + 1);
+            resumedVersion = version;
+        }
+    }
+
+    /**
+     * Start a batch of updates if the object has a persisted state.
+     */
+    private void startBatchUnsafe() {
+        if (object instanceof IPersistedState) {
+            ((IPersistedState) object).startBatch();
+        }
+    }
+
+    /**
+     * Commit the current batch of updates if the object has a persisted state.
+     *
+     * @param version the version the object reflects, or {@link Address#NON_ADDRESS}
+     */
+    private void commitBatchUnsafe(long version) {
+        if (object instanceof IPersistedState) {
+            ((IPersistedState) object).commitBatch(version);
+        }
+    }
+
     /**
      * Get the ID of the stream backing this object.
      *
@@ -516,16 +744,52 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         return ICorfuExecutionContext.DEFAULT;
     }
 
+    /**
+     * Get the id of an SMR method of this object.
+     *
+     * @param smrMethod the name of the SMR method
+     * @return the id of the method, or {@link SMREntry#UNKNOWN_METHOD_ID} if this
+     *         object has no such SMR method or the method has no id
+     */
+    public int getSMRMethodId(String smrMethod) {
+        Integer index = methodIndexes.get(smrMethod);
+        return index != null && index < methodNames.length ? index : SMREntry.UNKNOWN_METHOD_ID;
+    }
+
+    /**
+     * Get the index of the SMR method of an entry. The index of an entry serialized
+     * with the method id is the id, other entries are resolved by name.
+     *
+     * @param entry an SMR entry of this object
+     * @return the index of the method
+     */
+    private int getSMRMethodIndex(SMREntry entry) {
+        int methodIndex = entry.getSMRMethodId();
+        if (methodIndex == SMREntry.UNKNOWN_METHOD_ID) {
+            methodIndex = methodIndexes.getOrDefault(entry.getSMRMethod(),
+                    SMREntry.UNKNOWN_METHOD_ID);
+        } else if (methodIndex >= methodNames.length) {
+            methodIndex = SMREntry.UNKNOWN_METHOD_ID;
+        }
+
+        if (methodIndex < 0 || upcallTargets[methodIndex] == null) {
+            throw new RuntimeException("Unknown upcall " + (entry.getSMRMethod() != null
+                    ? entry.getSMRMethod() : "#" + entry.getSMRMethodId()));
+        }
+        return methodIndex;
+    }
+
     /**
      * Given a SMR entry with an undo entry, undo the update.
      *
      * @param entry The entry to undo.
      */
     private void applyUndoRecordUnsafe(SMREntry entry, ISMRStream stream) {
-        log.trace("Undo[{}] of {}@{} ({})", this, entry.getSMRMethod(),
+        int methodIndex = getSMRMethodIndex(entry);
+        log.trace("Undo[{}] of {}@{} ({})", this, methodIndexNames[methodIndex],
                 Address.isAddress(entry.getGlobalAddress()) ? entry.getGlobalAddress() : "OPT",
                 entry.getUndoRecord());
-        IUndoFunction<T> undoFunction = undoFunctionMap.get(entry.getSMRMethod());
+        IUndoFunction<T> undoFunction = undoFunctions[methodIndex];
         ICorfuExecutionContext.Context context = getContext(stream);
 
         // If the undo function exists, apply it.
@@ -534,7 +798,7 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
                     object.getContext(context),
                     entry.getUndoRecord(), entry.getSMRArguments());
             return;
-        } else if (resetSet.contains(entry.getSMRMethod())) {
+        } else if (resets[methodIndex]) {
             // If this is a reset, undo by restoring the
             // previous state.
             object = (T) entry.getUndoRecord();
@@ -571,14 +835,12 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
      * @param entry The entry to apply.
      */
     private Object applyUpdateUnsafe(SMREntry entry, long timestamp) {
-        log.trace("Apply[{}] of {}@{} ({})", this, entry.getSMRMethod(),
+        int methodIndex = getSMRMethodIndex(entry);
+        log.trace("Apply[{}] of {}@{} ({})", this, methodIndexNames[methodIndex],
                 Address.isAddress(entry.getGlobalAddress()) ? entry.getGlobalAddress() : "OPT",
                 entry.getSMRArguments());
 
-        ICorfuSMRUpcallTarget<T> target = upcallTargetMap.get(entry.getSMRMethod());
-        if (target == null) {
-            throw new RuntimeException("Unknown upcall " + entry.getSMRMethod());
-        }
+        ICorfuSMRUpcallTarget<T> target = upcallTargets[methodIndex];
 
         ICorfuExecutionContext.Context context = getContext(timestamp);
 
@@ -589,15 +851,14 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         // undo -- this is the case without snapshot isolation.
         if (!entry.isUndoable() || !Address.isAddress(entry.getGlobalAddress())) {
             // Can we generate an undo record?
-            IUndoRecordFunction<T> undoRecordTarget =
-                    undoRecordFunctionMap.get(entry.getSMRMethod());
+            IUndoRecordFunction<T> undoRecordTarget = undoRecordFunctions[methodIndex];
             // If there was no previously calculated undo entry
             if (undoRecordTarget != null) {
                 // Calculate the undo record.
                 entry.setUndoRecord(undoRecordTarget
                         .getUndoRecord(object.getContext(context), entry.getSMRArguments()));
                 log.trace("Apply[{}] Undo->{}", this, entry.getUndoRecord());
-            } else if (resetSet.contains(entry.getSMRMethod())) {
+            } else if (resets[methodIndex]) {
                 // This entry actually resets the object. So here
                 // we can safely get a new instance, and add the
                 // previous instance to the undo log.
@@ -612,6 +873,41 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         return target.upcall(object.getContext(context), entry.getSMRArguments());
     }
 
+    /**
+     * Apply an SMR update of the stream backing this object, recording the versions of
+     * the entries it modifies if they are tracked.
+     *
+     * @param entry The entry to apply.
+     */
+    @SuppressWarnings("unchecked")
+    private Object applyStreamUpdateUnsafe(SMREntry entry, long timestamp) {
+        if (versionChains == null || !versionChains.isTracking()) {
+            return applyUpdateUnsafe(entry, timestamp);
+        }
+
+        final long address = entry.getGlobalAddress();
+        IVersionedEntries<T> entries = (IVersionedEntries<T>) object;
+        Object[] keys = entries.getUpdatedKeys(methodIndexNames[getSMRMethodIndex(entry)],
+                entry.getSMRArguments());
+        if (keys == null || !Address.isAddress(address) || Arrays.asList(keys).contains(null)) {
+            // The update may modify any entry, the past versions can't be read anymore
+            Object res = applyUpdateUnsafe(entry, timestamp);
+            versionChains.reset(Address.isAddress(address) ? address : Address.MAX);
+            return res;
+        }
+
+        Object[] previousValues = new Object[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            previousValues[i] = entries.getEntryValue(keys[i]);
+        }
+        Object res = applyUpdateUnsafe(entry, timestamp);
+        for (int i = 0; i < keys.length; i++) {
+            versionChains.record(keys[i], address, previousValues[i],
+                    entries.getEntryValue(keys[i]));
+        }
+        return res;
+    }
+
     /**
      * Roll back the given stream by applying undo records in reverse order
      * from the current stream position until rollbackVersion.
@@ -678,10 +974,22 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         log.trace("Sync[{}] {}", this, (timestamp == Address.OPTIMISTIC)
                 ? "Optimistic" : "to " + timestamp);
         long syncTo = (timestamp == Address.OPTIMISTIC) ? Address.MAX : timestamp;
+        // The updates of each address are applied to the persisted state (if any) as one batch,
+        // and the version is only persisted once the whole stream is synced
+        final boolean batched = stream == smrStream;
+        final long[] batchAddress = {Address.NON_ADDRESS};
         stream.streamUpTo(syncTo)
                 .forEachOrdered(entry -> {
                     try {
-                        Object res = applyUpdateUnsafe(entry, timestamp);
+                        if (batched && entry.getGlobalAddress() != batchAddress[0]) {
+                            if (batchAddress[0] != Address.NON_ADDRESS) {
+                                commitBatchUnsafe(Address.NON_ADDRESS);
+                            }
+                            batchAddress[0] = entry.getGlobalAddress();
+                            startBatchUnsafe();
+                        }
+                        Object res = batched ? applyStreamUpdateUnsafe(entry, timestamp)
+                                : applyUpdateUnsafe(entry, timestamp);
                         if (timestamp == Address.OPTIMISTIC) {
                             entry.setUpcallResult(res);
                         } else if (pendingUpcalls.contains(entry.getGlobalAddress())) {
@@ -697,6 +1005,14 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
                         throw new UnrecoverableCorfuError(e);
                     }
                 });
+        // Nothing is persisted if no update was applied
+        if (batched && batchAddress[0] != Address.NON_ADDRESS) {
+            commitBatchUnsafe(stream.pos());
+        }
+        // Once the object is synced, the versions of the entries are tracked from there
+        if (batched && versionChains != null) {
+            versionChains.track(stream.pos());
+        }
     }
 
     /**
@@ -721,8 +1037,10 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
      * @param entry smr entry
      */
     public void applyUpdateToStreamUnsafe(SMREntry entry, long globalAddress) {
-        applyUpdateUnsafe(entry, globalAddress);
-        seek(globalAddress + 1);
+        startBatchUnsafe();
+        applyStreamUpdateUnsafe(entry, globalAddress);
+        commitBatchUnsafe(globalAddress);
+        smrStream.seek(globalAddress + 1);
     }
 
     /**
@@ -738,6 +1056,8 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         private static final String VLO_UPDATE = CorfuComponent.OBJECT.toString() + "vlo.update";
         private static final String VLO_SYNC = CorfuComponent.OBJECT.toString() + "vlo.sync";
         private static final String VLO_GC = CorfuComponent.OBJECT.toString() + "vlo.gc";
+        private static final String VLO_VERSION_READ = CorfuComponent.OBJECT.toString() +
+                "vlo.version-read";
 
         private static Timer.Context getVloSyncContext() {
             return MetricsUtils.getConditionalContext(metrics.timer(VLO_SYNC));
@@ -758,5 +1078,9 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         private  static Timer.Context getVloGcContext() {
             return MetricsUtils.getConditionalContext(metrics.timer(VLO_GC));
         }
+
+        private  static Timer.Context getVersionReadContext() {
+            return MetricsUtils.getConditionalContext(metrics.timer(VLO_VERSION_READ));
+        }
     }
 }
@@ -24,12 +24,14 @@ import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.Utils;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Represents a transactional context. Transactional contexts
@@ -127,6 +129,12 @@ public abstract class AbstractTransactionalContext implements
     @Getter
     private final ConflictSetInfo readSetInfo = new ConflictSetInfo();
 
+    /**
+     * Listeners called with the token this transaction is committed at.
+     */
+    @Getter
+    private final List<Consumer<Token>> commitTokenListeners = new ArrayList<>();
+
     /**
      * A future which gets completed when this transaction commits.
      * It is completed exceptionally when the transaction aborts.
@@ -340,6 +348,28 @@ public abstract class AbstractTransactionalContext implements
         getWriteSetInfo().mergeInto(other);
     }
 
+    /**
+     * Add a listener which is called with the token this transaction is committed at,
+     * before its updates are written to the log. Updates whose arguments depend on the
+     * commit address can use it, since the arguments are only serialized once the
+     * listeners are called. A listener is called again if the write is retried at
+     * another address, and never if the transaction aborts.
+     *
+     * @param listener the listener to call with the commit token
+     */
+    public void addCommitTokenListener(Consumer<Token> listener) {
+        getCommitTokenListeners().add(listener);
+    }
+
+    /**
+     * Call the commit token listeners of this transaction.
+     *
+     * @param token the token this transaction is committed at
+     */
+    void notifyCommitToken(Token token) {
+        getCommitTokenListeners().forEach(listener -> listener.accept(token));
+    }
+
     /**
      * convert our write set into a new MultiObjectSMREntry.
      *
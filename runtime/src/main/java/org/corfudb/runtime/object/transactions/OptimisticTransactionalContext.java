@@ -18,6 +18,7 @@ import org.corfudb.runtime.exceptions.TransactionAbortedException;
 import org.corfudb.runtime.object.ICorfuSMR;
 import org.corfudb.runtime.object.ICorfuSMRAccess;
 import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
+import org.corfudb.runtime.view.CacheOption;
 
 /** A Corfu optimistic transaction context.
  *
@@ -198,6 +199,9 @@ public class OptimisticTransactionalContext extends AbstractTransactionalContext
         // merge the write-sets
         mergeWriteSetInto(tc.getWriteSetInfo());
 
+        // the listeners of the merged updates are called when this transaction commits
+        getCommitTokenListeners().addAll(tc.getCommitTokenListeners());
+
         // "commit" the optimistic writes (for each proxy we touched)
         // by updating the modifying context (as long as the context
         // is still the same).
@@ -269,6 +273,9 @@ public class OptimisticTransactionalContext extends AbstractTransactionalContext
                     // a MultiObjectSMREntry that contains the update(s) to objects
                     collectWriteSetEntries(),
                     txInfo,
+                    CacheOption.WRITE_THROUGH,
+                    // let the updates know the address they are committed at
+                    this::notifyCommitToken,
                     // a set of stream-IDs that contains the affected streams
                     affectedStreams
                 );
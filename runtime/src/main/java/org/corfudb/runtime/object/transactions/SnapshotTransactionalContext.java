@@ -43,7 +43,11 @@ public class SnapshotTransactionalContext extends AbstractTransactionalContext {
         // In snapshot transactions, there are no conflicts.
         // Hence, we do not need to add this access to a conflict set
         // do not add: addToReadSet(proxy, conflictObject);
-        return proxy.getUnderlyingObject().access(o -> o.getVersionUnsafe()
+        // The entries of the conflict keys are read from their past versions, if the object
+        // keeps them, so that the object is not rolled back.
+        return proxy.getUnderlyingObject().accessVersion(getSnapshotTimestamp().getSequence(),
+                conflictObject,
+                o -> o.getVersionUnsafe()
                         == getSnapshotTimestamp().getSequence()
                         && !o.isOptimisticallyModifiedUnsafe(),
                 o -> {
@@ -13,6 +13,7 @@ import org.corfudb.util.CFUtils;
 import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.MetricsUtils;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -33,6 +34,8 @@ public class SequencerView extends AbstractView {
     private Timer sequencerDeprecatedNextOneStream;
     private Timer sequencerDeprecatedNextMultipleStream;
     private Timer sequencerTrimCache;
+    private Timer sequencerLease;
+    private Timer sequencerTailWait;
     private static final MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
 
     public SequencerView(CorfuRuntime runtime) {
@@ -50,6 +53,10 @@ public class SequencerView extends AbstractView {
                 "query");
         sequencerTrimCache = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
                 "trim-cache");
+        sequencerLease = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
+                "lease");
+        sequencerTailWait = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
+                "tail-wait");
         sequencerNextOneStream = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
                 "particular-next");
         sequencerNextMultipleStream = metricRegistry.timer(CorfuComponent.CLIENT_SEQUENCER +
@@ -105,6 +112,48 @@ public class SequencerView extends AbstractView {
         }
     }
 
+    /**
+     * Return a block of contiguous tokens in the sequencer for a particular stream.
+     *
+     * @param streamId  The stream ID to retrieve from.
+     * @param numTokens The number of tokens to reserve.
+     * @return The first token retrieved, and the backpointer of the first token.
+     */
+    public TokenResponse nextTokens(UUID streamId, int numTokens) {
+        try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerLease)) {
+            return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
+                    .nextToken(Collections.singletonList(streamId), numTokens)));
+        }
+    }
+
+    /**
+     * Returns a lease of blocks of contiguous tokens for a particular stream, which
+     * hands out tokens without a sequencer request per token.
+     *
+     * @param streamId  The stream ID to lease tokens for.
+     * @param leaseSize The number of tokens leased per sequencer request.
+     * @return A token lease, its first block is acquired on the first token request.
+     * @see TokenLease
+     */
+    public TokenLease lease(UUID streamId, int leaseSize) {
+        return new TokenLease(runtime, streamId, leaseSize);
+    }
+
+    /**
+     * Wait until the tail of a stream is past an address, or until a timeout elapses.
+     *
+     * @param streamId The stream to wait on.
+     * @param address  The address the stream tail has to be past of.
+     * @param timeout  The maximum time to wait, it should be shorter than the request timeout.
+     * @return The stream tail, which is not past the address if the wait timed out.
+     */
+    public long waitForStreamTail(UUID streamId, long address, Duration timeout) {
+        try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerTailWait)) {
+            return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
+                    .waitForStreamTail(streamId, address, timeout)));
+        }
+    }
+
     /**
      * Retrieve a stream's address space from sequencer server.
      *
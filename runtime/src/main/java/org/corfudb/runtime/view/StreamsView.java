@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
 import org.corfudb.runtime.CorfuRuntime;
@@ -23,6 +24,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -130,6 +132,28 @@ public class StreamsView extends AbstractView {
      */
     public long append(@Nonnull Object object, @Nullable TxResolutionInfo conflictInfo,
                        @Nonnull CacheOption cacheOption, @Nonnull UUID... streamIDs) {
+        return append(object, conflictInfo, cacheOption, token -> { }, streamIDs);
+    }
+
+    /**
+     * Append to multiple streams simultaneously, possibly providing
+     * information on how to resolve conflicts, and let the object know
+     * the address it is written to before it is serialized.
+     *
+     * @param streamIDs     The streams to append to.
+     * @param object        The object to append to each stream.
+     * @param conflictInfo  Conflict information for the sequencer to check.
+     * @param cacheOption   The caching mode for write/append
+     * @param tokenListener Called with each token acquired to write the object, before
+     *                      the object is written. It is called again with a new token
+     *                      if the write has to be retried.
+     * @return The address the entry was written to.
+     * @throws TransactionAbortedException If the transaction was aborted by
+     *                                     the sequencer.
+     */
+    public long append(@Nonnull Object object, @Nullable TxResolutionInfo conflictInfo,
+                       @Nonnull CacheOption cacheOption, @Nonnull Consumer<Token> tokenListener,
+                       @Nonnull UUID... streamIDs) {
 
         final LogData ld = new LogData(DataType.DATA, object);
         ld.checkMaxWriteSize(runtime.getParameters().getMaxWriteSize());
@@ -166,6 +190,8 @@ public class StreamsView extends AbstractView {
                         TransactionalContext.getCurrentContext());
             }
 
+            tokenListener.accept(tokenResponse.getToken());
+
             try {
                 // Attempt to write to the log.
                 runtime.getAddressSpaceView().write(tokenResponse, ld, cacheOption);
@@ -215,6 +241,49 @@ public class StreamsView extends AbstractView {
         return append(object, conflictInfo, CacheOption.WRITE_THROUGH, streamIDs);
     }
 
+    /**
+     * Append to the stream of a token lease, using a leased token instead of
+     * requesting a token from the sequencer.
+     *
+     * @param object      The object to append.
+     * @param lease       The token lease of the stream to append to.
+     * @param cacheOption The caching mode for write/append
+     * @return The address the entry was written to.
+     * @see SequencerView#lease(UUID, int)
+     */
+    public long append(@Nonnull Object object, @Nonnull TokenLease lease,
+                       @Nonnull CacheOption cacheOption) {
+
+        final LogData ld = new LogData(DataType.DATA, object);
+        ld.checkMaxWriteSize(runtime.getParameters().getMaxWriteSize());
+
+        TokenResponse tokenResponse = null;
+        for (int x = 0; x < runtime.getParameters().getWriteRetry(); x++) {
+            tokenResponse = lease.next();
+
+            try {
+                runtime.getAddressSpaceView().write(tokenResponse, ld, cacheOption);
+                return tokenResponse.getSequence();
+            } catch (OverwriteException oe) {
+                // The leased address was hole-filled, use the next one.
+                log.warn("append[{}]: Overwritten after {} retries, stream {}",
+                        tokenResponse.getSequence(), x, Utils.toReadableId(lease.getStreamId()));
+            } catch (StaleTokenException se) {
+                // The epoch changed since the tokens were leased, lease new ones.
+                log.warn("append[{}]: StaleToken, stream {}", tokenResponse.getSequence(),
+                        Utils.toReadableId(lease.getStreamId()));
+                lease.invalidate();
+            }
+        }
+
+        log.error("append[{}]: failed after {} retries, stream {}, write size {} bytes",
+                tokenResponse == null ? -1 : tokenResponse.getSequence(),
+                runtime.getParameters().getWriteRetry(),
+                Utils.toReadableId(lease.getStreamId()),
+                ILogData.getSerializedSize(object));
+        throw new AppendException();
+    }
+
     @VisibleForTesting
     List<IStreamView> getOpenedStreams() {
         return openedStreams;
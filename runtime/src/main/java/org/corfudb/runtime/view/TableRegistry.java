@@ -22,10 +22,12 @@ import org.corfudb.runtime.CorfuStoreMetadata.TableName;
 import org.corfudb.runtime.collections.CorfuRecord;
 import org.corfudb.runtime.collections.CorfuTable;
 import org.corfudb.runtime.collections.PersistedStreamingMap;
+import org.corfudb.runtime.collections.PersistedStreamingMap.Persistence;
 import org.corfudb.runtime.collections.StreamingMap;
 import org.corfudb.runtime.collections.StreamingMapDecorator;
 import org.corfudb.runtime.collections.Table;
 import org.corfudb.runtime.collections.TableOptions;
+import org.corfudb.runtime.collections.TieredStreamingMap;
 import org.corfudb.runtime.object.ICorfuVersionPolicy;
 import org.corfudb.runtime.object.transactions.TransactionType;
 import org.corfudb.util.serializer.ISerializer;
@@ -314,10 +316,18 @@ public class TableRegistry {
         Supplier<StreamingMap<K, V>> mapSupplier = () -> new StreamingMapDecorator();
         if (tableOptions.getPersistentDataPath().isPresent()) {
             versionPolicy = ICorfuVersionPolicy.MONOTONIC;
-            mapSupplier = () -> new PersistedStreamingMap<>(
-                    tableOptions.getPersistentDataPath().get(),
-                    getPersistentMapOptions(),
-                    protobufSerializer, this.runtime);
+            final Supplier<PersistedStreamingMap<K, V>> persistedMapSupplier =
+                    () -> new PersistedStreamingMap<>(
+                            tableOptions.getPersistentDataPath().get(),
+                            getPersistentMapOptions(),
+                            protobufSerializer, this.runtime,
+                            tableOptions.isDurable() ? Persistence.DURABLE : Persistence.NON_DURABLE);
+            if (tableOptions.getCacheSize() > 0) {
+                mapSupplier = () -> new TieredStreamingMap<>(persistedMapSupplier.get(),
+                        tableOptions.getCacheSize(), fullyQualifiedTableName);
+            } else {
+                mapSupplier = persistedMapSupplier::get;
+            }
         }
 
         // Open and return table instance.
@@ -0,0 +1,119 @@
+package org.corfudb.runtime.view;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.protocols.wireprotocol.TokenResponse;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.exceptions.OverwriteException;
+import org.corfudb.runtime.exceptions.StaleTokenException;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A block of contiguous tokens of a single stream, acquired from the sequencer
+ * with one request and handed out locally.
+ *
+ * <p>The sequencer records the whole block in the stream's address space, so every
+ * leased token must eventually be written. Tokens that won't be used must be
+ * returned with {@link TokenLease#release()}, which hole-fills them.</p>
+ *
+ * <p>Leased tokens are allocated before they are handed out, so appends that use a
+ * lease are not ordered with respect to appends of other clients. A lease should only
+ * be used for non-transactional appends of a single producer.</p>
+ *
+ * <p>Created by the {@link SequencerView}.</p>
+ */
+@Slf4j
+public class TokenLease {
+
+    private final CorfuRuntime runtime;
+
+    @Getter
+    private final UUID streamId;
+
+    @Getter
+    private final int leaseSize;
+
+    private long epoch = Address.NON_ADDRESS;
+
+    // The next token to hand out, and the end (exclusive) of the block
+    private long next = Address.NON_ADDRESS;
+
+    private long end = Address.NON_ADDRESS;
+
+    // The backpointer of the next token
+    private long backpointer = Address.NON_ADDRESS;
+
+    TokenLease(CorfuRuntime runtime, UUID streamId, int leaseSize) {
+        checkArgument(leaseSize > 0, "Invalid lease size %s", leaseSize);
+        this.runtime = runtime;
+        this.streamId = streamId;
+        this.leaseSize = leaseSize;
+    }
+
+    /**
+     * Hands out the next leased token, leasing a new block from the sequencer
+     * if this lease is exhausted.
+     *
+     * @return a token response with the backpointer of the leased stream
+     */
+    public synchronized TokenResponse next() {
+        if (next == end) {
+            renew();
+        }
+
+        TokenResponse token = new TokenResponse(new Token(epoch, next),
+                Collections.singletonMap(streamId, backpointer));
+        backpointer = next;
+        next++;
+        return token;
+    }
+
+    /**
+     * The number of leased tokens that haven't been handed out.
+     */
+    public synchronized int remaining() {
+        return (int) (end - next);
+    }
+
+    /**
+     * Discards the remaining tokens of this lease without hole-filling them, when they
+     * can't be written anymore (i.e. the epoch has changed).
+     */
+    public synchronized void invalidate() {
+        next = end;
+    }
+
+    /**
+     * Returns the remaining tokens of this lease by hole-filling them.
+     */
+    public synchronized void release() {
+        for (; next < end; next++) {
+            try {
+                runtime.getAddressSpaceView().write(new Token(epoch, next),
+                        new LogData(DataType.HOLE), CacheOption.WRITE_AROUND);
+            } catch (OverwriteException oe) {
+                log.trace("release[{}]: address already filled", next, oe);
+            } catch (StaleTokenException se) {
+                log.debug("release[{}]: lease is stale, epoch {}", next, epoch);
+                next = end;
+                return;
+            }
+        }
+    }
+
+    private void renew() {
+        TokenResponse response = runtime.getSequencerView().nextTokens(streamId, leaseSize);
+        epoch = response.getEpoch();
+        next = response.getSequence();
+        end = next + leaseSize;
+        backpointer = response.getBackpointerMap().get(streamId);
+        log.trace("renew: leased [{}, {}) in epoch {} for stream {}", next, end, epoch, streamId);
+    }
+}
@@ -24,6 +24,9 @@ import org.corfudb.util.Utils;
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
@@ -601,8 +604,9 @@ public abstract class AbstractQueuedStreamView extends
     @Override
     public void close() {}
     
-    // Keeps the latest valid checkpoint (based on the snapshot it covers)
-    private StreamCheckpoint latestValidCheckpoint = new StreamCheckpoint();
+    // Keeps the valid checkpoints found so far by id, a delta checkpoint can only be
+    // resolved if the checkpoints it is based on are valid too
+    private Map<UUID, StreamCheckpoint> validCheckpoints = new HashMap<>();
 
     /**
      * Resolve all potential checkpoints for the given max global.
@@ -620,81 +624,119 @@ public abstract class AbstractQueuedStreamView extends
      * | CP1 (snapshot 15) |  |  |  | CP2 (snapshot 10) |
      * +------------------------------------------------+
      *
+     * A delta checkpoint only holds the keys modified since its base checkpoint, so its base
+     * (and the base's base, up to a full checkpoint) is collected as well.
+     *
      * @param context this stream's current context
      * @param data checkpoint log data entry
      * @param maxGlobal maximum global address to resolve this stream up to.
      *
-     * @return true, if the checkpoint was completely resolved (from end to start markers of a checkpoint)
-     *         false, otherwise.
+     * @return true, if the checkpoint was completely resolved (from end to start markers of
+     *         the checkpoint and of the checkpoints it is based on), false, otherwise.
      */
     protected boolean scanCheckpointStream(final QueuedStreamContext context, ILogData data,
                                            long maxGlobal) {
         if (data.hasCheckpointMetadata()) {
             CheckpointEntry cpEntry = (CheckpointEntry) data.getPayload(runtime);
+            UUID checkpointId = cpEntry.getCheckpointId();
 
             // Consider only checkpoints that are less than maxGlobal
             // Because we are traversing in reverse order END marker of a checkpoint should be found first.
             if (context.checkpoint.id == null &&
                     cpEntry.getCpType() == CheckpointEntry.CheckpointEntryType.END
+                    && !validCheckpoints.containsKey(checkpointId)
                     && Long.decode(cpEntry.getDict()
                     .get(CheckpointEntry.CheckpointDictKey.START_LOG_ADDRESS)) <= maxGlobal) {
                 log.trace("Checkpoint[{}] END found at address {} type {} id {} author {}",
                         this, data.getGlobalAddress(), cpEntry.getCpType(),
-                        Utils.toReadableId(cpEntry.getCheckpointId()), cpEntry.getCheckpointAuthorId());
+                        Utils.toReadableId(checkpointId), cpEntry.getCheckpointAuthorId());
 
                 // Because checkpoint ordering is not guaranteed, i.e., a checkpoint for a lower snapshot
                 // could appear in the log after a checkpoint for a higher snapshot (case of multiple
                 // checkpointers running in parallel). We need to inspect all checkpoints and keep the one
-                // with the highest VLO version.
-                UUID checkpointId = cpEntry.getCheckpointId();
-                long checkpointVLOVersion = Long.decode(cpEntry.getDict()
-                        .get(CheckpointEntry.CheckpointDictKey.START_LOG_ADDRESS));
-                boolean isCheckpointForHighestVLOVersion = latestValidCheckpoint.validateHigher(checkpointId,
-                        checkpointVLOVersion);
-
-                // If the entry being inspected represents a checkpoint for a higher VLO
-                // take this as our latest valid checkpoint, and accumulate relevant info
-                // (addresses, numEntries).
-                if (isCheckpointForHighestVLOVersion) {
-                    // We found a highest checkpoint, set this as our valid checkpoint.
-                    latestValidCheckpoint = new StreamCheckpoint(checkpointId);
-                    latestValidCheckpoint.setStartAddress(data.getCheckpointedStreamStartLogAddress());
-                    latestValidCheckpoint.setNumEntries(1);
-                    latestValidCheckpoint.setTotalBytes((long) data.getSizeEstimate());
-                    latestValidCheckpoint.addAddress(data.getGlobalAddress());
-
-                    if (cpEntry.getDict().get(CheckpointEntry.CheckpointDictKey
-                            .SNAPSHOT_ADDRESS) != null) {
-                        latestValidCheckpoint.setSnapshot(Long.decode(cpEntry.getDict()
-                                .get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS)));
-                    }
+                // with the highest VLO version, which is selected once its chain of base checkpoints
+                // has been resolved.
+                StreamCheckpoint checkpoint = new StreamCheckpoint(checkpointId);
+                checkpoint.setStartAddress(data.getCheckpointedStreamStartLogAddress());
+                checkpoint.setNumEntries(1);
+                checkpoint.setTotalBytes((long) data.getSizeEstimate());
+                checkpoint.addAddress(data.getGlobalAddress());
+                checkpoint.setEnded(true);
+
+                if (cpEntry.getDict().get(CheckpointEntry.CheckpointDictKey
+                        .SNAPSHOT_ADDRESS) != null) {
+                    checkpoint.setSnapshot(Long.decode(cpEntry.getDict()
+                            .get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS)));
+                }
+
+                if (cpEntry.isDelta()) {
+                    checkpoint.setBaseId(UUID.fromString(cpEntry.getDict()
+                            .get(CheckpointEntry.CheckpointDictKey.BASE_CHECKPOINT_ID)));
                 }
-            } else if (latestValidCheckpoint.getId() != null &&
-                    latestValidCheckpoint.getId().equals(cpEntry.getCheckpointId())) {
+
+                validCheckpoints.put(checkpointId, checkpoint);
+            } else if (validCheckpoints.containsKey(checkpointId)) {
                 // Case: all other markers other than END of a checkpoint.
 
                 // Add checkpoint entry data to the summarized state of the checkpoint, which will be used
                 // when the definite checkpoint is selected.
-                latestValidCheckpoint.addBytes((long) data.getSizeEstimate());
-                latestValidCheckpoint.addNumEntries(1);
-                latestValidCheckpoint.addAddress(data.getGlobalAddress());
+                StreamCheckpoint checkpoint = validCheckpoints.get(checkpointId);
+                checkpoint.addBytes((long) data.getSizeEstimate());
+                checkpoint.addNumEntries(1);
+                checkpoint.addAddress(data.getGlobalAddress());
 
                 if (cpEntry.getCpType().equals(CheckpointEntry.CheckpointEntryType.START)) {
                     // Only for the case of START markers add some extra information.
                     log.trace("Checkpoint[{}] START found at address {} type {} id {} author {}",
                             this, data.getGlobalAddress(), cpEntry.getCpType(),
-                            Utils.toReadableId(cpEntry.getCheckpointId()),
-                            cpEntry.getCheckpointAuthorId());
-                    return true;
+                            Utils.toReadableId(checkpointId), cpEntry.getCheckpointAuthorId());
+                    checkpoint.setStarted(true);
+
+                    // The scan is done once the chain of the highest checkpoint has been read entirely
+                    return getCheckpointChain(getHighestCheckpoint()) != null;
                 }
             }
         }
         return false;
     }
 
+    private StreamCheckpoint getHighestCheckpoint() {
+        StreamCheckpoint highest = new StreamCheckpoint();
+        for (StreamCheckpoint checkpoint : validCheckpoints.values()) {
+            if (highest.validateHigher(checkpoint.getId(), checkpoint.getStartAddress())) {
+                highest = checkpoint;
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Returns the chain of checkpoints to apply to load a checkpoint, i.e., the full
+     * checkpoint it is based on followed by the delta checkpoints up to this one.
+     *
+     * @param checkpoint a valid checkpoint
+     * @return the chain of checkpoints in the order they apply, or null if a
+     *         checkpoint of the chain is missing or incomplete (i.e. its START or
+     *         END marker hasn't been found)
+     */
+    private List<StreamCheckpoint> getCheckpointChain(StreamCheckpoint checkpoint) {
+        LinkedList<StreamCheckpoint> chain = new LinkedList<>();
+        StreamCheckpoint current = checkpoint;
+        // A chain can't be longer than the number of checkpoints, this also guards against cycles
+        while (current != null && current.isStarted() && current.isEnded()
+                && chain.size() < validCheckpoints.size()) {
+            chain.addFirst(current);
+            if (current.getBaseId() == null) {
+                return chain;
+            }
+            current = validCheckpoints.get(current.getBaseId());
+        }
+        return null;
+    }
+
     /**
      * Resolves the valid checkpoint for the current view of the stream and returns
-     * addresses belonging to this checkpoint.
+     * addresses belonging to this checkpoint, and to the checkpoints it is based on.
      *
      * @param context current stream context.
      *
@@ -704,16 +746,36 @@ public abstract class AbstractQueuedStreamView extends
 
         List<Long> checkpointAddresses = new ArrayList<>();
 
-        if (latestValidCheckpoint != null && latestValidCheckpoint.getId() != null) {
-            // Select checkpoint with the highest start address
-            log.trace("resolveCheckpoint[{}]: selecting checkpoint {} with start address {}", this,
-                    latestValidCheckpoint.getId(), latestValidCheckpoint.getStartAddress());
-            context.checkpoint = latestValidCheckpoint;
-            checkpointAddresses.addAll(latestValidCheckpoint.getCheckpointAddresses());
+        // Select checkpoint with the highest start address, among the ones whose chain
+        // of base checkpoints is complete, i.e., every link was read from START to END
+        List<StreamCheckpoint> candidates = new ArrayList<>(validCheckpoints.values());
+        candidates.sort(Comparator.comparingLong(StreamCheckpoint::getStartAddress).reversed());
+        for (StreamCheckpoint candidate : candidates) {
+            List<StreamCheckpoint> chain = getCheckpointChain(candidate);
+            if (chain == null) {
+                log.debug("resolveCheckpoint[{}]: chain of checkpoint {} is missing or incomplete",
+                        this, candidate.getId());
+                continue;
+            }
+
+            log.trace("resolveCheckpoint[{}]: selecting checkpoint {} with start address {}, chain length {}",
+                    this, candidate.getId(), candidate.getStartAddress(), chain.size());
+            StreamCheckpoint checkpoint = new StreamCheckpoint(candidate.getId());
+            checkpoint.setStartAddress(candidate.getStartAddress());
+            checkpoint.setSnapshot(candidate.getSnapshot());
+            checkpoint.setBaseId(candidate.getBaseId());
+            for (StreamCheckpoint link : chain) {
+                checkpoint.addNumEntries(link.getNumEntries());
+                checkpoint.addBytes(link.getTotalBytes());
+                checkpoint.getCheckpointAddresses().addAll(link.getCheckpointAddresses());
+            }
+            context.checkpoint = checkpoint;
+            checkpointAddresses.addAll(checkpoint.getCheckpointAddresses());
+            break;
         }
 
-        // Checkpoint has been resolved, reset latest valid checkpoint.
-        latestValidCheckpoint = new StreamCheckpoint();
+        // Checkpoint has been resolved, reset valid checkpoints.
+        validCheckpoints = new HashMap<>();
         return checkpointAddresses;
     }
 
@@ -929,6 +991,15 @@ public abstract class AbstractQueuedStreamView extends
         // List of addresses belonging to this checkpoint
         List<Long> checkpointAddresses = new ArrayList<>();
 
+        // The checkpoint a delta checkpoint is based on, null for a full checkpoint
+        UUID baseId = null;
+
+        // Whether the START marker of this checkpoint has been found
+        boolean started = false;
+
+        // Whether the END marker of this checkpoint has been found
+        boolean ended = false;
+
         /**
          * Create a new stream checkpoint to contain basic checkpoint information.
          */
@@ -968,13 +1039,16 @@ public abstract class AbstractQueuedStreamView extends
             numEntries = 0;
             totalBytes = 0;
             checkpointAddresses = new ArrayList<>();
+            baseId = null;
+            started = false;
+            ended = false;
         }
 
         public void addBytes(long bytes) {
             totalBytes += bytes;
         }
 
-        public void addNumEntries(int entries) {
+        public void addNumEntries(long entries) {
             numEntries += entries;
         }
     }
@@ -85,6 +85,16 @@ public class StreamAddressSpace {
         addressMap.addLong(address);
     }
 
+    /**
+     * Add a range of addresses to this address space.
+     *
+     * @param start first address of the range (inclusive)
+     * @param end   end of the range (exclusive)
+     */
+    public void addAddresses(long start, long end) {
+        addressMap.addRange(start, end);
+    }
+
     /**
      * Remove addresses from the stream's address map
      * and set the new trim mark (to the greatest of all addresses to remove).
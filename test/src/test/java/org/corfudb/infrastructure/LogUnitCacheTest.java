@@ -12,8 +12,10 @@ import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
@@ -81,6 +83,117 @@ public class LogUnitCacheTest extends AbstractServerTest {
         assertThat(logUnitServer.getDataCache().getSize()).isEqualTo(size);
     }
 
+    /**
+     * Test that an off-heap cache serves hits in their serialized form.
+     */
+    @Test
+    public void checkOffHeapCacheReads() {
+        final int size = 10;
+        final long start = 0L;
+        final long end = start + size;
+        final String cacheSize = String.valueOf(1024 * 1024);
+
+        LogUnitServer logUnitServer = new LogUnitServer(new ServerContextBuilder()
+                .setLogPath(PARAMETERS.TEST_TEMP_DIR)
+                .setMemory(false)
+                .setCacheOffHeapSize(cacheSize)
+                .build());
+        setServer(logUnitServer);
+        assertThat(logUnitServer.getDataCache().isOffHeap()).isTrue();
+
+        List<Long> addresses = LongStream.range(start, end).boxed().collect(Collectors.toList());
+        List<LogData> payloads = new ArrayList<>();
+        for (long i = start; i < end; i++) {
+            ByteBuf payload = Unpooled.buffer();
+            Serializers.CORFU.serialize(("hello" + i).getBytes(), payload);
+            LogData logData = new LogData(DataType.DATA, payload);
+            logData.setGlobalAddress(i);
+            payloads.add(logData);
+        }
+
+        sendMessage(CorfuMsgType.RANGE_WRITE.payloadMsg(new RangeWriteMsg(payloads)));
+        waitForLogUnit(logUnitServer);
+
+        // The first read populates the cache, the second one is served from it
+        sendMessage(CorfuMsgType.MULTIPLE_READ_REQUEST.payloadMsg(new MultipleReadRequest(addresses, true)));
+        waitForLogUnit(logUnitServer);
+        checkReadResponse(getLastPayloadMessageAs(ReadResponse.class), size);
+        assertThat(logUnitServer.getDataCache().getSize()).isEqualTo(size);
+
+        sendMessage(CorfuMsgType.MULTIPLE_READ_REQUEST.payloadMsg(new MultipleReadRequest(addresses, true)));
+        waitForLogUnit(logUnitServer);
+        ReadResponse cached = getLastPayloadMessageAs(ReadResponse.class);
+        assertThat(cached.getAddresses()).isEmpty();
+
+        // Cache hits are written to the wire in the same format as deserialized entries
+        ByteBuf buf = Unpooled.buffer();
+        cached.doSerialize(buf);
+        ReadResponse readResponse = new ReadResponse(buf);
+        checkReadResponse(readResponse, size);
+        for (LogData expected : payloads) {
+            LogData actual = readResponse.getAddresses().get(expected.getGlobalAddress());
+            assertThat(actual.getGlobalAddress()).isEqualTo(expected.getGlobalAddress());
+            assertThat(actual.getData()).isEqualTo(expected.getData());
+        }
+
+        assertThat(logUnitServer.getDataCache().get(start)).isEqualTo(payloads.get(0));
+        logUnitServer.getDataCache().invalidateAll();
+        assertThat(logUnitServer.getDataCache().getSize()).isEqualTo(0);
+    }
+
+    /**
+     * Test that reading a consecutive range of addresses loads the addresses
+     * that follow it into the server cache.
+     */
+    @Test
+    public void checkReadAhead() throws Exception {
+        final int size = 20;
+        final int batchSize = 5;
+        final int readAhead = 10;
+
+        LogUnitServer logUnitServer = new LogUnitServer(new ServerContextBuilder()
+                .setLogPath(PARAMETERS.TEST_TEMP_DIR)
+                .setMemory(false)
+                .setReadAhead(String.valueOf(readAhead))
+                .build());
+        setServer(logUnitServer);
+
+        List<LogData> payloads = new ArrayList<>();
+        for (long i = 0; i < size; i++) {
+            ByteBuf payload = Unpooled.buffer();
+            Serializers.CORFU.serialize(("hello" + i).getBytes(), payload);
+            LogData logData = new LogData(DataType.DATA, payload);
+            logData.setGlobalAddress(i);
+            payloads.add(logData);
+        }
+        sendMessage(CorfuMsgType.RANGE_WRITE.payloadMsg(new RangeWriteMsg(payloads)));
+        waitForLogUnit(logUnitServer);
+
+        // Addresses that aren't consecutive don't trigger a read-ahead
+        List<Long> addresses = Arrays.asList(0L, 2L, 4L);
+        sendMessage(CorfuMsgType.MULTIPLE_READ_REQUEST.payloadMsg(new MultipleReadRequest(addresses, true)));
+        waitForLogUnit(logUnitServer);
+        checkReadResponse(getLastPayloadMessageAs(ReadResponse.class), addresses.size());
+        assertThat(logUnitServer.getDataCache().getSize()).isEqualTo(addresses.size());
+
+        addresses = LongStream.range(0, batchSize).boxed().collect(Collectors.toList());
+        sendMessage(CorfuMsgType.MULTIPLE_READ_REQUEST.payloadMsg(new MultipleReadRequest(addresses, true)));
+        waitForLogUnit(logUnitServer);
+        checkReadResponse(getLastPayloadMessageAs(ReadResponse.class), batchSize);
+
+        // The read-ahead is done in the background
+        final int expected = batchSize + readAhead;
+        final long deadline = System.currentTimeMillis() + PARAMETERS.TIMEOUT_NORMAL.toMillis();
+        while (logUnitServer.getDataCache().getSize() < expected && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(PARAMETERS.TIMEOUT_VERY_SHORT.toMillis());
+        }
+        assertThat(logUnitServer.getDataCache().getSize()).isEqualTo(expected);
+        for (long address = batchSize; address < expected; address++) {
+            assertThat(logUnitServer.getDataCache().get(address))
+                    .isEqualTo(payloads.get((int) address));
+        }
+    }
+
     private void checkReadResponse(ReadResponse readResponse, int size) {
         assertThat(readResponse.getAddresses().size()).isEqualTo(size);
 
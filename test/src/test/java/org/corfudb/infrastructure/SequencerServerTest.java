@@ -2,14 +2,23 @@ package org.corfudb.infrastructure;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.SequencerRecoveryMsg;
+import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
+import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
+import org.corfudb.protocols.wireprotocol.StreamTailWaitRequest;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenRequest;
@@ -287,4 +296,84 @@ public class SequencerServerTest extends AbstractServerTest {
                         Collections.emptyMap(), Collections.emptyMap()));
     }
 
+    /**
+     * Verifies that allocation requests that are queued together are served in one
+     * round, with the same tokens, backpointers and address maps as if they were
+     * served one at a time.
+     */
+    @Test
+    public void queuedAllocationsAreBatched() throws Exception {
+        final int numRequests = 100;
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final UUID streamB = UUID.nameUUIDFromBytes("streamB".getBytes());
+        ExecutorService executor = server.getExecutor(CorfuMsgType.TOKEN_REQ);
+
+        // Block the sequencer thread until all the requests are queued
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.submit(() -> {
+            latch.await();
+            return null;
+        });
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < numRequests; i++) {
+            UUID stream = i % 2 == 0 ? streamA : streamB;
+            CorfuMsg msg = CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L, Collections.singletonList(stream)))
+                    .setClientID(testClientId)
+                    .setRequestID(i)
+                    .setEpoch(0L);
+            futures.add(executor.submit(() -> server.handleMessage(msg, null, router)));
+        }
+        latch.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertThat(getResponseMessages()).hasSize(numRequests);
+        for (int i = 0; i < numRequests; i++) {
+            TokenResponse response = (TokenResponse) ((CorfuPayloadMsg<?>) getResponseMessages().get(i)).getPayload();
+            UUID stream = i % 2 == 0 ? streamA : streamB;
+            assertThat(response.getToken().getSequence()).isEqualTo(i);
+            assertThat(response.getBackpointerMap().get(stream)).isEqualTo(i < 2 ? Address.NON_EXIST : i - 2);
+        }
+
+        sendMessage(CorfuMsgType.STREAMS_ADDRESS_REQUEST.payloadMsg(new StreamsAddressRequest(
+                StreamsAddressRequest.ALL_STREAMS)));
+        StreamsAddressResponse addresses = getLastPayloadMessageAs(StreamsAddressResponse.class);
+        assertThat(addresses.getLogTail()).isEqualTo(numRequests);
+        assertThat(addresses.getAddressMap().get(streamA).getAddressMap().getLongCardinality())
+                .isEqualTo(numRequests / 2);
+        assertThat(addresses.getAddressMap().get(streamB).getAddressMap().contains(numRequests - 1)).isTrue();
+    }
+
+    /**
+     * Verifies that a request waiting for a stream tail is answered once an
+     * allocation moves the stream tail past the requested address.
+     */
+    @Test
+    public void streamTailWaitIsAnsweredOnAllocation() {
+        final long timeout = PARAMETERS.TIMEOUT_LONG.toMillis();
+        final UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+        final UUID streamB = UUID.nameUUIDFromBytes("streamB".getBytes());
+
+        sendMessage(CorfuMsgType.STREAM_TAIL_WAIT_REQUEST.payloadMsg(
+                new StreamTailWaitRequest(streamA, Address.NON_ADDRESS, timeout)));
+        assertThat(getResponseMessages()).isEmpty();
+
+        // An allocation on another stream doesn't answer the request
+        sendMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L, Collections.singletonList(streamB))));
+        assertThat(getResponseMessages()).hasSize(1);
+
+        sendMessage(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L, Collections.singletonList(streamA))));
+        assertThat(getResponseMessages()).hasSize(2 + 1);
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.STREAM_TAIL_WAIT_RESPONSE);
+        assertThat(getLastPayloadMessageAs(Long.class)).isEqualTo(1L);
+
+        // A request for an address behind the tail is answered right away
+        sendMessage(CorfuMsgType.STREAM_TAIL_WAIT_REQUEST.payloadMsg(
+                new StreamTailWaitRequest(streamA, 0L, timeout)));
+        assertThat(getLastMessage().getMsgType()).isEqualTo(CorfuMsgType.STREAM_TAIL_WAIT_RESPONSE);
+        assertThat(getLastPayloadMessageAs(Long.class)).isEqualTo(1L);
+    }
+
 }
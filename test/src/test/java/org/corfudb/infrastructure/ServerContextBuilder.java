@@ -22,6 +22,7 @@ public class ServerContextBuilder {
     String logPath = null;
     boolean noVerify = false;
     boolean noSync = false;
+    boolean mmapReads = false;
 
     boolean tlsEnabled = false;
     boolean tlsMutualAuthEnabled = false;
@@ -36,6 +37,8 @@ public class ServerContextBuilder {
     String implementation = "local";
 
     String cacheSizeHeapRatio = "0.5";
+    String cacheOffHeapSize = null;
+    String readAhead = null;
     String address = "test";
     int port = 9000;
     String seqCache = "1000";
@@ -72,12 +75,19 @@ public class ServerContextBuilder {
         if (logPath != null) {
          builder.put("--log-path", logPath);
         }
+        if (cacheOffHeapSize != null) {
+            builder.put("--cache-off-heap-size", cacheOffHeapSize);
+        }
+        if (readAhead != null) {
+            builder.put("--read-ahead", readAhead);
+        }
         if (managementBootstrapEndpoint != null) {
             builder.put("--management-server", managementBootstrapEndpoint);
         }
          builder
                  .put("--no-verify", noVerify)
                  .put("--no-sync", noSync)
+                 .put("--mmap-reads", mmapReads)
                  .put("--address", address)
                  .put("--cache-heap-ratio", cacheSizeHeapRatio)
                  .put("--enable-tls", tlsEnabled)
@@ -8,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.ReadResponse;
 import org.corfudb.runtime.clients.TestChannelContext;
 import org.corfudb.runtime.clients.TestRule;
 
@@ -72,6 +73,8 @@ public class TestServerRouter implements IServerRouter {
             } else {
                 this.responseMessages.add(outMsg);
             }
+        } else {
+            ReadResponse.releaseMessage(outMsg);
         }
     }
 
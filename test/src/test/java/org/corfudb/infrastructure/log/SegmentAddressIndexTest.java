@@ -0,0 +1,90 @@
+package org.corfudb.infrastructure.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.corfudb.AbstractCorfuTest;
+import org.junit.Test;
+
+public class SegmentAddressIndexTest extends AbstractCorfuTest {
+
+    private static final long BASE = 20_000;
+    private static final int CAPACITY = 1_000;
+
+    @Test
+    public void testPutAndGet() {
+        SegmentAddressIndex index = new SegmentAddressIndex(BASE, CAPACITY);
+        final long address = BASE + 70;
+        final int checksum = 7;
+        final int length = 100;
+        final long offset = 5_000_000_000L;
+
+        assertThat(index.get(address)).isNull();
+        assertThat(index.contains(address)).isFalse();
+
+        index.put(address, new AddressMetaData(checksum, length, offset));
+        AddressMetaData metaData = index.get(address);
+        assertThat(metaData.checksum).isEqualTo(checksum);
+        assertThat(metaData.length).isEqualTo(length);
+        assertThat(metaData.offset).isEqualTo(offset);
+        assertThat(index.contains(address)).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+
+        // Replacing a record doesn't change the number of known addresses
+        index.put(address, new AddressMetaData(checksum, length, offset + length));
+        assertThat(index.get(address).offset).isEqualTo(offset + length);
+        assertThat(index.size()).isEqualTo(1);
+
+        assertThatThrownBy(() -> index.get(BASE - 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.get(BASE + CAPACITY)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testRangeQueries() {
+        SegmentAddressIndex index = new SegmentAddressIndex(BASE, CAPACITY);
+        final long endOfFirstWord = BASE + Long.SIZE - 1;
+        final long startOfSecondWord = BASE + Long.SIZE;
+        final long middle = BASE + CAPACITY / 2;
+        final long last = BASE + CAPACITY - 1;
+        final long[] addresses = {BASE, endOfFirstWord, startOfSecondWord, middle, last};
+        for (long address : addresses) {
+            index.put(address, new AddressMetaData(0, 1, address));
+        }
+
+        assertThat(index.getKnownAddresses()).containsExactly(addresses);
+
+        // Ranges that extend past the segment are clamped
+        Set<Long> result = new HashSet<>();
+        index.addKnownAddresses(0, Long.MAX_VALUE, result);
+        assertThat(result).hasSize(addresses.length);
+
+        result.clear();
+        index.addKnownAddresses(BASE + 1, startOfSecondWord, result);
+        assertThat(result).containsExactlyInAnyOrder(endOfFirstWord, startOfSecondWord);
+
+        assertThat(index.containsAny(BASE + 1, endOfFirstWord - 1)).isFalse();
+        assertThat(index.containsAny(startOfSecondWord + 1, middle - 1)).isFalse();
+        assertThat(index.containsAny(startOfSecondWord + 1, middle)).isTrue();
+        assertThat(index.containsAny(last + 1, last + CAPACITY)).isFalse();
+        assertThat(index.containsAny(BASE - CAPACITY, BASE)).isTrue();
+    }
+
+    @Test
+    public void testTrimState() {
+        SegmentAddressIndex index = new SegmentAddressIndex(BASE, CAPACITY);
+        final long address = BASE + CAPACITY / 2;
+
+        assertThat(index.isTrimmed(address)).isFalse();
+        assertThat(index.isPendingTrim(address)).isFalse();
+
+        index.markTrimmed(address);
+        index.markPendingTrim(address + 1);
+        assertThat(index.isTrimmed(address)).isTrue();
+        assertThat(index.isPendingTrim(address)).isFalse();
+        assertThat(index.isPendingTrim(address + 1)).isTrue();
+        assertThat(index.contains(address)).isFalse();
+    }
+}
@@ -14,9 +14,12 @@ import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.io.FileUtils;
 import org.assertj.core.api.Assertions;
@@ -26,10 +29,14 @@ import org.corfudb.format.Types.Metadata;
 import org.corfudb.infrastructure.ServerContext;
 import org.corfudb.infrastructure.ServerContextBuilder;
 import org.corfudb.infrastructure.log.compression.Codec;
+import org.corfudb.infrastructure.log.compression.ZSTDCompression;
 import org.corfudb.infrastructure.log.StreamLogFiles.Checksum;
+import org.corfudb.protocols.logprotocol.CheckpointEntry;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
+import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.runtime.exceptions.DataCorruptionException;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.view.Address;
@@ -124,6 +131,88 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         }
     }
 
+    @Test
+    public void testDictionaryCompressionAcrossSegments() {
+        String path = getDirPath();
+        ServerContext sc = new ServerContextBuilder()
+                .setCompressionCodec(Codec.Type.ZSTD_DICT.toString())
+                .setLogPath(path)
+                .setMemory(false)
+                .build();
+
+        // Segments created before a dictionary is trained (in the background) don't
+        // have one, their writes are sampled to train the dictionary of the next segments
+        final int numWrites = 500;
+        final int numStreams = 10;
+        final long secondSegment = RECORDS_PER_LOG_FILE;
+        List<byte[]> payloads = new ArrayList<>();
+        for (int x = 0; x < numWrites; x++) {
+            payloads.add(("{\"stream\": \"table-" + (x % numStreams) + "\", \"key\": " + x
+                    + ", \"value\": \"Some Data!\"}").getBytes());
+        }
+
+        StreamLog log = new StreamLogFiles(sc, false);
+        for (int x = 0; x < numWrites; x++) {
+            log.append(x, new LogData(DataType.DATA, Unpooled.wrappedBuffer(payloads.get(x))));
+        }
+        for (int x = 0; x < numWrites; x++) {
+            log.append(secondSegment + x, new LogData(DataType.DATA, Unpooled.wrappedBuffer(payloads.get(x))));
+        }
+        log.close();
+
+        // Segments are reopened with the dictionary stored in their header
+        StreamLog reader = new StreamLogFiles(sc, false);
+        for (int x = 0; x < numWrites; x++) {
+            assertThat(reader.read(x).getData()).isEqualTo(payloads.get(x));
+            assertThat(reader.read(secondSegment + x).getData()).isEqualTo(payloads.get(x));
+        }
+        reader.close();
+    }
+
+    @Test
+    public void testDictionaryCodecRequiresDictionary() {
+        // A dictionary codec is only built from the dictionary of its segment
+        assertThatThrownBy(() -> Codec.getById(Codec.Type.ZSTD_DICT.getId()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(Codec.getById(Codec.Type.ZSTD.getId())).isInstanceOf(ZSTDCompression.class);
+    }
+
+    @Test
+    public void testMmapReadsFromSealedSegments() {
+        String path = getDirPath();
+        ByteBuf payload = Unpooled.wrappedBuffer("Some Data!".getBytes());
+
+        for (Codec.Type codec : Codec.Type.values()) {
+            ServerContext sc = new ServerContextBuilder()
+                    .setCompressionCodec(codec.toString())
+                    .setMmapReads(true)
+                    .setLogPath(path)
+                    .setMemory(false)
+                    .build();
+
+            StreamLog log = new StreamLogFiles(sc, false);
+            final long base = log.getLogTail() + 1;
+
+            // The first address is written to a segment that is sealed
+            // by the second write
+            LogData ld = new LogData(DataType.DATA, payload);
+            ld.setGlobalAddress(base);
+            log.append(base, ld);
+            final long nextSegment = (base / RECORDS_PER_LOG_FILE + 1) * RECORDS_PER_LOG_FILE;
+            log.append(nextSegment, new LogData(DataType.DATA, payload));
+
+            assertThat(log.read(base)).isEqualTo(ld);
+            assertThat(log.read(base).getData()).isEqualTo(payload.array());
+
+            // Fill a hole in the sealed segment after it has been mapped
+            LogData hole = LogData.getHole(base + 1);
+            log.append(base + 1, hole);
+            assertThat(log.read(base + 1)).isEqualTo(hole);
+            assertThat(log.read(base).getData()).isEqualTo(payload.array());
+            log.close();
+        }
+    }
+
     @Test
     public void testWriteReadWithChecksum() {
         // Enable checksum, then append and read the same entry
@@ -335,6 +424,85 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
                 .isInstanceOf(OverwriteException.class);
     }
 
+    @Test
+    public void testAppendGroup() {
+        StreamLog log = new StreamLogFiles(getContext(), false);
+        final long existing = 3;
+        log.append(existing, getEntry(existing));
+
+        // A group that spans two segments, with an address that has already
+        // been written and an address that is written twice within the group
+        final long nextSegment = RECORDS_PER_LOG_FILE;
+        List<LogData> group = Arrays.asList(getEntry(1), getEntry(nextSegment), getEntry(existing),
+                getEntry(0), getEntry(1));
+        List<RuntimeException> failures = log.appendGroup(group);
+
+        assertThat(failures).hasSize(group.size());
+        assertThat(failures.get(0)).isNull();
+        assertThat(failures.get(1)).isNull();
+        assertThat(failures.get(2)).isInstanceOf(OverwriteException.class);
+        assertThat(failures.get(3)).isNull();
+        assertThat(failures.get(4)).isInstanceOf(OverwriteException.class);
+
+        assertThat(log.getLogTail()).isEqualTo(nextSegment);
+        for (long address : Arrays.asList(0L, 1L, existing, nextSegment)) {
+            assertThat(log.read(address)).isEqualTo(getEntry(address));
+        }
+        log.close();
+
+        // Verify that the group is recovered after a restart
+        StreamLog log2 = new StreamLogFiles(getContext(), false);
+        assertThat(log2.getKnownAddressesInRange(0, existing))
+                .containsExactlyInAnyOrder(0L, 1L, existing);
+        assertThat(log2.read(nextSegment)).isEqualTo(getEntry(nextSegment));
+    }
+
+    @Test
+    public void testBatchedRead() {
+        StreamLog log = new StreamLogFiles(getContext(), false);
+        final long trimMark = 2;
+        final long unwritten = 6;
+        final long nextSegment = RECORDS_PER_LOG_FILE;
+
+        // Write out of address order, so that file offsets don't follow addresses
+        List<Long> written = Arrays.asList(5L, 0L, 3L, 1L, 4L, 7L, nextSegment, nextSegment + 1);
+        for (long address : written) {
+            log.append(address, getEntry(address));
+        }
+        log.prefixTrim(trimMark - 1);
+
+        List<Long> addresses = Arrays.asList(nextSegment + 1, 7L, unwritten, 0L, 3L, 4L, 5L, nextSegment);
+        Map<Long, LogData> entries = log.read(addresses);
+
+        assertThat(entries).doesNotContainKey(unwritten);
+        assertThat(entries.get(0L).isTrimmed()).isTrue();
+        for (long address : Arrays.asList(3L, 4L, 5L, 7L, nextSegment, nextSegment + 1)) {
+            assertThat(entries.get(address)).isEqualTo(getEntry(address));
+            assertThat(entries.get(address)).isEqualTo(log.read(address));
+        }
+        log.close();
+    }
+
+    @Test
+    public void testBatchedReadOfTruncatedSegment() throws Exception {
+        StreamLog log = new StreamLogFiles(getContext(), false);
+        List<Long> addresses = Arrays.asList(0L, 1L, 2L);
+        for (long address : addresses) {
+            log.append(address, getEntry(address));
+        }
+        log.sync(true);
+
+        // Cut the last record of the segment, which is still in the index
+        String logFilePath = getDirPath() + File.separator + "log" + File.separator + 0 + ".log";
+        try (RandomAccessFile file = new RandomAccessFile(logFilePath, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        assertThatThrownBy(() -> log.read(addresses))
+                .isInstanceOf(DataCorruptionException.class);
+        log.close();
+    }
+
     @Test
     public void testReadingUnknownAddress() {
         StreamLog log = new StreamLogFiles(getContext(), false);
@@ -620,6 +788,115 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(logs.list()).hasSize(numFilesLeft);
     }
 
+    @Test
+    public void testSegmentIndexOnRestart() throws Exception {
+        String indexDir = getContext().getServerConfig().get("--log-path") + File.separator + "index";
+        StreamLog log = new StreamLogFiles(getContext(), false);
+
+        // Leave a hole in the first segment
+        final long numSegments = 3;
+        final long numAddresses = RECORDS_PER_LOG_FILE * numSegments;
+        final long hole = 5;
+        for (long x = 0; x < numAddresses; x++) {
+            if (x != hole) {
+                writeToLog(log, x);
+            }
+        }
+        log.close();
+
+        // Only the sealed segments are indexed
+        File sealedIndex = new File(indexDir, "0" + StreamLogFiles.SEGMENT_INDEX_EXTENSION);
+        File corruptedIndex = new File(indexDir, "1" + StreamLogFiles.SEGMENT_INDEX_EXTENSION);
+        assertThat(sealedIndex).exists();
+        assertThat(corruptedIndex).exists();
+        assertThat(new File(indexDir, "2" + StreamLogFiles.SEGMENT_INDEX_EXTENSION)).doesNotExist();
+
+        // Corrupt the index of one segment, it should be ignored
+        try (RandomAccessFile file = new RandomAccessFile(corruptedIndex, "rw")) {
+            file.seek(file.length() - 1);
+            int lastByte = file.read();
+            file.seek(file.length() - 1);
+            file.write(~lastByte);
+        }
+
+        log = new StreamLogFiles(getContext(), false);
+        assertThat(log.getLogTail()).isEqualTo(numAddresses - 1);
+        assertThat(log.getKnownAddressesInRange(0, numAddresses - 1))
+                .hasSize((int) numAddresses - 1)
+                .doesNotContain(hole);
+        for (long x = 0; x < numAddresses; x++) {
+            if (x != hole) {
+                assertThat(log.read(x).getGlobalAddress()).isEqualTo(x);
+            }
+        }
+
+        // A write to a segment that was loaded from its index is appended to the
+        // segment, and makes the index stale
+        writeToLog(log, hole);
+        log.close();
+
+        log = new StreamLogFiles(getContext(), false);
+        assertThat(log.getKnownAddressesInRange(0, numAddresses - 1)).hasSize((int) numAddresses);
+        for (long x = 0; x < numAddresses; x++) {
+            assertThat(log.read(x).getGlobalAddress()).isEqualTo(x);
+        }
+    }
+
+    @Test
+    public void testLogMetadataFromSegmentIndex() throws Exception {
+        String indexDir = getContext().getServerConfig().get("--log-path") + File.separator + "index";
+        StreamLog log = new StreamLogFiles(getContext(), false);
+
+        final UUID streamA = UUID.randomUUID();
+        final UUID streamB = UUID.randomUUID();
+        final UUID checkpointStream = UUID.randomUUID();
+        final long numSegments = 3;
+        final long numAddresses = RECORDS_PER_LOG_FILE * numSegments;
+        final long checkpointEnd = RECORDS_PER_LOG_FILE + 1;
+        for (long x = 0; x < numAddresses; x++) {
+            ByteBuf b = Unpooled.buffer();
+            Serializers.CORFU.serialize("Payload".getBytes(), b);
+            LogData data = new LogData(DataType.DATA, b);
+            if (x == checkpointEnd) {
+                // Checkpoint of streamB, that has no other entry after it
+                data.setBackpointerMap(Collections.singletonMap(checkpointStream, Address.NON_ADDRESS));
+                data.setCheckpointType(CheckpointEntry.CheckpointEntryType.END);
+                data.setCheckpointId(UUID.randomUUID());
+                data.setCheckpointedStreamId(streamB);
+                data.setCheckpointedStreamStartLogAddress(x - 1);
+            } else {
+                UUID stream = x < checkpointEnd ? streamB : streamA;
+                data.setBackpointerMap(Collections.singletonMap(stream, Address.NON_ADDRESS));
+            }
+            log.append(x, data);
+        }
+        log.close();
+
+        // The sealed segments are rebuilt from their index
+        log = new StreamLogFiles(getContext(), false);
+        StreamsAddressResponse indexedSpace = log.getStreamsAddressSpace();
+        TailsResponse indexedTails = log.getAllTails();
+        log.close();
+
+        // The whole log is read
+        FileUtils.deleteDirectory(new File(indexDir));
+        log = new StreamLogFiles(getContext(), false);
+        StreamsAddressResponse scannedSpace = log.getStreamsAddressSpace();
+
+        assertThat(indexedTails.getLogTail()).isEqualTo(numAddresses - 1);
+        assertThat(indexedTails.getStreamTails()).isEqualTo(log.getAllTails().getStreamTails());
+        assertThat(indexedTails.getStreamTails().get(streamB)).isEqualTo(checkpointEnd - 1);
+        assertThat(indexedSpace.getAddressMap().keySet())
+                .containsExactlyInAnyOrderElementsOf(scannedSpace.getAddressMap().keySet());
+        for (UUID stream : Arrays.asList(streamA, streamB, checkpointStream)) {
+            assertThat(indexedSpace.getAddressMap().get(stream).getTrimMark())
+                    .isEqualTo(scannedSpace.getAddressMap().get(stream).getTrimMark());
+            assertThat(indexedSpace.getAddressMap().get(stream).getAddressMap())
+                    .isEqualTo(scannedSpace.getAddressMap().get(stream).getAddressMap());
+        }
+        assertThat(indexedSpace.getAddressMap().get(streamB).getTrimMark()).isEqualTo(checkpointEnd - 1);
+    }
+
     /**
      * Generates and writes 3 files worth data. Then resets the stream log and verifies that the
      * files and data is cleared.
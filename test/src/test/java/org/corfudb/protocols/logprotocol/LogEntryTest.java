@@ -45,6 +45,40 @@ public class LogEntryTest {
         assertThat(buf.readerIndex()).isEqualTo(buf.writerIndex());
     }
 
+    @Test
+    public void smrEntryWithMethodId() {
+        // An entry with a method id is serialized without its method name, and
+        // can be read and skipped along with entries serialized with names
+        final int methodId = 3;
+        final String[] methodNames = {"clear", "get", "insert", "method"};
+        UUID streamId = UUID.randomUUID();
+        SMREntry named = new SMREntry("method", new Object[]{"arg1"}, Serializers.PRIMITIVE);
+        SMREntry compact = new SMREntry("method", methodId, new Object[]{"arg1"}, Serializers.PRIMITIVE);
+
+        ByteBuf namedBuf = Unpooled.buffer();
+        Serializers.CORFU.serialize(named, namedBuf);
+        ByteBuf buf = Unpooled.buffer();
+        Serializers.CORFU.serialize(compact, buf);
+        assertThat(buf.writerIndex()).isEqualTo(namedBuf.writerIndex() - "method".length());
+
+        Serializers.CORFU.serialize(named, buf);
+        SMREntry recoveredEntry = (SMREntry) Serializers.CORFU.deserialize(buf, null);
+        assertThat(recoveredEntry.getSMRMethodId()).isEqualTo(methodId);
+        assertThat(recoveredEntry.getSMRMethod()).isNull();
+        assertThat(recoveredEntry.getSMRArguments()).containsExactly("arg1");
+        assertThat(Serializers.CORFU.deserialize(buf, null)).isEqualTo(named);
+
+        buf.resetReaderIndex();
+        SMREntry.seekToEnd(buf);
+        SMREntry.seekToEnd(buf);
+        assertThat(buf.readerIndex()).isEqualTo(buf.writerIndex());
+
+        // The method name is resolved once the stream's object is known
+        SMRMethodNames.register(streamId, methodNames);
+        assertThat(recoveredEntry.getSMRUpdates(streamId)).containsExactly(named);
+        assertThat(recoveredEntry.getSMRMethod()).isEqualTo("method");
+    }
+
     @Test
     public void seekToEndMultiSMREntry() {
         // Create a buffer with two serialized MultiSMR entries
@@ -155,4 +189,37 @@ public class LogEntryTest {
         multiSMREntry2.getUpdates().stream().forEach(entry -> assertThat(entry.getGlobalAddress())
                 .isEqualTo(entryAddress));
     }
+
+    @Test
+    public void testProjection() {
+        MultiObjectSMREntry multiObjSmrEntry = new MultiObjectSMREntry();
+
+        UUID id1 = UUID.randomUUID();
+        UUID id2 = UUID.randomUUID();
+
+        SMREntry update1 = new SMREntry("method1", new Object[]{"arg1"}, Serializers.PRIMITIVE);
+
+        // The projection doesn't deserialize the updates, so stream2's serializer isn't needed
+        ISerializer customSerializer = new CustomSerializer((byte) (Serializers.SYSTEM_SERIALIZERS_COUNT + 3));
+        SMREntry update2 = new SMREntry("method2", new Object[]{"arg2"}, customSerializer);
+
+        multiObjSmrEntry.addTo(id1, update1);
+        multiObjSmrEntry.addTo(id2, update2);
+
+        ByteBuf buf = Unpooled.buffer();
+        Serializers.CORFU.serialize(multiObjSmrEntry, buf);
+        byte[] serialized = new byte[buf.readableBytes()];
+        buf.readBytes(serialized);
+
+        MultiObjectSMREntry projection = (MultiObjectSMREntry) Serializers.CORFU
+                .deserialize(Unpooled.wrappedBuffer(MultiObjectSMREntry.project(serialized, id1)), null);
+        assertThat(projection.getStreamBuffers()).containsOnlyKeys(id1);
+        assertThat(projection.getSMRUpdates(id1)).containsExactly(update1);
+
+        // Projecting onto a stream without updates results in an empty entry
+        MultiObjectSMREntry empty = (MultiObjectSMREntry) Serializers.CORFU
+                .deserialize(Unpooled.wrappedBuffer(MultiObjectSMREntry.project(serialized, UUID.randomUUID())), null);
+        assertThat(empty.getStreamBuffers()).isEmpty();
+        assertThat(empty.getSMRUpdates(id1)).isEmpty();
+    }
 }
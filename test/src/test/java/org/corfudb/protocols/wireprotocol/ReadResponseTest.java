@@ -0,0 +1,94 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadResponseTest {
+
+    private static LogData getLogData(long address) {
+        LogData logData = new LogData(DataType.DATA, Unpooled.wrappedBuffer(("payload" + address).getBytes()));
+        logData.setGlobalAddress(address);
+        return logData;
+    }
+
+    private static ByteBuf serialize(LogData logData) {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+        logData.doSerialize(buf);
+        return buf;
+    }
+
+    @Test
+    public void serializedEntriesAreNotCopied() {
+        final long address0 = 0L;
+        final long address1 = 1L;
+        final long address2 = 2L;
+        final int numEntries = 3;
+
+        ReadResponse rr = new ReadResponse();
+        rr.put(address0, getLogData(address0));
+        ByteBuf serialized1 = serialize(getLogData(address1));
+        ByteBuf serialized2 = serialize(getLogData(address2));
+        rr.putSerialized(address1, serialized1);
+        rr.putSerialized(address2, serialized2);
+        assertThat(rr.hasSerializedEntries()).isTrue();
+
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyCorfuMessageEncoder());
+        channel.writeOutbound(CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
+        ByteBuf encoded = channel.readOutbound();
+
+        // The serialized entries are components of the encoded message
+        assertThat(encoded).isInstanceOf(CompositeByteBuf.class);
+        assertThat(serialized1.refCnt()).isEqualTo(1);
+        assertThat(serialized2.refCnt()).isEqualTo(1);
+
+        CorfuMsg msg = CorfuMsg.deserialize(encoded);
+        encoded.release();
+        assertThat(serialized1.refCnt()).isEqualTo(0);
+        assertThat(serialized2.refCnt()).isEqualTo(0);
+
+        ReadResponse decoded = ((CorfuPayloadMsg<ReadResponse>) msg).getPayload();
+        assertThat(decoded.getAddresses()).hasSize(numEntries);
+        for (long address : new long[]{address0, address1, address2}) {
+            assertThat(decoded.getAddresses().get(address).getGlobalAddress()).isEqualTo(address);
+            assertThat(decoded.getAddresses().get(address).getData())
+                    .isEqualTo(getLogData(address).getData());
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void serializationIsRepeatable() {
+        final long address = 1L;
+        ByteBuf serialized = serialize(getLogData(address));
+
+        ReadResponse rr = new ReadResponse();
+        rr.putSerialized(address, serialized);
+        assertThat(rr.getAddresses()).isEmpty();
+        assertThat(rr.getSerializedAddresses()).containsExactly(address);
+
+        for (int i = 0; i < 2; i++) {
+            ByteBuf buf = Unpooled.buffer();
+            rr.doSerialize(buf);
+            ReadResponse decoded = new ReadResponse(buf);
+            assertThat(decoded.getAddresses().get(address).getData())
+                    .isEqualTo(getLogData(address).getData());
+            buf.release();
+        }
+        assertThat(serialized.refCnt()).isEqualTo(1);
+
+        // A response that is dropped releases its entries
+        rr.release();
+        assertThat(serialized.refCnt()).isEqualTo(0);
+        assertThat(rr.getSerializedAddresses()).isEmpty();
+
+        ByteBuf late = serialize(getLogData(address));
+        rr.putSerialized(address, late);
+        assertThat(late.refCnt()).isEqualTo(0);
+    }
+}
@@ -259,6 +259,36 @@ public class FastObjectLoaderTest extends AbstractViewTest {
         assertThatObjectCacheIsTheSameSize(getDefaultRuntime(), rt2);
     }
 
+    /**
+     * Ensures that the maps are built when several batches are read ahead and
+     * the streams are spread across several necromancers, including transactions
+     * that update streams of different necromancers.
+     */
+    @Test
+    public void canLoadWithPipelinedReadsAndApplies() throws Exception {
+        populateMaps(MORE, getDefaultRuntime(), CorfuTable.class, true, SOME);
+
+        getDefaultRuntime().getObjectsView().TXBegin();
+        maps.get("Map0").put("k0", "v0");
+        maps.get("Map1").put("k1", "v1");
+        maps.get("Map2").clear();
+        getDefaultRuntime().getObjectsView().TXEnd();
+
+        populateMaps(MORE, getDefaultRuntime(), CorfuTable.class, false, 2);
+
+        CorfuRuntime rt2 = getNewRuntime(getDefaultNode())
+                .connect();
+        FastObjectLoader fsm = new FastObjectLoader(rt2)
+                .setBatchReadSize(2)
+                .setNumberOfInflightReads(SOME)
+                .setNumOfWorkers(SOME)
+                .setDefaultObjectsType(CorfuTable.class);
+        fsm.loadMaps();
+
+        assertThatMapsAreBuilt(rt2);
+        assertThatObjectCacheIsTheSameSize(getDefaultRuntime(), rt2);
+    }
+
     @Test
     public void canReadCheckpointWithoutTrim() throws Exception {
         populateMaps(1, getDefaultRuntime(), CorfuTable.class, true, MORE);
@@ -326,6 +356,26 @@ public class FastObjectLoaderTest extends AbstractViewTest {
         assertThatObjectCacheIsTheSameSize(getDefaultRuntime(), rt2);
     }
 
+    @Test
+    public void canReadDeltaCheckPointsAfterTrim() throws Exception {
+        getDefaultRuntime().getParameters().setMaxDeltaCheckpoints(SOME);
+        populateMaps(SOME, getDefaultRuntime(), CorfuTable.class, true, MORE);
+        checkPointAll(getDefaultRuntime());
+
+        // The second checkpoint only holds the keys modified since the first one
+        maps.get("Map0").remove("key0");
+        populateMaps(SOME, getDefaultRuntime(), CorfuTable.class, false, 1);
+        Token checkpointAddress = checkPointAll(getDefaultRuntime());
+
+        populateMaps(SOME, getDefaultRuntime(), CorfuTable.class, false, 1);
+        Helpers.trim(getDefaultRuntime(), checkpointAddress);
+
+        CorfuRuntime rt2 = Helpers.createNewRuntimeWithFastLoader(getDefaultConfigurationString());
+
+        assertThatMapsAreBuilt(rt2);
+        assertThatObjectCacheIsTheSameSize(getDefaultRuntime(), rt2);
+    }
+
     @Test
     public void canReadCheckPointMultipleStreamTrimWithLeftOver() throws Exception {
         populateMaps(SOME, getDefaultRuntime(), CorfuTable.class, true, 1);
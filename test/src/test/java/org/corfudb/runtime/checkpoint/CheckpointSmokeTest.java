@@ -17,6 +17,7 @@ import org.corfudb.protocols.logprotocol.CheckpointEntry;
 import org.corfudb.protocols.logprotocol.LogEntry;
 import org.corfudb.protocols.logprotocol.MultiSMREntry;
 import org.corfudb.protocols.logprotocol.SMREntry;
+import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CheckpointWriter;
 import org.corfudb.runtime.CorfuRuntime;
@@ -736,5 +737,170 @@ public class CheckpointSmokeTest extends AbstractViewTest {
 
         assertThat(minSnapshot2).isGreaterThan(minSnapshot1);
     }
-}
 
+    /**
+     * Test that the maps of a MultiCheckpointWriter are all checkpointed
+     * at a single NO_OP entry written to all their streams.
+     */
+    @Test
+    public void multiCheckpointWriterSnapshotsAllMapsAtOneToken() throws Exception {
+        final int numMaps = 5;
+        final int numKeys = 10;
+        final String author = "CPWriter";
+
+        MultiCheckpointWriter mcw = new MultiCheckpointWriter();
+        for (int m = 0; m < numMaps; m++) {
+            StreamingMap<String, Long> map = instantiateMap("map" + m);
+            for (int i = 0; i < numKeys; i++) {
+                map.put(String.valueOf(i), (long) (m + i));
+            }
+            mcw.addMap(map);
+        }
+
+        Token snapshot = mcw.appendCheckpoints(r, author);
+        assertThat(r.getAddressSpaceView().read(snapshot.getSequence()).isHole()).isTrue();
+
+        // Every map has a checkpoint that starts at the NO_OP entry
+        long tail = r.getSequencerView().query().getSequence();
+        int numStartRecords = 0;
+        for (long address = snapshot.getSequence() + 1; address <= tail; address++) {
+            ILogData logData = r.getAddressSpaceView().read(address);
+            if (logData.hasCheckpointMetadata()
+                    && logData.getCheckpointType() == CheckpointEntry.CheckpointEntryType.START) {
+                CheckpointEntry cp = (CheckpointEntry) logData.getPayload(r);
+                assertThat(cp.getDict().get(CheckpointEntry.CheckpointDictKey.START_LOG_ADDRESS))
+                        .isEqualTo(Long.toString(snapshot.getSequence()));
+                assertThat(cp.getDict().get(CheckpointEntry.CheckpointDictKey.SNAPSHOT_ADDRESS))
+                        .isEqualTo(Long.toString(snapshot.getSequence()));
+                numStartRecords++;
+            }
+        }
+        assertThat(numStartRecords).isEqualTo(numMaps);
+
+        r.getAddressSpaceView().prefixTrim(snapshot);
+        r.getAddressSpaceView().gc();
+        r.getAddressSpaceView().invalidateServerCaches();
+        r.getAddressSpaceView().invalidateClientCache();
+
+        setRuntime();
+        for (int m = 0; m < numMaps; m++) {
+            Map<String, Long> map = instantiateMap("map" + m);
+            for (int i = 0; i < numKeys; i++) {
+                assertThat(map.get(String.valueOf(i))).isEqualTo((long) (m + i));
+            }
+        }
+    }
+
+    /**
+     * Test that when batches are sized by bytes, the CONTINUATION records are not
+     * sized by entries and don't exceed the batch bytes, and that the records
+     * appended with leased tokens are contiguous in the log.
+     */
+    @Test
+    public void checkpointBatchesAreSizedByBytes() throws Exception {
+        final String streamName = "mystream";
+        final UUID streamId = CorfuRuntime.getStreamID(streamName);
+        final int numKeys = 100;
+        final int smallBatchSize = 2;
+        final int batchBytes = 500;
+        final int maxTokenLeaseSize = 8;
+
+        StreamingMap<String, Long> m = instantiateMap(streamName);
+        for (int i = 0; i < numKeys; i++) {
+            m.put(String.format("key%03d", i), (long) i);
+        }
+
+        List<Long> positions = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Integer> batchesBytes = new ArrayList<>();
+        CheckpointWriter<SMRMap> cpw = new CheckpointWriter(getRuntime(), streamId, "author", (SMRMap) m);
+        cpw.setSerializer(serializer);
+        cpw.setBatchSize(smallBatchSize);
+        cpw.setBatchBytes(batchBytes);
+        cpw.setMaxTokenLeaseSize(maxTokenLeaseSize);
+        cpw.setPostAppendFunc((cp, pos) -> {
+            positions.add(pos);
+            if (cp.getCpType() == CheckpointEntry.CheckpointEntryType.CONTINUATION) {
+                batchSizes.add(cp.getSmrEntries().getUpdates().size());
+                batchesBytes.add(cp.getSmrEntriesBytes());
+            }
+        });
+        cpw.appendCheckpoint();
+
+        assertThat(batchSizes.get(0)).isGreaterThan(smallBatchSize);
+        assertThat(batchSizes.size()).isGreaterThan(1);
+        assertThat(batchesBytes).allMatch(bytes -> bytes <= batchBytes);
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(numKeys);
+        assertThat(cpw.getEntryCount()).isEqualTo(numKeys);
+        for (int i = 1; i < positions.size(); i++) {
+            assertThat(positions.get(i)).isEqualTo(positions.get(i - 1) + 1);
+        }
+
+        setRuntime();
+        Map<String, Long> m2 = instantiateMap(streamName);
+        for (int i = 0; i < numKeys; i++) {
+            assertThat(m2.get(String.format("key%03d", i))).isEqualTo((long) i);
+        }
+    }
+
+    /**
+     * Test that a delta checkpoint only holds the keys modified since the previous
+     * checkpoint, and that the map is rebuilt from the chain of checkpoints once the
+     * log is trimmed up to the full checkpoint.
+     */
+    @Test
+    public void deltaCheckpointIsChainedToFullCheckpoint() throws Exception {
+        final String streamName = "mystream";
+        final UUID streamId = CorfuRuntime.getStreamID(streamName);
+        final int numKeys = 10;
+        final int numModifiedKeys = 3;
+        final long newValue = 100L;
+
+        StreamingMap<String, Long> m = instantiateMap(streamName);
+        for (int i = 0; i < numKeys; i++) {
+            m.put(String.valueOf(i), (long) i);
+        }
+
+        CheckpointWriter<SMRMap> fullCpw = new CheckpointWriter(getRuntime(), streamId, "author", (SMRMap) m);
+        fullCpw.setSerializer(serializer);
+        fullCpw.setMaxDeltaCheckpoints(1);
+        fullCpw.appendCheckpoint();
+        assertThat(fullCpw.getEntryCount()).isEqualTo(numKeys);
+
+        m.put("0", newValue);
+        m.remove("1");
+        m.put(String.valueOf(numKeys), (long) numKeys);
+
+        List<CheckpointEntry> records = new ArrayList<>();
+        CheckpointWriter<SMRMap> deltaCpw = new CheckpointWriter(getRuntime(), streamId, "author", (SMRMap) m);
+        deltaCpw.setSerializer(serializer);
+        deltaCpw.setMaxDeltaCheckpoints(1);
+        deltaCpw.setPostAppendFunc((cp, pos) -> records.add(cp));
+        deltaCpw.appendCheckpoint();
+        assertThat(deltaCpw.getEntryCount()).isEqualTo(numModifiedKeys);
+        assertThat(deltaCpw.getChainStartAddress()).isEqualTo(fullCpw.getChainStartAddress());
+        assertThat(records).allMatch(CheckpointEntry::isDelta);
+        assertThat(records.get(0).getDict().get(CheckpointEntry.CheckpointDictKey.BASE_CHECKPOINT_ID))
+                .isEqualTo(fullCpw.getCheckpointId().toString());
+
+        // Trim everything but the full checkpoint and the delta checkpoint
+        r.getAddressSpaceView().prefixTrim(new Token(0L, fullCpw.getChainStartAddress() - 1));
+        r.getAddressSpaceView().gc();
+        r.getAddressSpaceView().invalidateServerCaches();
+        r.getAddressSpaceView().invalidateClientCache();
+
+        setRuntime();
+        Map<String, Long> m2 = instantiateMap(streamName);
+        assertThat(m2).hasSize(numKeys);
+        assertThat(m2.get("0")).isEqualTo(newValue);
+        assertThat(m2).doesNotContainKey("1");
+        assertThat(m2.get(String.valueOf(numKeys))).isEqualTo((long) numKeys);
+
+        // The chain has reached its max length, the next checkpoint is a full one
+        CheckpointWriter<SMRMap> nextCpw = new CheckpointWriter(getRuntime(), streamId, "author", (SMRMap) m2);
+        nextCpw.setSerializer(serializer);
+        nextCpw.setMaxDeltaCheckpoints(1);
+        nextCpw.appendCheckpoint();
+        assertThat(nextCpw.getEntryCount()).isEqualTo(numKeys);
+    }
+}
@@ -36,6 +36,8 @@ import org.corfudb.infrastructure.ServerContext;
 import org.corfudb.infrastructure.ServerContextBuilder;
 import org.corfudb.infrastructure.log.compression.Codec;
 import org.corfudb.infrastructure.log.StreamLogFiles;
+import org.corfudb.protocols.logprotocol.MultiObjectSMREntry;
+import org.corfudb.protocols.logprotocol.SMREntry;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.IMetadata;
@@ -44,6 +46,8 @@ import org.corfudb.protocols.wireprotocol.PriorityLevel;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
 import org.corfudb.runtime.exceptions.QuotaExceededException;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.corfudb.protocols.wireprotocol.StreamAddressRange;
+import org.corfudb.protocols.wireprotocol.StreamReadResponse;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.protocols.wireprotocol.Token;
@@ -618,4 +622,77 @@ public class LogUnitHandlerTest extends AbstractClientTest {
         assertThat(addressSpace.getAddressMap().contains(addressOne));
         assertThat(response.getLogTail()).isEqualTo(addressTwo);
     }
+
+    private LogData getMultiObjectLogData(long address, MultiObjectSMREntry entry) {
+        ByteBuf b = Unpooled.buffer();
+        Serializers.CORFU.serialize(entry, b);
+        LogData ld = new LogData(DataType.DATA, b);
+        ld.setGlobalAddress(address);
+        Map<UUID, Long> backpointerMap = new HashMap<>();
+        entry.getEntryMap().keySet().forEach(id -> backpointerMap.put(id, Address.NON_EXIST));
+        ld.setBackpointerMap(backpointerMap);
+        return ld;
+    }
+
+    /**
+     * Ensure that a stream read only returns the entries of the stream, and that
+     * transactional entries only carry the updates of the stream.
+     */
+    @Test
+    public void canReadStream() throws Exception {
+        final UUID streamA = UUID.randomUUID();
+        final UUID streamB = UUID.randomUUID();
+        final long addressOne = 0L;
+        final long addressTwo = 1L;
+        final long addressThree = 2L;
+
+        SMREntry updateA = new SMREntry("put", new Object[]{"a"}, Serializers.PRIMITIVE);
+        SMREntry updateB = new SMREntry("put", new Object[]{"b"}, Serializers.PRIMITIVE);
+
+        MultiObjectSMREntry both = new MultiObjectSMREntry();
+        both.addTo(streamA, updateA);
+        both.addTo(streamB, updateB);
+        client.write(getMultiObjectLogData(addressOne, both)).get();
+
+        MultiObjectSMREntry onlyB = new MultiObjectSMREntry();
+        onlyB.addTo(streamB, updateB);
+        client.write(getMultiObjectLogData(addressTwo, onlyB)).get();
+
+        MultiObjectSMREntry onlyA = new MultiObjectSMREntry();
+        onlyA.addTo(streamA, updateA);
+        client.write(getMultiObjectLogData(addressThree, onlyA)).get();
+
+        // Read stream A in (NON_ADDRESS, addressThree]
+        StreamReadResponse resp = client.readStream(
+                new StreamAddressRange(streamA, addressThree, Address.NON_ADDRESS), 0, false).get();
+        assertThat(resp.isComplete()).isTrue();
+        assertThat(resp.getAddresses()).containsOnlyKeys(addressOne, addressThree);
+
+        LogData projected = resp.getAddresses().get(addressOne);
+        assertThat(projected.getGlobalAddress()).isEqualTo(addressOne);
+        assertThat(projected.getBackpointerMap()).containsOnlyKeys(streamA, streamB);
+        assertThat(projected.getData().length)
+                .isLessThan(getMultiObjectLogData(addressOne, both).getData().length);
+
+        MultiObjectSMREntry entry = (MultiObjectSMREntry) projected.getPayload(null);
+        assertThat(entry.getSMRUpdates(streamA)).containsExactly(updateA);
+        assertThat(entry.getSMRUpdates(streamB)).isEmpty();
+        assertThat(entry.getEntryMap()).containsOnlyKeys(streamA);
+
+        // The range is exclusive of its end
+        resp = client.readStream(new StreamAddressRange(streamA, addressThree, addressOne), 0, false).get();
+        assertThat(resp.getAddresses()).containsOnlyKeys(addressThree);
+
+        // A read that is limited returns a page, and the address to resume from
+        final int pageSize = 1;
+        resp = client.readStream(
+                new StreamAddressRange(streamA, addressThree, Address.NON_ADDRESS), pageSize, false).get();
+        assertThat(resp.getAddresses()).containsOnlyKeys(addressOne);
+        assertThat(resp.getResumeAddress()).isEqualTo(addressOne);
+
+        resp = client.readStream(
+                new StreamAddressRange(streamA, addressThree, resp.getResumeAddress()), pageSize, false).get();
+        assertThat(resp.getAddresses()).containsOnlyKeys(addressThree);
+        assertThat(resp.isComplete()).isTrue();
+    }
 }
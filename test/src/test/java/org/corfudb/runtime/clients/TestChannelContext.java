@@ -17,6 +17,7 @@ import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.EventExecutor;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
+import org.corfudb.protocols.wireprotocol.ReadResponse;
 
 import java.net.SocketAddress;
 import java.util.concurrent.CompletableFuture;
@@ -231,7 +232,12 @@ public class TestChannelContext implements ChannelHandlerContext {
         if (message instanceof CorfuMsg) {
         /* simulate serialization/deserialization */
             ByteBuf oBuf = Unpooled.buffer();
-            ((CorfuMsg) message).serialize(oBuf);
+            try {
+                ((CorfuMsg) message).serialize(oBuf);
+            } finally {
+                // Like the encoder, release the message once it's been written
+                ReadResponse.releaseMessage(message);
+            }
             oBuf.resetReaderIndex();
             return oBuf;
         }
@@ -1,17 +1,23 @@
 package org.corfudb.runtime.collections;
 
 import com.google.common.primitives.UnsignedBytes;
+import com.google.common.reflect.TypeToken;
 import lombok.Getter;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.MultiCheckpointWriter;
 import org.corfudb.runtime.collections.CorfuQueue.CorfuQueueRecord;
 import org.corfudb.runtime.collections.CorfuQueue.CorfuRecordId;
 import org.corfudb.runtime.view.AbstractViewTest;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * Created by Sundar Sridharan on May 22, 2019
@@ -67,6 +73,89 @@ public class CorfuQueueTest extends AbstractViewTest {
         assertThat(records.get(0).getRecordId().compareTo(records2.get(1).getRecordId())).isLessThan(0);
     }
 
+    @Test
+    public void pollFromCursor() {
+        final String consumer1 = "consumer1";
+        final String consumer2 = "consumer2";
+        final int batchSize = 2;
+        CorfuQueue<String>
+                corfuQueue = new CorfuQueue<>(getDefaultRuntime(), "test");
+
+        CorfuRecordId idA = corfuQueue.enqueue("a");
+        getDefaultRuntime().getObjectsView().TXBegin();
+        corfuQueue.enqueue("b");
+        CorfuRecordId idC = corfuQueue.enqueue("c");
+        getDefaultRuntime().getObjectsView().TXEnd();
+        corfuQueue.enqueue("d");
+
+        // An entry removed before it is polled is skipped
+        corfuQueue.removeEntry(idC);
+
+        assertThat(corfuQueue.peek(consumer1, batchSize)).extracting(CorfuQueueRecord::getEntry)
+                .containsExactly("a", "b");
+        List<CorfuQueueRecord<String>> batch1 = corfuQueue.poll(consumer1, batchSize);
+        assertThat(batch1).extracting(CorfuQueueRecord::getEntry).containsExactly("a", "b");
+        assertThat(batch1.get(0).getRecordId().getEntryId()).isEqualTo(idA.getEntryId());
+        assertThat(batch1.get(0).compareTo(batch1.get(1))).isLessThan(0);
+
+        corfuQueue.enqueue("e");
+        List<CorfuQueueRecord<String>> batch2 = corfuQueue.poll(consumer1, batchSize);
+        assertThat(batch2).extracting(CorfuQueueRecord::getEntry).containsExactly("d", "e");
+        assertThat(batch1.get(1).compareTo(batch2.get(0))).isLessThan(0);
+        assertThat(corfuQueue.poll(consumer1, batchSize)).isEmpty();
+
+        // Cursors of consumers are independent, and acknowledged entries are removed
+        corfuQueue.acknowledge(batch1.stream().map(CorfuQueueRecord::getRecordId)
+                .collect(Collectors.toList()));
+        assertThat(corfuQueue.size()).isEqualTo(batchSize);
+        assertThat(corfuQueue.poll(consumer2, Short.MAX_VALUE)).extracting(CorfuQueueRecord::getEntry)
+                .containsExactly("d", "e");
+
+        assertThatThrownBy(() -> corfuQueue.poll(consumer1, 0))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void pollAfterCheckpointAndTrim() {
+        final String consumer = "consumer";
+        final int batchSize = 2;
+        CorfuQueue<String>
+                corfuQueue = new CorfuQueue<>(getDefaultRuntime(), "test");
+
+        corfuQueue.enqueue("a");
+        corfuQueue.enqueue("b");
+        corfuQueue.enqueue("c");
+        assertThat(corfuQueue.poll(consumer, batchSize)).extracting(CorfuQueueRecord::getEntry)
+                .containsExactly("a", "b");
+
+        // Checkpoint the tables of the queue and trim the log
+        MultiCheckpointWriter<CorfuTable> mcw = new MultiCheckpointWriter<>();
+        for (String streamName : Arrays.asList("test", "test$commitOrders", "test$cursors")) {
+            mcw.addMap(getDefaultRuntime().getObjectsView().build()
+                    .setTypeToken(new TypeToken<CorfuTable>() {})
+                    .setStreamName(streamName)
+                    .open());
+        }
+        Token trimAddress = mcw.appendCheckpoints(getDefaultRuntime(), "author");
+        getDefaultRuntime().getAddressSpaceView().prefixTrim(trimAddress);
+        getDefaultRuntime().getAddressSpaceView().gc();
+        getDefaultRuntime().getAddressSpaceView().invalidateServerCaches();
+        getDefaultRuntime().getAddressSpaceView().invalidateClientCache();
+
+        // The commit order is part of the checkpoint, so a new client resumes from the cursor
+        CorfuRuntime rt2 = getNewRuntime(getDefaultNode()).connect();
+        CorfuQueue<String> corfuQueue2 = new CorfuQueue<>(rt2, "test");
+        corfuQueue2.enqueue("d");
+        assertThat(corfuQueue2.poll(consumer, batchSize)).extracting(CorfuQueueRecord::getEntry)
+                .containsExactly("c", "d");
+
+        // Entries which weren't acknowledged are polled again after a reset
+        corfuQueue2.resetCursor(consumer);
+        assertThat(corfuQueue2.poll(consumer, Short.MAX_VALUE)).extracting(CorfuQueueRecord::getEntry)
+                .containsExactly("a", "b", "c", "d");
+    }
+
     @Test
     public void queueWithSecondaryIndexCheck() {
         CorfuQueue<String>
@@ -12,15 +12,19 @@ import org.corfudb.runtime.CorfuStoreMetadata.Timestamp;
 import org.corfudb.runtime.view.AbstractViewTest;
 import org.corfudb.test.SampleSchema;
 import org.corfudb.test.SampleSchema.EventInfo;
+import org.corfudb.test.SampleSchema.SortedEventInfo;
 import org.corfudb.test.SampleSchema.Uuid;
 import org.junit.Test;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.google.protobuf.DescriptorProtos.DescriptorProto;
@@ -32,6 +36,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.corfudb.test.SampleAppliance.Appliance;
 import static org.corfudb.test.SampleSchema.FirewallRule;
+import static org.corfudb.test.SampleSchema.LogicalSwitch;
 import static org.corfudb.test.SampleSchema.ManagedResources;
 
 /**
@@ -436,6 +441,317 @@ public class CorfuStoreTest extends AbstractViewTest {
         printMessage(data, fileDescriptorProtoMap);
     }
 
+    private Uuid getUuid(String name, int i) {
+        UUID uuid = UUID.nameUUIDFromBytes((name + i).getBytes());
+        return Uuid.newBuilder()
+                .setMsb(uuid.getMostSignificantBits())
+                .setLsb(uuid.getLeastSignificantBits())
+                .build();
+    }
+
+    /**
+     * Equi-joins are executed as hash joins, or as index lookups when the join field
+     * of the inner table is a secondary key.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void equiJoinQueryTest() throws Exception {
+        CorfuRuntime corfuRuntime = getDefaultRuntime();
+        CorfuStore corfuStore = new CorfuStore(corfuRuntime);
+        final String nsxManager = "nsx-manager";
+        final String events = "EventInfo";
+        final String rules = "FirewallRule";
+        final String switches = "LogicalSwitch";
+        final String empty = "EmptySwitch";
+
+        corfuStore.openTable(nsxManager, events, Uuid.class, EventInfo.class,
+                ManagedResources.class, TableOptions.builder().build());
+        corfuStore.openTable(nsxManager, rules, Uuid.class, FirewallRule.class,
+                ManagedResources.class, TableOptions.builder().build());
+        corfuStore.openTable(nsxManager, switches, Uuid.class, LogicalSwitch.class,
+                ManagedResources.class, TableOptions.builder().build());
+        corfuStore.openTable(nsxManager, empty, Uuid.class, LogicalSwitch.class,
+                ManagedResources.class, TableOptions.builder().build());
+
+        final int numEvents = 100;
+        final int numRules = 50;
+        final int numSwitches = 10;
+        ManagedResources metadata = ManagedResources.newBuilder().setCreateUser("MrProto").build();
+
+        TxBuilder tx = corfuStore.tx(nsxManager);
+        for (int i = 0; i < numEvents; i++) {
+            tx.update(events, getUuid(events, i), EventInfo.newBuilder()
+                    .setId(i)
+                    .setName("event_" + i)
+                    .setEventTime(i)
+                    .build(), metadata);
+        }
+        // Rule ids are the even event times.
+        for (int i = 0; i < numRules; i++) {
+            tx.update(rules, getUuid(rules, i), FirewallRule.newBuilder()
+                    .setRuleId(i * 2)
+                    .setRuleName("rule_" + i)
+                    .build(), metadata);
+        }
+        // Switch ids are multiples of the number of switches.
+        for (int i = 0; i < numSwitches; i++) {
+            tx.update(switches, getUuid(switches, i), LogicalSwitch.newBuilder()
+                    .setSwitchId(i * numSwitches)
+                    .build(), metadata);
+        }
+        tx.commit();
+
+        Query q = corfuStore.query(nsxManager);
+
+        // Hash join.
+        QueryResult<String> hashJoin = q.executeEquiJoinQuery(events, rules,
+                entry -> true,
+                entry -> true,
+                event -> ((EventInfo) event).getEventTime(),
+                rule -> ((FirewallRule) rule).getRuleId(),
+                (event, rule) -> ((EventInfo) event).getName() + ":" + ((FirewallRule) rule).getRuleName(),
+                null);
+        assertThat(hashJoin.getResult())
+                .hasSize(numRules)
+                .contains("event_0:rule_0", "event_98:rule_49");
+
+        // Index join, rule_id is a secondary key of the rules.
+        QueryOptions<Uuid, EventInfo, ManagedResources, EventInfo> eventOptions =
+                QueryOptions.QueryOptionsBuilder.<Uuid, EventInfo, ManagedResources, EventInfo>newBuilder()
+                        .setProjection(CorfuStoreEntry::getPayload)
+                        .build();
+        final long maxEventTime = 10L;
+        QueryResult<String> indexJoin = q.executeIndexJoinQuery(events, rules,
+                entry -> entry.getPayload().getEventTime() < maxEventTime,
+                entry -> true,
+                eventOptions,
+                EventInfo::getEventTime,
+                "rule_id",
+                (event, rule) -> event.getName() + ":" + ((FirewallRule) rule.getPayload()).getRuleName(),
+                null);
+        assertThat(indexJoin.getResult())
+                .containsExactlyInAnyOrder("event_0:rule_0", "event_2:rule_1", "event_4:rule_2",
+                        "event_6:rule_3", "event_8:rule_4");
+
+        // The id of the events isn't a secondary key, this is executed as a hash join.
+        QueryOptions<Uuid, FirewallRule, ManagedResources, FirewallRule> ruleOptions =
+                QueryOptions.QueryOptionsBuilder.<Uuid, FirewallRule, ManagedResources, FirewallRule>newBuilder()
+                        .setProjection(CorfuStoreEntry::getPayload)
+                        .build();
+        QueryResult<String> fieldJoin = q.executeIndexJoinQuery(rules, events,
+                entry -> true,
+                entry -> true,
+                ruleOptions,
+                rule -> (int) rule.getRuleId(),
+                "id",
+                (rule, event) -> rule.getRuleName() + ":" + ((EventInfo) event.getPayload()).getName(),
+                null);
+        assertThat(fieldJoin.getResult())
+                .hasSize(numRules)
+                .contains("rule_0:event_0", "rule_49:event_98");
+
+        assertThatThrownBy(() -> q.executeIndexJoinQuery(rules, events,
+                entry -> true,
+                entry -> true,
+                ruleOptions,
+                rule -> (int) rule.getRuleId(),
+                "undefined",
+                (rule, event) -> rule,
+                null)).isExactlyInstanceOf(IllegalArgumentException.class);
+
+        // Multi-way join on a common key.
+        Function<Message, ?> joinKey = message -> {
+            if (message instanceof EventInfo) {
+                return ((EventInfo) message).getEventTime();
+            } else if (message instanceof FirewallRule) {
+                return ((FirewallRule) message).getRuleId();
+            }
+            return ((LogicalSwitch) message).getSwitchId();
+        };
+        QueryResult<List<Object>> multiJoin = q.executeMultiJoinQuery(
+                Arrays.asList(events, rules, switches), joinKey, arguments -> arguments);
+        assertThat(multiJoin.getResult()).hasSize(numSwitches);
+        multiJoin.getResult().forEach(arguments -> {
+            assertThat(arguments.get(0)).isInstanceOf(EventInfo.class);
+            assertThat(arguments.get(1)).isInstanceOf(FirewallRule.class);
+            assertThat(arguments.get(2)).isInstanceOf(LogicalSwitch.class);
+            assertThat(((EventInfo) arguments.get(0)).getEventTime() % numSwitches).isZero();
+        });
+
+        assertThat(q.executeMultiJoinQuery(Arrays.asList(events, empty), joinKey, arguments -> arguments)
+                .getResult()).isEmpty();
+    }
+
+    /**
+     * Fields tagged as sorted_secondary_key support range, prefix and top-K queries.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void sortedIndexQueryTest() throws Exception {
+        CorfuRuntime corfuRuntime = getDefaultRuntime();
+        CorfuStore corfuStore = new CorfuStore(corfuRuntime);
+        final String nsxManager = "nsx-manager";
+        final String tableName = "SortedEventInfo";
+
+        corfuStore.openTable(nsxManager, tableName, Uuid.class, SortedEventInfo.class,
+                ManagedResources.class, TableOptions.builder().build());
+
+        final int count = 100;
+        final int frequencies = 10;
+        ManagedResources metadata = ManagedResources.newBuilder().setCreateUser("MrProto").build();
+        TxBuilder tx = corfuStore.tx(nsxManager);
+        for (int i = 0; i < count; i++) {
+            tx.update(tableName, getUuid(tableName, i), SortedEventInfo.newBuilder()
+                    .setId(i)
+                    .setName(String.format("event_%02d", i))
+                    .setFrequency(i % frequencies)
+                    .build(), metadata);
+        }
+        tx.commit();
+
+        Query q = corfuStore.query(nsxManager);
+
+        final int from = 3;
+        final int to = 5;
+        Collection<Integer> range = q.getByIndexRange(tableName, "frequency", from, true, to, false)
+                .getResult()
+                .stream()
+                .map(entry -> ((SortedEventInfo) entry.getValue()).getFrequency())
+                .collect(Collectors.toList());
+        assertThat(range).hasSize((to - from) * count / frequencies);
+        assertThat(range).isSorted();
+
+        final int topK = 3;
+        List<String> latest = q.getByIndexTopK(tableName, "name", topK, true)
+                .getResult()
+                .stream()
+                .map(entry -> ((SortedEventInfo) entry.getValue()).getName())
+                .collect(Collectors.toList());
+        assertThat(latest).containsExactly("event_99", "event_98", "event_97");
+
+        List<String> prefix = q.getByIndexPrefix(tableName, "name", "event_1")
+                .getResult()
+                .stream()
+                .map(entry -> ((SortedEventInfo) entry.getValue()).getName())
+                .collect(Collectors.toList());
+        assertThat(prefix).hasSize(frequencies).startsWith("event_10").endsWith("event_19");
+
+        assertThatThrownBy(() -> q.getByIndexRange(tableName, "event_time", 0L, true, 1L, true))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Paginated queries return disjoint pages read at the snapshot of the first page.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void paginatedQueryTest() throws Exception {
+        CorfuRuntime corfuRuntime = getDefaultRuntime();
+        CorfuStore corfuStore = new CorfuStore(corfuRuntime);
+        final String nsxManager = "nsx-manager";
+        final String tableName = "EventInfo";
+
+        corfuStore.openTable(nsxManager, tableName, Uuid.class, EventInfo.class,
+                ManagedResources.class, TableOptions.builder().build());
+
+        final int count = 100;
+        final int pageSize = 30;
+        ManagedResources metadata = ManagedResources.newBuilder().setCreateUser("MrProto").build();
+        TxBuilder tx = corfuStore.tx(nsxManager);
+        for (int i = 0; i < count; i++) {
+            tx.update(tableName, getUuid(tableName, i), EventInfo.newBuilder()
+                    .setId(i)
+                    .setName("event_" + i)
+                    .build(), metadata);
+        }
+        tx.commit();
+
+        Query q = corfuStore.query(nsxManager);
+        QueryOptions<Uuid, EventInfo, ManagedResources, Integer> options =
+                QueryOptions.QueryOptionsBuilder.<Uuid, EventInfo, ManagedResources, Integer>newBuilder()
+                        .setProjection(entry -> entry.getPayload().getId())
+                        .build();
+
+        List<Integer> ids = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        CorfuStoreMetadata.QueryCursor cursor = null;
+        do {
+            PaginatedQueryResult<Integer> page = q.executePaginatedQuery(tableName,
+                    entry -> entry.getPayload().getId() % 2 == 0, options, pageSize, cursor);
+            ids.addAll(page.getResult());
+            pageSizes.add(page.getResult().size());
+            cursor = page.getCursor();
+
+            // Updates after the first page aren't visible to the next pages
+            corfuStore.tx(nsxManager)
+                    .update(tableName, getUuid(tableName, count + ids.size()), EventInfo.newBuilder()
+                            .setId(count + ids.size() * 2)
+                            .build(), metadata)
+                    .commit();
+        } while (cursor != null);
+
+        assertThat(pageSizes).containsExactly(pageSize, count / 2 - pageSize);
+        assertThat(ids).doesNotHaveDuplicates().hasSize(count / 2).allMatch(id -> id < count);
+    }
+
+    /**
+     * Scans of in-memory and disk-backed tables are run in parallel by the scan pool of the runtime.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void parallelScanTest() throws Exception {
+        getDefaultRuntime();
+        final int scanParallelism = 4;
+        CorfuRuntime corfuRuntime = getNewRuntime(CorfuRuntime.CorfuRuntimeParameters.builder()
+                .scanParallelism(scanParallelism)
+                .build())
+                .parseConfigurationString(getDefaultConfigurationString())
+                .connect();
+        assertThat(corfuRuntime.getScanPool().getParallelism()).isEqualTo(scanParallelism);
+
+        CorfuStore corfuStore = new CorfuStore(corfuRuntime);
+        final String nsxManager = "nsx-manager";
+        final String inMemoryTable = "InMemoryEventInfo";
+        final String diskBackedTable = "DiskBackedEventInfo";
+
+        corfuStore.openTable(nsxManager, inMemoryTable, Uuid.class, EventInfo.class,
+                ManagedResources.class, TableOptions.builder().build());
+        corfuStore.openTable(nsxManager, diskBackedTable, Uuid.class, EventInfo.class,
+                ManagedResources.class, TableOptions.builder()
+                        .persistentDataPath(Paths.get(PARAMETERS.TEST_TEMP_DIR))
+                        .build());
+
+        final int count = 1000;
+        final int frequencies = 10;
+        ManagedResources metadata = ManagedResources.newBuilder().setCreateUser("MrProto").build();
+        TxBuilder tx = corfuStore.tx(nsxManager);
+        for (int i = 0; i < count; i++) {
+            EventInfo event = EventInfo.newBuilder()
+                    .setId(i)
+                    .setName("event_" + i)
+                    .setFrequency(i % frequencies)
+                    .build();
+            tx.update(inMemoryTable, getUuid(inMemoryTable, i), event, metadata);
+            tx.update(diskBackedTable, getUuid(diskBackedTable, i), event, metadata);
+        }
+        tx.commit();
+
+        Query q = corfuStore.query(nsxManager);
+        for (String tableName : Arrays.asList(inMemoryTable, diskBackedTable)) {
+            assertThat(q.count(tableName, null,
+                    entry -> ((EventInfo) entry.getPayload()).getFrequency() == 0))
+                    .isEqualTo(count / frequencies);
+
+            QueryResult<CorfuStoreEntry<Uuid, EventInfo, ManagedResources>> queryResult =
+                    q.executeQuery(tableName, entry -> ((EventInfo) entry.getPayload()).getId() < frequencies);
+            assertThat(queryResult.getResult()).hasSize(frequencies);
+        }
+    }
+
     void printMessage(byte[] data, Map<String, FileDescriptorProto> map) throws Exception {
 
         FileDescriptor firewallDescriptor = getDescriptors("sample_schema.proto", map);
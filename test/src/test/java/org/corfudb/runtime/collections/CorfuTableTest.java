@@ -232,6 +232,100 @@ public class CorfuTableTest extends AbstractViewTest {
                 .containsExactly("a");
     }
 
+    /**
+     * Sorted indexes support range, prefix and ordered limit queries.
+     */
+    @Test
+    public void canReadFromSortedIndex() {
+        CorfuTable<String, String>
+                corfuTable = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringIndexer.SortedIndex())
+                .setStreamName("test")
+                .open();
+
+        corfuTable.put("k1", "b");
+        corfuTable.put("k2", "ab");
+        corfuTable.put("k3", "c");
+        corfuTable.put("k4", "a");
+        corfuTable.put("k5", "abc");
+
+        final Index.Name index = StringIndexer.SortedIndex.SORTED_BY_VALUE;
+        assertThat(project(corfuTable.getByIndexRange(index, "ab", true, "c", false,
+                false, Integer.MAX_VALUE)))
+                .containsExactly("ab", "abc", "b");
+        assertThat(project(corfuTable.getByIndexRange(index, "ab", false, null, true,
+                true, Integer.MAX_VALUE)))
+                .containsExactly("c", "b", "abc");
+        assertThat(project(corfuTable.getByIndexRange(index, null, true, null, true,
+                true, 2)))
+                .containsExactly("c", "b");
+        assertThat(project(corfuTable.getByIndexPrefix(index, "ab", Integer.MAX_VALUE)))
+                .containsExactly("ab", "abc");
+        assertThat(project(corfuTable.getByIndex(index, "b")))
+                .containsExactly("b");
+
+        // Updates and removes are reflected in the sorted index
+        corfuTable.put("k1", "d");
+        corfuTable.remove("k2");
+        assertThat(project(corfuTable.getByIndexRange(index, null, true, null, true,
+                false, Integer.MAX_VALUE)))
+                .containsExactly("a", "abc", "c", "d");
+
+        // Aborted updates are rolled back
+        getDefaultRuntime().getObjectsView().TXBegin();
+        corfuTable.put("k6", "aa");
+        corfuTable.remove("k4");
+        assertThat(project(corfuTable.getByIndexPrefix(index, "a", Integer.MAX_VALUE)))
+                .containsExactly("aa", "abc");
+        getDefaultRuntime().getObjectsView().TXAbort();
+
+        assertThat(project(corfuTable.getByIndexPrefix(index, "a", Integer.MAX_VALUE)))
+                .containsExactly("a", "abc");
+
+        // The exact-match indexes can't be scanned
+        Assertions.assertThatThrownBy(() -> corfuTable.getByIndexRange(StringIndexer.BY_VALUE,
+                "a", true, "b", true, false, Integer.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Null index keys are ordered first in a sorted index, and prefix queries are
+     * restricted to indexes keyed by strings.
+     */
+    @Test
+    public void sortedIndexKeys() {
+        CorfuTable<String, String>
+                corfuTable = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringIndexer.SortedIndex())
+                .setStreamName("test")
+                .open();
+
+        corfuTable.put("k1", "a.y");
+        corfuTable.put("k2", "b");
+        corfuTable.put("k3", "c.x");
+
+        final Index.Name index = StringIndexer.SortedIndex.SORTED_BY_SUFFIX;
+        assertThat(project(corfuTable.getByIndex(index, null)))
+                .containsExactly("b");
+        assertThat(project(corfuTable.getByIndexRange(index, null, true, null, true,
+                false, Integer.MAX_VALUE)))
+                .containsExactly("b", "c.x", "a.y");
+        assertThat(project(corfuTable.getByIndexRange(index, "x", true, null, true,
+                false, Integer.MAX_VALUE)))
+                .containsExactly("c.x", "a.y");
+        assertThat(project(corfuTable.getByIndexPrefix(index, "", Integer.MAX_VALUE)))
+                .containsExactly("c.x", "a.y");
+
+        corfuTable.remove("k2");
+        assertThat(corfuTable.getByIndex(index, null)).isEmpty();
+
+        Assertions.assertThatThrownBy(() -> corfuTable.getByIndexPrefix(
+                StringIndexer.SortedIndex.SORTED_BY_LENGTH, "1", Integer.MAX_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     /**
      * Ensure that {@link StreamingMap#entryStream()} always operates on a snapshot.
      * If it does not, this test will throw {@link ConcurrentModificationException}.
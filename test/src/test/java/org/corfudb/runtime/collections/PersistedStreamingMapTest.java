@@ -0,0 +1,141 @@
+package org.corfudb.runtime.collections;
+
+import org.corfudb.runtime.collections.PersistedStreamingMap.Persistence;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.util.serializer.Serializers;
+import org.junit.Test;
+import org.rocksdb.Options;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistedStreamingMapTest extends AbstractViewTest {
+
+    private PersistedStreamingMap<String, String> openMap(Persistence persistence) {
+        Path path = Paths.get(PARAMETERS.TEST_TEMP_DIR, "persistedMap");
+        return new PersistedStreamingMap<>(path, new Options().setCreateIfMissing(true),
+                Serializers.JAVA, getDefaultRuntime(), persistence);
+    }
+
+    @Test
+    public void durableMapSurvivesReopen() {
+        final long version = 5L;
+        final int numEntries = 10;
+
+        PersistedStreamingMap<String, String> map = openMap(Persistence.DURABLE);
+        assertThat(map.getPersistedVersion()).isEqualTo(Address.NON_ADDRESS);
+
+        map.startBatch();
+        for (int i = 0; i < numEntries; i++) {
+            map.put("k" + i, "v" + i);
+        }
+        // The updates of a batch are visible to its own reads
+        assertThat(map.get("k0")).isEqualTo("v0");
+        map.remove("k0");
+        assertThat(map.containsKey("k0")).isFalse();
+        map.commitBatch(version);
+        assertThat(map.size()).isEqualTo(numEntries - 1);
+
+        // An uncommitted batch is lost
+        map.startBatch();
+        map.put("uncommitted", "v");
+        map.close();
+
+        map = openMap(Persistence.DURABLE);
+        assertThat(map.getPersistedVersion()).isEqualTo(version);
+        assertThat(map.size()).isEqualTo(numEntries - 1);
+        assertThat(map.get("k1")).isEqualTo("v1");
+        assertThat(map.get("uncommitted")).isNull();
+
+        // The iteration reads from a snapshot, which isn't affected by updates
+        try (Stream<Map.Entry<String, String>> entries = map.entryStream()) {
+            map.put("k" + numEntries, "v" + numEntries);
+            assertThat(entries.map(Map.Entry::getKey).collect(Collectors.toList()))
+                    .hasSize(numEntries - 1)
+                    .doesNotContain("k0", "k" + numEntries);
+        }
+
+        map.discardPersistedState();
+        assertThat(map.isEmpty()).isTrue();
+        map.close();
+
+        map = openMap(Persistence.DURABLE);
+        assertThat(map.getPersistedVersion()).isEqualTo(Address.NON_ADDRESS);
+        assertThat(map.isEmpty()).isTrue();
+        map.close();
+    }
+
+    @Test
+    public void durableMapIsClearedInBatch() {
+        final long version = 1L;
+        final int numEntries = 10;
+
+        PersistedStreamingMap<String, String> map = openMap(Persistence.DURABLE);
+        for (int i = 0; i < numEntries; i++) {
+            map.put("k" + i, "v" + i);
+        }
+
+        // A clear deletes the committed entries and the entries of its own batch
+        map.startBatch();
+        map.put("batched", "v");
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get("k0")).isNull();
+        assertThat(map.get("batched")).isNull();
+        map.put("k0", "updated");
+        map.commitBatch(version);
+        map.close();
+
+        map = openMap(Persistence.DURABLE);
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.get("k0")).isEqualTo("updated");
+        assertThat(map.get("k1")).isNull();
+        map.close();
+    }
+
+    @Test
+    public void durableMapIsIndexedOnResume() {
+        final long version = 5L;
+
+        PersistedStreamingMap<String, String> map = openMap(Persistence.DURABLE);
+        map.startBatch();
+        map.put("k1", "apple");
+        map.put("k2", "avocado");
+        map.put("k3", "banana");
+        map.commitBatch(version);
+        map.close();
+
+        PersistedStreamingMap<String, String> resumedMap = openMap(Persistence.DURABLE);
+        CorfuTable<String, String> table = new CorfuTable<>(new StringIndexer(), () -> resumedMap);
+        assertThat(table.getPersistedVersion()).isEqualTo(version);
+        assertThat(table.getByIndex(StringIndexer.BY_FIRST_LETTER, "a"))
+                .extracting(Map.Entry::getKey)
+                .containsExactlyInAnyOrder("k1", "k2");
+        assertThat(table.getByIndex(StringIndexer.BY_VALUE, "banana"))
+                .extracting(Map.Entry::getKey)
+                .containsExactly("k3");
+        table.close();
+    }
+
+    @Test
+    public void nonDurableMapIsRebuilt() {
+        final long version = 5L;
+
+        PersistedStreamingMap<String, String> map = openMap(Persistence.NON_DURABLE);
+        map.put("k", "v");
+        map.commitBatch(version);
+        map.close();
+
+        map = openMap(Persistence.NON_DURABLE);
+        assertThat(map.getPersistedVersion()).isEqualTo(Address.NON_ADDRESS);
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get("k")).isNull();
+        map.close();
+    }
+}
@@ -40,6 +40,52 @@ public class StringIndexer implements Index.Registry<String, String> {
         }
     }
 
+    public static class SortedIndex extends StringIndexer {
+        public static final Index.Name SORTED_BY_VALUE = () -> "SORTED_BY_VALUE";
+        public static final Index.Name SORTED_BY_LENGTH = () -> "SORTED_BY_LENGTH";
+        public static final Index.Name SORTED_BY_SUFFIX = () -> "SORTED_BY_SUFFIX";
+
+        private static final Index.Spec<String, String, ? extends Comparable<?>> SORTED_BY_VALUE_INDEX =
+                new Index.Spec<>(
+                        SORTED_BY_VALUE,
+                        (Index.Function<String, String, String>) (key, val) -> val,
+                        true);
+
+        private static final Index.Spec<String, String, ? extends Comparable<?>> SORTED_BY_LENGTH_INDEX =
+                new Index.Spec<>(
+                        SORTED_BY_LENGTH,
+                        (Index.Function<String, String, Integer>) (key, val) -> val.length(),
+                        true);
+
+        // The part of the value after its first '.', null if there is none
+        private static final Index.Spec<String, String, ? extends Comparable<?>> SORTED_BY_SUFFIX_INDEX =
+                new Index.Spec<>(
+                        SORTED_BY_SUFFIX,
+                        (Index.Function<String, String, String>) (key, val) ->
+                                val.indexOf('.') < 0 ? null : val.substring(val.indexOf('.') + 1),
+                        true);
+
+        @Override
+        public Iterator<Index.Spec<String, String, ? extends Comparable<?>>> iterator() {
+            return Stream.of(BY_VALUE_INDEX, BY_FIRST_LETTER_INDEX, SORTED_BY_VALUE_INDEX,
+                    SORTED_BY_LENGTH_INDEX, SORTED_BY_SUFFIX_INDEX).iterator();
+        }
+
+        @Override
+        public Optional<Index.Spec<String, String, ? extends Comparable<?>>> get(Index.Name name) {
+            String indexName = (name != null) ? name.get() : null;
+
+            if (SORTED_BY_VALUE.get().equals(indexName)) {
+                return Optional.of(SORTED_BY_VALUE_INDEX);
+            } else if (SORTED_BY_LENGTH.get().equals(indexName)) {
+                return Optional.of(SORTED_BY_LENGTH_INDEX);
+            } else if (SORTED_BY_SUFFIX.get().equals(indexName)) {
+                return Optional.of(SORTED_BY_SUFFIX_INDEX);
+            }
+            return super.get(name);
+        }
+    }
+
     public static class FailingIndex extends StringIndexer {
         public static final Index.Name FAILING = () -> "FAILING";
 
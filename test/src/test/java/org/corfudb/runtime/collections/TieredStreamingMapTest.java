@@ -0,0 +1,112 @@
+package org.corfudb.runtime.collections;
+
+import com.codahale.metrics.MetricRegistry;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.collections.PersistedStreamingMap.Persistence;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.corfudb.util.CorfuComponent;
+import org.corfudb.util.serializer.Serializers;
+import org.junit.Test;
+import org.rocksdb.Options;
+
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TieredStreamingMapTest extends AbstractViewTest {
+
+    private static final String TABLE_NAME = "tieredTable";
+
+    private TieredStreamingMap<String, String> openMap(long cacheSize) {
+        return openMap(cacheSize, Persistence.NON_DURABLE);
+    }
+
+    private TieredStreamingMap<String, String> openMap(long cacheSize, Persistence persistence) {
+        PersistedStreamingMap<String, String> persistedMap = new PersistedStreamingMap<>(
+                Paths.get(PARAMETERS.TEST_TEMP_DIR, TABLE_NAME), new Options().setCreateIfMissing(true),
+                Serializers.JAVA, getDefaultRuntime(), persistence);
+        return new TieredStreamingMap<>(persistedMap, cacheSize, TABLE_NAME);
+    }
+
+    private long getCount(String name) {
+        MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        return metrics.counter(CorfuComponent.OBJECT + "tiered-map." + TABLE_NAME + "." + name).getCount();
+    }
+
+    @Test
+    public void hotEntriesAreCached() {
+        final int cacheSize = 10;
+        final int numEntries = 100;
+        final int numReads = 5;
+        TieredStreamingMap<String, String> map = openMap(cacheSize);
+
+        final long hits = getCount("hit");
+        final long misses = getCount("miss");
+        final long spills = getCount("spill");
+
+        for (int i = 0; i < numEntries; i++) {
+            map.put("k" + i, "v" + i);
+        }
+        assertThat(map.size()).isEqualTo(numEntries);
+        assertThat(getCount("spill") - spills).isGreaterThan(0);
+
+        // All the entries are readable, whether they are cached or not
+        for (int i = 0; i < numEntries; i++) {
+            assertThat(map.get("k" + i)).isEqualTo("v" + i);
+        }
+        assertThat(map.get("missing")).isNull();
+        assertThat(getCount("miss") - misses).isGreaterThan(0);
+
+        // A frequently read entry stays cached
+        for (int i = 0; i < numReads; i++) {
+            map.get("k0");
+        }
+        final long hotHits = getCount("hit");
+        assertThat(map.get("k0")).isEqualTo("v0");
+        assertThat(getCount("hit")).isEqualTo(hotHits + 1);
+        assertThat(hotHits).isGreaterThan(hits);
+
+        // Updates are written through
+        map.put("k0", "updated");
+        map.remove("k1");
+        assertThat(map.get("k0")).isEqualTo("updated");
+        assertThat(map.get("k1")).isNull();
+        assertThat(map.getPersistedMap().get("k0")).isEqualTo("updated");
+        try (Stream<?> entries = map.entryStream()) {
+            assertThat(entries.count()).isEqualTo(numEntries - 1);
+        }
+
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get("k0")).isNull();
+        map.close();
+    }
+
+    @Test
+    public void batchUpdatesAreCachedOnCommit() {
+        final int cacheSize = 10;
+        TieredStreamingMap<String, String> map = openMap(cacheSize, Persistence.DURABLE);
+        map.put("k", "v1");
+        assertThat(map.get("k")).isEqualTo("v1");
+
+        // The updates of a pending batch are only visible to the batch
+        map.startBatch();
+        map.put("k", "v2");
+        map.remove("removed");
+        assertThat(map.get("k")).isEqualTo("v2");
+        assertThat(CompletableFuture.supplyAsync(() -> map.get("k")).join()).isEqualTo("v1");
+
+        map.commitBatch(0L);
+        assertThat(CompletableFuture.supplyAsync(() -> map.get("k")).join()).isEqualTo("v2");
+
+        // A discarded batch leaves nothing in the cache
+        map.startBatch();
+        map.put("k", "v3");
+        map.discardPersistedState();
+        assertThat(map.get("k")).isNull();
+        assertThat(CompletableFuture.supplyAsync(() -> map.get("k")).join()).isNull();
+        map.close();
+    }
+}
@@ -1,6 +1,9 @@
 package org.corfudb.runtime.object;
 
 import com.google.common.reflect.TypeToken;
+import org.assertj.core.data.MapEntry;
+import org.corfudb.protocols.logprotocol.ISMRConsumable;
+import org.corfudb.protocols.logprotocol.SMREntry;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.collections.SMRMap;
@@ -8,10 +11,13 @@ import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.view.AbstractViewTest;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -41,6 +47,40 @@ public class CompileProxyTest extends AbstractViewTest {
                 .containsEntry("hell", "world");
     }
 
+    @Test
+    public void testCompactSMREntries() throws Exception {
+        CorfuRuntime rt = getDefaultRuntime();
+        rt.getParameters().setCompactSMREntries(true);
+        String streamName = "my stream";
+        UUID streamId = CorfuRuntime.getStreamID(streamName);
+
+        Map<String, String> map = rt.getObjectsView().build()
+                .setStreamName(streamName)
+                .setTypeToken(new TypeToken<SMRMap<String, String>>() {})
+                .open();
+
+        map.put("k1", "v1");
+        rt.getObjectsView().TXBegin();
+        map.put("k2", "v2");
+        map.remove("k1");
+        rt.getObjectsView().TXEnd();
+
+        // The updates are serialized with the ids of their SMR methods
+        List<SMREntry> updates = rt.getStreamsView().get(streamId).remaining().stream()
+                .flatMap(data -> ((ISMRConsumable) data.getPayload(rt)).getSMRUpdates(streamId).stream())
+                .collect(Collectors.toList());
+        assertThat(updates).extracting(SMREntry::getSMRMethod).containsExactly("put", "put", "remove");
+        assertThat(updates).extracting(SMREntry::getSMRMethodId).containsExactly(0, 0, 1);
+
+        // A new runtime applies the updates by method id
+        CorfuRuntime rt2 = getNewRuntime(getDefaultNode()).connect();
+        Map<String, String> map2 = rt2.getObjectsView().build()
+                .setStreamName(streamName)
+                .setTypeToken(new TypeToken<SMRMap<String, String>>() {})
+                .open();
+        assertThat(map2).containsOnly(MapEntry.entry("k2", "v2"));
+    }
+
     @Test
     public void testTrimmedObject() throws Exception {
         CorfuRuntime rt = getDefaultRuntime();
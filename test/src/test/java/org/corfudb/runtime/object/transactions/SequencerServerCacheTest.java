@@ -2,23 +2,19 @@ package org.corfudb.runtime.object.transactions;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-import com.github.benmanes.caffeine.cache.CacheWriter;
-import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.primitives.Ints;
 import com.google.common.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.infrastructure.SequencerServer;
 import org.corfudb.infrastructure.SequencerServerCache;
-import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.collections.SMRMap;
 import org.corfudb.runtime.object.AbstractObjectTest;
+import org.corfudb.runtime.view.Address;
 import org.junit.Test;
 
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Created by maithem on 7/24/17.
@@ -60,38 +56,68 @@ public class SequencerServerCacheTest extends AbstractObjectTest {
      */
     @Test
     public void testCache() {
-        final AtomicBoolean criticalVariable = new AtomicBoolean();
-
-        SequencerServerCache cache = new SequencerServerCache(1, new CacheWriter<ConflictTxStream, Long>() {
-            @Override
-            public void write(@Nonnull ConflictTxStream key, @Nonnull Long value) {
-                log.info("Write: [{}, {}]. Thread: {}", key, value, Thread.currentThread().getName());
-            }
-
-            @Override
-            public void delete(@Nonnull ConflictTxStream key, @Nullable Long value, @Nonnull RemovalCause cause) {
-                log.info("Delete record: {}. Thread: {}", key, Thread.currentThread().getName());
-                criticalVariable.set(true);
-            }
-        });
-
-        final ConflictTxStream firstKey = new ConflictTxStream(UUID.randomUUID(), new byte[]{});
-        final ConflictTxStream secondKey = new ConflictTxStream(UUID.randomUUID(), new byte[]{});
+        SequencerServerCache cache = new SequencerServerCache(1);
+
+        final UUID firstKey = UUID.randomUUID();
+        final UUID secondKey = UUID.randomUUID();
+        final byte[] conflictParam = new byte[]{};
         final long firstValue = 1L;
         final long secondValue = 2L;
         final int iterations = 10;
 
         for (int i = 0; i < iterations; i++) {
-            criticalVariable.set(false);
-
-            cache.put(firstKey, firstValue);
-            cache.put(secondKey, secondValue);
+            cache.put(firstKey, conflictParam, firstValue);
+            cache.put(secondKey, conflictParam, secondValue);
 
+            // The eviction of the first key is reflected in the wildcard
             assertThat(cache.size()).isOne();
-            assertThat(cache.getIfPresent(firstKey)).isNull();
+            assertThat(cache.get(firstKey, conflictParam)).isEqualTo(Address.NON_ADDRESS);
+            assertThat(cache.get(secondKey, conflictParam)).isEqualTo(secondValue);
+            assertThat(cache.getMaxConflictWildcard()).isGreaterThanOrEqualTo(firstValue);
 
             cache.invalidateAll();
             assertThat(cache.size()).isZero();
+            assertThat(cache.getMaxConflictWildcard()).isEqualTo(secondValue);
+        }
+    }
+
+    /**
+     * Check that the least recently used keys are evicted first, and that
+     * the cache can be trimmed.
+     */
+    @Test
+    public void testCacheEvictionAndTrim() {
+        final int cacheSize = 1000;
+        final UUID streamId = UUID.randomUUID();
+        SequencerServerCache cache = new SequencerServerCache(cacheSize);
+
+        for (int i = 0; i < cacheSize; i++) {
+            cache.put(streamId, Ints.toByteArray(i), i);
+        }
+        assertThat(cache.size()).isEqualTo(cacheSize);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(Address.NOT_FOUND);
+
+        // Reference the first half of the keys, the other half should be evicted first
+        for (int i = 0; i < cacheSize / 2; i++) {
+            assertThat(cache.get(streamId, Ints.toByteArray(i))).isEqualTo(i);
+        }
+        final int newKey = cacheSize;
+        cache.put(streamId, Ints.toByteArray(newKey), newKey);
+        assertThat(cache.size()).isLessThanOrEqualTo(cacheSize);
+        assertThat(cache.getMaxConflictWildcard()).isGreaterThanOrEqualTo(cacheSize / 2);
+        for (int i = 0; i < cacheSize / 2; i++) {
+            assertThat(cache.get(streamId, Ints.toByteArray(i))).isEqualTo(i);
+        }
+
+        // Trimming removes all the keys below the trim mark, wherever they are in the table.
+        // One of the keys above the trim mark may have been evicted by the new key.
+        final int remainingKeys = cacheSize / 4;
+        final long trimMark = cacheSize - remainingKeys;
+        cache.invalidateUpTo(trimMark);
+        for (int i = 0; i < trimMark; i++) {
+            assertThat(cache.get(streamId, Ints.toByteArray(i))).isEqualTo(Address.NON_ADDRESS);
         }
+        assertThat(cache.get(streamId, Ints.toByteArray(newKey))).isEqualTo(newKey);
+        assertThat(cache.size()).isBetween((long) remainingKeys, (long) remainingKeys + 1);
     }
 }
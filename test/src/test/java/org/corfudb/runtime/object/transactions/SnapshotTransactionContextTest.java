@@ -1,9 +1,16 @@
 package org.corfudb.runtime.object.transactions;
 
 import com.google.common.reflect.TypeToken;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.collections.CorfuTable;
 import org.corfudb.runtime.collections.SMRMap;
+import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.ICorfuSMRProxyInternal;
+import org.corfudb.runtime.object.VersionLockedObject;
 import org.junit.Test;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 /**
  * Created by mwei on 11/22/16.
  */
@@ -65,6 +72,55 @@ public class SnapshotTransactionContextTest extends AbstractTransactionContextTe
         t2(this::TXEnd);
     }
 
+    /** Ensure that snapshots behind a table read the past versions of its entries,
+     * without rolling back the table.
+     */
+    @Test
+    public void snapshotReadsPastVersions() {
+        final int maxVersions = 10;
+        getRuntime().getParameters().setMaxSnapshotVersions(maxVersions);
+        CorfuTable<String, String> table = getRuntime().getObjectsView().build()
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .setStreamName("versioned")
+                .open();
+
+        t1(() -> table.put("k" , "v1"));    // TS = 0
+        t1(() -> table.put("k" , "v2"));    // TS = 1
+        t1(() -> table.put("k" , "v3"));    // TS = 2
+        t1(() -> table.put("k" , "v4"));    // TS = 3
+        t1(() -> table.get("k"))
+                .assertResult().isEqualTo("v4");
+
+        VersionLockedObject<?> vlo = ((ICorfuSMRProxyInternal<?>) ((ICorfuSMR<?>) table)
+                .getCorfuSMRProxy()).getUnderlyingObject();
+        final long version = vlo.getVersionUnsafe();
+
+        // Concurrent snapshots on different versions don't interfere
+        t2(this::SnapshotTXBegin);
+        t3(() -> getRuntime().getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(new Token(0L, 0L))
+                .build()
+                .begin());
+        t2(() -> table.get("k"))
+                .assertResult().isEqualTo("v3");
+        t3(() -> table.get("k"))
+                .assertResult().isEqualTo("v1");
+        t3(() -> table.containsKey("other"))
+                .assertResult().isEqualTo(false);
+        t2(() -> table.get("k"))
+                .assertResult().isEqualTo("v3");
+        assertThat(vlo.getVersionUnsafe()).isEqualTo(version);
+
+        t1(() -> table.remove("k"));        // TS = 4
+        t2(() -> table.get("k"))
+                .assertResult().isEqualTo("v3");
+        t2(this::TXEnd);
+        t3(this::TXEnd);
+        t1(() -> table.get("k"))
+                .assertResult().isNull();
+    }
+
     /* Test if we can have implicit nested transaction for SnapshotTransactions. */
     @Test
     public void testSnapshotTxNestedImplicitTx() {
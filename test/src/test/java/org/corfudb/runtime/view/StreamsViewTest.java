@@ -42,4 +42,34 @@ public class StreamsViewTest extends AbstractViewTest {
         scheduleConcurrently(numIter, t -> streamsView.gc(trimMark));
         executeScheduled(parallelNum, PARAMETERS.TIMEOUT_NORMAL);
     }
+
+    @Test
+    public void testAppendWithTokenLease() {
+        final int leaseSize = 5;
+        final int numAppends = 3;
+        UUID id = UUID.randomUUID();
+        StreamsView streamsView = getRuntime().getStreamsView();
+        TokenLease lease = getRuntime().getSequencerView().lease(id, leaseSize);
+
+        for (int i = 0; i < numAppends; i++) {
+            assertThat(streamsView.append("payload" + i, lease, CacheOption.WRITE_THROUGH)).isEqualTo(i);
+        }
+        assertThat(lease.remaining()).isEqualTo(leaseSize - numAppends);
+        assertThat(getRuntime().getAddressSpaceView().read(numAppends - 1).getBackpointer(id))
+                .isEqualTo(numAppends - 2L);
+
+        // The unused tokens are hole-filled and the next token follows the lease
+        lease.release();
+        assertThat(lease.remaining()).isZero();
+        for (long address = numAppends; address < leaseSize; address++) {
+            assertThat(getRuntime().getAddressSpaceView().read(address).isHole()).isTrue();
+        }
+        assertThat(getRuntime().getSequencerView().next(id).getSequence()).isEqualTo(leaseSize);
+
+        IStreamView sv = streamsView.get(id);
+        for (int i = 0; i < numAppends; i++) {
+            assertThat(sv.next().getPayload(getRuntime())).isEqualTo("payload" + i);
+        }
+        assertThat(sv.next()).isNull();
+    }
 }